@@ -0,0 +1,16 @@
+package com.economy;
+
+import com.economy.config.EconomyConfig;
+import com.hypixel.hytale.server.core.util.Config;
+
+/**
+ * Substituto da classe do plugin nos benchmarks: a original estende o JavaPlugin do servidor.
+ * A tarefa {@code jmh} tira a Main real do classpath, então só {@link #CONFIG} existe aqui.
+ */
+public class Main {
+
+    public static Config<EconomyConfig> CONFIG;
+
+    private Main() {
+    }
+}
@@ -0,0 +1,59 @@
+package com.economy.benchmark;
+
+import com.economy.economy.BalanceTracker;
+import com.economy.files.BalanceBlockingFile;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Carregar e gravar o snapshot de saldos ({@link BalanceBlockingFile}) nos dois formatos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BalanceFileBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int accounts;
+
+    @Param({"json", "binary"})
+    private String format;
+
+    private BalanceBlockingFile file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        BenchmarkSupport.install(format);
+        BenchmarkSupport.writeSnapshot(BenchmarkSupport.tracker(BenchmarkSupport.uuids(accounts)), format);
+        file = new BalanceBlockingFile();
+        file.load();
+    }
+
+    @Benchmark
+    public BalanceTracker load() throws IOException {
+        BalanceBlockingFile loaded = new BalanceBlockingFile();
+        loaded.load();
+        return loaded.getTracker();
+    }
+
+    @Benchmark
+    public void save() throws IOException {
+        file.writeSnapshot();
+    }
+}
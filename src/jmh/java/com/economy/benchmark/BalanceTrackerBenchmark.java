@@ -0,0 +1,93 @@
+package com.economy.benchmark;
+
+import com.economy.economy.BalanceTracker;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leitura e CAS do saldo no {@link BalanceTracker} com várias threads.
+ * {@code hotAccounts} controla a disputa: 1 = todas as threads na mesma conta.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(4)
+public class BalanceTrackerBenchmark {
+
+    @Param({"100000"})
+    private int accounts;
+
+    @Param({"1", "64", "100000"})
+    private int hotAccounts;
+
+    private BalanceTracker tracker;
+    private UUID[] hot;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkSupport.install("json");
+        UUID[] uuids = BenchmarkSupport.uuids(accounts);
+        tracker = BenchmarkSupport.tracker(uuids);
+        hot = Arrays.copyOf(uuids, Math.min(hotAccounts, accounts));
+        // Saldo alto nas contas disputadas para os saques não falharem durante a medição
+        for (UUID uuid : hot) {
+            tracker.setBalanceUnits(uuid, Long.MAX_VALUE / 4);
+        }
+    }
+
+    private UUID pick() {
+        return hot[ThreadLocalRandom.current().nextInt(hot.length)];
+    }
+
+    @Benchmark
+    public long get() {
+        return tracker.getBalanceUnits(pick());
+    }
+
+    @Benchmark
+    public void add() {
+        tracker.addBalanceUnits(pick(), 1);
+    }
+
+    @Benchmark
+    public boolean subtract() {
+        return tracker.subtractBalanceUnits(pick(), 1);
+    }
+
+    // Três leitores e um escritor nas mesmas contas (HUD lendo enquanto recompensas creditam)
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public long mixedRead() {
+        return tracker.getBalanceUnits(pick());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mixedWrite() {
+        tracker.addBalanceUnits(pick(), 1);
+    }
+}
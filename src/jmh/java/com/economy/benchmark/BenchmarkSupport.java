@@ -0,0 +1,80 @@
+package com.economy.benchmark;
+
+import com.economy.Main;
+import com.economy.config.EconomyConfig;
+import com.economy.economy.BalanceTracker;
+import com.economy.economy.MoneyUnits;
+import com.economy.economy.PlayerBalance;
+import com.economy.files.BalanceBinarySnapshot;
+import com.economy.files.BalanceBlockingFile;
+import com.economy.util.FileUtils;
+import com.hypixel.hytale.server.core.util.Config;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Config e dados dos benchmarks. Os arquivos vão para a pasta do universo substituto
+ * (ver {@link com.hypixel.hytale.server.core.Constants}).
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Instala uma config só com armazenamento local: sem MySQL, ledger, journal nem idempotência
+     * @param snapshotFormat "json" ou "binary"
+     */
+    static EconomyConfig install(String snapshotFormat) {
+        EconomyConfig config = new EconomyConfig();
+        config.setEnableMySQL(false);
+        config.setEnableLedger(false);
+        config.setEnableBalanceJournal(false);
+        config.setIdempotencyTtlSeconds(0);
+        config.setBalanceSnapshotFormat(snapshotFormat);
+        Main.CONFIG = new Config<>(config);
+        return config;
+    }
+
+    /**
+     * @return UUIDs fixos (as mesmas contas em toda execução)
+     */
+    static UUID[] uuids(int count) {
+        UUID[] uuids = new UUID[count];
+        Random random = new Random(count);
+        for (int i = 0; i < count; i++) {
+            uuids[i] = new UUID(random.nextLong(), random.nextLong());
+        }
+        return uuids;
+    }
+
+    /**
+     * @return Tracker com uma conta por UUID e saldos aleatórios (com semente fixa) entre 0 e 1.000.000
+     */
+    static BalanceTracker tracker(UUID[] uuids) {
+        Random random = new Random(42);
+        PlayerBalance[] balances = new PlayerBalance[uuids.length];
+        for (int i = 0; i < uuids.length; i++) {
+            long units = random.nextInt(100_000_000) * MoneyUnits.factor() / 100;
+            balances[i] = PlayerBalance.ofUnits(uuids[i], "Player" + i, units, 0);
+        }
+        BalanceTracker tracker = new BalanceTracker();
+        tracker.setBalances(balances);
+        return tracker;
+    }
+
+    /**
+     * Grava o snapshot onde o EconomyManager e o BalanceBlockingFile procuram
+     */
+    static void writeSnapshot(BalanceTracker tracker, String snapshotFormat) throws IOException {
+        FileUtils.ensureMainDirectory();
+        if ("binary".equalsIgnoreCase(snapshotFormat)) {
+            BalanceBinarySnapshot.write(Path.of(FileUtils.BALANCES_BINARY_PATH), tracker);
+        } else {
+            BalanceBlockingFile.exportJson(tracker, Path.of(FileUtils.BALANCES_PATH));
+        }
+    }
+}
@@ -0,0 +1,545 @@
+package com.economy.benchmark;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import com.economy.Main;
+import com.economy.config.EconomyConfig;
+import com.economy.economy.BalanceTracker;
+import com.economy.economy.CurrencyType;
+import com.economy.economy.EconomyManager;
+import com.economy.economy.MoneyUnits;
+import com.economy.economy.PlayerBalance;
+import com.economy.economy.TransactionType;
+import com.economy.economy.TransferLeg;
+import com.economy.files.BalanceBlockingFile;
+import com.economy.playershop.PlayerShopItem;
+import com.economy.playershop.PlayerShopManager;
+import com.economy.shop.ShopItem;
+import com.economy.shop.ShopManager;
+import com.economy.storage.MySQLCircuitBreaker;
+import com.economy.util.EconomyMetrics;
+import com.economy.util.FileUtils;
+import com.economy.util.MetricsHistogram;
+import com.hypixel.hytale.server.core.util.Config;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * Teste de carga sem o servidor: N jogadores virtuais pagando, comprando e vendendo nas lojas, recebendo
+ * recompensas e atualizando a HUD, direto no EconomyManager, ShopManager e PlayerShopManager.
+ * <p>
+ * Mostra a vazão e os percentis de latência de cada operação e confere os invariantes no final: o dinheiro
+ * total bate com o que entrou e saiu (recompensas, vendas, compras e taxas), nenhum saldo fica negativo,
+ * o que foi gravado é igual ao que está em memória e o estoque das lojas de jogadores não perde baixas.
+ * Sai com código 1 se algum invariante falhar.
+ * <p>
+ * Uso: {@code ./gradlew loadTest -PloadTestArgs="--players 5000 --duration 60 --storage mysql"}
+ * <ul>
+ *   <li>{@code --players} jogadores virtuais (1000)</li>
+ *   <li>{@code --duration} segundos de carga (30)</li>
+ *   <li>{@code --threads} threads gerando carga (núcleos da máquina)</li>
+ *   <li>{@code --rate} operações por segundo no total (0 = o máximo possível). Com taxa fixa a latência é
+ *       medida a partir do horário agendado, então uma operação atrasada também conta o tempo na fila.</li>
+ *   <li>{@code --mix} pesos das operações (padrão {@code pay=30,buy=15,sell=15,playershop=10,reward=20,hud=10})</li>
+ *   <li>{@code --storage} {@code json} ou {@code mysql} (MariaDB embutido, ou o servidor de {@code --mysql-host})</li>
+ *   <li>{@code --outage} segundos com o MariaDB embutido parado, a partir de um terço da carga (0). As gravações
+ *       de saldo vão para o journal de spill e os invariantes são conferidos depois que o banco volta.</li>
+ * </ul>
+ */
+public final class EconomyLoadTest {
+
+    private static final long INITIAL_BALANCE = 10_000;
+    private static final int SHOP_ITEMS = 20;
+    private static final int PLAYER_SHOP_STOCK = 1_000_000;
+
+    private enum Operation {
+        PAY("pay", 30),
+        SHOP_BUY("buy", 15),
+        SHOP_SELL("sell", 15),
+        PLAYER_SHOP("playershop", 10),
+        REWARD("reward", 20),
+        HUD("hud", 10);
+
+        final String key;
+        final int defaultWeight;
+        final MetricsHistogram latency;
+        final LongAdder rejected;
+
+        Operation(String key, int defaultWeight) {
+            this.key = key;
+            this.defaultWeight = defaultWeight;
+            this.latency = EconomyMetrics.getInstance().histogram("loadtest." + key);
+            this.rejected = EconomyMetrics.getInstance().counter("loadtest." + key + ".rejected");
+        }
+    }
+
+    private final Map<String, String> options;
+    private final int players;
+    private final int durationSeconds;
+    private final int threads;
+    private final long rate;
+    private final Operation[] schedule;
+    private final boolean mysql;
+    private final int outageSeconds;
+
+    private UUID[] uuids;
+    private List<ShopItem> shopItems;
+    private List<PlayerShopItem> playerShopItems;
+
+    // Dinheiro que entrou (recompensas, vendas) menos o que saiu (compras, taxas), em unidades mínimas
+    private final LongAdder expectedDelta = new LongAdder();
+    private final LongAdder stockSold = new LongAdder();
+
+    private DB embeddedDb;
+    private String jdbcUrl;
+
+    private EconomyLoadTest(Map<String, String> options) {
+        this.options = options;
+        this.players = Integer.parseInt(options.getOrDefault("players", "1000"));
+        this.durationSeconds = Integer.parseInt(options.getOrDefault("duration", "30"));
+        this.threads = Integer.parseInt(options.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        this.rate = Long.parseLong(options.getOrDefault("rate", "0"));
+        this.schedule = parseMix(options.get("mix"));
+        this.mysql = "mysql".equalsIgnoreCase(options.getOrDefault("storage", "json"));
+        this.outageSeconds = Integer.parseInt(options.getOrDefault("outage", "0"));
+        if (players < 2 || durationSeconds <= 0 || threads <= 0 || rate < 0) {
+            throw new IllegalArgumentException("players >= 2, duration > 0, threads > 0 and rate >= 0 are required");
+        }
+        if (outageSeconds < 0 || (outageSeconds > 0 && (!mysql || options.containsKey("mysql-host")))) {
+            throw new IllegalArgumentException("--outage needs --storage mysql with the embedded MariaDB");
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            options.put(args[i].substring(2), args[i + 1]);
+        }
+        boolean passed = new EconomyLoadTest(options).run();
+        System.exit(passed ? 0 : 1);
+    }
+
+    /**
+     * Cada operação aparece no vetor tantas vezes quanto o seu peso; sortear uma posição escolhe a operação
+     */
+    private static Operation[] parseMix(String mix) {
+        Map<Operation, Integer> weights = new HashMap<>();
+        for (Operation operation : Operation.values()) {
+            weights.put(operation, operation.defaultWeight);
+        }
+        if (mix != null && !mix.isBlank()) {
+            weights.replaceAll((operation, weight) -> 0);
+            for (String part : mix.split(",")) {
+                String[] pair = part.trim().split("=");
+                Operation operation = Stream.of(Operation.values())
+                        .filter(candidate -> candidate.key.equalsIgnoreCase(pair[0].trim()))
+                        .findFirst()
+                        .orElseThrow(() -> new IllegalArgumentException("Unknown operation in mix: " + pair[0]));
+                weights.put(operation, Integer.parseInt(pair[1].trim()));
+            }
+        }
+        List<Operation> schedule = new ArrayList<>();
+        weights.forEach((operation, weight) -> {
+            for (int i = 0; i < weight; i++) {
+                schedule.add(operation);
+            }
+        });
+        if (schedule.isEmpty()) {
+            throw new IllegalArgumentException("The operation mix has no positive weight");
+        }
+        return schedule.toArray(new Operation[0]);
+    }
+
+    private boolean run() throws Exception {
+        cleanUniverse();
+        if (mysql) {
+            startDatabase();
+        }
+        installConfig();
+
+        long setupStart = System.nanoTime();
+        setupAccounts();
+        setupShops();
+        System.out.printf("Setup: %d players, %d shop items, %d player shop items (%s) in %d ms%n", players,
+                shopItems.size(), playerShopItems.size(), mysql ? "mysql" : "json",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - setupStart));
+
+        long elapsed = runLoad();
+        awaitRecovery();
+        report(elapsed);
+
+        boolean passed = checkInvariants();
+        if (embeddedDb != null) {
+            embeddedDb.stop();
+        }
+        return passed;
+    }
+
+    // Setup
+
+    /**
+     * Começa de uma pasta limpa (só a pasta EconomySystem do universo dos benchmarks)
+     */
+    private static void cleanUniverse() throws IOException {
+        Path main = Path.of(FileUtils.MAIN_PATH);
+        if (Files.exists(main)) {
+            try (Stream<Path> paths = Files.walk(main)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.delete(path);
+                }
+            }
+        }
+        FileUtils.ensureMainDirectory();
+    }
+
+    private void startDatabase() throws Exception {
+        String host = options.get("mysql-host");
+        int port;
+        String user = options.getOrDefault("mysql-user", "root");
+        String password = options.getOrDefault("mysql-password", "");
+        if (host == null) {
+            DBConfigurationBuilder builder = DBConfigurationBuilder.newBuilder();
+            builder.setPort(0);
+            // O mariadbd se recusa a rodar como root sem esta opção (ex: em containers)
+            builder.addArg("--user=root");
+            embeddedDb = DB.newEmbeddedDB(builder.build());
+            embeddedDb.start();
+            embeddedDb.createDB("theeconomy");
+            host = "localhost";
+            port = embeddedDb.getConfiguration().getPort();
+        } else {
+            port = Integer.parseInt(options.getOrDefault("mysql-port", "3306"));
+        }
+        options.put("mysql-host", host);
+        options.put("mysql-port", String.valueOf(port));
+        options.put("mysql-user", user);
+        options.put("mysql-password", password);
+        jdbcUrl = String.format("jdbc:mariadb://%s:%d/theeconomy", host, port);
+
+        // Tabelas de uma execução anterior (servidor externo) invalidariam a conferência do total
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, user, password);
+             Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS bank, adminshop, playershop");
+        }
+    }
+
+    /**
+     * Config padrão do plugin (ledger, journal e idempotência ligados), mudando só o armazenamento
+     */
+    private void installConfig() {
+        EconomyConfig config = new EconomyConfig();
+        config.setEnableMySQL(mysql);
+        if (mysql) {
+            config.setMySQLHost(options.get("mysql-host"));
+            config.setMySQLPort(Integer.parseInt(options.get("mysql-port")));
+            config.setMySQLUser(options.get("mysql-user"));
+            config.setMySQLPassword(options.get("mysql-password"));
+            config.setMySQLDatabaseName("theeconomy");
+        }
+        Main.CONFIG = new Config<>(config);
+    }
+
+    private void setupAccounts() {
+        EconomyManager economy = EconomyManager.getInstance();
+        uuids = BenchmarkSupport.uuids(players);
+        for (int i = 0; i < players; i++) {
+            // Mesmo fluxo da entrada de um jogador no servidor
+            economy.prefetchAccount(uuids[i]);
+            economy.setPlayerName(uuids[i], "Player" + i);
+            economy.setBalance(uuids[i], INITIAL_BALANCE, TransactionType.INITIAL);
+        }
+    }
+
+    private void setupShops() {
+        shopItems = new ArrayList<>();
+        for (int i = 0; i < SHOP_ITEMS; i++) {
+            shopItems.add(ShopManager.getInstance().addItem("LoadTest_Item_" + i, 1, 2.5 + i, 5.0 + i));
+        }
+        playerShopItems = new ArrayList<>();
+        PlayerShopManager playerShops = PlayerShopManager.getInstance();
+        int owners = Math.max(1, players / 50);
+        for (int i = 0; i < owners; i++) {
+            playerShopItems.add(playerShops.addItem("LoadTest_Item_" + (i % SHOP_ITEMS), 1, 7.5, 3.0, uuids[i],
+                    0.0, PLAYER_SHOP_STOCK));
+            playerShops.setShopOpen(uuids[i], true);
+        }
+    }
+
+    // Carga
+
+    private long runLoad() throws InterruptedException {
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        long interval = rate > 0 ? TimeUnit.SECONDS.toNanos(1) * threads / rate : 0;
+        List<Thread> workers = new ArrayList<>();
+        if (outageSeconds > 0) {
+            Thread outage = new Thread(() -> simulateOutage(durationSeconds * 1000L / 3), "LoadTest-Outage");
+            workers.add(outage);
+            outage.start();
+        }
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> work(start, deadline, interval), "LoadTest-" + i);
+            workers.add(worker);
+            worker.start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Para o MariaDB embutido no meio da carga e o inicia de novo depois de {@code --outage} segundos
+     */
+    private void simulateOutage(long delayMs) {
+        try {
+            Thread.sleep(delayMs);
+            embeddedDb.stop();
+            System.out.printf("Outage: MariaDB stopped for %d s%n", outageSeconds);
+            Thread.sleep(TimeUnit.SECONDS.toMillis(outageSeconds));
+            embeddedDb.start();
+            System.out.println("Outage: MariaDB started again");
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to simulate the database outage", e);
+        }
+    }
+
+    /**
+     * Espera a sonda de saúde fechar o circuito, para o shutdown gravar no banco e não no journal de spill
+     */
+    private void awaitRecovery() throws InterruptedException {
+        if (outageSeconds == 0) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (MySQLCircuitBreaker.getInstance().isOpen() && System.nanoTime() < deadline) {
+            Thread.sleep(100);
+        }
+        System.out.printf("Outage: circuit breaker open for %d ms in total%n",
+                MySQLCircuitBreaker.getInstance().getDegradedMillis());
+    }
+
+    private void work(long start, long deadline, long interval) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long next = start;
+        while (true) {
+            long now = System.nanoTime();
+            if (now >= deadline) {
+                return;
+            }
+            long scheduled = now;
+            if (interval > 0) {
+                next += interval;
+                if (next > now) {
+                    LockSupport.parkNanos(next - now);
+                }
+                scheduled = next;
+            }
+            Operation operation = schedule[random.nextInt(schedule.length)];
+            boolean accepted;
+            try {
+                accepted = execute(operation, random);
+            } catch (RuntimeException e) {
+                accepted = false;
+                EconomyMetrics.getInstance().counter("loadtest." + operation.key + ".errors").increment();
+            }
+            operation.latency.recordSince(scheduled);
+            if (!accepted) {
+                operation.rejected.increment();
+            }
+        }
+    }
+
+    private boolean execute(Operation operation, ThreadLocalRandom random) {
+        EconomyManager economy = EconomyManager.getInstance();
+        UUID player = uuids[random.nextInt(players)];
+        switch (operation) {
+            case PAY -> {
+                UUID target = uuids[random.nextInt(players)];
+                return !target.equals(player)
+                        && economy.transfer(player, target, random.nextInt(1, 51), CurrencyType.MONEY, TransactionType.PAY);
+            }
+            case SHOP_BUY -> {
+                // Mesmo fluxo da loja: confere o saldo e debita
+                ShopItem item = shopItems.get(random.nextInt(shopItems.size()));
+                double price = item.getPriceBuy() * random.nextInt(1, 5);
+                if (!economy.hasBalance(player, price) || !economy.subtractBalance(player, price, TransactionType.SHOP_BUY)) {
+                    return false;
+                }
+                expectedDelta.add(-MoneyUnits.toUnits(price));
+                return true;
+            }
+            case SHOP_SELL -> {
+                ShopItem item = shopItems.get(random.nextInt(shopItems.size()));
+                double price = item.getPriceSell() * random.nextInt(1, 5);
+                economy.addBalance(player, price, TransactionType.SHOP_SELL);
+                expectedDelta.add(MoneyUnits.toUnits(price));
+                return true;
+            }
+            case PLAYER_SHOP -> {
+                return buyFromPlayerShop(economy, player, random);
+            }
+            case REWARD -> {
+                double reward = 0.25 * random.nextInt(1, 9);
+                economy.addBalance(player, reward, TransactionType.REWARD);
+                expectedDelta.add(MoneyUnits.toUnits(reward));
+                return true;
+            }
+            case HUD -> {
+                // O que a HUD lê a cada atualização
+                economy.getBalance(player);
+                economy.getCash(player);
+                economy.getPlayerRank(player);
+                PlayerShopManager.getInstance().isShopOpen(player);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Mesmo fluxo da compra na loja de um jogador: reserva o estoque, debita o comprador e credita o dono
+     * (menos a taxa) juntos e devolve o estoque se o pagamento falhar
+     */
+    private boolean buyFromPlayerShop(EconomyManager economy, UUID buyer, ThreadLocalRandom random) {
+        PlayerShopItem listed = playerShopItems.get(random.nextInt(playerShopItems.size()));
+        PlayerShopManager shops = PlayerShopManager.getInstance();
+        PlayerShopItem item = shops.getItem(listed.getUniqueId());
+        int quantity = random.nextInt(1, 4);
+        if (item == null || buyer.equals(item.getOwnerUuid()) || !shops.decreaseStock(item.getUniqueId(), quantity)) {
+            return false;
+        }
+        long paid = MoneyUnits.toUnits(item.getPriceBuy() * quantity);
+        long tax = MoneyUnits.toUnits(item.getPriceBuy() * quantity * Main.CONFIG.get().getPlayerTax() / 100.0);
+        boolean settled = economy.transfer(List.of(
+                TransferLeg.debit(buyer, CurrencyType.MONEY, paid),
+                TransferLeg.credit(item.getOwnerUuid(), CurrencyType.MONEY, paid - tax)), TransactionType.PLAYER_SHOP);
+        if (!settled) {
+            shops.increaseStock(item.getUniqueId(), quantity);
+            return false;
+        }
+        expectedDelta.add(-tax);
+        stockSold.add(quantity);
+        return true;
+    }
+
+    // Relatório
+
+    private void report(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        long total = 0;
+        System.out.printf("%n%-12s %10s %10s %9s %10s %10s %10s %10s%n",
+                "operation", "count", "ops/s", "rejected", "p50", "p99", "p999", "max");
+        for (Operation operation : Operation.values()) {
+            MetricsHistogram.Snapshot snapshot = operation.latency.snapshot();
+            total += snapshot.getCount();
+            System.out.printf("%-12s %10d %10.0f %9d %10s %10s %10s %10s%n", operation.key, snapshot.getCount(),
+                    snapshot.getCount() / seconds, operation.rejected.sum(),
+                    micros(snapshot.getPercentile(50)), micros(snapshot.getPercentile(99)),
+                    micros(snapshot.getPercentile(99.9)), micros(snapshot.getMax()));
+        }
+        System.out.printf("%-12s %10d %10.0f  (%d threads, %.1f s)%n", "total", total, total / seconds, threads, seconds);
+
+        System.out.println("\nPlugin metrics:");
+        for (String line : EconomyMetrics.getInstance().summary()) {
+            if (!line.startsWith("loadtest.")) {
+                System.out.println("  " + line);
+            }
+        }
+    }
+
+    private static String micros(long nanos) {
+        return String.format("%.1fus", nanos / 1_000.0);
+    }
+
+    // Invariantes
+
+    private boolean checkInvariants() throws IOException, SQLException {
+        EconomyManager economy = EconomyManager.getInstance();
+        long expected = players * MoneyUnits.toUnits(INITIAL_BALANCE) + expectedDelta.sum();
+        long inMemory = 0;
+        int negative = 0;
+        for (UUID uuid : uuids) {
+            long units = economy.getBalanceUnits(uuid);
+            inMemory += units;
+            if (units < 0) {
+                negative++;
+            }
+        }
+
+        long listedStock = 0;
+        for (PlayerShopItem listed : playerShopItems) {
+            PlayerShopItem item = PlayerShopManager.getInstance().getItem(listed.getUniqueId());
+            listedStock += item != null ? item.getStock() : 0;
+        }
+        long expectedStock = (long) playerShopItems.size() * PLAYER_SHOP_STOCK - stockSold.sum();
+
+        // Desliga como o servidor faz (grava tudo) e lê de volta o que foi persistido
+        ShopManager.getInstance().shutdown();
+        PlayerShopManager.getInstance().shutdown();
+        economy.shutdown();
+        long persisted = mysql ? persistedTotalFromDatabase() : persistedTotalFromFile();
+
+        System.out.println("\nInvariants:");
+        boolean passed = check("money conserved", expected == inMemory,
+                "expected " + format(expected) + ", in memory " + format(inMemory));
+        passed &= check("no negative balance", negative == 0, negative + " accounts below zero");
+        passed &= check("persisted = in memory", persisted == inMemory,
+                "persisted " + format(persisted) + ", in memory " + format(inMemory));
+        passed &= check("player shop stock", listedStock == expectedStock,
+                "expected " + expectedStock + ", listed " + listedStock + " (lost stock updates: " + (listedStock - expectedStock) + ")");
+        return passed;
+    }
+
+    private static boolean check(String name, boolean ok, String detail) {
+        System.out.printf("  [%s] %s: %s%n", ok ? "OK" : "FAIL", name, detail);
+        return ok;
+    }
+
+    private static String format(long units) {
+        return MoneyUnits.toBigDecimal(units).toPlainString();
+    }
+
+    private static long persistedTotalFromFile() throws IOException {
+        BalanceBlockingFile file = new BalanceBlockingFile();
+        file.load();
+        BalanceTracker tracker = file.getTracker();
+        long total = 0;
+        for (PlayerBalance balance : tracker.values()) {
+            total += balance.getBalanceUnits();
+        }
+        return total;
+    }
+
+    private long persistedTotalFromDatabase() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(jdbcUrl, options.get("mysql-user"), options.get("mysql-password"));
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery("SELECT COALESCE(SUM(Balance), 0) FROM bank")) {
+            resultSet.next();
+            BigDecimal total = resultSet.getBigDecimal(1);
+            return MoneyUnits.toUnits(total);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.economy.benchmark;
+
+import com.economy.economy.EconomyManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ranking e consultas do {@link EconomyManager} (armazenamento JSON/binário, tudo em memória).
+ * <p>
+ * O EconomyManager é um singleton que carrega o snapshot quando é criado; o JMH usa um fork por valor de
+ * {@code accounts}, então cada tamanho tem o seu.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EconomyManagerBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    private int accounts;
+
+    private EconomyManager manager;
+    private UUID[] uuids;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        BenchmarkSupport.install("binary");
+        uuids = BenchmarkSupport.uuids(accounts);
+        BenchmarkSupport.writeSnapshot(BenchmarkSupport.tracker(uuids), "binary");
+        manager = EconomyManager.getInstance();
+        if (!manager.hasPlayerBalance(uuids[accounts - 1])) {
+            throw new IllegalStateException("Snapshot was not loaded by the EconomyManager");
+        }
+        // Monta o índice do ranking antes da medição
+        manager.getTopBalances(1);
+    }
+
+    private UUID pick() {
+        return uuids[ThreadLocalRandom.current().nextInt(uuids.length)];
+    }
+
+    @Benchmark
+    public List<Map.Entry<UUID, Double>> topBalances() {
+        return manager.getTopBalances(10);
+    }
+
+    @Benchmark
+    public int playerRank() {
+        return manager.getPlayerRank(pick());
+    }
+
+    /**
+     * Uma alteração de saldo seguida da posição da conta (o ranking é atualizado na consulta)
+     */
+    @Benchmark
+    public int playerRankAfterChange() {
+        UUID uuid = pick();
+        manager.addBalance(uuid, 1.0);
+        return manager.getPlayerRank(uuid);
+    }
+
+    @Benchmark
+    public boolean hasPlayerBalance() {
+        return manager.hasPlayerBalance(pick());
+    }
+
+    @Benchmark
+    public boolean hasPlayerBalanceMissing() {
+        return manager.hasPlayerBalance(new UUID(ThreadLocalRandom.current().nextLong(), 0L));
+    }
+}
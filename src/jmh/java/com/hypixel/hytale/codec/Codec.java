@@ -0,0 +1,23 @@
+package com.hypixel.hytale.codec;
+
+import java.util.UUID;
+
+/**
+ * Substituto dos codecs do servidor: os benchmarks não leem a config pelo codec, só precisam que as
+ * classes do plugin (que montam os codecs na inicialização) carreguem.
+ */
+public interface Codec<T> {
+
+    Codec<String> STRING = new Codec<>() {
+    };
+    Codec<Integer> INTEGER = new Codec<>() {
+    };
+    Codec<Long> LONG = new Codec<>() {
+    };
+    Codec<Double> DOUBLE = new Codec<>() {
+    };
+    Codec<Boolean> BOOLEAN = new Codec<>() {
+    };
+    Codec<UUID> UUID_STRING = new Codec<>() {
+    };
+}
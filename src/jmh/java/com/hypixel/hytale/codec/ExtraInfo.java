@@ -0,0 +1,7 @@
+package com.hypixel.hytale.codec;
+
+/**
+ * Substituto (ver {@link Codec})
+ */
+public class ExtraInfo {
+}
@@ -0,0 +1,48 @@
+package com.hypixel.hytale.codec.builder;
+
+import com.hypixel.hytale.codec.Codec;
+import com.hypixel.hytale.codec.ExtraInfo;
+import com.hypixel.hytale.codec.KeyedCodec;
+import com.hypixel.hytale.function.consumer.TriConsumer;
+
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+/**
+ * Substituto (ver {@link Codec}): aceita a mesma cadeia {@code builder().append().add().build()} e ignora os campos
+ */
+public class BuilderCodec<T> implements Codec<T> {
+
+    private final Supplier<T> supplier;
+
+    protected BuilderCodec(Supplier<T> supplier) {
+        this.supplier = supplier;
+    }
+
+    public static <T> Builder<T> builder(Class<T> type, Supplier<T> supplier) {
+        return new Builder<>(supplier);
+    }
+
+    public T getDefaultValue() {
+        return supplier.get();
+    }
+
+    public static class Builder<T> {
+
+        private final Supplier<T> supplier;
+
+        protected Builder(Supplier<T> supplier) {
+            this.supplier = supplier;
+        }
+
+        public <F> BuilderField.FieldBuilder<T, F, Builder<T>> append(KeyedCodec<F> codec,
+                                                                      TriConsumer<T, F, ExtraInfo> setter,
+                                                                      BiFunction<T, ExtraInfo, F> getter) {
+            return new BuilderField.FieldBuilder<>(this);
+        }
+
+        public BuilderCodec<T> build() {
+            return new BuilderCodec<>(supplier);
+        }
+    }
+}
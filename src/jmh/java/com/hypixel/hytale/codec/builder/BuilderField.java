@@ -0,0 +1,20 @@
+package com.hypixel.hytale.codec.builder;
+
+/**
+ * Substituto (ver {@link com.hypixel.hytale.codec.Codec})
+ */
+public class BuilderField {
+
+    public static class FieldBuilder<T, F, B> {
+
+        private final B parent;
+
+        FieldBuilder(B parent) {
+            this.parent = parent;
+        }
+
+        public B add() {
+            return parent;
+        }
+    }
+}
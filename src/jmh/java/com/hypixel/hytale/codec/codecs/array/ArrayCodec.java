@@ -0,0 +1,14 @@
+package com.hypixel.hytale.codec.codecs.array;
+
+import com.hypixel.hytale.codec.Codec;
+
+import java.util.function.IntFunction;
+
+/**
+ * Substituto (ver {@link Codec})
+ */
+public class ArrayCodec<T> implements Codec<T[]> {
+
+    public ArrayCodec(Codec<T> codec, IntFunction<T[]> arrayConstructor) {
+    }
+}
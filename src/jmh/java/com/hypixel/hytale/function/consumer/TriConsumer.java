@@ -0,0 +1,10 @@
+package com.hypixel.hytale.function.consumer;
+
+/**
+ * Substituto (ver {@link com.hypixel.hytale.codec.Codec})
+ */
+@FunctionalInterface
+public interface TriConsumer<A, B, C> {
+
+    void accept(A a, B b, C c);
+}
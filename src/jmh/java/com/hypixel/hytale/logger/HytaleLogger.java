@@ -0,0 +1,157 @@
+package com.hypixel.hytale.logger;
+
+import java.util.logging.Level;
+
+/**
+ * Substituto do logger do servidor para rodar os benchmarks sem o Hytale no classpath.
+ * <p>
+ * Descarta as mensagens. {@link Api} repete as sobrecargas do Flogger (objetos e primitivos), porque as
+ * classes do plugin foram compiladas contra elas e cada chamada aponta para uma assinatura exata.
+ */
+public class HytaleLogger {
+
+    private static final HytaleLogger ROOT = new HytaleLogger();
+    private static final Api NO_OP = new Api() {
+    };
+
+    public static HytaleLogger getLogger() {
+        return ROOT;
+    }
+
+    public static HytaleLogger forEnclosingClass() {
+        return ROOT;
+    }
+
+    public HytaleLogger getSubLogger(String name) {
+        return this;
+    }
+
+    public Api at(Level level) {
+        return NO_OP;
+    }
+
+    public Api atInfo() {
+        return NO_OP;
+    }
+
+    public Api atWarning() {
+        return NO_OP;
+    }
+
+    public Api atSevere() {
+        return NO_OP;
+    }
+
+    public interface Api {
+
+        default Api withCause(Throwable cause) {
+            return this;
+        }
+
+        default void log() {}
+        default void log(String msg) {}
+
+        // Somente objetos
+        default void log(String msg, Object p1) {}
+        default void log(String msg, Object p1, Object p2) {}
+        default void log(String msg, Object p1, Object p2, Object p3) {}
+        default void log(String msg, Object p1, Object p2, Object p3, Object p4) {}
+        default void log(String msg, Object p1, Object p2, Object p3, Object p4, Object p5) {}
+        default void log(String msg, Object p1, Object p2, Object p3, Object p4, Object p5, Object p6) {}
+        default void log(String msg, Object p1, Object p2, Object p3, Object p4, Object p5, Object p6, Object p7) {}
+        default void log(String msg, Object p1, Object p2, Object p3, Object p4, Object p5, Object p6, Object p7, Object p8) {}
+        default void log(String msg, Object p1, Object p2, Object p3, Object p4, Object p5, Object p6, Object p7, Object p8, Object p9) {}
+        default void log(String msg, Object p1, Object p2, Object p3, Object p4, Object p5, Object p6, Object p7, Object p8, Object p9, Object p10) {}
+        default void log(String msg, Object p1, Object p2, Object p3, Object p4, Object p5, Object p6, Object p7, Object p8, Object p9, Object p10, Object... rest) {}
+
+        // Um ou dois parâmetros com primitivos (evita boxing no Flogger)
+        default void log(String msg, boolean p1) {}
+        default void log(String msg, char p1) {}
+        default void log(String msg, byte p1) {}
+        default void log(String msg, short p1) {}
+        default void log(String msg, int p1) {}
+        default void log(String msg, long p1) {}
+        default void log(String msg, float p1) {}
+        default void log(String msg, double p1) {}
+        default void log(String msg, Object p1, boolean p2) {}
+        default void log(String msg, Object p1, char p2) {}
+        default void log(String msg, Object p1, byte p2) {}
+        default void log(String msg, Object p1, short p2) {}
+        default void log(String msg, Object p1, int p2) {}
+        default void log(String msg, Object p1, long p2) {}
+        default void log(String msg, Object p1, float p2) {}
+        default void log(String msg, Object p1, double p2) {}
+        default void log(String msg, boolean p1, Object p2) {}
+        default void log(String msg, boolean p1, boolean p2) {}
+        default void log(String msg, boolean p1, char p2) {}
+        default void log(String msg, boolean p1, byte p2) {}
+        default void log(String msg, boolean p1, short p2) {}
+        default void log(String msg, boolean p1, int p2) {}
+        default void log(String msg, boolean p1, long p2) {}
+        default void log(String msg, boolean p1, float p2) {}
+        default void log(String msg, boolean p1, double p2) {}
+        default void log(String msg, char p1, Object p2) {}
+        default void log(String msg, char p1, boolean p2) {}
+        default void log(String msg, char p1, char p2) {}
+        default void log(String msg, char p1, byte p2) {}
+        default void log(String msg, char p1, short p2) {}
+        default void log(String msg, char p1, int p2) {}
+        default void log(String msg, char p1, long p2) {}
+        default void log(String msg, char p1, float p2) {}
+        default void log(String msg, char p1, double p2) {}
+        default void log(String msg, byte p1, Object p2) {}
+        default void log(String msg, byte p1, boolean p2) {}
+        default void log(String msg, byte p1, char p2) {}
+        default void log(String msg, byte p1, byte p2) {}
+        default void log(String msg, byte p1, short p2) {}
+        default void log(String msg, byte p1, int p2) {}
+        default void log(String msg, byte p1, long p2) {}
+        default void log(String msg, byte p1, float p2) {}
+        default void log(String msg, byte p1, double p2) {}
+        default void log(String msg, short p1, Object p2) {}
+        default void log(String msg, short p1, boolean p2) {}
+        default void log(String msg, short p1, char p2) {}
+        default void log(String msg, short p1, byte p2) {}
+        default void log(String msg, short p1, short p2) {}
+        default void log(String msg, short p1, int p2) {}
+        default void log(String msg, short p1, long p2) {}
+        default void log(String msg, short p1, float p2) {}
+        default void log(String msg, short p1, double p2) {}
+        default void log(String msg, int p1, Object p2) {}
+        default void log(String msg, int p1, boolean p2) {}
+        default void log(String msg, int p1, char p2) {}
+        default void log(String msg, int p1, byte p2) {}
+        default void log(String msg, int p1, short p2) {}
+        default void log(String msg, int p1, int p2) {}
+        default void log(String msg, int p1, long p2) {}
+        default void log(String msg, int p1, float p2) {}
+        default void log(String msg, int p1, double p2) {}
+        default void log(String msg, long p1, Object p2) {}
+        default void log(String msg, long p1, boolean p2) {}
+        default void log(String msg, long p1, char p2) {}
+        default void log(String msg, long p1, byte p2) {}
+        default void log(String msg, long p1, short p2) {}
+        default void log(String msg, long p1, int p2) {}
+        default void log(String msg, long p1, long p2) {}
+        default void log(String msg, long p1, float p2) {}
+        default void log(String msg, long p1, double p2) {}
+        default void log(String msg, float p1, Object p2) {}
+        default void log(String msg, float p1, boolean p2) {}
+        default void log(String msg, float p1, char p2) {}
+        default void log(String msg, float p1, byte p2) {}
+        default void log(String msg, float p1, short p2) {}
+        default void log(String msg, float p1, int p2) {}
+        default void log(String msg, float p1, long p2) {}
+        default void log(String msg, float p1, float p2) {}
+        default void log(String msg, float p1, double p2) {}
+        default void log(String msg, double p1, Object p2) {}
+        default void log(String msg, double p1, boolean p2) {}
+        default void log(String msg, double p1, char p2) {}
+        default void log(String msg, double p1, byte p2) {}
+        default void log(String msg, double p1, short p2) {}
+        default void log(String msg, double p1, int p2) {}
+        default void log(String msg, double p1, long p2) {}
+        default void log(String msg, double p1, float p2) {}
+        default void log(String msg, double p1, double p2) {}
+    }
+}
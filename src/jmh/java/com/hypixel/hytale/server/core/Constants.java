@@ -0,0 +1,15 @@
+package com.hypixel.hytale.server.core;
+
+import java.nio.file.Path;
+
+/**
+ * Substituto: o "universo" dos benchmarks é uma pasta temporária (ou {@code -Deconomy.bench.dir=...})
+ */
+public final class Constants {
+
+    public static final Path UNIVERSE_PATH = Path.of(System.getProperty("economy.bench.dir",
+            Path.of(System.getProperty("java.io.tmpdir"), "economy-bench").toString()));
+
+    private Constants() {
+    }
+}
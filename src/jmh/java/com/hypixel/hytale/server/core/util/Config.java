@@ -0,0 +1,20 @@
+package com.hypixel.hytale.server.core.util;
+
+/**
+ * Substituto da config do plugin: guarda o objeto em memória, sem arquivo
+ */
+public class Config<T> {
+
+    private final T value;
+
+    public Config(T value) {
+        this.value = value;
+    }
+
+    public T get() {
+        return value;
+    }
+
+    public void save() {
+    }
+}
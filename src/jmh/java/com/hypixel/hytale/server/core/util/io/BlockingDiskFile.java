@@ -0,0 +1,51 @@
+package com.hypixel.hytale.server.core.util.io;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Substituto do arquivo com lock do servidor: lê e grava o arquivo inteiro de uma vez, como o original
+ */
+public abstract class BlockingDiskFile {
+
+    protected final Path path;
+
+    protected BlockingDiskFile(Path path) {
+        this.path = path;
+    }
+
+    protected abstract void read(BufferedReader bufferedReader) throws IOException;
+
+    protected abstract void write(BufferedWriter bufferedWriter) throws IOException;
+
+    protected abstract void create(BufferedWriter bufferedWriter) throws IOException;
+
+    public synchronized void syncLoad() {
+        try {
+            if (!Files.exists(path)) {
+                Files.createDirectories(path.toAbsolutePath().getParent());
+                try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+                    create(writer);
+                }
+            }
+            try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                read(reader);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public synchronized void syncSave() {
+        try (BufferedWriter writer = Files.newBufferedWriter(path, StandardCharsets.UTF_8)) {
+            write(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
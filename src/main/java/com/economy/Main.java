@@ -3,6 +3,7 @@ package com.economy;
 import com.economy.commands.*;
 import com.economy.config.EconomyConfig;
 import com.economy.economy.EconomyManager;
+import com.economy.economy.TransactionType;
 import com.economy.hud.HudPreferenceManager;
 import com.economy.integration.VaultUnlockedEconomy;
 import com.economy.npc.OpenShopNpcInteraction;
@@ -20,6 +21,7 @@ import com.hypixel.hytale.server.core.asset.type.item.config.Item;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.event.events.player.AddPlayerToWorldEvent;
 import com.hypixel.hytale.server.core.event.events.player.PlayerConnectEvent;
+import com.hypixel.hytale.server.core.event.events.player.PlayerDisconnectEvent;
 import com.hypixel.hytale.server.core.event.events.player.PlayerReadyEvent;
 import com.hypixel.hytale.server.core.modules.interaction.interaction.config.Interaction;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
@@ -76,6 +78,9 @@ public class Main extends JavaPlugin {
     // Inicializa o HudPreferenceManager
     HudPreferenceManager.getInstance();
 
+    // Resumo periódico das métricas no log
+    com.economy.util.EconomyMetrics.getInstance().startPeriodicLog(CONFIG.get().getMetricsLogIntervalSeconds());
+
     // Inicializa o ShopNpcManager
     shopNpcManager = new ShopNpcManager();
 
@@ -189,12 +194,14 @@ public class Main extends JavaPlugin {
         Player player = event.getPlayer();
         if (player != null && playerRef != null) {
           UUID playerUuid = playerRef.getUuid();
+          // Carrega a conta (modo lazy do MySQL) e a mantém em memória enquanto o jogador estiver online
+          EconomyManager.getInstance().prefetchAccount(playerUuid);
           EconomyManager.getInstance().setPlayerName(playerUuid, player.getDisplayName());
 
           // Verifica se é um jogador novo e dá saldo inicial configurável
           if (!EconomyManager.getInstance().hasPlayerBalance(playerUuid)) {
             double initialBalance = CONFIG.get().getInitialBalance();
-            EconomyManager.getInstance().setBalance(playerUuid, initialBalance);
+            EconomyManager.getInstance().setBalance(playerUuid, initialBalance, TransactionType.INITIAL);
           }
         }
       } catch (Exception e) {
@@ -202,6 +209,14 @@ public class Main extends JavaPlugin {
       }
     });
 
+    // Registra evento quando o jogador desconecta (a conta deixa de ficar fixada em memória)
+    this.getEventRegistry().registerGlobal(PlayerDisconnectEvent.class, (event) -> {
+      PlayerRef playerRef = event.getPlayerRef();
+      if (playerRef != null) {
+        EconomyManager.getInstance().releaseAccount(playerRef.getUuid());
+      }
+    });
+
     // Registra evento quando o jogador entra no mundo
     this.getEventRegistry().registerGlobal(AddPlayerToWorldEvent.class, (event) -> {
       var holder = event.getHolder();
@@ -214,7 +229,7 @@ public class Main extends JavaPlugin {
         // Verifica se é um jogador novo e dá saldo inicial configurável
         if (!EconomyManager.getInstance().hasPlayerBalance(playerUuid)) {
           double initialBalance = CONFIG.get().getInitialBalance();
-          EconomyManager.getInstance().setBalance(playerUuid, initialBalance);
+          EconomyManager.getInstance().setBalance(playerUuid, initialBalance, TransactionType.INITIAL);
           // O nick já foi atualizado pelo setPlayerName acima
           // Log removed - initial balance is given silently
         }
@@ -394,6 +409,7 @@ public class Main extends JavaPlugin {
     ShopManager.getInstance().shutdown();
     // Shutdown PlayerShopManager (saves all data and closes MySQL connection if used)
     PlayerShopManager.getInstance().shutdown();
+    com.economy.util.EconomyMetrics.getInstance().stopPeriodicLog();
     this.getLogger().at(Level.INFO).log("EconomySystem shutdown complete");
   }
 
@@ -1,7 +1,11 @@
 package com.economy.api;
 
 import com.economy.Main;
+import com.economy.economy.BalanceDelta;
 import com.economy.economy.EconomyManager;
+import com.economy.economy.IdempotentResult;
+import com.economy.economy.MoneyUnits;
+import com.economy.economy.TransactionType;
 import com.economy.gui.ShopGui;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
@@ -11,6 +15,8 @@ import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -62,6 +68,23 @@ public class EconomyAPI {
         return EconomyManager.getInstance().getBalance(uuid);
     }
 
+    /**
+     * Obtém o saldo exato de um jogador (sem erro de arredondamento de double)
+     * @param playerUUID UUID do jogador
+     * @return Saldo do jogador na escala configurada (ver {@link #getCurrencyScale()})
+     */
+    public BigDecimal getBalanceExact(UUID playerUUID) {
+        return MoneyUnits.toBigDecimal(EconomyManager.getInstance().getBalanceUnits(playerUUID));
+    }
+
+    /**
+     * Obtém o número de casas decimais usadas nos saldos
+     * @return Escala configurada (CurrencyScale)
+     */
+    public int getCurrencyScale() {
+        return MoneyUnits.scale();
+    }
+
     /**
      * Define o saldo de um jogador
      * @param playerUUID UUID do jogador
@@ -95,6 +118,20 @@ public class EconomyAPI {
         EconomyManager.getInstance().addBalance(playerUUID, amount);
     }
 
+    /**
+     * Adiciona um valor exato ao saldo de um jogador
+     * @param playerUUID UUID do jogador
+     * @param amount Valor a adicionar (arredondado para a escala configurada)
+     * @return true se o valor foi adicionado, false se for inválido ou estourar o saldo
+     */
+    public boolean addBalance(UUID playerUUID, BigDecimal amount) {
+        try {
+            return EconomyManager.getInstance().addBalanceUnits(playerUUID, MoneyUnits.toUnits(amount));
+        } catch (ArithmeticException e) {
+            return false;
+        }
+    }
+
     /**
      * Adiciona dinheiro ao saldo de um jogador pelo nome
      * @param playerName Nome do jogador
@@ -120,6 +157,20 @@ public class EconomyAPI {
         return EconomyManager.getInstance().subtractBalance(playerUUID, amount);
     }
 
+    /**
+     * Remove um valor exato do saldo de um jogador
+     * @param playerUUID UUID do jogador
+     * @param amount Valor a remover (arredondado para a escala configurada)
+     * @return true se o jogador tinha saldo suficiente e o dinheiro foi removido, false caso contrário
+     */
+    public boolean removeBalance(UUID playerUUID, BigDecimal amount) {
+        try {
+            return EconomyManager.getInstance().subtractBalanceUnits(playerUUID, MoneyUnits.toUnits(amount));
+        } catch (ArithmeticException e) {
+            return false;
+        }
+    }
+
     /**
      * Remove dinheiro do saldo de um jogador pelo nome
      * @param playerName Nome do jogador
@@ -134,6 +185,67 @@ public class EconomyAPI {
         return EconomyManager.getInstance().subtractBalance(uuid, amount);
     }
 
+    /**
+     * Adiciona um valor exato com chave de idempotência. Se a chamada for repetida com a mesma chave
+     * (ex: o plugin tentou de novo depois de um timeout), o valor não é adicionado de novo e o resultado
+     * original é devolvido.
+     * <pre>
+     * String key = "quest-reward-" + questId + "-" + playerUUID;
+     * api.addBalance(playerUUID, new BigDecimal("100"), key);
+     * </pre>
+     * @param playerUUID UUID do jogador
+     * @param amount Valor a adicionar (arredondado para a escala configurada)
+     * @param idempotencyKey Chave única da operação (1 a 64 caracteres), lembrada por IdempotencyTtlSeconds
+     * @return Resultado da operação (ou da primeira chamada com a mesma chave)
+     * @throws IllegalArgumentException se a chave for vazia ou longa demais
+     */
+    public IdempotentResult addBalance(UUID playerUUID, BigDecimal amount, String idempotencyKey) {
+        long units;
+        try {
+            units = MoneyUnits.toUnits(amount);
+        } catch (ArithmeticException e) {
+            return IdempotentResult.rejected(0);
+        }
+        return EconomyManager.getInstance().depositIdempotent(playerUUID, units, idempotencyKey, TransactionType.OTHER);
+    }
+
+    /**
+     * Remove um valor exato com chave de idempotência (ver {@link #addBalance(UUID, BigDecimal, String)}).
+     * Um saque repetido não cobra o jogador duas vezes.
+     * @param playerUUID UUID do jogador
+     * @param amount Valor a remover (arredondado para a escala configurada)
+     * @param idempotencyKey Chave única da operação (1 a 64 caracteres), lembrada por IdempotencyTtlSeconds
+     * @return Resultado da operação (ou da primeira chamada com a mesma chave); falha se o saldo era insuficiente
+     * @throws IllegalArgumentException se a chave for vazia ou longa demais
+     */
+    public IdempotentResult removeBalance(UUID playerUUID, BigDecimal amount, String idempotencyKey) {
+        long units;
+        try {
+            units = MoneyUnits.toUnits(amount);
+        } catch (ArithmeticException e) {
+            return IdempotentResult.rejected(0);
+        }
+        return EconomyManager.getInstance().withdrawIdempotent(playerUUID, units, idempotencyKey, TransactionType.OTHER);
+    }
+
+    /**
+     * Aplica vários depósitos e saques de uma vez (eventos, pagamentos em massa, integrações).
+     * Ou todos são aplicados, ou nenhum; no MySQL o lote é gravado em uma única transação.
+     * <pre>
+     * List&lt;BalanceDelta&gt; payroll = new ArrayList&lt;&gt;();
+     * for (UUID worker : workers) {
+     *     payroll.add(BalanceDelta.money(worker, 250.0));
+     * }
+     * api.applyBatch(payroll);
+     * </pre>
+     * @param deltas Deltas a aplicar (valor positivo deposita, negativo saca)
+     * @return true se o lote foi aplicado, false se algum saque não tinha saldo suficiente
+     * ou algum valor era inválido (nesse caso nada é alterado)
+     */
+    public boolean applyBatch(List<BalanceDelta> deltas) {
+        return EconomyManager.getInstance().applyBatch(deltas);
+    }
+
     /**
      * Verifica se um jogador tem saldo suficiente
      * @param playerUUID UUID do jogador
@@ -182,8 +294,8 @@ public class EconomyAPI {
      * @return Saldo formatado (ex: "$1.000,00")
      */
     public String getFormattedBalance(UUID playerUUID) {
-        double balance = getBalance(playerUUID);
-        return com.economy.util.CurrencyFormatter.format(balance);
+        long units = EconomyManager.getInstance().getBalanceUnits(playerUUID);
+        return com.economy.util.CurrencyFormatter.formatUnits(units);
     }
     
     /**
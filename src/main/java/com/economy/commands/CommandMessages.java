@@ -11,6 +11,7 @@ public class CommandMessages {
     public static final String PERMISSION_PLAYER_MONEY = "theeconomy.player.money";
     public static final String PERMISSION_PLAYER_MONEY_PAY = "theeconomy.player.money.pay";
     public static final String PERMISSION_PLAYER_MONEY_TOP = "theeconomy.player.money.top";
+    public static final String PERMISSION_PLAYER_MONEY_HISTORY = "theeconomy.player.money.history";
     public static final String PERMISSION_PLAYER_SHOP = "theeconomy.player.shop";
     public static final String PERMISSION_PLAYER_ITEMINFO = "theeconomy.player.iteminfo";
     public static final String PERMISSION_PLAYER_MYSHOP = "theeconomy.player.myshop";
@@ -23,6 +24,10 @@ public class CommandMessages {
     // Permissões de admin
     public static final String PERMISSION_ADMIN_MONEY_SET = "theeconomy.admin.money.set";
     public static final String PERMISSION_ADMIN_MONEY_GIVE = "theeconomy.admin.money.give";
+    public static final String PERMISSION_ADMIN_MONEY_EXPORT = "theeconomy.admin.money.export";
+    public static final String PERMISSION_ADMIN_MONEY_IMPORT = "theeconomy.admin.money.import";
+    public static final String PERMISSION_ADMIN_MONEY_METRICS = "theeconomy.admin.money.metrics";
+    public static final String PERMISSION_ADMIN_MONEY_MIGRATE = "theeconomy.admin.money.migrate";
     public static final String PERMISSION_ADMIN_CASH_GIVE = "theeconomy.admin.cash.give";
     public static final String PERMISSION_ADMIN_SHOP_ADD = "theeconomy.admin.shop.add";
     public static final String PERMISSION_ADMIN_SHOP_REMOVE = "theeconomy.admin.shop.remove";
@@ -49,6 +54,10 @@ public class CommandMessages {
         return LanguageManager.getMessage("chat_payment_sent", Color.GREEN);
     }
 
+    public static Message PAYMENT_FAILED() {
+        return LanguageManager.getMessage("chat_payment_failed", Color.RED);
+    }
+
     public static Message PAYMENT_RECEIVED() {
         return LanguageManager.getMessage("chat_payment_received", Color.GREEN);
     }
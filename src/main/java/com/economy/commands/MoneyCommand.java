@@ -1,9 +1,14 @@
 package com.economy.commands;
 
+import com.economy.commands.subcommand.MoneyHistoryCommand;
 import com.economy.commands.subcommand.MoneyPayCommand;
 import com.economy.commands.subcommand.MoneyTopCommand;
 import com.economy.commands.subcommand.admin.MoneySetCommand;
 import com.economy.commands.subcommand.admin.MoneyGiveCommand;
+import com.economy.commands.subcommand.admin.MoneyExportCommand;
+import com.economy.commands.subcommand.admin.MoneyImportCommand;
+import com.economy.commands.subcommand.admin.MoneyMetricsCommand;
+import com.economy.commands.subcommand.admin.MoneyMigrateCommand;
 import com.economy.economy.EconomyManager;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
@@ -42,8 +47,13 @@ public class MoneyCommand extends AbstractAsyncCommand {
 
         this.addSubCommand(new MoneyPayCommand());
         this.addSubCommand(new MoneyTopCommand());
+        this.addSubCommand(new MoneyHistoryCommand());
         this.addSubCommand(new MoneySetCommand());
         this.addSubCommand(new MoneyGiveCommand());
+        this.addSubCommand(new MoneyExportCommand());
+        this.addSubCommand(new MoneyImportCommand());
+        this.addSubCommand(new MoneyMetricsCommand());
+        this.addSubCommand(new MoneyMigrateCommand());
     }
 
     @NonNullDecl
@@ -0,0 +1,130 @@
+package com.economy.commands.subcommand;
+
+import com.economy.economy.CurrencyType;
+import com.economy.economy.EconomyManager;
+import com.economy.economy.LedgerEntry;
+import com.economy.economy.TransactionLedger;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.CommandSender;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractAsyncCommand;
+import com.hypixel.hytale.server.core.entity.entities.Player;
+import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
+
+import java.awt.*;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.hypixel.hytale.server.core.command.commands.player.inventory.InventorySeeCommand.MESSAGE_COMMANDS_ERRORS_PLAYER_NOT_IN_WORLD;
+
+public class MoneyHistoryCommand extends AbstractAsyncCommand {
+
+    private static final int PAGE_SIZE = 10;
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("dd/MM HH:mm").withZone(ZoneId.systemDefault());
+
+    // Último registro mostrado para cada jogador: "/money history next" continua dali (paginação por chave)
+    private static final Map<UUID, LedgerEntry> lastShown = new ConcurrentHashMap<>();
+
+    private OptionalArg<String> page;
+
+    public MoneyHistoryCommand() {
+        super("history", com.economy.util.LanguageManager.getTranslation("desc_money_history"));
+        this.addAliases("historico", "log");
+        this.page = this.withOptionalArg("next", "Próxima página", ArgTypes.STRING);
+
+        // Define a permissão do comando via reflexão para aparecer no LuckPerms
+        com.economy.util.CommandPermissionHelper.setCommandPermission(this, com.economy.commands.CommandMessages.PERMISSION_PLAYER_MONEY_HISTORY);
+    }
+
+    @NonNullDecl
+    @Override
+    protected CompletableFuture<Void> executeAsync(CommandContext commandContext) {
+        CommandSender sender = commandContext.sender();
+        if (!com.economy.util.PermissionHelper.hasPermission(sender, com.economy.commands.CommandMessages.PERMISSION_PLAYER_MONEY_HISTORY)) {
+            sender.sendMessage(com.economy.commands.CommandMessages.NO_PERMISSION());
+            return CompletableFuture.completedFuture(null);
+        }
+
+        TransactionLedger ledger = EconomyManager.getInstance().getLedger();
+        if (ledger == null) {
+            sender.sendMessage(com.economy.util.LanguageManager.getMessage("chat_history_disabled", Color.RED));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        if (sender instanceof Player player) {
+            Ref<EntityStore> ref = player.getReference();
+            if (ref != null && ref.isValid()) {
+                Store<EntityStore> store = ref.getStore();
+                World world = store.getExternalData().getWorld();
+                return CompletableFuture.runAsync(() -> {
+                    PlayerRef playerRef = ref.getStore().getComponent(ref, PlayerRef.getComponentType());
+                    if (playerRef == null) return;
+
+                    UUID uuid = playerRef.getUuid();
+                    String pageArg = commandContext.get(this.page);
+                    LedgerEntry before = pageArg != null && !pageArg.isEmpty() ? lastShown.get(uuid) : null;
+
+                    // A consulta roda na thread do ledger; as mensagens voltam para a thread do mundo
+                    ledger.history(uuid, before, PAGE_SIZE).thenAcceptAsync(entries -> {
+                        sendPage(player, uuid, entries, before == null);
+                    }, world).exceptionally(throwable -> {
+                        player.sendMessage(com.economy.util.LanguageManager.getMessage("chat_history_disabled", Color.RED));
+                        return null;
+                    });
+                }, world);
+            } else {
+                commandContext.sendMessage(MESSAGE_COMMANDS_ERRORS_PLAYER_NOT_IN_WORLD);
+                return CompletableFuture.completedFuture(null);
+            }
+        } else {
+            return CompletableFuture.completedFuture(null);
+        }
+    }
+
+    private static void sendPage(Player player, UUID uuid, List<LedgerEntry> entries, boolean firstPage) {
+        if (entries.isEmpty()) {
+            lastShown.remove(uuid);
+            player.sendMessage(com.economy.util.LanguageManager.getMessage("chat_history_empty", Color.YELLOW));
+            return;
+        }
+        lastShown.put(uuid, entries.get(entries.size() - 1));
+
+        Color goldColor = new Color(255, 215, 0);
+        if (firstPage) {
+            player.sendMessage(com.economy.util.LanguageManager.getMessage("chat_history_header", goldColor));
+        }
+        for (LedgerEntry entry : entries) {
+            java.util.Map<String, String> placeholders = new java.util.HashMap<>();
+            placeholders.put("time", TIME_FORMAT.format(Instant.ofEpochMilli(entry.getTime())));
+            placeholders.put("type", entry.getType().name());
+            placeholders.put("amount", formatAmount(entry));
+            placeholders.put("player", entry.getCounterparty() != null
+                    ? EconomyManager.getInstance().getPlayerName(entry.getCounterparty())
+                    : "-");
+            Color color = entry.isAbsolute() ? Color.WHITE : entry.getAmount() < 0 ? Color.RED : Color.GREEN;
+            player.sendMessage(com.economy.util.LanguageManager.getMessage("chat_history_entry", color, placeholders));
+        }
+    }
+
+    private static String formatAmount(LedgerEntry entry) {
+        long amount = entry.getAmount();
+        String prefix = entry.isAbsolute() ? "= " : amount < 0 ? "-" : "+";
+        long magnitude = entry.isAbsolute() ? amount : Math.abs(amount);
+        if (entry.getCurrency() == CurrencyType.CASH) {
+            return prefix + com.economy.util.CurrencyFormatter.formatCash((int) magnitude);
+        }
+        return prefix + com.economy.util.CurrencyFormatter.formatUnits(magnitude);
+    }
+}
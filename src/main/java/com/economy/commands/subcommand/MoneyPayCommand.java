@@ -1,6 +1,10 @@
 package com.economy.commands.subcommand;
 
+import com.economy.economy.CurrencyType;
 import com.economy.economy.EconomyManager;
+import com.economy.economy.MoneyUnits;
+import com.economy.economy.TransactionType;
+import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.server.core.command.system.CommandContext;
@@ -16,11 +20,14 @@ import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
 
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
 
 import static com.hypixel.hytale.server.core.command.commands.player.inventory.InventorySeeCommand.MESSAGE_COMMANDS_ERRORS_PLAYER_NOT_IN_WORLD;
 
 public class MoneyPayCommand extends AbstractAsyncCommand {
 
+    private static final HytaleLogger LOGGER = HytaleLogger.getLogger().getSubLogger("EconomySystem");
+
     private RequiredArg<String> targetName;
     private RequiredArg<Double> amount;
 
@@ -59,7 +66,7 @@ public class MoneyPayCommand extends AbstractAsyncCommand {
                         return;
                     }
 
-                    if (amountValue == null || amountValue <= 0) {
+                    if (amountValue == null || amountValue <= 0 || !isRepresentable(amountValue)) {
                         player.sendMessage(com.economy.commands.CommandMessages.INVALID_AMOUNT());
                         return;
                     }
@@ -75,25 +82,39 @@ public class MoneyPayCommand extends AbstractAsyncCommand {
                         return;
                     }
 
-                    if (!EconomyManager.getInstance().hasBalance(playerRef.getUuid(), amountValue)) {
-                        player.sendMessage(com.economy.commands.CommandMessages.INSUFFICIENT_BALANCE());
-                        return;
-                    }
-
-                    EconomyManager.getInstance().subtractBalance(playerRef.getUuid(), amountValue);
-                    EconomyManager.getInstance().addBalance(targetUuid, amountValue);
+                    // Débito e crédito atômicos: ou os dois são aplicados ou nenhum. Não bloqueia o mundo
+                    // (no modo rede a transação roda na fila de IO); as mensagens voltam para a thread do mundo
+                    UUID payerUuid = playerRef.getUuid();
+                    EconomyManager.getInstance().transferAsync(payerUuid, targetUuid, amountValue,
+                            CurrencyType.MONEY, TransactionType.PAY).exceptionally(e -> {
+                        LOGGER.at(Level.WARNING).log("Payment of %s from %s to %s failed: %s",
+                                amountValue, payerUuid, targetUuid, e.getMessage());
+                        return false;
+                    }).thenAccept(transferred -> world.execute(() -> {
+                        if (!transferred) {
+                            if (!EconomyManager.getInstance().hasBalance(payerUuid, amountValue)) {
+                                player.sendMessage(com.economy.commands.CommandMessages.INSUFFICIENT_BALANCE());
+                            } else {
+                                // Saldo suficiente: a falha veio do valor (estouro na conta de destino) ou do storage
+                                LOGGER.at(Level.WARNING).log("Payment of %s from %s to %s failed with enough balance",
+                                        amountValue, payerUuid, targetUuid);
+                                player.sendMessage(com.economy.commands.CommandMessages.PAYMENT_FAILED());
+                            }
+                            return;
+                        }
 
-                    player.sendMessage(com.economy.commands.CommandMessages.PAYMENT_SENT());
+                        player.sendMessage(com.economy.commands.CommandMessages.PAYMENT_SENT());
                     
-                    // Notifica o jogador que recebeu o dinheiro (usando PlayerRef como no chat-plus)
-                    com.hypixel.hytale.server.core.universe.PlayerRef targetPlayerRef = getOnlinePlayerRefByUuid(targetUuid);
-                    if (targetPlayerRef != null) {
-                        java.util.Map<String, String> receivedPlaceholders = new java.util.HashMap<>();
-                        receivedPlaceholders.put("amount", com.economy.util.CurrencyFormatter.format(amountValue));
-                        receivedPlaceholders.put("player", player.getDisplayName());
-                        com.hypixel.hytale.server.core.Message message = com.economy.util.LanguageManager.getMessage("chat_money_received_from", java.awt.Color.GREEN, receivedPlaceholders);
-                        targetPlayerRef.sendMessage(message);
-                    }
+                        // Notifica o jogador que recebeu o dinheiro (usando PlayerRef como no chat-plus)
+                        com.hypixel.hytale.server.core.universe.PlayerRef targetPlayerRef = getOnlinePlayerRefByUuid(targetUuid);
+                        if (targetPlayerRef != null) {
+                            java.util.Map<String, String> receivedPlaceholders = new java.util.HashMap<>();
+                            receivedPlaceholders.put("amount", com.economy.util.CurrencyFormatter.format(amountValue));
+                            receivedPlaceholders.put("player", player.getDisplayName());
+                            com.hypixel.hytale.server.core.Message message = com.economy.util.LanguageManager.getMessage("chat_money_received_from", java.awt.Color.GREEN, receivedPlaceholders);
+                            targetPlayerRef.sendMessage(message);
+                        }
+                    }));
                 }, world);
             } else {
                 commandContext.sendMessage(MESSAGE_COMMANDS_ERRORS_PLAYER_NOT_IN_WORLD);
@@ -104,6 +125,17 @@ public class MoneyPayCommand extends AbstractAsyncCommand {
         }
     }
     
+    /**
+     * Valor que cabe nas unidades mínimas e não arredonda para zero
+     */
+    private static boolean isRepresentable(double amount) {
+        try {
+            return MoneyUnits.toUnits(amount) > 0;
+        } catch (ArithmeticException e) {
+            return false;
+        }
+    }
+    
     /**
      * Obtém um PlayerRef online pelo UUID usando o mesmo método do chat-plus.
      * 
@@ -1,6 +1,7 @@
 package com.economy.commands.subcommand.admin;
 
 import com.economy.economy.EconomyManager;
+import com.economy.economy.TransactionType;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.protocol.GameMode;
@@ -84,7 +85,7 @@ public class CashGiveCommand extends AbstractAsyncCommand {
             return;
         }
 
-        EconomyManager.getInstance().addCash(targetUuid, amountValue);
+        EconomyManager.getInstance().addCash(targetUuid, amountValue, TransactionType.ADMIN_GIVE);
         String playerName = EconomyManager.getInstance().getPlayerName(targetUuid);
         int newCash = EconomyManager.getInstance().getCash(targetUuid);
         sender.sendMessage(com.economy.commands.CommandMessages.CASH_ADDED());
@@ -1,6 +1,7 @@
 package com.economy.commands.subcommand.admin;
 
 import com.economy.economy.EconomyManager;
+import com.economy.economy.TransactionType;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.protocol.GameMode;
@@ -84,7 +85,7 @@ public class MoneyGiveCommand extends AbstractAsyncCommand {
             return;
         }
 
-        EconomyManager.getInstance().addBalance(targetUuid, amountValue);
+        EconomyManager.getInstance().addBalance(targetUuid, amountValue, TransactionType.ADMIN_GIVE);
         String playerName = EconomyManager.getInstance().getPlayerName(targetUuid);
         double newBalance = EconomyManager.getInstance().getBalance(targetUuid);
         sender.sendMessage(com.economy.commands.CommandMessages.BALANCE_ADDED());
@@ -0,0 +1,66 @@
+package com.economy.commands.subcommand.admin;
+
+import com.economy.economy.EconomyManager;
+import com.economy.util.FileUtils;
+import com.hypixel.hytale.protocol.GameMode;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.CommandSender;
+import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
+import com.hypixel.hytale.server.core.command.system.arguments.types.ArgTypes;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractAsyncCommand;
+import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
+
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * /money import [arquivo] - importa saldos de um JSON da pasta do plugin (substitui as contas presentes no arquivo)
+ */
+public class MoneyImportCommand extends AbstractAsyncCommand {
+
+    private static final String DEFAULT_FILE = "Balances-export.json";
+
+    private OptionalArg<String> fileName;
+
+    public MoneyImportCommand() {
+        super("import", com.economy.util.LanguageManager.getTranslation("desc_money_import"));
+        this.setPermissionGroup(GameMode.Creative);
+        this.fileName = this.withOptionalArg("arquivo", "Nome do arquivo", ArgTypes.STRING);
+
+        // Define a permissão do comando via reflexão para aparecer no LuckPerms
+        com.economy.util.CommandPermissionHelper.setCommandPermission(this, com.economy.commands.CommandMessages.PERMISSION_ADMIN_MONEY_IMPORT);
+    }
+
+    @NonNullDecl
+    @Override
+    protected CompletableFuture<Void> executeAsync(CommandContext commandContext) {
+        CommandSender sender = commandContext.sender();
+        if (!com.economy.util.PermissionHelper.hasPermission(sender, com.economy.commands.CommandMessages.PERMISSION_ADMIN_MONEY_IMPORT)) {
+            sender.sendMessage(com.economy.commands.CommandMessages.NO_PERMISSION());
+            return CompletableFuture.completedFuture(null);
+        }
+
+        String fileNameValue = commandContext.get(this.fileName);
+        String name = fileNameValue == null || fileNameValue.isEmpty() ? DEFAULT_FILE : fileNameValue;
+
+        // Leitura de arquivo: roda fora da thread do mundo
+        return CompletableFuture.runAsync(() -> {
+            java.util.Map<String, String> placeholders = new java.util.HashMap<>();
+            Path source = FileUtils.resolveInMainDirectory(name);
+            if (source == null) {
+                placeholders.put("error", name);
+                sender.sendMessage(com.economy.util.LanguageManager.getMessage("chat_balances_file_error", java.awt.Color.RED, placeholders));
+                return;
+            }
+            try {
+                int count = EconomyManager.getInstance().importBalances(source);
+                placeholders.put("count", String.valueOf(count));
+                placeholders.put("file", source.getFileName().toString());
+                sender.sendMessage(com.economy.util.LanguageManager.getMessage("chat_balances_imported", java.awt.Color.GREEN, placeholders));
+            } catch (Exception e) {
+                placeholders.put("error", String.valueOf(e.getMessage()));
+                sender.sendMessage(com.economy.util.LanguageManager.getMessage("chat_balances_file_error", java.awt.Color.RED, placeholders));
+            }
+        });
+    }
+}
@@ -0,0 +1,48 @@
+package com.economy.commands.subcommand.admin;
+
+import com.economy.util.EconomyMetrics;
+import com.hypixel.hytale.protocol.GameMode;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.CommandSender;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractAsyncCommand;
+import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * /money metrics (ou /eco metrics) - mostra contadores, filas e latências acumulados desde o início do servidor
+ */
+public class MoneyMetricsCommand extends AbstractAsyncCommand {
+
+    public MoneyMetricsCommand() {
+        super("metrics", com.economy.util.LanguageManager.getTranslation("desc_money_metrics"));
+        this.setPermissionGroup(GameMode.Creative);
+
+        // Define a permissão do comando via reflexão para aparecer no LuckPerms
+        com.economy.util.CommandPermissionHelper.setCommandPermission(this, com.economy.commands.CommandMessages.PERMISSION_ADMIN_MONEY_METRICS);
+    }
+
+    @NonNullDecl
+    @Override
+    protected CompletableFuture<Void> executeAsync(CommandContext commandContext) {
+        CommandSender sender = commandContext.sender();
+        if (!com.economy.util.PermissionHelper.hasPermission(sender, com.economy.commands.CommandMessages.PERMISSION_ADMIN_MONEY_METRICS)) {
+            sender.sendMessage(com.economy.commands.CommandMessages.NO_PERMISSION());
+            return CompletableFuture.completedFuture(null);
+        }
+
+        List<String> lines = EconomyMetrics.getInstance().summary();
+        if (lines.isEmpty()) {
+            sender.sendMessage(com.economy.util.LanguageManager.getMessage("chat_metrics_empty", java.awt.Color.YELLOW));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        sender.sendMessage(com.economy.util.LanguageManager.getMessage("chat_metrics_header", new java.awt.Color(255, 215, 0)));
+        for (String line : lines) {
+            sender.sendMessage(Message.raw(line));
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+}
@@ -0,0 +1,72 @@
+package com.economy.commands.subcommand.admin;
+
+import com.economy.Main;
+import com.economy.economy.EconomyManager;
+import com.economy.playershop.PlayerShopManager;
+import com.economy.shop.ShopManager;
+import com.economy.storage.JsonMigration;
+import com.hypixel.hytale.protocol.GameMode;
+import com.hypixel.hytale.server.core.command.system.CommandContext;
+import com.hypixel.hytale.server.core.command.system.CommandSender;
+import com.hypixel.hytale.server.core.command.system.basecommands.AbstractAsyncCommand;
+import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * /money migrate (ou /eco migrate) - migra Balances.json, Shop.json e PlayerShop.json para o MySQL em lotes,
+ * continuando uma migração interrompida. As lojas só são migradas se ainda não têm dados no MySQL.
+ */
+public class MoneyMigrateCommand extends AbstractAsyncCommand {
+
+    public MoneyMigrateCommand() {
+        super("migrate", com.economy.util.LanguageManager.getTranslation("desc_money_migrate"));
+        this.setPermissionGroup(GameMode.Creative);
+
+        // Define a permissão do comando via reflexão para aparecer no LuckPerms
+        com.economy.util.CommandPermissionHelper.setCommandPermission(this, com.economy.commands.CommandMessages.PERMISSION_ADMIN_MONEY_MIGRATE);
+    }
+
+    @NonNullDecl
+    @Override
+    protected CompletableFuture<Void> executeAsync(CommandContext commandContext) {
+        CommandSender sender = commandContext.sender();
+        if (!com.economy.util.PermissionHelper.hasPermission(sender, com.economy.commands.CommandMessages.PERMISSION_ADMIN_MONEY_MIGRATE)) {
+            sender.sendMessage(com.economy.commands.CommandMessages.NO_PERMISSION());
+            return CompletableFuture.completedFuture(null);
+        }
+        if (!Main.CONFIG.get().isEnableMySQL()) {
+            sender.sendMessage(com.economy.util.LanguageManager.getMessage("chat_migration_requires_mysql", java.awt.Color.RED));
+            return CompletableFuture.completedFuture(null);
+        }
+
+        sender.sendMessage(com.economy.util.LanguageManager.getMessage("chat_migration_started", java.awt.Color.YELLOW));
+        // Leitura dos arquivos e gravação no banco: roda fora da thread do mundo
+        return CompletableFuture.runAsync(() -> {
+            migrate(sender, "Balances", () -> EconomyManager.getInstance().migrateFromJSON());
+            migrate(sender, "AdminShop", () -> ShopManager.getInstance().migrateFromJSON());
+            migrate(sender, "PlayerShop", () -> PlayerShopManager.getInstance().migrateFromJSON());
+        });
+    }
+
+    private static void migrate(CommandSender sender, String source, Callable<JsonMigration.Result> migration) {
+        java.util.Map<String, String> placeholders = new java.util.HashMap<>();
+        placeholders.put("source", source);
+        try {
+            JsonMigration.Result result = migration.call();
+            if (result == null) {
+                sender.sendMessage(com.economy.util.LanguageManager.getMessage("chat_migration_skipped", java.awt.Color.GRAY, placeholders));
+                return;
+            }
+            placeholders.put("rows", String.valueOf(result.getRows()));
+            placeholders.put("seconds", String.format("%.1f", result.getSeconds()));
+            placeholders.put("rate", String.format("%.0f", result.getRowsPerSecond()));
+            placeholders.put("skipped", String.valueOf(result.getSkipped()));
+            sender.sendMessage(com.economy.util.LanguageManager.getMessage("chat_migration_done", java.awt.Color.GREEN, placeholders));
+        } catch (Exception e) {
+            placeholders.put("error", String.valueOf(e.getMessage()));
+            sender.sendMessage(com.economy.util.LanguageManager.getMessage("chat_migration_error", java.awt.Color.RED, placeholders));
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.economy.commands.subcommand.admin;
 
 import com.economy.economy.EconomyManager;
+import com.economy.economy.TransactionType;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.protocol.GameMode;
@@ -84,7 +85,7 @@ public class MoneySetCommand extends AbstractAsyncCommand {
             return;
         }
 
-        EconomyManager.getInstance().setBalance(targetUuid, amountValue);
+        EconomyManager.getInstance().setBalance(targetUuid, amountValue, TransactionType.ADMIN_SET);
         String playerName = EconomyManager.getInstance().getPlayerName(targetUuid);
         sender.sendMessage(com.economy.commands.CommandMessages.BALANCE_SET());
         java.util.Map<String, String> placeholders = new java.util.HashMap<>();
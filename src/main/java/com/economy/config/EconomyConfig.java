@@ -38,6 +38,57 @@ public class EconomyConfig {
             .append(new KeyedCodec<String>("MySQLPlayerShopTableName", Codec.STRING),
                     (config, value, extraInfo) -> config.mysqlPlayerShopTableName = value != null && !value.isEmpty() ? value : "playershop",
                     (config, extraInfo) -> config.mysqlPlayerShopTableName).add()
+            .append(new KeyedCodec<Integer>("MySQLWriteBufferFlushIntervalMs", Codec.INTEGER),
+                    (config, value, extraInfo) -> config.setMySQLWriteBufferFlushIntervalMs(value != null ? value : 1000),
+                    (config, extraInfo) -> config.mysqlWriteBufferFlushIntervalMs).add()
+            .append(new KeyedCodec<Integer>("MySQLWriteBufferBatchSize", Codec.INTEGER),
+                    (config, value, extraInfo) -> config.setMySQLWriteBufferBatchSize(value != null ? value : 500),
+                    (config, extraInfo) -> config.mysqlWriteBufferBatchSize).add()
+            .append(new KeyedCodec<Integer>("MySQLWriteBufferMaxPending", Codec.INTEGER),
+                    (config, value, extraInfo) -> config.setMySQLWriteBufferMaxPending(value != null ? value : 20000),
+                    (config, extraInfo) -> config.mysqlWriteBufferMaxPending).add()
+            .append(new KeyedCodec<Integer>("MySQLMigrationBatchSize", Codec.INTEGER),
+                    (config, value, extraInfo) -> config.setMySQLMigrationBatchSize(value != null ? value : 1000),
+                    (config, extraInfo) -> config.mysqlMigrationBatchSize).add()
+            .append(new KeyedCodec<Integer>("MySQLBreakerFailureThreshold", Codec.INTEGER),
+                    (config, value, extraInfo) -> config.setMySQLBreakerFailureThreshold(value != null ? value : 1),
+                    (config, extraInfo) -> config.mysqlBreakerFailureThreshold).add()
+            .append(new KeyedCodec<Integer>("MySQLBreakerProbeIntervalMs", Codec.INTEGER),
+                    (config, value, extraInfo) -> config.setMySQLBreakerProbeIntervalMs(value != null ? value : 2000),
+                    (config, extraInfo) -> config.mysqlBreakerProbeIntervalMs).add()
+            .append(new KeyedCodec<Integer>("MySQLRetryMaxAttempts", Codec.INTEGER),
+                    (config, value, extraInfo) -> config.setMySQLRetryMaxAttempts(value != null ? value : 5),
+                    (config, extraInfo) -> config.mysqlRetryMaxAttempts).add()
+            .append(new KeyedCodec<Integer>("MySQLSpillMaxMB", Codec.INTEGER),
+                    (config, value, extraInfo) -> config.setMySQLSpillMaxMB(value != null ? value : 64),
+                    (config, extraInfo) -> config.mysqlSpillMaxMB).add()
+            .append(new KeyedCodec<Integer>("MySQLPoolSize", Codec.INTEGER),
+                    (config, value, extraInfo) -> config.setMySQLPoolSize(value != null ? value : 10),
+                    (config, extraInfo) -> config.mysqlPoolSize).add()
+            .append(new KeyedCodec<Integer>("MySQLPoolMinIdle", Codec.INTEGER),
+                    (config, value, extraInfo) -> config.setMySQLPoolMinIdle(value != null ? value : 2),
+                    (config, extraInfo) -> config.mysqlPoolMinIdle).add()
+            .append(new KeyedCodec<Integer>("MySQLIOThreads", Codec.INTEGER),
+                    (config, value, extraInfo) -> config.setMySQLIOThreads(value != null ? value : 4),
+                    (config, extraInfo) -> config.mysqlIOThreads).add()
+            .append(new KeyedCodec<Boolean>("MySQLLazyLoading", Codec.BOOLEAN),
+                    (config, value, extraInfo) -> config.mysqlLazyLoading = value != null ? value : false,
+                    (config, extraInfo) -> config.mysqlLazyLoading).add()
+            .append(new KeyedCodec<Integer>("MySQLCacheMaxOfflineAccounts", Codec.INTEGER),
+                    (config, value, extraInfo) -> config.setMySQLCacheMaxOfflineAccounts(value != null ? value : 10000),
+                    (config, extraInfo) -> config.mysqlCacheMaxOfflineAccounts).add()
+            .append(new KeyedCodec<Integer>("MySQLCacheIdleMinutes", Codec.INTEGER),
+                    (config, value, extraInfo) -> config.setMySQLCacheIdleMinutes(value != null ? value : 30),
+                    (config, extraInfo) -> config.mysqlCacheIdleMinutes).add()
+            .append(new KeyedCodec<Boolean>("MySQLNetworkMode", Codec.BOOLEAN),
+                    (config, value, extraInfo) -> config.mysqlNetworkMode = value != null ? value : false,
+                    (config, extraInfo) -> config.mysqlNetworkMode).add()
+            .append(new KeyedCodec<Integer>("MySQLNetworkRefreshSeconds", Codec.INTEGER),
+                    (config, value, extraInfo) -> config.setMySQLNetworkRefreshSeconds(value != null ? value : 30),
+                    (config, extraInfo) -> config.mysqlNetworkRefreshSeconds).add()
+            .append(new KeyedCodec<Integer>("MySQLChangeFeedPollMs", Codec.INTEGER),
+                    (config, value, extraInfo) -> config.setMySQLChangeFeedPollMs(value != null ? value : 500),
+                    (config, extraInfo) -> config.mysqlChangeFeedPollMs).add()
             .append(new KeyedCodec<String>("Language", Codec.STRING),
                     (config, value, extraInfo) -> config.language = value != null ? value : "EN",
                     (config, extraInfo) -> config.language).add()
@@ -47,6 +98,36 @@ public class EconomyConfig {
             .append(new KeyedCodec<String>("CurrencySymbol", Codec.STRING),
                     (config, value, extraInfo) -> config.currencySymbol = value != null && !value.isEmpty() ? value : "$",
                     (config, extraInfo) -> config.currencySymbol).add()
+            .append(new KeyedCodec<Integer>("CurrencyScale", Codec.INTEGER),
+                    (config, value, extraInfo) -> config.setCurrencyScale(value != null ? value : 2),
+                    (config, extraInfo) -> config.currencyScale).add()
+            .append(new KeyedCodec<String>("BalanceSnapshotFormat", Codec.STRING),
+                    (config, value, extraInfo) -> config.setBalanceSnapshotFormat(value != null ? value : "json"),
+                    (config, extraInfo) -> config.balanceSnapshotFormat).add()
+            .append(new KeyedCodec<Boolean>("EnableBalanceJournal", Codec.BOOLEAN),
+                    (config, value, extraInfo) -> config.enableBalanceJournal = value != null ? value : true,
+                    (config, extraInfo) -> config.enableBalanceJournal).add()
+            .append(new KeyedCodec<Integer>("BalanceJournalCompactMB", Codec.INTEGER),
+                    (config, value, extraInfo) -> config.setBalanceJournalCompactMB(value != null ? value : 16),
+                    (config, extraInfo) -> config.balanceJournalCompactMB).add()
+            .append(new KeyedCodec<Boolean>("EnableLedger", Codec.BOOLEAN),
+                    (config, value, extraInfo) -> config.enableLedger = value != null ? value : true,
+                    (config, extraInfo) -> config.enableLedger).add()
+            .append(new KeyedCodec<Integer>("LedgerBufferSize", Codec.INTEGER),
+                    (config, value, extraInfo) -> config.setLedgerBufferSize(value != null ? value : 65536),
+                    (config, extraInfo) -> config.ledgerBufferSize).add()
+            .append(new KeyedCodec<Integer>("LedgerRetentionDays", Codec.INTEGER),
+                    (config, value, extraInfo) -> config.setLedgerRetentionDays(value != null ? value : 30),
+                    (config, extraInfo) -> config.ledgerRetentionDays).add()
+            .append(new KeyedCodec<Integer>("IdempotencyTtlSeconds", Codec.INTEGER),
+                    (config, value, extraInfo) -> config.setIdempotencyTtlSeconds(value != null ? value : 600),
+                    (config, extraInfo) -> config.idempotencyTtlSeconds).add()
+            .append(new KeyedCodec<Integer>("IdempotencyMaxKeys", Codec.INTEGER),
+                    (config, value, extraInfo) -> config.setIdempotencyMaxKeys(value != null ? value : 100000),
+                    (config, extraInfo) -> config.idempotencyMaxKeys).add()
+            .append(new KeyedCodec<Integer>("MetricsLogIntervalSeconds", Codec.INTEGER),
+                    (config, value, extraInfo) -> config.setMetricsLogIntervalSeconds(value != null ? value : 300),
+                    (config, extraInfo) -> config.metricsLogIntervalSeconds).add()
             .append(new KeyedCodec<Boolean>("EnableOreRewards", Codec.BOOLEAN),
                     (config, value, extraInfo) -> config.enableOreRewards = value,
                     (config, extraInfo) -> config.enableOreRewards).add()
@@ -142,6 +223,16 @@ public class EconomyConfig {
     private String language = "EN";
     private double initialBalance = 1000.0;
     private String currencySymbol = "$";
+    private int currencyScale = 2; // Casas decimais dos saldos (unidades mínimas em ponto fixo, 0-6)
+    private String balanceSnapshotFormat = "json"; // "json" (Balances.json) ou "binary" (Balances.dat, carregamento rápido)
+    private boolean enableBalanceJournal = true; // Journal de alterações de saldo no modo JSON (recuperação após crash)
+    private int balanceJournalCompactMB = 16; // Tamanho do journal que dispara a compactação em snapshot
+    private boolean enableLedger = true; // Registro das transações (pagamentos, lojas, recompensas, ações de admin)
+    private int ledgerBufferSize = 65536; // Registros que o ledger segura em memória enquanto grava
+    private int ledgerRetentionDays = 30; // Dias que o histórico de transações é mantido (0 = para sempre)
+    private int idempotencyTtlSeconds = 600; // Tempo que uma chave de idempotência da API/Vault é lembrada (0 = desligado)
+    private int idempotencyMaxKeys = 100000; // Máximo de chaves de idempotência em memória
+    private int metricsLogIntervalSeconds = 300; // Intervalo do resumo de métricas no log (0 = desligado)
     private boolean enableOreRewards = true;
     private boolean enableWoodRewards = true;
     private boolean enableMonsterRewards = true;
@@ -167,6 +258,23 @@ public class EconomyConfig {
     private String mysqlTableName = "bank";
     private String mysqlAdminShopTableName = "adminshop";
     private String mysqlPlayerShopTableName = "playershop";
+    private int mysqlWriteBufferFlushIntervalMs = 1000; // Intervalo do flush do buffer de gravações de saldo
+    private int mysqlWriteBufferBatchSize = 500; // Tamanho do lote JDBC (também dispara um flush antecipado)
+    private int mysqlWriteBufferMaxPending = 20000; // Contas pendentes antes de forçar um flush (a gravação nunca espera)
+    private int mysqlMigrationBatchSize = 1000; // Entradas do JSON por lote/transação na migração JSON -> MySQL
+    private int mysqlBreakerFailureThreshold = 1; // Falhas de conexão seguidas antes de abrir o circuito (cada uma já esperou o timeout do pool)
+    private int mysqlBreakerProbeIntervalMs = 2000; // Intervalo das sondas de saúde enquanto o circuito está aberto
+    private int mysqlRetryMaxAttempts = 5; // Tentativas de uma operação que falhou por conexão, sem contar a espera com o circuito aberto
+    private int mysqlSpillMaxMB = 64; // Tamanho máximo do journal local de saldos não entregues ao MySQL (Balances.spill)
+    private int mysqlPoolSize = 10; // Conexões do pool único compartilhado por saldos, loja admin e lojas de jogadores
+    private int mysqlPoolMinIdle = 2; // Conexões ociosas mantidas no pool
+    private int mysqlIOThreads = 4; // Threads de IO do MySQL (mais uma para as gravações de saldo); as operações de uma mesma conta/loja ficam sempre na mesma
+    private boolean mysqlLazyLoading = false; // Carrega as contas sob demanda em vez de carregar a tabela inteira no boot
+    private int mysqlCacheMaxOfflineAccounts = 10000; // Contas de jogadores offline mantidas em memória (modo lazy)
+    private int mysqlCacheIdleMinutes = 30; // Contas offline sem acesso há mais tempo são descarregadas (modo lazy)
+    private boolean mysqlNetworkMode = false; // Vários servidores na mesma tabela: alterações vão direto ao banco como deltas
+    private int mysqlNetworkRefreshSeconds = 30; // Conferência completa das contas online com o banco (modo rede; o feed de alterações cobre o dia a dia)
+    private int mysqlChangeFeedPollMs = 500; // Intervalo de leitura do feed de alterações dos outros servidores (modo rede)
 
     public EconomyConfig() {
         // Inicializa os valores padrão para todos os minérios, madeiras e monstros
@@ -405,6 +513,14 @@ public class EconomyConfig {
         this.currencySymbol = currencySymbol != null && !currencySymbol.isEmpty() ? currencySymbol : "$";
     }
 
+    public int getCurrencyScale() {
+        return currencyScale;
+    }
+
+    public void setCurrencyScale(int currencyScale) {
+        this.currencyScale = currencyScale >= 0 && currencyScale <= 6 ? currencyScale : 2;
+    }
+
     public boolean isEnableShop() {
         return enableShop;
     }
@@ -532,4 +648,212 @@ public class EconomyConfig {
     public void setMySQLPlayerShopTableName(String mysqlPlayerShopTableName) {
         this.mysqlPlayerShopTableName = mysqlPlayerShopTableName != null && !mysqlPlayerShopTableName.isEmpty() ? mysqlPlayerShopTableName : "playershop";
     }
+
+    public int getMySQLWriteBufferFlushIntervalMs() {
+        return mysqlWriteBufferFlushIntervalMs;
+    }
+
+    public void setMySQLWriteBufferFlushIntervalMs(int mysqlWriteBufferFlushIntervalMs) {
+        this.mysqlWriteBufferFlushIntervalMs = mysqlWriteBufferFlushIntervalMs >= 10 ? mysqlWriteBufferFlushIntervalMs : 1000;
+    }
+
+    public int getMySQLWriteBufferBatchSize() {
+        return mysqlWriteBufferBatchSize;
+    }
+
+    public void setMySQLWriteBufferBatchSize(int mysqlWriteBufferBatchSize) {
+        this.mysqlWriteBufferBatchSize = mysqlWriteBufferBatchSize > 0 ? mysqlWriteBufferBatchSize : 500;
+    }
+
+    public int getMySQLWriteBufferMaxPending() {
+        return mysqlWriteBufferMaxPending;
+    }
+
+    public void setMySQLWriteBufferMaxPending(int mysqlWriteBufferMaxPending) {
+        this.mysqlWriteBufferMaxPending = mysqlWriteBufferMaxPending > 0 ? mysqlWriteBufferMaxPending : 20000;
+    }
+
+    public int getMySQLMigrationBatchSize() {
+        return mysqlMigrationBatchSize;
+    }
+
+    public void setMySQLMigrationBatchSize(int mysqlMigrationBatchSize) {
+        this.mysqlMigrationBatchSize = mysqlMigrationBatchSize > 0 ? mysqlMigrationBatchSize : 1000;
+    }
+
+    public int getMySQLBreakerFailureThreshold() {
+        return mysqlBreakerFailureThreshold;
+    }
+
+    public void setMySQLBreakerFailureThreshold(int mysqlBreakerFailureThreshold) {
+        this.mysqlBreakerFailureThreshold = mysqlBreakerFailureThreshold > 0 ? mysqlBreakerFailureThreshold : 1;
+    }
+
+    public int getMySQLBreakerProbeIntervalMs() {
+        return mysqlBreakerProbeIntervalMs;
+    }
+
+    public void setMySQLBreakerProbeIntervalMs(int mysqlBreakerProbeIntervalMs) {
+        this.mysqlBreakerProbeIntervalMs = mysqlBreakerProbeIntervalMs >= 100 ? mysqlBreakerProbeIntervalMs : 2000;
+    }
+
+    public int getMySQLRetryMaxAttempts() {
+        return mysqlRetryMaxAttempts;
+    }
+
+    public void setMySQLRetryMaxAttempts(int mysqlRetryMaxAttempts) {
+        this.mysqlRetryMaxAttempts = mysqlRetryMaxAttempts > 0 ? mysqlRetryMaxAttempts : 5;
+    }
+
+    public int getMySQLSpillMaxMB() {
+        return mysqlSpillMaxMB;
+    }
+
+    public void setMySQLSpillMaxMB(int mysqlSpillMaxMB) {
+        this.mysqlSpillMaxMB = mysqlSpillMaxMB > 0 ? mysqlSpillMaxMB : 64;
+    }
+
+    public int getMySQLPoolSize() {
+        return mysqlPoolSize;
+    }
+
+    public void setMySQLPoolSize(int mysqlPoolSize) {
+        this.mysqlPoolSize = mysqlPoolSize > 0 ? mysqlPoolSize : 10;
+    }
+
+    public int getMySQLPoolMinIdle() {
+        return mysqlPoolMinIdle;
+    }
+
+    public void setMySQLPoolMinIdle(int mysqlPoolMinIdle) {
+        this.mysqlPoolMinIdle = mysqlPoolMinIdle >= 0 ? mysqlPoolMinIdle : 2;
+    }
+
+    public int getMySQLIOThreads() {
+        return mysqlIOThreads;
+    }
+
+    public void setMySQLIOThreads(int mysqlIOThreads) {
+        this.mysqlIOThreads = mysqlIOThreads > 0 ? mysqlIOThreads : 4;
+    }
+
+    public boolean isEnableBalanceJournal() {
+        return enableBalanceJournal;
+    }
+
+    public void setEnableBalanceJournal(boolean enableBalanceJournal) {
+        this.enableBalanceJournal = enableBalanceJournal;
+    }
+
+    public int getBalanceJournalCompactMB() {
+        return balanceJournalCompactMB;
+    }
+
+    public void setBalanceJournalCompactMB(int balanceJournalCompactMB) {
+        this.balanceJournalCompactMB = balanceJournalCompactMB > 0 ? balanceJournalCompactMB : 16;
+    }
+
+    public String getBalanceSnapshotFormat() {
+        return balanceSnapshotFormat;
+    }
+
+    public void setBalanceSnapshotFormat(String balanceSnapshotFormat) {
+        this.balanceSnapshotFormat = "binary".equalsIgnoreCase(balanceSnapshotFormat) ? "binary" : "json";
+    }
+
+    public boolean isMySQLLazyLoading() {
+        return mysqlLazyLoading;
+    }
+
+    public void setMySQLLazyLoading(boolean mysqlLazyLoading) {
+        this.mysqlLazyLoading = mysqlLazyLoading;
+    }
+
+    public int getMySQLCacheMaxOfflineAccounts() {
+        return mysqlCacheMaxOfflineAccounts;
+    }
+
+    public void setMySQLCacheMaxOfflineAccounts(int mysqlCacheMaxOfflineAccounts) {
+        this.mysqlCacheMaxOfflineAccounts = mysqlCacheMaxOfflineAccounts >= 0 ? mysqlCacheMaxOfflineAccounts : 10000;
+    }
+
+    public int getMySQLCacheIdleMinutes() {
+        return mysqlCacheIdleMinutes;
+    }
+
+    public void setMySQLCacheIdleMinutes(int mysqlCacheIdleMinutes) {
+        this.mysqlCacheIdleMinutes = mysqlCacheIdleMinutes > 0 ? mysqlCacheIdleMinutes : 30;
+    }
+
+    public boolean isMySQLNetworkMode() {
+        return mysqlNetworkMode;
+    }
+
+    public void setMySQLNetworkMode(boolean mysqlNetworkMode) {
+        this.mysqlNetworkMode = mysqlNetworkMode;
+    }
+
+    public int getMySQLNetworkRefreshSeconds() {
+        return mysqlNetworkRefreshSeconds;
+    }
+
+    public void setMySQLNetworkRefreshSeconds(int mysqlNetworkRefreshSeconds) {
+        this.mysqlNetworkRefreshSeconds = mysqlNetworkRefreshSeconds > 0 ? mysqlNetworkRefreshSeconds : 30;
+    }
+
+    public int getMySQLChangeFeedPollMs() {
+        return mysqlChangeFeedPollMs;
+    }
+
+    public void setMySQLChangeFeedPollMs(int mysqlChangeFeedPollMs) {
+        this.mysqlChangeFeedPollMs = mysqlChangeFeedPollMs > 0 ? mysqlChangeFeedPollMs : 500;
+    }
+
+    public boolean isEnableLedger() {
+        return enableLedger;
+    }
+
+    public void setEnableLedger(boolean enableLedger) {
+        this.enableLedger = enableLedger;
+    }
+
+    public int getLedgerBufferSize() {
+        return ledgerBufferSize;
+    }
+
+    public void setLedgerBufferSize(int ledgerBufferSize) {
+        this.ledgerBufferSize = ledgerBufferSize >= 1024 ? ledgerBufferSize : 65536;
+    }
+
+    public int getLedgerRetentionDays() {
+        return ledgerRetentionDays;
+    }
+
+    public void setLedgerRetentionDays(int ledgerRetentionDays) {
+        this.ledgerRetentionDays = ledgerRetentionDays >= 0 ? ledgerRetentionDays : 30;
+    }
+
+    public int getIdempotencyTtlSeconds() {
+        return idempotencyTtlSeconds;
+    }
+
+    public void setIdempotencyTtlSeconds(int idempotencyTtlSeconds) {
+        this.idempotencyTtlSeconds = idempotencyTtlSeconds >= 0 ? idempotencyTtlSeconds : 600;
+    }
+
+    public int getIdempotencyMaxKeys() {
+        return idempotencyMaxKeys;
+    }
+
+    public void setIdempotencyMaxKeys(int idempotencyMaxKeys) {
+        this.idempotencyMaxKeys = idempotencyMaxKeys > 0 ? idempotencyMaxKeys : 100000;
+    }
+
+    public int getMetricsLogIntervalSeconds() {
+        return metricsLogIntervalSeconds;
+    }
+
+    public void setMetricsLogIntervalSeconds(int metricsLogIntervalSeconds) {
+        this.metricsLogIntervalSeconds = metricsLogIntervalSeconds >= 0 ? metricsLogIntervalSeconds : 300;
+    }
 }
@@ -0,0 +1,64 @@
+package com.economy.economy;
+
+import javax.annotation.Nonnull;
+import java.math.BigDecimal;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Um depósito (valor positivo) ou saque (valor negativo) em uma conta, usado nos lotes de
+ * {@link EconomyManager#applyBatch(java.util.List)}.
+ * <p>
+ * Para {@link CurrencyType#MONEY} o valor está em unidades mínimas (ver MoneyUnits);
+ * para {@link CurrencyType#CASH} é a quantidade de cash.
+ */
+public final class BalanceDelta {
+
+    private final UUID uuid;
+    private final CurrencyType currency;
+    private final long amount;
+
+    private BalanceDelta(@Nonnull UUID uuid, @Nonnull CurrencyType currency, long amount) {
+        this.uuid = Objects.requireNonNull(uuid, "uuid");
+        this.currency = Objects.requireNonNull(currency, "currency");
+        this.amount = amount;
+    }
+
+    /**
+     * @throws ArithmeticException se o valor não couber em um saldo
+     */
+    public static BalanceDelta money(@Nonnull UUID uuid, double amount) {
+        return new BalanceDelta(uuid, CurrencyType.MONEY, MoneyUnits.toUnits(amount));
+    }
+
+    /**
+     * @param amount Valor exato (arredondado para a escala configurada)
+     * @throws ArithmeticException se o valor não couber em um saldo
+     */
+    public static BalanceDelta money(@Nonnull UUID uuid, @Nonnull BigDecimal amount) {
+        return new BalanceDelta(uuid, CurrencyType.MONEY, MoneyUnits.toUnits(amount));
+    }
+
+    public static BalanceDelta moneyUnits(@Nonnull UUID uuid, long units) {
+        return new BalanceDelta(uuid, CurrencyType.MONEY, units);
+    }
+
+    public static BalanceDelta cash(@Nonnull UUID uuid, int amount) {
+        return new BalanceDelta(uuid, CurrencyType.CASH, amount);
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public CurrencyType getCurrency() {
+        return currency;
+    }
+
+    /**
+     * @return Valor com sinal: positivo deposita, negativo saca
+     */
+    public long getAmount() {
+        return amount;
+    }
+}
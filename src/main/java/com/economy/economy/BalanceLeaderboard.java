@@ -0,0 +1,251 @@
+package com.economy.economy;
+
+import java.util.AbstractMap;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * Índice ordenado dos saldos para o ranking (/money top e %player_rank% da HUD).
+ * <p>
+ * É uma treap com contagem de nós por subárvore (árvore de estatística de ordem), ordenada por saldo
+ * decrescente e UUID como desempate. Inserir, remover e calcular a posição de uma conta custam O(log N);
+ * o top K custa O(K + log N).
+ * <p>
+ * Quem altera saldos apenas marca a conta como alterada ({@link #update(UUID)}, O(1) e sem lock);
+ * as marcações são aplicadas na árvore na próxima consulta. Assim os caminhos de escrita
+ * (comandos, lojas, transferências) não disputam o lock do ranking.
+ */
+public class BalanceLeaderboard {
+
+    private static final class Node {
+        final UUID uuid;
+        final long units;
+        final int priority;
+        Node left;
+        Node right;
+        int size = 1;
+
+        Node(UUID uuid, long units, int priority) {
+            this.uuid = uuid;
+            this.units = units;
+            this.priority = priority;
+        }
+    }
+
+    private final Function<UUID, PlayerBalance> accounts;
+    private final Set<UUID> pending = ConcurrentHashMap.newKeySet();
+    private final Object lock = new Object();
+    // Acessados apenas com o lock
+    private final Map<UUID, Long> indexed = new HashMap<>();
+    private final SplittableRandom random = new SplittableRandom();
+    private Node root;
+
+    /**
+     * @param accounts Conta atual pelo UUID (null se a conta não existe mais)
+     */
+    public BalanceLeaderboard(Function<UUID, PlayerBalance> accounts) {
+        this.accounts = accounts;
+    }
+
+    /**
+     * Marca o saldo da conta como alterado (aplicado na próxima consulta)
+     */
+    public void update(UUID uuid) {
+        pending.add(uuid);
+    }
+
+    /**
+     * Descarta o índice (as contas devem ser marcadas de novo com update)
+     */
+    public void clear() {
+        synchronized (lock) {
+            pending.clear();
+            indexed.clear();
+            root = null;
+        }
+    }
+
+    /**
+     * @return As {@code limit} contas com maior saldo (UUID → unidades mínimas), em ordem decrescente
+     */
+    public List<Map.Entry<UUID, Long>> top(int limit) {
+        synchronized (lock) {
+            applyPending();
+            List<Map.Entry<UUID, Long>> result = new ArrayList<>(Math.max(0, Math.min(limit, size(root))));
+            Deque<Node> stack = new ArrayDeque<>();
+            Node current = root;
+            while (result.size() < limit && (current != null || !stack.isEmpty())) {
+                while (current != null) {
+                    stack.push(current);
+                    current = current.left;
+                }
+                Node node = stack.pop();
+                result.add(new AbstractMap.SimpleImmutableEntry<>(node.uuid, node.units));
+                current = node.right;
+            }
+            return result;
+        }
+    }
+
+    /**
+     * @return Posição da conta no ranking (1 = maior saldo) ou -1 se a conta não existe
+     */
+    public int rankOf(UUID uuid) {
+        synchronized (lock) {
+            applyPending();
+            Long units = indexed.get(uuid);
+            if (units == null) {
+                return -1;
+            }
+            int rank = 0;
+            Node node = root;
+            while (node != null) {
+                int cmp = compare(units, uuid, node);
+                if (cmp < 0) {
+                    node = node.left;
+                } else {
+                    rank += size(node.left) + 1;
+                    if (cmp == 0) {
+                        return rank;
+                    }
+                    node = node.right;
+                }
+            }
+            return -1;
+        }
+    }
+
+    public int size() {
+        synchronized (lock) {
+            applyPending();
+            return indexed.size();
+        }
+    }
+
+    private void applyPending() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        for (UUID uuid : pending) {
+            // Remove antes de ler o saldo: uma alteração concorrente marca a conta de novo
+            pending.remove(uuid);
+            PlayerBalance account = accounts.apply(uuid);
+            Long previous = indexed.get(uuid);
+            if (account == null) {
+                if (previous != null) {
+                    root = delete(root, previous, uuid);
+                    indexed.remove(uuid);
+                }
+                continue;
+            }
+            long units = account.getBalanceUnits();
+            if (previous != null) {
+                if (previous == units) {
+                    continue;
+                }
+                root = delete(root, previous, uuid);
+            }
+            root = insert(root, new Node(uuid, units, random.nextInt()));
+            indexed.put(uuid, units);
+        }
+    }
+
+    /**
+     * Ordem do ranking: saldo decrescente, depois UUID
+     */
+    private static int compare(long units, UUID uuid, Node node) {
+        int cmp = Long.compare(node.units, units);
+        return cmp != 0 ? cmp : uuid.compareTo(node.uuid);
+    }
+
+    private static int size(Node node) {
+        return node != null ? node.size : 0;
+    }
+
+    private static void recalc(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+    }
+
+    private static Node insert(Node node, Node item) {
+        if (node == null) {
+            return item;
+        }
+        if (item.priority > node.priority) {
+            split(node, item.units, item.uuid, item);
+            recalc(item);
+            return item;
+        }
+        if (compare(item.units, item.uuid, node) < 0) {
+            node.left = insert(node.left, item);
+        } else {
+            node.right = insert(node.right, item);
+        }
+        recalc(node);
+        return node;
+    }
+
+    /**
+     * Divide a subárvore em nós antes da chave (out.left) e depois dela (out.right)
+     */
+    private static void split(Node node, long units, UUID uuid, Node out) {
+        if (node == null) {
+            out.left = null;
+            out.right = null;
+            return;
+        }
+        if (compare(units, uuid, node) < 0) {
+            split(node.left, units, uuid, out);
+            node.left = out.right;
+            recalc(node);
+            out.right = node;
+        } else {
+            split(node.right, units, uuid, out);
+            node.right = out.left;
+            recalc(node);
+            out.left = node;
+        }
+    }
+
+    private static Node delete(Node node, long units, UUID uuid) {
+        if (node == null) {
+            return null;
+        }
+        int cmp = compare(units, uuid, node);
+        if (cmp == 0) {
+            return merge(node.left, node.right);
+        }
+        if (cmp < 0) {
+            node.left = delete(node.left, units, uuid);
+        } else {
+            node.right = delete(node.right, units, uuid);
+        }
+        recalc(node);
+        return node;
+    }
+
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            recalc(left);
+            return left;
+        }
+        right.left = merge(left, right.left);
+        recalc(right);
+        return right;
+    }
+}
@@ -1,132 +1,616 @@
 package com.economy.economy;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
+/**
+ * Armazena as contas em memória.
+ * <p>
+ * O mapa é concorrente (world threads, comandos assíncronos, GUIs e o executor de IO do MySQL
+ * acessam ao mesmo tempo) e cada conta é atualizada de forma atômica pelo próprio PlayerBalance,
+ * então não há lock global: threads diferentes mexendo em contas diferentes não se bloqueiam.
+ * <p>
+ * Também guarda o conjunto de contas sujas (alteradas desde o último flush). Cada marcação recebe
+ * uma geração crescente; o flush só limpa a marcação se a geração não mudou, então uma conta alterada
+ * durante o flush continua suja para o próximo.
+ * <p>
+ * Transferências entre contas (applyLegs) usam locks listrados por UUID, sempre adquiridos
+ * na mesma ordem, para que duas transferências cruzadas (A→B e B→A) nunca entrem em deadlock.
+ * <p>
+ * Toda alteração de saldo é repassada ao {@link BalanceLeaderboard}, que mantém o ranking ordenado.
+ * <p>
+ * Mantém também um índice nome → UUID (nome normalizado em minúsculas) de todas as contas com nick,
+ * inclusive de jogadores offline, para buscas por nome em O(1).
+ * <p>
+ * Com um {@link #setAccountLoader(Function) loader} o tracker funciona como cache (modo lazy do MySQL):
+ * contas ausentes são carregadas do storage quando acessadas e contas offline podem ser descarregadas
+ * com {@link #evict(UUID, long)}. Contas fixadas ({@link #pin(UUID)}, jogadores online) nunca são descarregadas.
+ */
 public class BalanceTracker {
 
-    private HashMap<UUID, PlayerBalance> balances;
+    private static final int LOCK_STRIPES = 64;
+
+    private final ConcurrentHashMap<UUID, PlayerBalance> balances;
+    private final ConcurrentHashMap<UUID, Long> dirty;
+    private final ConcurrentHashMap<String, UUID> nameIndex;
+    private final AtomicLong generation;
+    private final ReentrantLock[] transferLocks;
+    private final BalanceLeaderboard leaderboard;
+    private final Set<UUID> pinned;
+    private volatile Consumer<UUID> changeListener;
+    private volatile Function<UUID, PlayerBalance> accountLoader;
 
     public BalanceTracker() {
-        this.balances = new HashMap<>();
+        this.balances = new ConcurrentHashMap<>();
+        this.dirty = new ConcurrentHashMap<>();
+        this.nameIndex = new ConcurrentHashMap<>();
+        this.generation = new AtomicLong();
+        this.transferLocks = new ReentrantLock[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            this.transferLocks[i] = new ReentrantLock();
+        }
+        this.leaderboard = new BalanceLeaderboard(this.balances::get);
+        this.pinned = ConcurrentHashMap.newKeySet();
     }
 
+    /**
+     * Copia todas as contas para um array novo (O(N)). Para percorrer as contas prefira
+     * {@link #values()} ou {@link #forEach(Consumer)}, que não copiam nada.
+     */
     public PlayerBalance[] getBalances() {
         return balances.values().toArray(new PlayerBalance[0]);
     }
 
+    /**
+     * Visão somente leitura das contas, sem cópia. A iteração é fracamente consistente:
+     * não falha com alterações concorrentes, mas pode ou não refletir contas criadas durante ela.
+     */
+    public Collection<PlayerBalance> values() {
+        return Collections.unmodifiableCollection(balances.values());
+    }
+
+    public void forEach(Consumer<PlayerBalance> action) {
+        balances.values().forEach(action);
+    }
+
+    public boolean contains(UUID uuid) {
+        return balances.containsKey(uuid);
+    }
+
+    /**
+     * @return A conta (objeto vivo, não uma cópia) ou null se não existe
+     */
+    public PlayerBalance getAccount(UUID uuid) {
+        return balances.get(uuid);
+    }
+
+    public int size() {
+        return balances.size();
+    }
+
     public void setBalances(PlayerBalance[] balances) {
-        this.balances = new HashMap<>();
+        this.balances.clear();
+        this.leaderboard.clear();
+        this.nameIndex.clear();
         for (PlayerBalance balance : balances) {
             this.balances.put(balance.getUuid(), balance);
+            this.leaderboard.update(balance.getUuid());
+            indexName(balance.getUuid(), null, balance.getNick());
         }
     }
 
-    public double getBalance(UUID uuid) {
-        if (balances.containsKey(uuid)) {
-            return balances.get(uuid).getBalance();
+    /**
+     * Atualiza as contas em memória com um estado lido do storage sem trocar os objetos: quem já tem a
+     * referência de uma conta (uma escrita em andamento, o buffer de gravações) continua na conta certa.
+     * Deve rodar com {@link #withAllTransferLocks(Supplier)}. As escritas de uma conta só não usam esses
+     * locks: com a base, a conta recebe só a diferença (soma atômica) e essas escritas são mantidas.
+     * @param loaded Contas lidas do storage
+     * @param scope Contas que a leitura cobriu: as que estão em memória e não foram encontradas são
+     *              descarregadas, menos as fixadas e as com alterações ainda não gravadas
+     * @param base Último estado gravado da conta (unidades, cash) ou null se não houver: a conta recebe a
+     *             diferença entre o lido e a base, mantendo as alterações ainda não gravadas; sem base,
+     *             recebe o valor lido se não tiver alterações pendentes
+     */
+    public void reconcile(Collection<PlayerBalance> loaded, Predicate<UUID> scope, Function<UUID, long[]> base) {
+        Set<UUID> found = new HashSet<>(loaded.size() * 2);
+        for (PlayerBalance read : loaded) {
+            UUID uuid = read.getUuid();
+            found.add(uuid);
+            PlayerBalance live = balances.get(uuid);
+            if (live == null) {
+                putIfAbsent(read);
+                continue;
+            }
+            long[] previous = base.apply(uuid);
+            if (previous != null) {
+                live.addBalanceUnits(read.getBalanceUnits() - previous[0]);
+                live.addCash(Math.toIntExact(read.getCash() - previous[1]));
+            } else if (!dirty.containsKey(uuid)) {
+                live.setBalanceUnits(read.getBalanceUnits());
+                live.setCash(read.getCash());
+            }
+            String previousNick = live.getNick();
+            if (!read.getNick().isEmpty() && !read.getNick().equals(previousNick)) {
+                live.setNick(read.getNick());
+                indexName(uuid, previousNick, read.getNick());
+            }
+            changed(uuid);
+        }
+        for (PlayerBalance live : balances.values()) {
+            UUID uuid = live.getUuid();
+            if (found.contains(uuid) || !scope.test(uuid) || pinned.contains(uuid) || dirty.containsKey(uuid)) {
+                continue;
+            }
+            balances.remove(uuid, live);
+            String nick = live.getNick();
+            if (nick != null && !nick.isEmpty()) {
+                nameIndex.remove(normalizeName(nick), uuid);
+            }
+            leaderboard.update(uuid);
         }
-        return 0.0;
     }
 
-    public void setBalance(UUID uuid, double balance) {
-        if (!balances.containsKey(uuid)) {
-            balances.put(uuid, new PlayerBalance(uuid, balance));
-        } else {
-            balances.get(uuid).setBalance(balance);
+    public BalanceLeaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    /**
+     * Registra quem deve ser avisado a cada alteração de conta (saldo, cash ou nick).
+     * Nas transferências o aviso acontece com os locks das contas ainda adquiridos.
+     */
+    public void setChangeListener(Consumer<UUID> changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    private void changed(UUID uuid) {
+        leaderboard.update(uuid);
+        Consumer<UUID> listener = this.changeListener;
+        if (listener != null) {
+            listener.accept(uuid);
+        }
+    }
+
+    /**
+     * Define de onde carregar contas que não estão em memória. O loader retorna null se a conta
+     * não existe no storage e deve lançar uma exceção se não conseguir consultar (nunca tratar
+     * uma falha como conta inexistente, senão o saldo real seria sobrescrito).
+     */
+    public void setAccountLoader(Function<UUID, PlayerBalance> accountLoader) {
+        this.accountLoader = accountLoader;
+    }
+
+    /**
+     * Garante que a conta esteja em memória, carregando pelo loader se necessário, e registra o acesso
+     * @return A conta ou null se ela não existe
+     */
+    public PlayerBalance loadIfAbsent(UUID uuid) {
+        PlayerBalance balance = balances.get(uuid);
+        if (balance == null) {
+            Function<UUID, PlayerBalance> loader = this.accountLoader;
+            if (loader == null) {
+                return null;
+            }
+            PlayerBalance loaded = loader.apply(uuid);
+            if (loaded == null) {
+                return null;
+            }
+            balance = putIfAbsent(loaded);
+        }
+        balance.touch();
+        return balance;
+    }
+
+    /**
+     * Adiciona uma conta lida do storage, a menos que ela já esteja em memória
+     * (a versão em memória é a mais recente e é mantida)
+     * @return A conta que ficou no tracker
+     */
+    public PlayerBalance putIfAbsent(PlayerBalance balance) {
+        PlayerBalance existing = balances.putIfAbsent(balance.getUuid(), balance);
+        if (existing != null) {
+            return existing;
+        }
+        indexName(balance.getUuid(), null, balance.getNick());
+        leaderboard.update(balance.getUuid());
+        return balance;
+    }
+
+    /**
+     * Fixa a conta em memória (jogador online)
+     */
+    public void pin(UUID uuid) {
+        pinned.add(uuid);
+    }
+
+    public void unpin(UUID uuid) {
+        pinned.remove(uuid);
+    }
+
+    public boolean isPinned(UUID uuid) {
+        return pinned.contains(uuid);
+    }
+
+    public int getPinnedCount() {
+        return pinned.size();
+    }
+
+    /**
+     * @return Visão somente leitura das contas fixadas
+     */
+    public Set<UUID> getPinned() {
+        return Collections.unmodifiableSet(pinned);
+    }
+
+    /**
+     * Descarrega uma conta que pode ser recarregada do storage. Contas fixadas, com alterações
+     * ainda não gravadas ou acessadas a partir de {@code accessedBefore} (ms) são mantidas.
+     * Roda com o lock de transferência da conta, então nunca remove uma conta no meio de uma transferência.
+     * @return true se a conta foi removida
+     */
+    public boolean evict(UUID uuid, long accessedBefore) {
+        ReentrantLock lock = transferLocks[stripeFor(uuid)];
+        lock.lock();
+        try {
+            PlayerBalance balance = balances.get(uuid);
+            if (balance == null || pinned.contains(uuid) || dirty.containsKey(uuid)
+                    || balance.getLastAccessMillis() >= accessedBefore) {
+                return false;
+            }
+            balances.remove(uuid, balance);
+            String nick = balance.getNick();
+            if (nick != null && !nick.isEmpty()) {
+                nameIndex.remove(normalizeName(nick), uuid);
+            }
+            leaderboard.update(uuid);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Executa a ação com os locks de transferência de todas as contas adquiridos: nenhuma
+     * transferência fica pela metade enquanto ela roda (usado para snapshots consistentes).
+     */
+    public <T> T withAllTransferLocks(Supplier<T> action) {
+        for (ReentrantLock lock : transferLocks) {
+            lock.lock();
+        }
+        try {
+            return action.get();
+        } finally {
+            for (int i = transferLocks.length - 1; i >= 0; i--) {
+                transferLocks[i].unlock();
+            }
+        }
+    }
+
+    /**
+     * Obtém a conta existente (carregando do storage, se houver loader) ou cria uma nova
+     * com saldo zero (criação atômica)
+     */
+    private PlayerBalance getOrCreate(UUID uuid) {
+        PlayerBalance balance = balances.get(uuid);
+        if (balance == null) {
+            balance = loadIfAbsent(uuid);
+        }
+        if (balance == null) {
+            balance = balances.computeIfAbsent(uuid, id -> new PlayerBalance(id, 0.0));
+            changed(uuid);
         }
+        return balance;
+    }
+
+    public double getBalance(UUID uuid) {
+        PlayerBalance balance = balances.get(uuid);
+        return balance != null ? balance.getBalance() : 0.0;
+    }
+
+    public long getBalanceUnits(UUID uuid) {
+        PlayerBalance balance = balances.get(uuid);
+        return balance != null ? balance.getBalanceUnits() : 0L;
+    }
+
+    public void setBalance(UUID uuid, double balance) {
+        getOrCreate(uuid).setBalance(balance);
+        changed(uuid);
+    }
+
+    public void setBalanceUnits(UUID uuid, long units) {
+        getOrCreate(uuid).setBalanceUnits(units);
+        changed(uuid);
     }
 
     public void setPlayerNick(UUID uuid, String nick) {
-        if (balances.containsKey(uuid)) {
-            balances.get(uuid).setNick(nick);
+        PlayerBalance balance = balances.get(uuid);
+        if (balance != null) {
+            String previous = balance.getNick();
+            balance.setNick(nick);
+            indexName(uuid, previous, nick);
+            changed(uuid);
         }
     }
 
+    /**
+     * Busca a conta pelo nick (sem diferenciar maiúsculas/minúsculas)
+     * @return UUID da conta ou null se nenhuma conta tem esse nick
+     */
+    public UUID findUuidByName(String name) {
+        if (name == null || name.isEmpty()) {
+            return null;
+        }
+        return nameIndex.get(normalizeName(name));
+    }
+
+    /**
+     * Registra no índice um nick encontrado fora da memória (ex: no banco)
+     */
+    public void indexName(UUID uuid, String name) {
+        if (name != null && !name.isEmpty()) {
+            nameIndex.put(normalizeName(name), uuid);
+        }
+    }
+
+    private void indexName(UUID uuid, String previous, String nick) {
+        if (previous != null && !previous.isEmpty() && !previous.equalsIgnoreCase(nick)) {
+            // Só remove se o nome antigo ainda aponta para esta conta
+            nameIndex.remove(normalizeName(previous), uuid);
+        }
+        indexName(uuid, nick);
+    }
+
+    public static String normalizeName(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
     public String getPlayerNick(UUID uuid) {
-        if (balances.containsKey(uuid)) {
-            String nick = balances.get(uuid).getNick();
+        PlayerBalance balance = balances.get(uuid);
+        if (balance != null) {
+            String nick = balance.getNick();
             return (nick != null && !nick.isEmpty()) ? nick : null;
         }
         return null;
     }
 
     public void addBalance(UUID uuid, double amount) {
-        if (!balances.containsKey(uuid)) {
-            balances.put(uuid, new PlayerBalance(uuid, amount));
-        } else {
-            balances.get(uuid).addBalance(amount);
-        }
+        getOrCreate(uuid).addBalance(amount);
+        changed(uuid);
+    }
+
+    /**
+     * @throws ArithmeticException se o saldo estourar (nada é aplicado)
+     */
+    public void addBalanceUnits(UUID uuid, long units) {
+        getOrCreate(uuid).addBalanceUnits(units);
+        changed(uuid);
     }
 
     public void setBalanceWithNick(UUID uuid, String nick, double balance) {
-        if (!balances.containsKey(uuid)) {
-            balances.put(uuid, new PlayerBalance(uuid, nick, balance));
-        } else {
-            PlayerBalance playerBalance = balances.get(uuid);
-            playerBalance.setNick(nick);
-            playerBalance.setBalance(balance);
-        }
+        PlayerBalance playerBalance = getOrCreate(uuid);
+        String previous = playerBalance.getNick();
+        playerBalance.setNick(nick);
+        indexName(uuid, previous, nick);
+        playerBalance.setBalance(balance);
+        changed(uuid);
     }
 
     public boolean subtractBalance(UUID uuid, double amount) {
-        if (!balances.containsKey(uuid)) {
+        PlayerBalance balance = balances.get(uuid);
+        if (balance == null) {
+            return false;
+        }
+        if (!balance.trySubtractBalance(amount)) {
             return false;
         }
+        changed(uuid);
+        return true;
+    }
+
+    public boolean subtractBalanceUnits(UUID uuid, long units) {
         PlayerBalance balance = balances.get(uuid);
-        if (balance.getBalance() < amount) {
+        if (balance == null) {
+            return false;
+        }
+        if (!balance.trySubtractBalanceUnits(units)) {
             return false;
         }
-        balance.subtractBalance(amount);
+        changed(uuid);
         return true;
     }
 
     public boolean hasBalance(UUID uuid, double amount) {
-        return getBalance(uuid) >= amount;
+        return getBalanceUnits(uuid) >= MoneyUnits.toUnits(amount);
+    }
+
+    public boolean hasBalanceUnits(UUID uuid, long units) {
+        return getBalanceUnits(uuid) >= units;
     }
 
     public int getCash(UUID uuid) {
-        if (balances.containsKey(uuid)) {
-            return balances.get(uuid).getCash();
-        }
-        return 0;
+        PlayerBalance balance = balances.get(uuid);
+        return balance != null ? balance.getCash() : 0;
     }
 
     public void setCash(UUID uuid, int cash) {
-        if (!balances.containsKey(uuid)) {
-            PlayerBalance balance = new PlayerBalance(uuid, 0.0);
-            balance.setCash(cash);
-            balances.put(uuid, balance);
-        } else {
-            balances.get(uuid).setCash(cash);
-        }
+        getOrCreate(uuid).setCash(cash);
+        changed(uuid);
     }
 
     public void addCash(UUID uuid, int amount) {
-        if (!balances.containsKey(uuid)) {
-            PlayerBalance balance = new PlayerBalance(uuid, 0.0);
-            balance.setCash(amount);
-            balances.put(uuid, balance);
-        } else {
-            balances.get(uuid).addCash(amount);
-        }
+        getOrCreate(uuid).addCash(amount);
+        changed(uuid);
     }
 
     public boolean subtractCash(UUID uuid, int amount) {
-        if (!balances.containsKey(uuid)) {
+        PlayerBalance balance = balances.get(uuid);
+        if (balance == null) {
             return false;
         }
-        PlayerBalance balance = balances.get(uuid);
-        if (balance.getCash() < amount) {
+        if (!balance.trySubtractCash(amount)) {
             return false;
         }
-        balance.subtractCash(amount);
+        changed(uuid);
         return true;
     }
 
     public boolean hasCash(UUID uuid, int amount) {
         return getCash(uuid) >= amount;
     }
-}
 
+    /**
+     * Aplica todas as pernas de uma transferência de forma atômica: ou todas são aplicadas, ou nenhuma.
+     * <p>
+     * Os locks das contas envolvidas são adquiridos em ordem crescente de faixa (derivada do UUID),
+     * então transferências concorrentes nunca esperam umas pelas outras em ciclo. Os débitos são
+     * aplicados primeiro; se algum falhar (saldo insuficiente, conta inexistente) ou algum crédito
+     * estourar, tudo o que já foi aplicado é desfeito.
+     *
+     * @return true se a transferência foi aplicada
+     */
+    public boolean applyLegs(List<TransferLeg> legs) {
+        if (legs.isEmpty()) {
+            return false;
+        }
+        TreeSet<Integer> stripes = new TreeSet<>();
+        for (TransferLeg leg : legs) {
+            stripes.add(stripeFor(leg.getUuid()));
+        }
+        List<ReentrantLock> acquired = new ArrayList<>(stripes.size());
+        for (int stripe : stripes) {
+            ReentrantLock lock = transferLocks[stripe];
+            lock.lock();
+            acquired.add(lock);
+        }
+        try {
+            List<TransferLeg> applied = new ArrayList<>(legs.size());
+            for (TransferLeg leg : legs) {
+                if (leg.isDebit() && !applyDebit(leg)) {
+                    undo(applied);
+                    return false;
+                }
+                if (leg.isDebit()) {
+                    applied.add(leg);
+                }
+            }
+            for (TransferLeg leg : legs) {
+                if (leg.isDebit()) {
+                    continue;
+                }
+                try {
+                    applyCredit(leg);
+                } catch (ArithmeticException e) {
+                    undo(applied);
+                    return false;
+                }
+                applied.add(leg);
+            }
+            // Ainda com os locks: quem observa as alterações (journal) vê as pernas juntas
+            for (TransferLeg leg : legs) {
+                changed(leg.getUuid());
+            }
+            return true;
+        } finally {
+            for (int i = acquired.size() - 1; i >= 0; i--) {
+                acquired.get(i).unlock();
+            }
+        }
+    }
 
+    private int stripeFor(UUID uuid) {
+        int hash = uuid.hashCode();
+        return (hash ^ (hash >>> 16)) & (LOCK_STRIPES - 1);
+    }
+
+    private boolean applyDebit(TransferLeg leg) {
+        PlayerBalance balance = balances.get(leg.getUuid());
+        if (balance == null) {
+            return false;
+        }
+        if (leg.getCurrency() == CurrencyType.CASH) {
+            return balance.trySubtractCash((int) leg.getAmount());
+        }
+        return balance.trySubtractBalanceUnits(leg.getAmount());
+    }
+
+    private void applyCredit(TransferLeg leg) {
+        PlayerBalance balance = getOrCreate(leg.getUuid());
+        if (leg.getCurrency() == CurrencyType.CASH) {
+            balance.addCash((int) leg.getAmount());
+        } else {
+            balance.addBalanceUnits(leg.getAmount());
+        }
+    }
+
+    /**
+     * Desfaz pernas já aplicadas, na ordem inversa
+     */
+    private void undo(List<TransferLeg> applied) {
+        for (int i = applied.size() - 1; i >= 0; i--) {
+            TransferLeg leg = applied.get(i);
+            PlayerBalance balance = balances.get(leg.getUuid());
+            long amount = leg.isDebit() ? leg.getAmount() : -leg.getAmount();
+            if (leg.getCurrency() == CurrencyType.CASH) {
+                balance.addCash((int) amount);
+            } else {
+                balance.addBalanceUnits(amount);
+            }
+        }
+    }
+
+    /**
+     * Marca a conta como alterada desde o último flush
+     */
+    public void markDirty(UUID uuid) {
+        dirty.put(uuid, generation.incrementAndGet());
+    }
+
+    /**
+     * Marca todas as contas como alteradas (força um flush completo)
+     */
+    public void markAllDirty() {
+        for (UUID uuid : balances.keySet()) {
+            markDirty(uuid);
+        }
+    }
+
+    public boolean hasDirty() {
+        return !dirty.isEmpty();
+    }
+
+    public int getDirtyCount() {
+        return dirty.size();
+    }
+
+    /**
+     * Copia as contas sujas com a geração atual de cada uma (para usar em clearDirty após o flush)
+     */
+    public Map<UUID, Long> snapshotDirty() {
+        return new HashMap<>(dirty);
+    }
+
+    /**
+     * Limpa as marcações gravadas com sucesso. Contas alteradas depois do snapshot
+     * (geração diferente) continuam sujas.
+     */
+    public void clearDirty(Map<UUID, Long> flushed) {
+        for (Map.Entry<UUID, Long> entry : flushed.entrySet()) {
+            dirty.remove(entry.getKey(), entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.economy.economy;
+
+/**
+ * Moedas de uma conta: saldo (dinheiro, em unidades mínimas) e cash (inteiro)
+ */
+public enum CurrencyType {
+    MONEY,
+    CASH
+}
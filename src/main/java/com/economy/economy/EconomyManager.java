@@ -2,152 +2,221 @@ package com.economy.economy;
 
 import com.economy.Main;
 import com.economy.config.EconomyConfig;
+import com.economy.files.BalanceBinarySnapshot;
 import com.economy.files.BalanceBlockingFile;
-import com.economy.storage.MySQLStorageProvider;
+import com.economy.storage.BalanceStorageProvider;
+import com.economy.storage.JsonMigration;
+import com.economy.storage.JsonMigrationTarget;
+import com.economy.storage.JsonStorageProvider;
+import com.economy.storage.NetworkBalanceStore;
+import com.economy.storage.StorageProviders;
+import com.economy.util.EconomyMetrics;
 import com.economy.util.FileUtils;
+import com.economy.util.MetricsHistogram;
 import com.hypixel.hytale.logger.HytaleLogger;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
 import java.util.logging.Level;
-import java.util.stream.Collectors;
 
 public class EconomyManager {
 
+    // Métricas (declaradas antes de INSTANCE: o construtor já pode alterar saldos)
+    private static final MetricsHistogram CREDIT_LATENCY = EconomyMetrics.getInstance().histogram("economy.credit");
+    private static final MetricsHistogram DEBIT_LATENCY = EconomyMetrics.getInstance().histogram("economy.debit");
+    private static final MetricsHistogram SET_LATENCY = EconomyMetrics.getInstance().histogram("economy.set");
+    private static final MetricsHistogram TRANSFER_LATENCY = EconomyMetrics.getInstance().histogram("economy.transfer");
+
     private static final EconomyManager INSTANCE = new EconomyManager();
+    private static final long SAVE_TIMEOUT_SECONDS = 30;
+    private static final int MAX_RANK = 500;
+    // Por quanto tempo o ranking lido do banco (modo lazy do MySQL) é reaproveitado
+    private static final long DATABASE_RANKING_TTL_MS = 10_000;
 
-    private BalanceBlockingFile balanceBlockingFile;
-    private MySQLStorageProvider mysqlStorageProvider;
-    private boolean useMySQL;
-    private boolean isDirty;
+    private BalanceStorageProvider storage;
+    private TransactionLedger ledger;
+    private IdempotencyCache idempotencyCache;
+    private volatile FlushStats lastFlushStats = FlushStats.NONE;
+    private final AtomicLong totalRowsFlushed = new AtomicLong();
+    private final AtomicLong totalBytesFlushed = new AtomicLong();
     private Thread savingThread;
     private HytaleLogger logger = HytaleLogger.getLogger().getSubLogger("EconomySystem");
     private final Map<UUID, String> playerNames;
+    private volatile DatabaseRanking databaseRanking = DatabaseRanking.EMPTY;
+    private final Object databaseRankingLock = new Object();
+    private CompletableFuture<Void> databaseRankingRefresh;
 
     public static EconomyManager getInstance() {
         return INSTANCE;
     }
 
     private EconomyManager() {
-        this.isDirty = false;
         this.playerNames = new ConcurrentHashMap<>();
         
         EconomyConfig config = Main.CONFIG.get();
-        this.useMySQL = config.isEnableMySQL();
-        
-        if (this.useMySQL) {
-            // Initialize MySQL storage
-            this.mysqlStorageProvider = new MySQLStorageProvider();
-            try {
-                this.mysqlStorageProvider.initialize().join();
-                
-                // Se MySQL está vazio, tenta migrar dados do JSON
-                int playerCount = this.mysqlStorageProvider.getPlayerCount();
-                logger.at(Level.INFO).log("MySQL initialized with %d players", playerCount);
-                if (playerCount == 0) {
-                    logger.at(Level.INFO).log("MySQL is empty, attempting to migrate from JSON...");
-                    migrateFromJSON();
-                    // Recarrega o contador após migração
-                    playerCount = this.mysqlStorageProvider.getPlayerCount();
-                    logger.at(Level.INFO).log("After migration: %d players in MySQL", playerCount);
-                }
-                
-                // Storage info is in MySQL connection log
-            } catch (Exception e) {
-                logger.at(Level.SEVERE).log("Failed to initialize MySQL storage, falling back to JSON");
-                logger.at(Level.SEVERE).log(e.getMessage());
-                e.printStackTrace();
-                this.useMySQL = false;
-            }
+        this.storage = StorageProviders.balance(config);
+        try {
+            this.storage.initialize().join();
+        } catch (Exception e) {
+            logger.at(Level.SEVERE).log("Failed to initialize %s storage, falling back to JSON", this.storage.getName());
+            logger.at(Level.SEVERE).log(e.getMessage());
+            e.printStackTrace();
+            this.storage = new JsonStorageProvider();
+            this.storage.initialize().join();
         }
-        
-        if (!this.useMySQL) {
-            // Initialize JSON file storage (default)
-            this.balanceBlockingFile = new BalanceBlockingFile();
-            FileUtils.ensureMainDirectory();
 
-            try {
-                FileUtils.ensureFile(FileUtils.BALANCES_PATH, "{}");
-                logger.at(Level.INFO).log("Loading balance data from JSON file...");
-                this.balanceBlockingFile.syncLoad();
-            } catch (Exception e) {
-                logger.at(Level.SEVERE).log("ERROR LOADING BALANCE FILE");
-                logger.at(Level.SEVERE).log(e.getMessage());
-                e.printStackTrace();
-            }
+        if (this.storage instanceof JsonMigrationTarget target) {
+            migrateOnBoot(target);
+        }
+
+        if (config.getIdempotencyTtlSeconds() > 0) {
+            this.idempotencyCache = new IdempotencyCache(config.getIdempotencyTtlSeconds(), config.getIdempotencyMaxKeys());
+        }
+
+        if (config.isEnableLedger()) {
+            startLedger(config);
         }
 
         startSavingThread();
     }
     
     /**
-     * Migra dados do JSON para o MySQL quando MySQL está vazio
+     * Se o storage está vazio (ou uma migração foi interrompida), migra os dados do JSON
      */
-    private void migrateFromJSON() {
+    private void migrateOnBoot(JsonMigrationTarget target) {
         try {
-            logger.at(Level.INFO).log("Starting migration from JSON to MySQL...");
-            BalanceBlockingFile jsonFile = new BalanceBlockingFile();
-            FileUtils.ensureMainDirectory();
-            FileUtils.ensureFile(FileUtils.BALANCES_PATH, "{}");
-            jsonFile.syncLoad();
-            
-            BalanceTracker jsonTracker = jsonFile.getTracker();
-            if (jsonTracker == null) {
-                logger.at(Level.INFO).log("JSON tracker is null, no data to migrate");
-                return;
-            }
-            
-            com.economy.economy.PlayerBalance[] balances = jsonTracker.getBalances();
-            if (balances == null || balances.length == 0) {
-                logger.at(Level.INFO).log("No players found in JSON, nothing to migrate");
-                return;
-            }
-            
-            logger.at(Level.INFO).log("Found %d players in JSON, starting migration...", balances.length);
-            
-            int migratedCount = 0;
-            int failedCount = 0;
-            for (com.economy.economy.PlayerBalance balance : balances) {
+            int playerCount = this.storage.getPlayerCount();
+            logger.at(Level.INFO).log("%s initialized with %d players", this.storage.getName(), playerCount);
+            // Migração interrompida (ex: servidor parado no meio) continua mesmo com a tabela já tendo contas
+            if (playerCount == 0 || target.hasPendingMigration(Path.of(FileUtils.BALANCES_PATH))) {
+                logger.at(Level.INFO).log("%s is empty or a migration was interrupted, migrating from JSON...", this.storage.getName());
                 try {
-                    if (balance == null || balance.getUuid() == null) {
-                        logger.at(Level.WARNING).log("Skipping invalid balance entry");
-                        failedCount++;
-                        continue;
-                    }
-                    this.mysqlStorageProvider.savePlayer(balance.getUuid(), balance).join();
-                    migratedCount++;
-                    logger.at(Level.FINE).log("Migrated player %s (balance: %.2f)", balance.getUuid(), balance.getBalance());
-                } catch (Exception e) {
-                    logger.at(Level.WARNING).log("Failed to migrate player %s: %s", balance != null && balance.getUuid() != null ? balance.getUuid() : "unknown", e.getMessage());
-                    failedCount++;
-                }
-            }
-            
-            if (migratedCount > 0) {
-                logger.at(Level.INFO).log("Migration completed: %d players migrated successfully, %d failed", migratedCount, failedCount);
-                // Recarrega os dados do MySQL para garantir sincronização
-                try {
-                    this.mysqlStorageProvider.reloadAllPlayers();
-                    int finalCount = this.mysqlStorageProvider.getPlayerCount();
-                    logger.at(Level.INFO).log("Reloaded data from MySQL after migration: %d players", finalCount);
+                    migrateFromJSON();
                 } catch (Exception e) {
-                    logger.at(Level.WARNING).log("Failed to reload data after migration: %s", e.getMessage());
+                    logger.at(Level.SEVERE).log("Failed to migrate data from JSON to %s: %s", this.storage.getName(), e.getMessage());
+                    e.printStackTrace();
                 }
-            } else if (failedCount > 0) {
-                logger.at(Level.WARNING).log("Migration failed: %d players failed to migrate", failedCount);
+                logger.at(Level.INFO).log("After migration: %d players in %s", this.storage.getPlayerCount(), this.storage.getName());
             }
         } catch (Exception e) {
-            logger.at(Level.SEVERE).log("Failed to migrate data from JSON to MySQL: %s", e.getMessage());
+            logger.at(Level.SEVERE).log("Failed to check for a pending JSON migration: %s", e.getMessage());
             e.printStackTrace();
         }
     }
+    
+    /**
+     * Migra os saldos do JSON para o storage (no boot com o storage vazio e pelo /money migrate).
+     * O Balances.json é lido em streaming e gravado em lotes; uma migração interrompida continua de onde parou.
+     * As contas do arquivo substituem as do storage e o tracker é recarregado no final. Com o storage já
+     * populado, a migração é recusada enquanto houver jogadores online.
+     * @return Resultado da migração, ou null se não há Balances.json
+     * @throws IllegalStateException se há jogadores online e o storage já tem contas
+     */
+    public synchronized JsonMigration.Result migrateFromJSON() throws IOException, SQLException {
+        if (!(this.storage instanceof JsonMigrationTarget target)) {
+            throw new IllegalStateException(this.storage.getName() + " storage does not support JSON migration");
+        }
+        // Com jogadores online os saldos do arquivo sobrescreveriam saldos em uso: só com a tabela vazia
+        BalanceTracker tracker = getTracker();
+        if (tracker != null && !tracker.getPinned().isEmpty() && this.storage.getPlayerCount() > 0) {
+            throw new IllegalStateException("players are online and " + this.storage.getName()
+                    + " already has accounts, run the migration with no players online");
+        }
+        Path source = Path.of(FileUtils.BALANCES_PATH);
+        // No formato binário o snapshot mais recente é o Balances.dat: exporta para o Balances.json antes de migrar
+        // (só se o .dat for mais novo, para que uma migração interrompida encontre o mesmo arquivo)
+        Path binary = Path.of(FileUtils.BALANCES_BINARY_PATH);
+        if (BalanceBlockingFile.isBinaryFormat() && Files.exists(binary)
+                && (!Files.exists(source) || Files.getLastModifiedTime(binary).compareTo(Files.getLastModifiedTime(source)) > 0)) {
+            BalanceTracker snapshot = new BalanceTracker();
+            BalanceBinarySnapshot.read(binary, snapshot);
+            BalanceBlockingFile.exportJson(snapshot, source);
+        }
+        if (!Files.exists(source)) {
+            logger.at(Level.INFO).log("No JSON balance file found, nothing to migrate");
+            return null;
+        }
+
+        // O tracker passa a refletir o que foi gravado
+        JsonMigration.Result result = target.migrateFromJson(source);
+        logger.at(Level.INFO).log("Balance migration completed: %d accounts in %.1fs (%.0f rows/s), %d in %s",
+                result.getRows(), result.getSeconds(), result.getRowsPerSecond(), this.storage.getPlayerCount(),
+                this.storage.getName());
+        return result;
+    }
+
+    /**
+     * Inicia o ledger de transações (tabela no MySQL ou arquivos na pasta do plugin)
+     */
+    private void startLedger(EconomyConfig config) {
+        try {
+            LedgerSink sink = this.storage.createLedgerSink();
+            if (this.idempotencyCache != null) {
+                restoreIdempotencyKeys(sink);
+            }
+            TransactionLedger transactionLedger = new TransactionLedger(sink, config.getLedgerBufferSize(),
+                    config.getLedgerRetentionDays());
+            transactionLedger.start();
+            this.ledger = transactionLedger;
+        } catch (Exception e) {
+            logger.at(Level.SEVERE).log("Failed to start transaction ledger, history will not be recorded: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Recarrega as chaves de idempotência ainda válidas a partir do ledger, para que uma repetição
+     * que chegue logo depois de um restart não aplique a operação de novo
+     */
+    private void restoreIdempotencyKeys(LedgerSink sink) {
+        try {
+            List<LedgerEntry> entries = sink.keyed(System.currentTimeMillis() - idempotencyCache.getTtlMillis());
+            for (LedgerEntry entry : entries) {
+                idempotencyCache.remember(entry.getUuid(), entry.getIdempotencyKey(), entry.getAmount(), entry.getTime());
+            }
+            if (!entries.isEmpty()) {
+                logger.at(Level.INFO).log("Restored %d idempotency keys from the ledger", entries.size());
+            }
+        } catch (Exception e) {
+            logger.at(Level.WARNING).log("Failed to restore idempotency keys from the ledger: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * @return O ledger de transações, ou null se está desligado
+     */
+    public TransactionLedger getLedger() {
+        return ledger;
+    }
+
+    private void recordLedger(UUID uuid, TransactionType type, CurrencyType currency, long amount, boolean absolute) {
+        recordLedger(uuid, type, currency, amount, absolute, null);
+    }
+
+    private void recordLedger(UUID uuid, TransactionType type, CurrencyType currency, long amount, boolean absolute,
+                              String idempotencyKey) {
+        TransactionLedger current = this.ledger;
+        if (current != null) {
+            current.record(uuid, null, type, currency, amount, absolute, idempotencyKey);
+        }
+    }
 
     private void startSavingThread() {
         this.savingThread = new Thread(() -> {
             while (true) {
                 try {
                     Thread.sleep(30000); // Salva a cada 30 segundos
-                    if (isDirty) {
+                    BalanceTracker tracker = getTracker();
+                    if (tracker != null && tracker.hasDirty()) {
                         save();
                     }
                 } catch (InterruptedException e) {
@@ -159,31 +228,38 @@ public class EconomyManager {
         this.savingThread.start();
     }
 
+    /**
+     * Marca todas as contas como alteradas (o próximo save grava tudo)
+     */
     public void markDirty() {
-        this.isDirty = true;
+        BalanceTracker tracker = getTracker();
+        if (tracker != null) {
+            tracker.markAllDirty();
+        }
     }
 
-    public void save() {
+    /**
+     * Grava apenas as contas alteradas desde o último flush bem-sucedido
+     */
+    public synchronized void save() {
+        BalanceTracker tracker = getTracker();
+        if (tracker == null) {
+            return;
+        }
+        Map<UUID, Long> dirty = tracker.snapshotDirty();
+        if (dirty.isEmpty()) {
+            return;
+        }
         try {
-            if (this.useMySQL && this.mysqlStorageProvider != null) {
-                // Save all dirty balances to MySQL
-                Map<UUID, PlayerBalance> dirtyPlayers = new HashMap<>();
-                BalanceTracker tracker = this.mysqlStorageProvider.getBalanceTracker();
-                if (tracker != null) {
-                    for (PlayerBalance balance : tracker.getBalances()) {
-                        if (this.isDirty) {
-                            dirtyPlayers.put(balance.getUuid(), balance);
-                        }
-                    }
-                    if (!dirtyPlayers.isEmpty()) {
-                        this.mysqlStorageProvider.saveAll(dirtyPlayers).join();
-                    }
-                }
-            } else {
-                this.balanceBlockingFile.syncSave();
-            }
-            this.isDirty = false;
-            logger.at(Level.FINE).log("Economy data saved");
+            // Timeout para não travar o save (e o shutdown) se o storage estiver fora do ar;
+            // nesse caso as contas continuam sujas para o próximo flush
+            FlushStats stats = this.storage.flush(dirty).orTimeout(SAVE_TIMEOUT_SECONDS, TimeUnit.SECONDS).join();
+            tracker.clearDirty(dirty);
+
+            this.lastFlushStats = stats;
+            this.totalRowsFlushed.addAndGet(stats.getRowsWritten());
+            this.totalBytesFlushed.addAndGet(stats.getBytesWritten());
+            logger.at(Level.FINE).log("Economy data saved: %s", this.lastFlushStats);
         } catch (Exception e) {
             logger.at(Level.SEVERE).log("ERROR SAVING BALANCE DATA");
             logger.at(Level.SEVERE).log(e.getMessage());
@@ -191,99 +267,511 @@ public class EconomyManager {
         }
     }
 
+    /**
+     * Exporta todas as contas para um arquivo JSON no formato do Balances.json (funciona com qualquer storage)
+     * @return Número de contas exportadas
+     */
+    public int exportBalances(Path target) throws java.io.IOException {
+        BalanceTracker tracker = getTracker();
+        if (tracker == null) {
+            throw new IllegalStateException("Economy storage is not loaded");
+        }
+        return BalanceBlockingFile.exportJson(tracker, target);
+    }
+
+    /**
+     * Importa contas de um arquivo JSON no formato do Balances.json. Contas presentes no arquivo
+     * têm saldo, cash e nick substituídos; as demais não são alteradas.
+     * @return Número de contas importadas
+     */
+    public int importBalances(Path source) throws java.io.IOException {
+        BalanceTracker tracker = getTracker();
+        if (tracker == null) {
+            throw new IllegalStateException("Economy storage is not loaded");
+        }
+        List<PlayerBalance> balances = BalanceBlockingFile.importJson(source);
+        NetworkBalanceStore network = networkStore();
+        for (PlayerBalance balance : balances) {
+            UUID uuid = balance.getUuid();
+            if (network != null) {
+                try {
+                    network.set(uuid, balance.getNick(), balance.getBalanceUnits(), balance.getCash()).join();
+                } catch (CompletionException e) {
+                    throw new java.io.IOException("Failed to import " + uuid + ": " + rootMessage(e), e.getCause());
+                }
+                continue;
+            }
+            tracker.setBalanceUnits(uuid, balance.getBalanceUnits());
+            tracker.setCash(uuid, balance.getCash());
+            String nick = balance.getNick();
+            if (nick != null && !nick.isEmpty()) {
+                tracker.setPlayerNick(uuid, nick);
+                playerNames.putIfAbsent(uuid, nick);
+            }
+            persist(tracker, uuid);
+            tracker.markDirty(uuid);
+        }
+        logger.at(Level.INFO).log("Imported %d balances from %s", balances.size(), source);
+        return balances.size();
+    }
+
+    /**
+     * @return Métricas do último flush bem-sucedido
+     */
+    public FlushStats getLastFlushStats() {
+        return lastFlushStats;
+    }
+
+    public long getTotalRowsFlushed() {
+        return totalRowsFlushed.get();
+    }
+
+    public long getTotalBytesFlushed() {
+        return totalBytesFlushed.get();
+    }
+
+    /**
+     * @return Número de contas alteradas aguardando o próximo flush
+     */
+    public int getPendingFlushCount() {
+        BalanceTracker tracker = getTracker();
+        return tracker != null ? tracker.getDirtyCount() : 0;
+    }
+
     private BalanceTracker getTracker() {
-        if (this.useMySQL && this.mysqlStorageProvider != null) {
-            return this.mysqlStorageProvider.getBalanceTracker();
+        return this.storage != null ? this.storage.getBalanceTracker() : null;
+    }
+
+    /**
+     * Tracker com a conta já em memória (no modo lazy do MySQL a conta é lida do banco no primeiro acesso)
+     * @return null se o storage não está carregado ou se a conta não pôde ser lida
+     */
+    private BalanceTracker trackerFor(UUID uuid) {
+        BalanceTracker tracker = getTracker();
+        if (tracker == null) {
+            return null;
+        }
+        try {
+            NetworkBalanceStore network = networkStore();
+            if (network != null && !tracker.isPinned(uuid)) {
+                // Modo rede: contas de jogadores offline não ficam em cache, são sempre lidas do banco
+                network.load(uuid);
+            }
+            tracker.loadIfAbsent(uuid);
+        } catch (IllegalStateException | SQLException e) {
+            logger.at(Level.WARNING).log("%s", e.getMessage());
+            return null;
+        }
+        return tracker;
+    }
+
+    private NetworkBalanceStore networkStore() {
+        return this.storage != null ? this.storage.getNetworkStore() : null;
+    }
+
+    /**
+     * Modo rede: aplica um delta (positivo credita, negativo debita) direto no banco, na fila de IO da conta
+     * @return Future com true se aplicado (débito sem saldo suficiente ou falha do banco completam com false)
+     */
+    private CompletableFuture<Boolean> applyNetworkDelta(NetworkBalanceStore network, UUID uuid, CurrencyType currency, long amount) {
+        if (amount == 0) {
+            return CompletableFuture.completedFuture(true);
+        }
+        TransferLeg leg;
+        try {
+            leg = amount > 0
+                    ? TransferLeg.credit(uuid, currency, amount)
+                    : TransferLeg.debit(uuid, currency, Math.negateExact(amount));
+        } catch (ArithmeticException | IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return applyNetworkLegs(network, List.of(leg));
+    }
+
+    private CompletableFuture<Boolean> applyNetworkLegs(NetworkBalanceStore network, List<TransferLeg> legs) {
+        return network.applyLegs(legs).exceptionally(e -> {
+            logger.at(Level.WARNING).log("Failed to apply balance change in MySQL (network mode): %s", rootMessage(e));
+            return false;
+        });
+    }
+
+    /**
+     * Modo rede, créditos sem resposta para quem chama: com o banco fora do ar o crédito vai para o journal
+     * de spill e é aplicado quando ele voltar (débitos continuam esperando o banco conferir o saldo)
+     * @return Future com true se aplicado ou guardado no journal
+     */
+    private CompletableFuture<Boolean> creditNetworkAccount(NetworkBalanceStore network, UUID uuid, CurrencyType currency, long amount) {
+        if (amount <= 0) {
+            return applyNetworkDelta(network, uuid, currency, amount);
+        }
+        TransferLeg leg;
+        try {
+            leg = TransferLeg.credit(uuid, currency, amount);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return network.creditOrSpill(List.of(leg)).exceptionally(e -> {
+            logger.at(Level.WARNING).log("Failed to apply balance change in MySQL (network mode): %s", rootMessage(e));
+            return false;
+        });
+    }
+
+    /**
+     * Modo rede: define saldo e/ou cash sem esperar o banco; com o banco fora do ar o valor vai para o journal de spill
+     */
+    private CompletableFuture<Boolean> setNetworkAccount(NetworkBalanceStore network, UUID uuid, Long units, Integer cash) {
+        return network.setOrSpill(uuid, playerNames.getOrDefault(uuid, ""), units, cash)
+                .thenApply(ignored -> true)
+                .exceptionally(e -> {
+                    logger.at(Level.WARNING).log("Failed to set balance of %s in MySQL (network mode): %s", uuid, rootMessage(e));
+                    return false;
+                });
+    }
+
+    private static String rootMessage(Throwable e) {
+        return e instanceof CompletionException && e.getCause() != null ? e.getCause().getMessage() : e.getMessage();
+    }
+
+    /**
+     * Carrega e fixa em memória a conta de um jogador que está conectando (chamado no PlayerConnectEvent)
+     */
+    public void prefetchAccount(UUID uuid) {
+        BalanceTracker tracker = getTracker();
+        if (tracker != null) {
+            tracker.pin(uuid);
+            trackerFor(uuid);
+        }
+    }
+
+    /**
+     * Libera a conta de um jogador que desconectou (no modo lazy ela pode ser descarregada depois)
+     */
+    public void releaseAccount(UUID uuid) {
+        BalanceTracker tracker = getTracker();
+        if (tracker != null) {
+            tracker.unpin(uuid);
         }
-        return this.balanceBlockingFile != null ? this.balanceBlockingFile.getTracker() : null;
+    }
+
+    private boolean isLazyStorage() {
+        return this.storage != null && this.storage.isLazyLoading();
     }
     
     public double getBalance(UUID uuid) {
-        BalanceTracker tracker = getTracker();
+        return MoneyUnits.toDouble(getBalanceUnits(uuid));
+    }
+
+    /**
+     * Obtém o saldo exato em unidades mínimas (ver MoneyUnits)
+     */
+    public long getBalanceUnits(UUID uuid) {
+        BalanceTracker tracker = trackerFor(uuid);
         if (tracker == null) {
-            return 0.0;
+            return 0L;
         }
-        return tracker.getBalance(uuid);
+        return tracker.getBalanceUnits(uuid);
     }
     
     public boolean hasPlayerBalance(UUID uuid) {
-        BalanceTracker tracker = getTracker();
+        BalanceTracker tracker = trackerFor(uuid);
         if (tracker == null) {
             return false;
         }
         // Verifica se o jogador já tem saldo registrado
-        for (PlayerBalance balance : tracker.getBalances()) {
-            if (balance.getUuid().equals(uuid)) {
-                return true;
-            }
+        return tracker.contains(uuid);
+    }
+
+    /**
+     * Envia o estado atual da conta para o storage (no JSON ela só vai para o disco no flush)
+     */
+    private void persist(BalanceTracker tracker, UUID uuid) {
+        if (tracker.contains(uuid)) {
+            this.storage.savePlayer(uuid, snapshotOf(tracker, uuid));
         }
-        return false;
+    }
+
+    private PlayerBalance snapshotOf(BalanceTracker tracker, UUID uuid) {
+        return PlayerBalance.ofUnits(uuid, playerNames.getOrDefault(uuid, ""),
+                tracker.getBalanceUnits(uuid), tracker.getCash(uuid));
     }
 
     public void setBalance(UUID uuid, double balance) {
-        BalanceTracker tracker = getTracker();
+        setBalance(uuid, balance, TransactionType.OTHER);
+    }
+
+    /**
+     * @param type Motivo registrado no ledger
+     */
+    public void setBalance(UUID uuid, double balance, TransactionType type) {
+        long units;
+        try {
+            units = MoneyUnits.toUnits(balance);
+        } catch (ArithmeticException e) {
+            logger.at(Level.WARNING).log("Rejected balance %s for %s: %s", balance, uuid, e.getMessage());
+            return;
+        }
+        setBalanceUnits(uuid, units, type);
+    }
+
+    public void setBalanceUnits(UUID uuid, long units) {
+        setBalanceUnits(uuid, units, TransactionType.OTHER);
+    }
+
+    public void setBalanceUnits(UUID uuid, long units, TransactionType type) {
+        long start = System.nanoTime();
+        try {
+            applySetBalanceUnits(uuid, units, type);
+        } finally {
+            SET_LATENCY.recordSince(start);
+        }
+    }
+
+    private void applySetBalanceUnits(UUID uuid, long units, TransactionType type) {
+        NetworkBalanceStore network = networkStore();
+        if (network != null) {
+            // Sem resultado para quem chama: não espera o banco
+            setNetworkAccount(network, uuid, units, null).thenAccept(applied -> {
+                if (applied) {
+                    recordLedger(uuid, type, CurrencyType.MONEY, units, true);
+                }
+            });
+            return;
+        }
+        BalanceTracker tracker = trackerFor(uuid);
         if (tracker == null) {
             return;
         }
-        tracker.setBalance(uuid, balance);
+        tracker.setBalanceUnits(uuid, units);
         // Atualiza o nick se já estiver no playerNames
         if (playerNames.containsKey(uuid)) {
             tracker.setPlayerNick(uuid, playerNames.get(uuid));
         }
-        // Save to MySQL immediately if using MySQL
-        if (this.useMySQL && this.mysqlStorageProvider != null) {
-            int cash = tracker.getCash(uuid);
-            PlayerBalance playerBalance = new PlayerBalance(uuid, playerNames.getOrDefault(uuid, ""), balance, cash);
-            this.mysqlStorageProvider.savePlayer(uuid, playerBalance);
-        }
-        markDirty();
+        // Envia ao storage (no MySQL, gravado na hora)
+        persist(tracker, uuid);
+        tracker.markDirty(uuid);
+        recordLedger(uuid, type, CurrencyType.MONEY, units, true);
     }
 
     public void addBalance(UUID uuid, double amount) {
-        BalanceTracker tracker = getTracker();
-        if (tracker == null) {
+        addBalance(uuid, amount, TransactionType.OTHER);
+    }
+
+    /**
+     * @param type Motivo registrado no ledger
+     */
+    public void addBalance(UUID uuid, double amount, TransactionType type) {
+        long units;
+        try {
+            units = MoneyUnits.toUnits(amount);
+        } catch (ArithmeticException e) {
+            logger.at(Level.WARNING).log("Rejected credit of %s to %s: %s", amount, uuid, e.getMessage());
             return;
         }
-        tracker.addBalance(uuid, amount);
-        // Save to MySQL immediately if using MySQL
-        if (this.useMySQL && this.mysqlStorageProvider != null) {
-            double newBalance = tracker.getBalance(uuid);
-            int cash = tracker.getCash(uuid);
-            PlayerBalance playerBalance = new PlayerBalance(uuid, playerNames.getOrDefault(uuid, ""), newBalance, cash);
-            this.mysqlStorageProvider.savePlayer(uuid, playerBalance);
+        // Sem resultado para quem chama (recompensas na thread do mundo): no modo rede não espera o banco
+        long start = System.nanoTime();
+        try {
+            applyCreditUnits(uuid, units, type, null);
+        } finally {
+            CREDIT_LATENCY.recordSince(start);
         }
-        markDirty();
+    }
+
+    /**
+     * Credita unidades mínimas. Créditos que estourariam o saldo são rejeitados (nada é aplicado).
+     * @return true se o crédito foi aplicado
+     */
+    public boolean addBalanceUnits(UUID uuid, long units) {
+        return addBalanceUnits(uuid, units, TransactionType.OTHER);
+    }
+
+    public boolean addBalanceUnits(UUID uuid, long units, TransactionType type) {
+        return addBalanceUnits(uuid, units, type, null);
+    }
+
+    private boolean addBalanceUnits(UUID uuid, long units, TransactionType type, String idempotencyKey) {
+        long start = System.nanoTime();
+        try {
+            return applyCreditUnits(uuid, units, type, idempotencyKey).join();
+        } finally {
+            CREDIT_LATENCY.recordSince(start);
+        }
+    }
+
+    /**
+     * @return Future com true se o crédito foi aplicado; só o modo rede completa depois (na fila de IO da conta)
+     */
+    private CompletableFuture<Boolean> applyCreditUnits(UUID uuid, long units, TransactionType type, String idempotencyKey) {
+        NetworkBalanceStore network = networkStore();
+        if (network != null) {
+            return creditNetworkAccount(network, uuid, CurrencyType.MONEY, units).thenApply(applied -> {
+                if (applied) {
+                    recordLedger(uuid, type, CurrencyType.MONEY, units, false, idempotencyKey);
+                }
+                return applied;
+            });
+        }
+        BalanceTracker tracker = trackerFor(uuid);
+        if (tracker == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        try {
+            tracker.addBalanceUnits(uuid, units);
+        } catch (ArithmeticException e) {
+            logger.at(Level.WARNING).log("Rejected credit of %d units to %s: balance overflow", units, uuid);
+            return CompletableFuture.completedFuture(false);
+        }
+        // Envia ao storage (no MySQL, gravado na hora)
+        persist(tracker, uuid);
+        tracker.markDirty(uuid);
+        recordLedger(uuid, type, CurrencyType.MONEY, units, false, idempotencyKey);
+        return CompletableFuture.completedFuture(true);
     }
 
     public boolean subtractBalance(UUID uuid, double amount) {
-        BalanceTracker tracker = getTracker();
+        return subtractBalance(uuid, amount, TransactionType.OTHER);
+    }
+
+    /**
+     * @param type Motivo registrado no ledger
+     */
+    public boolean subtractBalance(UUID uuid, double amount, TransactionType type) {
+        return subtractBalanceAsync(uuid, amount, type).join();
+    }
+
+    /**
+     * Igual a {@link #subtractBalance(UUID, double, TransactionType)}, sem esperar o banco: no modo rede o future
+     * completa na fila de IO da conta, nos outros modos já volta completo. Para a thread do mundo, que não pode
+     * bloquear; a continuação deve voltar ao mundo (world.execute) antes de mexer no inventário.
+     * @return Future com true se o débito foi aplicado
+     */
+    public CompletableFuture<Boolean> subtractBalanceAsync(UUID uuid, double amount, TransactionType type) {
+        long units;
+        try {
+            units = MoneyUnits.toUnits(amount);
+        } catch (ArithmeticException e) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return subtractBalanceUnitsAsync(uuid, units, type, null);
+    }
+
+    public boolean subtractBalanceUnits(UUID uuid, long units) {
+        return subtractBalanceUnits(uuid, units, TransactionType.OTHER);
+    }
+
+    public boolean subtractBalanceUnits(UUID uuid, long units, TransactionType type) {
+        return subtractBalanceUnits(uuid, units, type, null);
+    }
+
+    private boolean subtractBalanceUnits(UUID uuid, long units, TransactionType type, String idempotencyKey) {
+        return subtractBalanceUnitsAsync(uuid, units, type, idempotencyKey).join();
+    }
+
+    private CompletableFuture<Boolean> subtractBalanceUnitsAsync(UUID uuid, long units, TransactionType type,
+                                                                 String idempotencyKey) {
+        long start = System.nanoTime();
+        return applyDebitUnits(uuid, units, type, idempotencyKey)
+                .whenComplete((applied, e) -> DEBIT_LATENCY.recordSince(start));
+    }
+
+    /**
+     * @return Future com true se o débito foi aplicado; só o modo rede completa depois (na fila de IO da conta)
+     */
+    private CompletableFuture<Boolean> applyDebitUnits(UUID uuid, long units, TransactionType type, String idempotencyKey) {
+        NetworkBalanceStore network = networkStore();
+        if (network != null) {
+            if (units < 0) {
+                return CompletableFuture.completedFuture(false);
+            }
+            return applyNetworkDelta(network, uuid, CurrencyType.MONEY, -units).thenApply(applied -> {
+                if (applied) {
+                    recordLedger(uuid, type, CurrencyType.MONEY, -units, false, idempotencyKey);
+                }
+                return applied;
+            });
+        }
+        BalanceTracker tracker = trackerFor(uuid);
         if (tracker == null) {
-            return false;
+            return CompletableFuture.completedFuture(false);
+        }
+        boolean result;
+        try {
+            result = tracker.subtractBalanceUnits(uuid, units);
+        } catch (ArithmeticException e) {
+            return CompletableFuture.completedFuture(false);
         }
-        boolean result = tracker.subtractBalance(uuid, amount);
         if (result) {
-            // Save to MySQL immediately if using MySQL
-            if (this.useMySQL && this.mysqlStorageProvider != null) {
-                double newBalance = tracker.getBalance(uuid);
-                int cash = tracker.getCash(uuid);
-                PlayerBalance playerBalance = new PlayerBalance(uuid, playerNames.getOrDefault(uuid, ""), newBalance, cash);
-                this.mysqlStorageProvider.savePlayer(uuid, playerBalance);
-            }
-            markDirty();
+            // Envia ao storage (no MySQL, gravado na hora)
+            persist(tracker, uuid);
+            tracker.markDirty(uuid);
+            recordLedger(uuid, type, CurrencyType.MONEY, -units, false, idempotencyKey);
         }
-        return result;
+        return CompletableFuture.completedFuture(result);
+    }
+
+    /**
+     * Depósito com chave de idempotência: repetições com a mesma chave e conta dentro do TTL
+     * (IdempotencyTtlSeconds) recebem o resultado original em vez de depositar de novo.
+     * A chave vai para o ledger, então também sobrevive a um restart quando o ledger está ligado.
+     * @throws IllegalArgumentException se a chave for inválida (ver {@link IdempotencyCache#validateKey})
+     */
+    public IdempotentResult depositIdempotent(UUID uuid, long units, String idempotencyKey, TransactionType type) {
+        IdempotencyCache.validateKey(idempotencyKey);
+        if (units < 0) {
+            return IdempotentResult.rejected(units);
+        }
+        return applyIdempotent(uuid, idempotencyKey, units,
+                () -> addBalanceUnits(uuid, units, type, idempotencyKey));
+    }
+
+    /**
+     * Saque com chave de idempotência (ver {@link #depositIdempotent})
+     * @throws IllegalArgumentException se a chave for inválida (ver {@link IdempotencyCache#validateKey})
+     */
+    public IdempotentResult withdrawIdempotent(UUID uuid, long units, String idempotencyKey, TransactionType type) {
+        IdempotencyCache.validateKey(idempotencyKey);
+        if (units < 0) {
+            return IdempotentResult.rejected(-units);
+        }
+        return applyIdempotent(uuid, idempotencyKey, -units,
+                () -> subtractBalanceUnits(uuid, units, type, idempotencyKey));
+    }
+
+    private IdempotentResult applyIdempotent(UUID uuid, String idempotencyKey, long amount, BooleanSupplier operation) {
+        Supplier<IdempotentResult> apply = () -> operation.getAsBoolean()
+                ? IdempotentResult.applied(amount)
+                : IdempotentResult.rejected(amount);
+        IdempotencyCache cache = this.idempotencyCache;
+        if (cache == null) {
+            return apply.get();
+        }
+        return cache.execute(uuid, idempotencyKey, amount, apply);
+    }
+
+    /**
+     * @return O cache de chaves de idempotência, ou null se está desligado (IdempotencyTtlSeconds = 0)
+     */
+    public IdempotencyCache getIdempotencyCache() {
+        return idempotencyCache;
     }
 
     public boolean hasBalance(UUID uuid, double amount) {
-        BalanceTracker tracker = getTracker();
+        try {
+            return hasBalanceUnits(uuid, MoneyUnits.toUnits(amount));
+        } catch (ArithmeticException e) {
+            return false;
+        }
+    }
+
+    public boolean hasBalanceUnits(UUID uuid, long units) {
+        BalanceTracker tracker = trackerFor(uuid);
         if (tracker == null) {
             return false;
         }
-        return tracker.hasBalance(uuid, amount);
+        return tracker.hasBalanceUnits(uuid, units);
     }
 
     public int getCash(UUID uuid) {
-        BalanceTracker tracker = getTracker();
+        BalanceTracker tracker = trackerFor(uuid);
         if (tracker == null) {
             return 0;
         }
@@ -291,78 +779,342 @@ public class EconomyManager {
     }
 
     public void setCash(UUID uuid, int cash) {
-        BalanceTracker tracker = getTracker();
+        setCash(uuid, cash, TransactionType.OTHER);
+    }
+
+    /**
+     * @param type Motivo registrado no ledger
+     */
+    public void setCash(UUID uuid, int cash, TransactionType type) {
+        long start = System.nanoTime();
+        try {
+            applySetCash(uuid, cash, type);
+        } finally {
+            SET_LATENCY.recordSince(start);
+        }
+    }
+
+    private void applySetCash(UUID uuid, int cash, TransactionType type) {
+        NetworkBalanceStore network = networkStore();
+        if (network != null) {
+            // Sem resultado para quem chama: não espera o banco
+            setNetworkAccount(network, uuid, null, cash).thenAccept(applied -> {
+                if (applied) {
+                    recordLedger(uuid, type, CurrencyType.CASH, cash, true);
+                }
+            });
+            return;
+        }
+        BalanceTracker tracker = trackerFor(uuid);
         if (tracker == null) {
             return;
         }
         tracker.setCash(uuid, cash);
-        // Save to MySQL immediately if using MySQL
-        if (this.useMySQL && this.mysqlStorageProvider != null) {
-            double balance = tracker.getBalance(uuid);
-            PlayerBalance playerBalance = new PlayerBalance(uuid, playerNames.getOrDefault(uuid, ""), balance, cash);
-            this.mysqlStorageProvider.savePlayer(uuid, playerBalance);
-        }
-        markDirty();
+        // Envia ao storage (no MySQL, gravado na hora)
+        persist(tracker, uuid);
+        tracker.markDirty(uuid);
+        recordLedger(uuid, type, CurrencyType.CASH, cash, true);
     }
 
     public void addCash(UUID uuid, int amount) {
-        BalanceTracker tracker = getTracker();
+        addCash(uuid, amount, TransactionType.OTHER);
+    }
+
+    /**
+     * @param type Motivo registrado no ledger
+     */
+    public void addCash(UUID uuid, int amount, TransactionType type) {
+        long start = System.nanoTime();
+        try {
+            applyAddCash(uuid, amount, type);
+        } finally {
+            CREDIT_LATENCY.recordSince(start);
+        }
+    }
+
+    private void applyAddCash(UUID uuid, int amount, TransactionType type) {
+        NetworkBalanceStore network = networkStore();
+        if (network != null) {
+            // Sem resultado para quem chama: não espera o banco
+            creditNetworkAccount(network, uuid, CurrencyType.CASH, amount).thenAccept(applied -> {
+                if (applied) {
+                    recordLedger(uuid, type, CurrencyType.CASH, amount, false);
+                }
+            });
+            return;
+        }
+        BalanceTracker tracker = trackerFor(uuid);
         if (tracker == null) {
             return;
         }
-        tracker.addCash(uuid, amount);
-        // Save to MySQL immediately if using MySQL
-        if (this.useMySQL && this.mysqlStorageProvider != null) {
-            double balance = tracker.getBalance(uuid);
-            int newCash = tracker.getCash(uuid);
-            PlayerBalance playerBalance = new PlayerBalance(uuid, playerNames.getOrDefault(uuid, ""), balance, newCash);
-            this.mysqlStorageProvider.savePlayer(uuid, playerBalance);
+        try {
+            tracker.addCash(uuid, amount);
+        } catch (ArithmeticException e) {
+            logger.at(Level.WARNING).log("Rejected cash credit of %d to %s: cash overflow", amount, uuid);
+            return;
         }
-        markDirty();
+        // Envia ao storage (no MySQL, gravado na hora)
+        persist(tracker, uuid);
+        tracker.markDirty(uuid);
+        recordLedger(uuid, type, CurrencyType.CASH, amount, false);
     }
 
     public boolean subtractCash(UUID uuid, int amount) {
-        BalanceTracker tracker = getTracker();
+        return subtractCash(uuid, amount, TransactionType.OTHER);
+    }
+
+    /**
+     * @param type Motivo registrado no ledger
+     */
+    public boolean subtractCash(UUID uuid, int amount, TransactionType type) {
+        return subtractCashAsync(uuid, amount, type).join();
+    }
+
+    /**
+     * Igual a {@link #subtractCash(UUID, int, TransactionType)}, sem esperar o banco (ver {@link #subtractBalanceAsync})
+     * @return Future com true se o débito foi aplicado
+     */
+    public CompletableFuture<Boolean> subtractCashAsync(UUID uuid, int amount, TransactionType type) {
+        long start = System.nanoTime();
+        return applySubtractCash(uuid, amount, type)
+                .whenComplete((applied, e) -> DEBIT_LATENCY.recordSince(start));
+    }
+
+    private CompletableFuture<Boolean> applySubtractCash(UUID uuid, int amount, TransactionType type) {
+        NetworkBalanceStore network = networkStore();
+        if (network != null) {
+            if (amount < 0) {
+                return CompletableFuture.completedFuture(false);
+            }
+            return applyNetworkDelta(network, uuid, CurrencyType.CASH, -(long) amount).thenApply(applied -> {
+                if (applied) {
+                    recordLedger(uuid, type, CurrencyType.CASH, -(long) amount, false);
+                }
+                return applied;
+            });
+        }
+        BalanceTracker tracker = trackerFor(uuid);
         if (tracker == null) {
-            return false;
+            return CompletableFuture.completedFuture(false);
         }
         boolean result = tracker.subtractCash(uuid, amount);
         if (result) {
-            // Save to MySQL immediately if using MySQL
-            if (this.useMySQL && this.mysqlStorageProvider != null) {
-                double balance = tracker.getBalance(uuid);
-                int newCash = tracker.getCash(uuid);
-                PlayerBalance playerBalance = new PlayerBalance(uuid, playerNames.getOrDefault(uuid, ""), balance, newCash);
-                this.mysqlStorageProvider.savePlayer(uuid, playerBalance);
-            }
-            markDirty();
+            // Envia ao storage (no MySQL, gravado na hora)
+            persist(tracker, uuid);
+            tracker.markDirty(uuid);
+            recordLedger(uuid, type, CurrencyType.CASH, -(long) amount, false);
         }
-        return result;
+        return CompletableFuture.completedFuture(result);
     }
 
     public boolean hasCash(UUID uuid, int amount) {
-        BalanceTracker tracker = getTracker();
+        BalanceTracker tracker = trackerFor(uuid);
         if (tracker == null) {
             return false;
         }
         return tracker.hasCash(uuid, amount);
     }
 
+    /**
+     * Transfere um valor de uma conta para outra de forma atômica: o débito e o crédito
+     * são aplicados juntos ou nenhum é aplicado.
+     * @param amount Valor em dinheiro (MONEY) ou quantidade inteira de cash (CASH)
+     * @return true se a transferência foi aplicada, false se o saldo era insuficiente ou o valor inválido
+     */
+    public boolean transfer(UUID from, UUID to, double amount, CurrencyType currency) {
+        return transfer(from, to, amount, currency, TransactionType.OTHER);
+    }
+
+    /**
+     * @param type Motivo registrado no ledger
+     */
+    public boolean transfer(UUID from, UUID to, double amount, CurrencyType currency, TransactionType type) {
+        return transferAsync(from, to, amount, currency, type).join();
+    }
+
+    /**
+     * Igual a {@link #transfer(UUID, UUID, double, CurrencyType, TransactionType)}, sem esperar o banco
+     * (ver {@link #subtractBalanceAsync})
+     * @return Future com true se a transferência foi aplicada
+     */
+    public CompletableFuture<Boolean> transferAsync(UUID from, UUID to, double amount, CurrencyType currency,
+                                                    TransactionType type) {
+        long value;
+        if (currency == CurrencyType.CASH) {
+            if (amount != Math.rint(amount) || amount > Integer.MAX_VALUE) {
+                return CompletableFuture.completedFuture(false);
+            }
+            value = (long) amount;
+        } else {
+            try {
+                value = MoneyUnits.toUnits(amount);
+            } catch (ArithmeticException e) {
+                return CompletableFuture.completedFuture(false);
+            }
+        }
+        if (from.equals(to) || value <= 0) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return transferAsync(List.of(
+                TransferLeg.debit(from, currency, value),
+                TransferLeg.credit(to, currency, value)), type);
+    }
+
+    /**
+     * Igual a {@link #transfer(UUID, UUID, double, CurrencyType)}, com o valor em unidades mínimas (MONEY)
+     * ou em cash (CASH)
+     */
+    public boolean transferUnits(UUID from, UUID to, long amount, CurrencyType currency) {
+        return transferUnits(from, to, amount, currency, TransactionType.OTHER);
+    }
+
+    public boolean transferUnits(UUID from, UUID to, long amount, CurrencyType currency, TransactionType type) {
+        if (from.equals(to) || amount <= 0) {
+            return false;
+        }
+        return transfer(List.of(
+                TransferLeg.debit(from, currency, amount),
+                TransferLeg.credit(to, currency, amount)), type);
+    }
+
+    /**
+     * Aplica várias pernas (débitos e créditos) como uma única operação atômica. Os créditos
+     * não precisam somar os débitos: a diferença é dinheiro destruído (ex: taxa) ou criado.
+     * <p>
+     * No MySQL todas as contas envolvidas são gravadas em uma única transação.
+     * @return true se todas as pernas foram aplicadas
+     */
+    public boolean transfer(List<TransferLeg> legs) {
+        return transfer(legs, TransactionType.OTHER);
+    }
+
+    /**
+     * @param type Motivo registrado no ledger (uma entrada por perna)
+     */
+    public boolean transfer(List<TransferLeg> legs, TransactionType type) {
+        return transferAsync(legs, type).join();
+    }
+
+    /**
+     * Igual a {@link #transfer(List, TransactionType)}, sem esperar o banco (ver {@link #subtractBalanceAsync})
+     * @return Future com true se todas as pernas foram aplicadas
+     */
+    public CompletableFuture<Boolean> transferAsync(List<TransferLeg> legs, TransactionType type) {
+        long start = System.nanoTime();
+        return applyTransfer(legs, type)
+                .whenComplete((applied, e) -> TRANSFER_LATENCY.recordSince(start));
+    }
+
+    private CompletableFuture<Boolean> applyTransfer(List<TransferLeg> legs, TransactionType type) {
+        BalanceTracker tracker = getTracker();
+        if (tracker == null || legs.isEmpty()) {
+            return CompletableFuture.completedFuture(false);
+        }
+        NetworkBalanceStore network = networkStore();
+        if (network != null) {
+            // Modo rede: o banco decide (saldo suficiente em todos os servidores) e o cache recebe o resultado.
+            // A transação roda na fila de IO da conta; o future completa com a resposta
+            return applyNetworkLegs(network, legs).thenApply(applied -> {
+                if (applied) {
+                    recordLedgerLegs(legs, type);
+                }
+                return applied;
+            });
+        }
+        Set<UUID> accounts = new LinkedHashSet<>();
+        for (TransferLeg leg : legs) {
+            accounts.add(leg.getUuid());
+        }
+        // Modo lazy: lê as contas do banco (em lote) antes de pegar os locks da transferência
+        if (isLazyStorage()) {
+            try {
+                this.storage.prefetchAccounts(accounts);
+            } catch (IllegalStateException e) {
+                logger.at(Level.WARNING).log("%s", e.getMessage());
+                return CompletableFuture.completedFuture(false);
+            }
+        }
+        if (!tracker.applyLegs(legs)) {
+            return CompletableFuture.completedFuture(false);
+        }
+
+        for (UUID uuid : accounts) {
+            if (tracker.getPlayerNick(uuid) == null && playerNames.containsKey(uuid)) {
+                tracker.setPlayerNick(uuid, playerNames.get(uuid));
+            }
+            tracker.markDirty(uuid);
+        }
+        this.storage.saveTransaction(accounts, uuid -> snapshotOf(tracker, uuid))
+                .exceptionally(e -> {
+                    logger.at(Level.WARNING).log("Failed to persist transfer of %d accounts, retrying with the next flush: %s",
+                            accounts.size(), e.getMessage());
+                    return null;
+                });
+        recordLedgerLegs(legs, type);
+        return CompletableFuture.completedFuture(true);
+    }
+
+    private void recordLedgerLegs(List<TransferLeg> legs, TransactionType type) {
+        TransactionLedger current = this.ledger;
+        if (current != null) {
+            current.recordLegs(legs, type);
+        }
+    }
+
+    /**
+     * Aplica depósitos e saques de várias contas como uma única operação: ou todos são aplicados, ou nenhum.
+     * <p>
+     * Os deltas da mesma conta e moeda são somados antes, então só o resultado final de cada saldo precisa
+     * ser válido (uma conta pode receber e pagar no mesmo lote). O lote é aplicado em memória em uma passada
+     * e, no MySQL, gravado em um único lote JDBC dentro de uma transação.
+     * @return true se o lote foi aplicado (lote vazio ou que se anula também retorna true), false se algum
+     * saque não tinha saldo suficiente ou algum valor estourou
+     */
+    public boolean applyBatch(List<BalanceDelta> deltas) {
+        Map<UUID, long[]> net = new LinkedHashMap<>();
+        try {
+            for (BalanceDelta delta : deltas) {
+                long[] sums = net.computeIfAbsent(delta.getUuid(), id -> new long[CurrencyType.values().length]);
+                int index = delta.getCurrency().ordinal();
+                sums[index] = Math.addExact(sums[index], delta.getAmount());
+            }
+            List<TransferLeg> legs = new ArrayList<>(net.size());
+            for (Map.Entry<UUID, long[]> entry : net.entrySet()) {
+                for (CurrencyType currency : CurrencyType.values()) {
+                    long amount = entry.getValue()[currency.ordinal()];
+                    if (amount > 0) {
+                        legs.add(TransferLeg.credit(entry.getKey(), currency, amount));
+                    } else if (amount < 0) {
+                        legs.add(TransferLeg.debit(entry.getKey(), currency, Math.negateExact(amount)));
+                    }
+                }
+            }
+            return legs.isEmpty() || transfer(legs);
+        } catch (ArithmeticException | IllegalArgumentException e) {
+            logger.at(Level.WARNING).log("Rejected balance batch of %d deltas: %s", deltas.size(), e.getMessage());
+            return false;
+        }
+    }
+
     public void setPlayerName(UUID uuid, String name) {
         playerNames.put(uuid, name);
-        BalanceTracker tracker = getTracker();
-        if (tracker != null) {
-            // Atualiza o nick no PlayerBalance também
+        BalanceTracker tracker = trackerFor(uuid);
+        NetworkBalanceStore network = networkStore();
+        if (tracker != null && network != null) {
+            // Modo rede: só o nick vai para o banco (gravar o estado em cache sobrescreveria outros servidores)
             tracker.setPlayerNick(uuid, name);
-            // Save to MySQL immediately if using MySQL
-            if (this.useMySQL && this.mysqlStorageProvider != null) {
-                double balance = tracker.getBalance(uuid);
-                int cash = tracker.getCash(uuid);
-                PlayerBalance playerBalance = new PlayerBalance(uuid, name, balance, cash);
-                this.mysqlStorageProvider.savePlayer(uuid, playerBalance);
+            try {
+                network.updateNickname(uuid, name);
+            } catch (SQLException e) {
+                logger.at(Level.WARNING).log("Failed to update nickname of %s in MySQL: %s", uuid, e.getMessage());
             }
+        } else if (tracker != null) {
+            // Atualiza o nick no PlayerBalance também
+            tracker.setPlayerNick(uuid, name);
+            // Envia ao storage (no MySQL, gravado na hora)
+            persist(tracker, uuid);
+            tracker.markDirty(uuid);
         }
-        markDirty();
     }
 
     public String getPlayerName(UUID uuid) {
@@ -373,7 +1125,7 @@ public class EconomyManager {
         }
         
         // Se não encontrar, busca no BalanceTracker (JSON ou Database)
-        BalanceTracker tracker = getTracker();
+        BalanceTracker tracker = trackerFor(uuid);
         if (tracker != null) {
             String nick = tracker.getPlayerNick(uuid);
             if (nick != null && !nick.isEmpty()) {
@@ -388,19 +1140,22 @@ public class EconomyManager {
     }
 
     public List<Map.Entry<UUID, Double>> getTopBalances(int limit) {
-        BalanceTracker tracker = getTracker();
-        if (tracker == null) {
-            return new ArrayList<>();
+        List<Map.Entry<UUID, Long>> top;
+        if (isLazyStorage()) {
+            top = databaseRanking(true).top;
+            top = top.subList(0, Math.min(limit, top.size()));
+        } else {
+            BalanceTracker tracker = getTracker();
+            if (tracker == null) {
+                return new ArrayList<>();
+            }
+            top = tracker.getLeaderboard().top(limit);
         }
-        Map<UUID, Double> balanceMap = new HashMap<>();
-        for (PlayerBalance balance : tracker.getBalances()) {
-            balanceMap.put(balance.getUuid(), balance.getBalance());
+        List<Map.Entry<UUID, Double>> result = new ArrayList<>(top.size());
+        for (Map.Entry<UUID, Long> entry : top) {
+            result.add(new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), MoneyUnits.toDouble(entry.getValue())));
         }
-        
-        return balanceMap.entrySet().stream()
-                .sorted(Map.Entry.<UUID, Double>comparingByValue().reversed())
-                .limit(limit)
-                .collect(Collectors.toList());
+        return result;
     }
 
     /**
@@ -409,39 +1164,106 @@ public class EconomyManager {
      * @return Rank do jogador (1-500) ou -1 se não estiver no top 500
      */
     public int getPlayerRank(UUID uuid) {
+        if (isLazyStorage()) {
+            // Não bloqueia (chamado pela HUD): usa o último ranking lido e atualiza em segundo plano
+            return databaseRanking(false).ranks.getOrDefault(uuid, -1);
+        }
         BalanceTracker tracker = getTracker();
         if (tracker == null) {
             return -1;
         }
-        
-        // Obtém todos os saldos ordenados
-        Map<UUID, Double> balanceMap = new HashMap<>();
-        for (PlayerBalance balance : tracker.getBalances()) {
-            balanceMap.put(balance.getUuid(), balance.getBalance());
+        int rank = tracker.getLeaderboard().rankOf(uuid);
+        return rank > 0 && rank <= MAX_RANK ? rank : -1;
+    }
+
+    /**
+     * Ranking lido do banco (top {@value #MAX_RANK}), reaproveitado por {@value #DATABASE_RANKING_TTL_MS}ms
+     * @param wait Se true e o ranking estiver vencido, espera a nova leitura; senão devolve o último lido
+     */
+    private DatabaseRanking databaseRanking(boolean wait) {
+        DatabaseRanking current = this.databaseRanking;
+        if (System.currentTimeMillis() - current.loadedAt < DATABASE_RANKING_TTL_MS) {
+            return current;
         }
-        
-        // Ordena por saldo (maior para menor)
-        List<Map.Entry<UUID, Double>> sortedBalances = balanceMap.entrySet().stream()
-                .sorted(Map.Entry.<UUID, Double>comparingByValue().reversed())
-                .collect(Collectors.toList());
-        
-        // Procura o jogador na lista
-        for (int i = 0; i < sortedBalances.size() && i < 500; i++) {
-            if (sortedBalances.get(i).getKey().equals(uuid)) {
-                return i + 1; // Rank começa em 1
+        CompletableFuture<Void> refresh;
+        synchronized (this.databaseRankingLock) {
+            if (this.databaseRankingRefresh == null || this.databaseRankingRefresh.isDone()) {
+                this.databaseRankingRefresh = this.storage.loadTopBalances(MAX_RANK)
+                        .thenAccept(top -> {
+                            for (PlayerBalance balance : top) {
+                                if (!balance.getNick().isEmpty()) {
+                                    playerNames.putIfAbsent(balance.getUuid(), balance.getNick());
+                                }
+                            }
+                            this.databaseRanking = new DatabaseRanking(top);
+                        })
+                        .exceptionally(e -> {
+                            logger.at(Level.WARNING).log("Failed to load balance ranking from MySQL: %s", e.getMessage());
+                            return null;
+                        });
             }
+            refresh = this.databaseRankingRefresh;
+        }
+        if (wait) {
+            try {
+                refresh.get(SAVE_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                logger.at(Level.WARNING).log("Timed out loading balance ranking from MySQL");
+            }
+            return this.databaseRanking;
+        }
+        return current;
+    }
+
+    private static final class DatabaseRanking {
+        static final DatabaseRanking EMPTY = new DatabaseRanking(List.of(), 0L);
+
+        final List<Map.Entry<UUID, Long>> top;
+        final Map<UUID, Integer> ranks;
+        final long loadedAt;
+
+        DatabaseRanking(List<PlayerBalance> balances) {
+            this(toEntries(balances), System.currentTimeMillis());
+        }
+
+        private DatabaseRanking(List<Map.Entry<UUID, Long>> top, long loadedAt) {
+            this.top = top;
+            this.ranks = new HashMap<>(top.size() * 2);
+            for (int i = 0; i < top.size(); i++) {
+                this.ranks.put(top.get(i).getKey(), i + 1);
+            }
+            this.loadedAt = loadedAt;
+        }
+
+        private static List<Map.Entry<UUID, Long>> toEntries(List<PlayerBalance> balances) {
+            List<Map.Entry<UUID, Long>> entries = new ArrayList<>(balances.size());
+            for (PlayerBalance balance : balances) {
+                entries.add(new AbstractMap.SimpleImmutableEntry<>(balance.getUuid(), balance.getBalanceUnits()));
+            }
+            return entries;
         }
-        
-        return -1; // Não está no top 500
     }
 
+    /**
+     * Busca o UUID pelo nick (sem diferenciar maiúsculas/minúsculas), inclusive de jogadores offline.
+     * Usa o índice de nomes em memória e, no MySQL, consulta a coluna Nickname quando não encontra.
+     */
     public UUID getPlayerUuidByName(String name) {
-        for (Map.Entry<UUID, String> entry : playerNames.entrySet()) {
-            if (entry.getValue().equalsIgnoreCase(name)) {
-                return entry.getKey();
+        if (name == null || name.isEmpty()) {
+            return null;
+        }
+        BalanceTracker tracker = getTracker();
+        if (tracker != null) {
+            UUID uuid = tracker.findUuidByName(name);
+            if (uuid != null) {
+                return uuid;
             }
         }
-        return null;
+        UUID uuid = this.storage.findUuidByNickname(name);
+        if (uuid != null && tracker != null) {
+            tracker.indexName(uuid, name);
+        }
+        return uuid;
     }
     
     public void shutdown() {
@@ -451,14 +1273,18 @@ public class EconomyManager {
         
         // Save all data before shutdown
         save();
-        
-        // Shutdown MySQL connection if using MySQL (usando método síncrono para evitar problemas durante reload)
-        if (this.useMySQL && this.mysqlStorageProvider != null) {
-            try {
-                this.mysqlStorageProvider.shutdownSync();
-            } catch (Exception e) {
-                logger.at(Level.WARNING).log("Error shutting down MySQL: %s", e.getMessage());
-            }
+
+        // Grava o que restou no ledger antes de fechar o storage
+        if (this.ledger != null) {
+            this.ledger.shutdown();
+        }
+
+        // Fecha o storage: no JSON grava o snapshot final e esvazia o journal
+        // (usando método síncrono para evitar problemas durante reload)
+        try {
+            this.storage.shutdownSync();
+        } catch (Exception e) {
+            logger.at(Level.WARNING).log("Error shutting down %s storage: %s", this.storage.getName(), e.getMessage());
         }
     }
 }
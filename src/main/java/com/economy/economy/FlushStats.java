@@ -0,0 +1,52 @@
+package com.economy.economy;
+
+/**
+ * Métricas de um flush periódico das contas (linhas escritas, bytes e duração)
+ */
+public class FlushStats {
+
+    public static final FlushStats NONE = new FlushStats(0, 0L, 0L, 0L);
+
+    private final int rowsWritten;
+    private final long bytesWritten;
+    private final long durationNanos;
+    private final long timestamp;
+
+    public FlushStats(int rowsWritten, long bytesWritten, long durationNanos, long timestamp) {
+        this.rowsWritten = rowsWritten;
+        this.bytesWritten = bytesWritten;
+        this.durationNanos = durationNanos;
+        this.timestamp = timestamp;
+    }
+
+    public int getRowsWritten() {
+        return rowsWritten;
+    }
+
+    /**
+     * @return Bytes escritos (tamanho do arquivo no modo JSON, tamanho estimado das linhas no MySQL)
+     */
+    public long getBytesWritten() {
+        return bytesWritten;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public double getDurationMillis() {
+        return durationNanos / 1_000_000.0;
+    }
+
+    /**
+     * @return Momento do flush (System.currentTimeMillis), 0 se nunca houve flush
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d rows, %d bytes in %.1fms", rowsWritten, bytesWritten, getDurationMillis());
+    }
+}
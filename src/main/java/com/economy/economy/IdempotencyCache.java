@@ -0,0 +1,153 @@
+package com.economy.economy;
+
+import javax.annotation.Nonnull;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Cache de chaves de idempotência para depósitos e saques vindos de outros plugins (EconomyAPI, VaultUnlocked).
+ * <p>
+ * A primeira chamada com uma chave aplica a operação; repetições dentro do TTL recebem o resultado original.
+ * Chamadas concorrentes com a mesma chave esperam a primeira terminar. As chaves expiram na ordem em que
+ * foram criadas (o TTL é fixo), então a fila de expiração é só uma fila FIFO; acima de {@code maxKeys}
+ * as chaves mais antigas saem antes do TTL.
+ */
+public class IdempotencyCache {
+
+    public static final int MAX_KEY_LENGTH = 64;
+
+    private final long ttlMillis;
+    private final int maxKeys;
+    private final ConcurrentHashMap<String, Slot> slots = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Slot> expiration = new ConcurrentLinkedQueue<>();
+
+    // Métricas
+    private final LongAdder replays = new LongAdder();
+    private final LongAdder conflicts = new LongAdder();
+
+    private static final class Slot {
+        final String key;
+        final long amount;
+        final long expiresAt;
+        final CompletableFuture<IdempotentResult> result = new CompletableFuture<>();
+
+        Slot(String key, long amount, long expiresAt) {
+            this.key = key;
+            this.amount = amount;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    public IdempotencyCache(int ttlSeconds, int maxKeys) {
+        this.ttlMillis = TimeUnit.SECONDS.toMillis(ttlSeconds);
+        this.maxKeys = maxKeys;
+    }
+
+    /**
+     * Verifica se uma chave pode ser usada
+     * @throws IllegalArgumentException se a chave estiver vazia ou passar de {@link #MAX_KEY_LENGTH} caracteres
+     */
+    public static void validateKey(@Nonnull String key) {
+        if (key.isEmpty() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency key must have 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    /**
+     * Aplica a operação uma única vez por chave (e conta) dentro do TTL
+     * @param amount Valor com sinal; a mesma chave com outro valor resulta em {@link IdempotentResult.Status#CONFLICT}
+     * @param operation Aplica a operação; se lançar exceção a chave é liberada para uma nova tentativa
+     */
+    public IdempotentResult execute(@Nonnull UUID uuid, @Nonnull String key, long amount,
+                                    @Nonnull Supplier<IdempotentResult> operation) {
+        String cacheKey = uuid + ":" + key;
+        while (true) {
+            long now = System.currentTimeMillis();
+            Slot slot = new Slot(cacheKey, amount, now + ttlMillis);
+            Slot existing = slots.putIfAbsent(cacheKey, slot);
+            if (existing == null) {
+                expiration.add(slot);
+                evict(now);
+                return run(slot, operation);
+            }
+            if (existing.expiresAt <= now) {
+                slots.remove(cacheKey, existing);
+                continue;
+            }
+            if (existing.amount != amount) {
+                conflicts.increment();
+                return IdempotentResult.conflict(amount);
+            }
+            try {
+                IdempotentResult original = existing.result.join();
+                replays.increment();
+                return original.asReplay();
+            } catch (CompletionException e) {
+                // A primeira tentativa falhou com exceção e liberou a chave: tenta de novo
+            }
+        }
+    }
+
+    private IdempotentResult run(Slot slot, Supplier<IdempotentResult> operation) {
+        try {
+            IdempotentResult result = operation.get();
+            slot.result.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            slots.remove(slot.key, slot);
+            slot.result.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Registra uma operação já aplicada (ex: lida do ledger depois de um restart)
+     * @param time Horário em que a operação foi aplicada (epoch ms)
+     */
+    public void remember(@Nonnull UUID uuid, @Nonnull String key, long amount, long time) {
+        long now = System.currentTimeMillis();
+        if (time + ttlMillis <= now) {
+            return;
+        }
+        Slot slot = new Slot(uuid + ":" + key, amount, time + ttlMillis);
+        slot.result.complete(IdempotentResult.applied(amount));
+        if (slots.putIfAbsent(slot.key, slot) == null) {
+            expiration.add(slot);
+            evict(now);
+        }
+    }
+
+    private void evict(long now) {
+        Slot head;
+        while ((head = expiration.peek()) != null && (head.expiresAt <= now || slots.size() > maxKeys)) {
+            if (expiration.remove(head)) {
+                slots.remove(head.key, head);
+            }
+        }
+    }
+
+    /**
+     * @return Duração de cada chave em ms
+     */
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    public long getReplayCount() {
+        return replays.sum();
+    }
+
+    public long getConflictCount() {
+        return conflicts.sum();
+    }
+}
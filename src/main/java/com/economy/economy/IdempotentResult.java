@@ -0,0 +1,67 @@
+package com.economy.economy;
+
+/**
+ * Resultado de um depósito ou saque com chave de idempotência.
+ * <p>
+ * Uma repetição com a mesma chave recebe o resultado da primeira chamada com {@link #isReplayed()} = true,
+ * sem aplicar o valor de novo.
+ */
+public final class IdempotentResult {
+
+    public enum Status {
+        APPLIED,  // O valor foi aplicado
+        REJECTED, // Saldo insuficiente, valor inválido ou estouro do saldo
+        CONFLICT  // A chave já foi usada com outra conta, direção ou valor
+    }
+
+    private final Status status;
+    private final long amount;
+    private final boolean replayed;
+
+    private IdempotentResult(Status status, long amount, boolean replayed) {
+        this.status = status;
+        this.amount = amount;
+        this.replayed = replayed;
+    }
+
+    public static IdempotentResult applied(long amount) {
+        return new IdempotentResult(Status.APPLIED, amount, false);
+    }
+
+    public static IdempotentResult rejected(long amount) {
+        return new IdempotentResult(Status.REJECTED, amount, false);
+    }
+
+    static IdempotentResult conflict(long amount) {
+        return new IdempotentResult(Status.CONFLICT, amount, false);
+    }
+
+    /**
+     * @return O mesmo resultado marcado como repetição
+     */
+    IdempotentResult asReplay() {
+        return replayed ? this : new IdempotentResult(status, amount, true);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isSuccess() {
+        return status == Status.APPLIED;
+    }
+
+    /**
+     * @return Valor da operação em unidades mínimas, com sinal (negativo = saque)
+     */
+    public long getAmount() {
+        return amount;
+    }
+
+    /**
+     * @return true se a chave já tinha sido usada e este é o resultado original
+     */
+    public boolean isReplayed() {
+        return replayed;
+    }
+}
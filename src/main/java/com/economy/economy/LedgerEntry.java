@@ -0,0 +1,95 @@
+package com.economy.economy;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Um registro do ledger: uma alteração aplicada em uma conta.
+ * <p>
+ * O valor segue a convenção de {@link TransferLeg}: unidades mínimas para {@link CurrencyType#MONEY} e
+ * quantidade de cash para {@link CurrencyType#CASH}. Em alterações relativas ele tem sinal (negativo = saída);
+ * em alterações absolutas ({@link #isAbsolute()}, ex: /money set) é o novo saldo.
+ */
+public final class LedgerEntry {
+
+    private final long id;
+    private final long time;
+    private final UUID uuid;
+    private final UUID counterparty;
+    private final TransactionType type;
+    private final CurrencyType currency;
+    private final long amount;
+    private final boolean absolute;
+    private final String idempotencyKey;
+
+    public LedgerEntry(long id, long time, @Nonnull UUID uuid, @Nullable UUID counterparty,
+                       @Nonnull TransactionType type, @Nonnull CurrencyType currency, long amount, boolean absolute,
+                       @Nullable String idempotencyKey) {
+        this.id = id;
+        this.time = time;
+        this.uuid = Objects.requireNonNull(uuid, "uuid");
+        this.counterparty = counterparty;
+        this.type = Objects.requireNonNull(type, "type");
+        this.currency = Objects.requireNonNull(currency, "currency");
+        this.amount = amount;
+        this.absolute = absolute;
+        this.idempotencyKey = idempotencyKey;
+    }
+
+    /**
+     * @return Id crescente (derivado do horário), usado com {@link #getTime()} na paginação
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return Horário da alteração (epoch ms)
+     */
+    public long getTime() {
+        return time;
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    /**
+     * @return Outra conta da transferência, ou null se não houver uma única contraparte
+     */
+    public UUID getCounterparty() {
+        return counterparty;
+    }
+
+    public TransactionType getType() {
+        return type;
+    }
+
+    public CurrencyType getCurrency() {
+        return currency;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public boolean isAbsolute() {
+        return absolute;
+    }
+
+    /**
+     * @return Chave de idempotência informada pelo plugin que fez a operação, ou null
+     */
+    public String getIdempotencyKey() {
+        return idempotencyKey;
+    }
+
+    /**
+     * @return true se este registro vem antes de {@code other} na ordem do histórico (mais novo primeiro)
+     */
+    public boolean isOlderThan(@Nonnull LedgerEntry other) {
+        return time < other.time || (time == other.time && id < other.id);
+    }
+}
@@ -0,0 +1,37 @@
+package com.economy.economy;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Destino dos registros do ledger (MySQL ou arquivos locais)
+ */
+public interface LedgerSink {
+
+    /**
+     * Grava um lote de registros. Chamado só pela thread escritora do ledger.
+     */
+    void write(@Nonnull List<LedgerEntry> entries) throws Exception;
+
+    /**
+     * Histórico de uma conta, do mais novo para o mais antigo (paginação por chave)
+     * @param before Último registro da página anterior, ou null para a primeira página
+     */
+    List<LedgerEntry> history(@Nonnull UUID uuid, @Nullable LedgerEntry before, int limit) throws Exception;
+
+    /**
+     * Registros com chave de idempotência gravados a partir do horário indicado (epoch ms), do mais antigo
+     * para o mais novo. Usado no início para não reaplicar repetições de operações feitas antes do restart.
+     */
+    List<LedgerEntry> keyed(long sinceMillis) throws Exception;
+
+    /**
+     * Apaga os registros anteriores ao horário indicado (epoch ms)
+     * @return Número de registros (ou arquivos) apagados
+     */
+    int prune(long olderThanMillis) throws Exception;
+
+    void close() throws Exception;
+}
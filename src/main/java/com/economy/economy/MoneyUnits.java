@@ -0,0 +1,91 @@
+package com.economy.economy;
+
+import com.economy.Main;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Conversão entre valores monetários e unidades mínimas (ponto fixo).
+ * <p>
+ * Os saldos são guardados como {@code long} em unidades mínimas (ex: centavos com escala 2),
+ * então somas e subtrações são exatas. A conversão de/para double ou BigDecimal acontece
+ * apenas nas bordas (API, VaultUnlocked, formatação e banco de dados).
+ * A escala vem de {@code CurrencyScale} na configuração e é lida uma única vez.
+ */
+public final class MoneyUnits {
+
+    public static final int DEFAULT_SCALE = 2;
+    public static final int MAX_SCALE = 6;
+
+    private static final int SCALE = resolveScale();
+    private static final long FACTOR = pow10(SCALE);
+    // Limite seguro para a multiplicação em double antes de arredondar
+    private static final double MAX_DOUBLE = (double) Long.MAX_VALUE / FACTOR;
+
+    private MoneyUnits() {
+    }
+
+    private static int resolveScale() {
+        try {
+            if (Main.CONFIG != null && Main.CONFIG.get() != null) {
+                int scale = Main.CONFIG.get().getCurrencyScale();
+                if (scale >= 0 && scale <= MAX_SCALE) {
+                    return scale;
+                }
+            }
+        } catch (Exception ignored) {
+            // Sem configuração (ex: execução fora do servidor) - usa o padrão
+        }
+        return DEFAULT_SCALE;
+    }
+
+    private static long pow10(int exponent) {
+        long result = 1L;
+        for (int i = 0; i < exponent; i++) {
+            result *= 10L;
+        }
+        return result;
+    }
+
+    /**
+     * @return Número de casas decimais das unidades mínimas
+     */
+    public static int scale() {
+        return SCALE;
+    }
+
+    /**
+     * @return Quantidade de unidades mínimas em 1.0
+     */
+    public static long factor() {
+        return FACTOR;
+    }
+
+    /**
+     * Converte um valor em double para unidades mínimas (arredondamento para o mais próximo)
+     * @throws ArithmeticException se o valor não couber em um long ou não for finito
+     */
+    public static long toUnits(double amount) {
+        if (Double.isNaN(amount) || Math.abs(amount) >= MAX_DOUBLE) {
+            throw new ArithmeticException("Amount out of range: " + amount);
+        }
+        return Math.round(amount * FACTOR);
+    }
+
+    /**
+     * Converte um BigDecimal para unidades mínimas (arredondamento HALF_EVEN na escala configurada)
+     * @throws ArithmeticException se o valor não couber em um long
+     */
+    public static long toUnits(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    public static double toDouble(long units) {
+        return (double) units / FACTOR;
+    }
+
+    public static BigDecimal toBigDecimal(long units) {
+        return BigDecimal.valueOf(units, SCALE);
+    }
+}
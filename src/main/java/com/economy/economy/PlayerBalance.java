@@ -5,6 +5,8 @@ import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
 import com.hypixel.hytale.codec.codecs.array.ArrayCodec;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.UUID;
 
 public class PlayerBalance {
@@ -17,8 +19,8 @@ public class PlayerBalance {
                     (balance, value, extraInfo) -> balance.nick = value != null ? value : "",
                     (balance, extraInfo) -> balance.nick).add()
             .append(new KeyedCodec<>("Balance", Codec.DOUBLE),
-                    (balance, value, extraInfo) -> balance.balance = value,
-                    (balance, extraInfo) -> balance.balance).add()
+                    (balance, value, extraInfo) -> balance.balanceUnits = value != null ? MoneyUnits.toUnits(value) : 0L,
+                    (balance, extraInfo) -> balance.getBalance()).add()
             .append(new KeyedCodec<>("Cash", Codec.INTEGER),
                     (balance, value, extraInfo) -> balance.cash = value != null ? value : 0,
                     (balance, extraInfo) -> balance.cash).add()
@@ -26,29 +28,49 @@ public class PlayerBalance {
 
     public static ArrayCodec<PlayerBalance> CODEC_ARRAY = new ArrayCodec<>(CODEC, PlayerBalance[]::new);
 
+    // Acesso atômico aos campos: cada conta é atualizada via CAS, sem lock global.
+    // O saldo é guardado em unidades mínimas (ver MoneyUnits) para que as somas sejam exatas.
+    private static final VarHandle BALANCE;
+    private static final VarHandle CASH;
+
+    static {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            BALANCE = lookup.findVarHandle(PlayerBalance.class, "balanceUnits", long.class);
+            CASH = lookup.findVarHandle(PlayerBalance.class, "cash", int.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
     private UUID uuid;
-    private String nick;
-    private double balance;
-    private int cash = 0;
+    private volatile String nick;
+    private volatile long balanceUnits;
+    private volatile int cash = 0;
+    // Último acesso (ms), usado para descarregar contas offline no modo lazy do MySQL.
+    // Sem sincronização: um valor um pouco atrasado só adia a remoção.
+    private long lastAccessMillis = System.currentTimeMillis();
+    // Versão da linha no MySQL (modo rede): indica se o cache está atrás do banco
+    private volatile long version;
 
     public PlayerBalance(UUID uuid, double balance) {
         this.uuid = uuid;
         this.nick = "";
-        this.balance = balance;
+        this.balanceUnits = MoneyUnits.toUnits(balance);
         this.cash = 0;
     }
 
     public PlayerBalance(UUID uuid, String nick, double balance) {
         this.uuid = uuid;
         this.nick = nick != null ? nick : "";
-        this.balance = balance;
+        this.balanceUnits = MoneyUnits.toUnits(balance);
         this.cash = 0;
     }
 
     public PlayerBalance(UUID uuid, String nick, double balance, int cash) {
         this.uuid = uuid;
         this.nick = nick != null ? nick : "";
-        this.balance = balance;
+        this.balanceUnits = MoneyUnits.toUnits(balance);
         this.cash = cash;
     }
 
@@ -56,24 +78,77 @@ public class PlayerBalance {
         this(UUID.randomUUID(), 0.0);
     }
 
+    /**
+     * Cria uma conta a partir do saldo já em unidades mínimas (sem conversão por double)
+     */
+    public static PlayerBalance ofUnits(UUID uuid, String nick, long balanceUnits, int cash) {
+        PlayerBalance balance = new PlayerBalance(uuid, nick, 0.0, cash);
+        balance.balanceUnits = balanceUnits;
+        return balance;
+    }
+
     public UUID getUuid() {
         return uuid;
     }
 
     public double getBalance() {
-        return balance;
+        return MoneyUnits.toDouble(balanceUnits);
+    }
+
+    public long getBalanceUnits() {
+        return balanceUnits;
     }
 
     public void setBalance(double balance) {
-        this.balance = balance;
+        this.balanceUnits = MoneyUnits.toUnits(balance);
+    }
+
+    public void setBalanceUnits(long units) {
+        this.balanceUnits = units;
     }
 
     public void addBalance(double amount) {
-        this.balance += amount;
+        addBalanceUnits(MoneyUnits.toUnits(amount));
+    }
+
+    /**
+     * Soma unidades mínimas ao saldo (CAS, sem lock)
+     * @throws ArithmeticException se o resultado estourar um long (nada é aplicado)
+     */
+    public void addBalanceUnits(long units) {
+        long current;
+        do {
+            current = this.balanceUnits;
+        } while (!BALANCE.compareAndSet(this, current, Math.addExact(current, units)));
     }
 
     public void subtractBalance(double amount) {
-        this.balance -= amount;
+        addBalanceUnits(Math.negateExact(MoneyUnits.toUnits(amount)));
+    }
+
+    /**
+     * Debita o valor somente se houver saldo suficiente (verificação e débito atômicos)
+     * @param amount Valor a debitar
+     * @return true se o débito foi aplicado, false se o saldo era insuficiente
+     */
+    public boolean trySubtractBalance(double amount) {
+        return trySubtractBalanceUnits(MoneyUnits.toUnits(amount));
+    }
+
+    /**
+     * Debita unidades mínimas somente se houver saldo suficiente (verificação e débito atômicos)
+     * @param units Unidades a debitar
+     * @return true se o débito foi aplicado, false se o saldo era insuficiente
+     */
+    public boolean trySubtractBalanceUnits(long units) {
+        long current;
+        do {
+            current = this.balanceUnits;
+            if (current < units) {
+                return false;
+            }
+        } while (!BALANCE.compareAndSet(this, current, Math.subtractExact(current, units)));
+        return true;
     }
 
     public String getNick() {
@@ -92,13 +167,49 @@ public class PlayerBalance {
         this.cash = cash;
     }
 
+    /**
+     * @throws ArithmeticException se o resultado estourar um int (nada é aplicado)
+     */
     public void addCash(int amount) {
-        this.cash += amount;
+        int current;
+        do {
+            current = this.cash;
+        } while (!CASH.compareAndSet(this, current, Math.addExact(current, amount)));
     }
 
     public void subtractCash(int amount) {
-        this.cash -= amount;
+        addCash(Math.negateExact(amount));
     }
-}
 
+    /**
+     * Debita cash somente se houver saldo suficiente (verificação e débito atômicos)
+     * @param amount Quantidade a debitar
+     * @return true se o débito foi aplicado, false se o cash era insuficiente
+     */
+    public boolean trySubtractCash(int amount) {
+        int current;
+        do {
+            current = this.cash;
+            if (current < amount) {
+                return false;
+            }
+        } while (!CASH.compareAndSet(this, current, current - amount));
+        return true;
+    }
+
+    public long getLastAccessMillis() {
+        return lastAccessMillis;
+    }
 
+    public void touch() {
+        this.lastAccessMillis = System.currentTimeMillis();
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
@@ -0,0 +1,255 @@
+package com.economy.economy;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+
+/**
+ * Ledger das alterações de saldo: quem pagou quem, compras, recompensas e ações de admin.
+ * <p>
+ * {@link #record} só coloca o registro em um ring buffer de tamanho fixo (um CAS, sem lock e sem IO), então
+ * pode ser chamado da thread do mundo. Uma thread escritora esvazia o buffer em lotes para o
+ * {@link LedgerSink} (tabela no MySQL ou arquivos locais). Se o destino ficar fora do ar por tempo suficiente
+ * para o buffer encher, os registros novos são descartados e contados em vez de bloquear quem chamou.
+ */
+public class TransactionLedger {
+
+    private static final HytaleLogger logger = HytaleLogger.getLogger().getSubLogger("EconomySystem");
+    private static final int BATCH_SIZE = 1024;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    private static final long RETRY_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long PRUNE_INTERVAL_MS = TimeUnit.HOURS.toMillis(1);
+
+    private final LedgerSink sink;
+    private final long retentionMillis;
+
+    // Ring buffer: vários produtores, um consumidor (a thread escritora)
+    private final LedgerEntry[] slots;
+    private final AtomicLongArray published; // sequência + 1 do registro publicado em cada posição
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private volatile long head;
+
+    private final AtomicLong lastId = new AtomicLong();
+    private final ExecutorService queryExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "EconomySystem-LedgerQuery");
+        t.setDaemon(true);
+        return t;
+    });
+    private volatile boolean running;
+    private Thread writerThread;
+    private long lastPruneMillis;
+
+    // Métricas
+    private final LongAdder dropped = new LongAdder();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong failedBatches = new AtomicLong();
+
+    /**
+     * @param capacity Tamanho do ring buffer (arredondado para a próxima potência de 2)
+     * @param retentionDays Dias que os registros são mantidos (0 = para sempre)
+     */
+    public TransactionLedger(@Nonnull LedgerSink sink, int capacity, int retentionDays) {
+        this.sink = sink;
+        this.retentionMillis = TimeUnit.DAYS.toMillis(retentionDays);
+        int size = Integer.highestOneBit(Math.max(capacity, BATCH_SIZE) - 1) << 1;
+        this.slots = new LedgerEntry[size];
+        this.published = new AtomicLongArray(size);
+        this.mask = size - 1;
+    }
+
+    public void start() {
+        this.running = true;
+        this.lastPruneMillis = System.currentTimeMillis();
+        this.writerThread = new Thread(this::runWriter, "EconomySystem-Ledger");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Registra uma alteração aplicada. Não bloqueia: se o buffer estiver cheio o registro é descartado.
+     * @return false se o registro foi descartado
+     */
+    public boolean record(@Nonnull UUID uuid, @Nullable UUID counterparty, @Nonnull TransactionType type,
+                          @Nonnull CurrencyType currency, long amount, boolean absolute) {
+        return record(uuid, counterparty, type, currency, amount, absolute, null);
+    }
+
+    /**
+     * @param idempotencyKey Chave de idempotência da operação (lida de volta em {@link LedgerSink#keyed} no restart)
+     */
+    public boolean record(@Nonnull UUID uuid, @Nullable UUID counterparty, @Nonnull TransactionType type,
+                          @Nonnull CurrencyType currency, long amount, boolean absolute, @Nullable String idempotencyKey) {
+        long now = System.currentTimeMillis();
+        // Crescente e derivado do horário: continua crescendo depois de um restart
+        long id = lastId.accumulateAndGet(now * 1000, (previous, floor) -> Math.max(previous + 1, floor));
+        long seq;
+        do {
+            seq = tail.get();
+            if (seq - head >= slots.length) {
+                dropped.increment();
+                return false;
+            }
+        } while (!tail.compareAndSet(seq, seq + 1));
+        int index = (int) seq & mask;
+        slots[index] = new LedgerEntry(id, now, uuid, counterparty, type, currency, amount, absolute, idempotencyKey);
+        published.lazySet(index, seq + 1);
+        if (((seq + 1) & (BATCH_SIZE - 1)) == 0) {
+            // Um lote completo: acorda a escritora em vez de esperar o próximo ciclo
+            LockSupport.unpark(writerThread);
+        }
+        return true;
+    }
+
+    /**
+     * Registra as pernas de uma transferência aplicada (uma entrada por perna). Quando há um único débito
+     * e um único crédito, cada lado aponta para o outro como contraparte.
+     */
+    public void recordLegs(@Nonnull List<TransferLeg> legs, @Nonnull TransactionType type) {
+        UUID payer = null;
+        UUID payee = null;
+        if (legs.size() == 2 && legs.get(0).isDebit() != legs.get(1).isDebit()) {
+            TransferLeg debit = legs.get(0).isDebit() ? legs.get(0) : legs.get(1);
+            TransferLeg credit = legs.get(0).isDebit() ? legs.get(1) : legs.get(0);
+            payer = debit.getUuid();
+            payee = credit.getUuid();
+        }
+        for (TransferLeg leg : legs) {
+            UUID counterparty = leg.isDebit() ? payee : payer;
+            record(leg.getUuid(), counterparty, type, leg.getCurrency(),
+                    leg.isDebit() ? -leg.getAmount() : leg.getAmount(), false);
+        }
+    }
+
+    /**
+     * Histórico de uma conta, do mais novo para o mais antigo. Roda fora da thread de quem chama.
+     * @param before Último registro da página anterior, ou null para a primeira página
+     */
+    public CompletableFuture<List<LedgerEntry>> history(@Nonnull UUID uuid, @Nullable LedgerEntry before, int limit) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return sink.history(uuid, before, limit);
+            } catch (Exception e) {
+                throw new IllegalStateException("Failed to read ledger history: " + e.getMessage(), e);
+            }
+        }, queryExecutor);
+    }
+
+    /**
+     * Move os registros publicados para o lote (só a thread escritora chama)
+     */
+    private void drain(List<LedgerEntry> batch) {
+        long h = head;
+        while (batch.size() < BATCH_SIZE) {
+            int index = (int) h & mask;
+            if (published.get(index) != h + 1) {
+                break;
+            }
+            batch.add(slots[index]);
+            slots[index] = null;
+            h++;
+        }
+        // Libera as posições para os produtores
+        head = h;
+    }
+
+    private void runWriter() {
+        List<LedgerEntry> batch = new ArrayList<>(BATCH_SIZE);
+        while (true) {
+            if (batch.isEmpty()) {
+                drain(batch);
+            }
+            if (batch.isEmpty()) {
+                if (!running) {
+                    break;
+                }
+                pruneIfDue();
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+            try {
+                sink.write(batch);
+                written.addAndGet(batch.size());
+                batch.clear();
+            } catch (Exception e) {
+                failedBatches.incrementAndGet();
+                if (!running) {
+                    logger.at(Level.WARNING).log("Discarding %d ledger records during shutdown: %s",
+                            batch.size() + getPending(), e.getMessage());
+                    break;
+                }
+                logger.at(Level.WARNING).log("Failed to write %d ledger records, retrying: %s", batch.size(), e.getMessage());
+                LockSupport.parkNanos(this, RETRY_PARK_NANOS);
+            }
+        }
+    }
+
+    private void pruneIfDue() {
+        long now = System.currentTimeMillis();
+        if (retentionMillis <= 0 || now - lastPruneMillis < PRUNE_INTERVAL_MS) {
+            return;
+        }
+        lastPruneMillis = now;
+        try {
+            int pruned = sink.prune(now - retentionMillis);
+            if (pruned > 0) {
+                logger.at(Level.INFO).log("Pruned %d expired ledger records", pruned);
+            }
+        } catch (Exception e) {
+            logger.at(Level.WARNING).log("Failed to prune ledger: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Grava o que estiver no buffer e fecha o destino
+     */
+    public void shutdown() {
+        running = false;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        queryExecutor.shutdown();
+        try {
+            sink.close();
+        } catch (Exception e) {
+            logger.at(Level.WARNING).log("Error closing ledger: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * @return Registros no buffer esperando a gravação
+     */
+    public long getPending() {
+        return tail.get() - head;
+    }
+
+    public long getWrittenCount() {
+        return written.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getFailedBatchCount() {
+        return failedBatches.get();
+    }
+}
@@ -0,0 +1,16 @@
+package com.economy.economy;
+
+/**
+ * Motivo de uma alteração de saldo registrada no ledger
+ */
+public enum TransactionType {
+    PAY,          // /money pay
+    SHOP_BUY,     // Compra na loja admin/NPC
+    SHOP_SELL,    // Venda na loja admin/NPC
+    PLAYER_SHOP,  // Compra em loja de jogador
+    REWARD,       // Recompensas (blocos, monstros)
+    ADMIN_GIVE,   // /money give, /cash give
+    ADMIN_SET,    // /money set
+    INITIAL,      // Saldo inicial de um jogador novo
+    OTHER         // API, integrações e demais chamadas
+}
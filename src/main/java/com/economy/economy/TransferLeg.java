@@ -0,0 +1,56 @@
+package com.economy.economy;
+
+import javax.annotation.Nonnull;
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Uma perna de uma transferência: débito ou crédito em uma conta.
+ * <p>
+ * Para {@link CurrencyType#MONEY} o valor está em unidades mínimas (ver MoneyUnits);
+ * para {@link CurrencyType#CASH} é a quantidade de cash.
+ */
+public final class TransferLeg {
+
+    private final UUID uuid;
+    private final CurrencyType currency;
+    private final long amount;
+    private final boolean debit;
+
+    private TransferLeg(@Nonnull UUID uuid, @Nonnull CurrencyType currency, long amount, boolean debit) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Transfer amount cannot be negative: " + amount);
+        }
+        if (currency == CurrencyType.CASH && amount > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Cash amount out of range: " + amount);
+        }
+        this.uuid = Objects.requireNonNull(uuid, "uuid");
+        this.currency = Objects.requireNonNull(currency, "currency");
+        this.amount = amount;
+        this.debit = debit;
+    }
+
+    public static TransferLeg debit(@Nonnull UUID uuid, @Nonnull CurrencyType currency, long amount) {
+        return new TransferLeg(uuid, currency, amount, true);
+    }
+
+    public static TransferLeg credit(@Nonnull UUID uuid, @Nonnull CurrencyType currency, long amount) {
+        return new TransferLeg(uuid, currency, amount, false);
+    }
+
+    public UUID getUuid() {
+        return uuid;
+    }
+
+    public CurrencyType getCurrency() {
+        return currency;
+    }
+
+    public long getAmount() {
+        return amount;
+    }
+
+    public boolean isDebit() {
+        return debit;
+    }
+}
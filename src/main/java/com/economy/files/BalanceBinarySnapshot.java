@@ -0,0 +1,187 @@
+package com.economy.files;
+
+import com.economy.economy.BalanceTracker;
+import com.economy.economy.MoneyUnits;
+import com.economy.economy.PlayerBalance;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+/**
+ * Snapshot binário dos saldos (alternativa ao Balances.json para muitas contas).
+ * <p>
+ * Layout (big-endian):
+ * <pre>
+ * cabeçalho (16 bytes): magic "ECOB" | versão (u16) | escala (u8) | reservado (u8) | contas (i32) | tabela de nicks (i32)
+ * registros (32 bytes cada): UUID msb (i64) | UUID lsb (i64) | saldo em unidades mínimas (i64) | cash (i32) | offset do nick (i32, -1 = sem nick)
+ * tabela de nicks: tamanho (u16) + UTF-8, referenciados pelo offset
+ * CRC32C (i32) dos registros e da tabela de nicks
+ * </pre>
+ * A leitura usa um {@link MappedByteBuffer} e acesso absoluto, sem parser nem objetos intermediários;
+ * a escrita vai para um arquivo temporário que substitui o snapshot com um move atômico.
+ */
+public final class BalanceBinarySnapshot {
+
+    private static final int MAGIC = 0x45434F42; // "ECOB"
+    private static final short VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final int RECORD_BYTES = 32;
+    private static final int CRC_BYTES = 4;
+    private static final int MAX_NICK_BYTES = 0xFFFF;
+
+    private BalanceBinarySnapshot() {
+    }
+
+    /**
+     * Carrega o snapshot no tracker (substitui todas as contas)
+     * @return Número de contas carregadas
+     */
+    public static int read(Path path, BalanceTracker tracker) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_BYTES + CRC_BYTES) {
+                throw new IOException("Balance snapshot is too small: " + size + " bytes");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IOException("Not a balance snapshot: " + path);
+            }
+            short version = buffer.getShort(4);
+            if (version != VERSION) {
+                throw new IOException("Unsupported balance snapshot version " + version);
+            }
+            int fileScale = buffer.get(6);
+            int count = buffer.getInt(8);
+            int stringBytes = buffer.getInt(12);
+            long bodyBytes = (long) count * RECORD_BYTES + stringBytes;
+            if (count < 0 || stringBytes < 0 || HEADER_BYTES + bodyBytes + CRC_BYTES != size) {
+                throw new IOException("Balance snapshot is truncated or corrupted: " + path);
+            }
+
+            CRC32C crc = new CRC32C();
+            crc.update(buffer.slice(HEADER_BYTES, (int) bodyBytes));
+            if ((int) crc.getValue() != buffer.getInt((int) (size - CRC_BYTES))) {
+                throw new IOException("Balance snapshot checksum mismatch: " + path);
+            }
+
+            int stringsStart = HEADER_BYTES + count * RECORD_BYTES;
+            PlayerBalance[] balances = new PlayerBalance[count];
+            byte[] scratch = new byte[64];
+            for (int i = 0; i < count; i++) {
+                int position = HEADER_BYTES + i * RECORD_BYTES;
+                UUID uuid = new UUID(buffer.getLong(position), buffer.getLong(position + 8));
+                long units = rescale(buffer.getLong(position + 16), fileScale);
+                int cash = buffer.getInt(position + 24);
+                int nickOffset = buffer.getInt(position + 28);
+                String nick = "";
+                if (nickOffset >= 0) {
+                    int at = stringsStart + nickOffset;
+                    int length = buffer.getShort(at) & 0xFFFF;
+                    if (length > scratch.length) {
+                        scratch = new byte[length];
+                    }
+                    buffer.get(at + 2, scratch, 0, length);
+                    nick = new String(scratch, 0, length, StandardCharsets.UTF_8);
+                }
+                balances[i] = PlayerBalance.ofUnits(uuid, nick, units, cash);
+            }
+            tracker.setBalances(balances);
+            return count;
+        }
+    }
+
+    /**
+     * Converte unidades gravadas com outra escala (CurrencyScale alterado) para a escala atual
+     */
+    private static long rescale(long units, int fileScale) {
+        if (fileScale == MoneyUnits.scale()) {
+            return units;
+        }
+        return MoneyUnits.toUnits(BigDecimal.valueOf(units, fileScale));
+    }
+
+    /**
+     * Grava um snapshot consistente do tracker (nenhuma transferência pela metade)
+     * @return Tamanho do arquivo gravado
+     */
+    public static long write(Path path, BalanceTracker tracker) throws IOException {
+        List<PlayerBalance> accounts = tracker.withAllTransferLocks(() -> {
+            List<PlayerBalance> copy = new ArrayList<>(tracker.size());
+            for (PlayerBalance account : tracker.values()) {
+                copy.add(PlayerBalance.ofUnits(account.getUuid(), account.getNick(), account.getBalanceUnits(),
+                        account.getCash()));
+            }
+            return copy;
+        });
+
+        // Tabela de nicks (nicks repetidos são gravados uma vez só)
+        ByteArrayOutputStream strings = new ByteArrayOutputStream();
+        Map<String, Integer> offsets = new HashMap<>();
+        int[] nickOffsets = new int[accounts.size()];
+        for (int i = 0; i < accounts.size(); i++) {
+            String nick = accounts.get(i).getNick();
+            if (nick == null || nick.isEmpty()) {
+                nickOffsets[i] = -1;
+                continue;
+            }
+            nickOffsets[i] = offsets.computeIfAbsent(nick, value -> {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                int length = Math.min(bytes.length, MAX_NICK_BYTES);
+                int offset = strings.size();
+                strings.write(length >>> 8);
+                strings.write(length);
+                strings.write(bytes, 0, length);
+                return offset;
+            });
+        }
+
+        int bodyBytes = accounts.size() * RECORD_BYTES + strings.size();
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + bodyBytes + CRC_BYTES);
+        buffer.putInt(MAGIC);
+        buffer.putShort(VERSION);
+        buffer.put((byte) MoneyUnits.scale());
+        buffer.put((byte) 0);
+        buffer.putInt(accounts.size());
+        buffer.putInt(strings.size());
+        for (int i = 0; i < accounts.size(); i++) {
+            PlayerBalance account = accounts.get(i);
+            buffer.putLong(account.getUuid().getMostSignificantBits());
+            buffer.putLong(account.getUuid().getLeastSignificantBits());
+            buffer.putLong(account.getBalanceUnits());
+            buffer.putInt(account.getCash());
+            buffer.putInt(nickOffsets[i]);
+        }
+        buffer.put(strings.toByteArray());
+
+        CRC32C crc = new CRC32C();
+        crc.update(buffer.array(), HEADER_BYTES, bodyBytes);
+        buffer.putInt((int) crc.getValue());
+        buffer.flip();
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return HEADER_BYTES + (long) bodyBytes + CRC_BYTES;
+    }
+}
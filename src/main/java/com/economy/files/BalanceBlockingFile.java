@@ -1,6 +1,9 @@
 package com.economy.files;
 
+import com.economy.Main;
 import com.economy.economy.BalanceTracker;
+import com.economy.economy.MoneyUnits;
+import com.economy.economy.PlayerBalance;
 import com.economy.util.FileUtils;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
@@ -12,7 +15,15 @@ import com.hypixel.hytale.server.core.util.io.BlockingDiskFile;
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.UUID;
 
 public class BalanceBlockingFile extends BlockingDiskFile {
@@ -33,38 +44,129 @@ public class BalanceBlockingFile extends BlockingDiskFile {
         JsonArray valuesArray = root.getAsJsonArray("Values");
         if (valuesArray == null) return;
         this.tracker = new BalanceTracker();
-        valuesArray.forEach(jsonElement -> {
-            JsonObject balanceObj = jsonElement.getAsJsonObject();
-            UUID uuid = UUID.fromString(balanceObj.get("UUID").getAsString());
-            double balance = balanceObj.get("Balance").getAsDouble();
-            int cash = balanceObj.has("Cash") && !balanceObj.get("Cash").isJsonNull() 
-                    ? balanceObj.get("Cash").getAsInt() : 0;
-            String nick = balanceObj.has("Nick") && !balanceObj.get("Nick").isJsonNull() 
-                    ? balanceObj.get("Nick").getAsString() : "";
-            this.tracker.setBalance(uuid, balance);
-            this.tracker.setCash(uuid, cash);
-            if (!nick.isEmpty()) {
-                this.tracker.setPlayerNick(uuid, nick);
-            }
-        });
+        this.tracker.setBalances(parseValues(valuesArray).toArray(new PlayerBalance[0]));
+    }
+
+    private static List<PlayerBalance> parseValues(JsonArray valuesArray) {
+        List<PlayerBalance> balances = new ArrayList<>(valuesArray.size());
+        valuesArray.forEach(jsonElement -> balances.add(parseBalance(jsonElement.getAsJsonObject())));
+        return balances;
+    }
+
+    /**
+     * Lê uma entrada do array "Values" (também usado pela migração em streaming para o MySQL)
+     */
+    public static PlayerBalance parseBalance(JsonObject balanceObj) {
+        UUID uuid = UUID.fromString(balanceObj.get("UUID").getAsString());
+        long balanceUnits = MoneyUnits.toUnits(balanceObj.get("Balance").getAsBigDecimal());
+        int cash = balanceObj.has("Cash") && !balanceObj.get("Cash").isJsonNull() 
+                ? balanceObj.get("Cash").getAsInt() : 0;
+        String nick = balanceObj.has("Nick") && !balanceObj.get("Nick").isJsonNull() 
+                ? balanceObj.get("Nick").getAsString() : "";
+        return PlayerBalance.ofUnits(uuid, nick, balanceUnits, cash);
     }
 
     @Override
     protected void write(BufferedWriter bufferedWriter) throws IOException {
+        // Usa Gson para formatar o JSON de forma legível
+        String jsonString = GSON.toJson(toJson(this.tracker.values()));
+        bufferedWriter.write(jsonString);
+    }
+
+    private static JsonObject toJson(Iterable<PlayerBalance> balances) {
         JsonObject root = new JsonObject();
         JsonArray valuesArray = new JsonArray();
-        for (com.economy.economy.PlayerBalance balance : this.tracker.getBalances()) {
+        for (PlayerBalance balance : balances) {
             JsonObject balanceObj = new JsonObject();
             balanceObj.addProperty("UUID", balance.getUuid().toString());
             balanceObj.addProperty("Nick", balance.getNick() != null ? balance.getNick() : "");
-            balanceObj.addProperty("Balance", balance.getBalance());
+            balanceObj.addProperty("Balance", MoneyUnits.toBigDecimal(balance.getBalanceUnits()));
             balanceObj.addProperty("Cash", balance.getCash());
             valuesArray.add(balanceObj);
         }
         root.add("Values", valuesArray);
-        // Usa Gson para formatar o JSON de forma legível
-        String jsonString = GSON.toJson(root);
-        bufferedWriter.write(jsonString);
+        return root;
+    }
+
+    /**
+     * @return true se o snapshot dos saldos deve ser gravado no formato binário (Balances.dat)
+     */
+    public static boolean isBinaryFormat() {
+        return "binary".equalsIgnoreCase(Main.CONFIG.get().getBalanceSnapshotFormat());
+    }
+
+    /**
+     * Carrega o snapshot no formato configurado. No formato binário, se o Balances.dat ainda não existe,
+     * carrega o Balances.json (o próximo snapshot já é gravado em binário).
+     */
+    public void load() throws IOException {
+        Path binaryPath = Path.of(FileUtils.BALANCES_BINARY_PATH);
+        if (isBinaryFormat() && Files.exists(binaryPath)) {
+            BalanceTracker loaded = new BalanceTracker();
+            BalanceBinarySnapshot.read(binaryPath, loaded);
+            this.tracker = loaded;
+            return;
+        }
+        syncLoad();
+    }
+
+    /**
+     * Grava um snapshot consistente (nenhuma transferência pela metade) no formato configurado,
+     * sempre em um arquivo temporário que substitui o snapshot com um move atômico.
+     * Usado pela compactação do journal e pelo save periódico.
+     */
+    public void writeSnapshot() throws IOException {
+        if (isBinaryFormat()) {
+            BalanceBinarySnapshot.write(Path.of(FileUtils.BALANCES_BINARY_PATH), this.tracker);
+        } else {
+            exportJson(this.tracker, Path.of(FileUtils.BALANCES_PATH));
+        }
+    }
+
+    /**
+     * Grava todas as contas do tracker em um arquivo JSON no formato do Balances.json
+     * @return Número de contas exportadas
+     */
+    public static int exportJson(BalanceTracker tracker, Path target) throws IOException {
+        List<PlayerBalance> balances = tracker.withAllTransferLocks(() -> {
+            List<PlayerBalance> copy = new ArrayList<>(tracker.size());
+            for (PlayerBalance balance : tracker.values()) {
+                copy.add(PlayerBalance.ofUnits(balance.getUuid(), balance.getNick(), balance.getBalanceUnits(),
+                        balance.getCash()));
+            }
+            return copy;
+        });
+        String jsonString = GSON.toJson(toJson(balances));
+        Path temp = target.resolveSibling(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(jsonString.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return balances.size();
+    }
+
+    /**
+     * Lê as contas de um arquivo JSON no formato do Balances.json (sem alterar nenhum tracker)
+     */
+    public static List<PlayerBalance> importJson(Path source) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.UTF_8)) {
+            var rootElement = JsonParser.parseReader(reader);
+            if (rootElement == null || !rootElement.isJsonObject()) {
+                throw new IOException("Invalid balance file: " + source);
+            }
+            JsonArray valuesArray = rootElement.getAsJsonObject().getAsJsonArray("Values");
+            if (valuesArray == null) {
+                return new ArrayList<>();
+            }
+            return parseValues(valuesArray);
+        } catch (RuntimeException e) {
+            throw new IOException("Invalid balance file " + source + ": " + e.getMessage(), e);
+        }
     }
 
     @Override
@@ -0,0 +1,313 @@
+package com.economy.files;
+
+import com.economy.economy.BalanceTracker;
+import com.economy.economy.MoneyUnits;
+import com.economy.economy.PlayerBalance;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+
+/**
+ * Journal append-only das alterações de saldo no modo JSON.
+ * <p>
+ * Cada alteração de conta só marca o UUID como pendente; uma thread escritora junta tudo o que
+ * estiver pendente em um único registro (uma linha JSON com o estado atual das contas), grava no fim
+ * do arquivo e faz um único fsync por registro (group commit). Enquanto um fsync está em andamento as
+ * novas alterações se acumulam para o próximo registro, então a latência fica na casa dos milissegundos
+ * sem um fsync por operação.
+ * <p>
+ * Os registros guardam o estado da conta (e não a diferença), então reaplicar o journal sobre um snapshot
+ * mais novo é inofensivo. As contas de um registro são lidas com os locks de transferência adquiridos,
+ * então as duas pontas de uma transferência sempre caem no mesmo registro. Uma linha incompleta no fim
+ * do arquivo (crash durante a escrita) é descartada na recuperação.
+ * <p>
+ * Quando o journal passa do limite configurado ele é compactado: o Balances.json é regravado como
+ * snapshot e o journal é truncado.
+ */
+public class BalanceJournal {
+
+    private static final HytaleLogger logger = HytaleLogger.getLogger().getSubLogger("EconomySystem");
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final BalanceBlockingFile snapshotFile;
+    private final BalanceTracker tracker;
+    private final Path path;
+    private final Set<UUID> pending = ConcurrentHashMap.newKeySet();
+    private final AtomicLong requestedSeq = new AtomicLong();
+    private final AtomicBoolean compactRequested = new AtomicBoolean(false);
+    private final Object durableLock = new Object();
+    private volatile long durableSeq;
+    private volatile boolean running;
+    private FileChannel channel;
+    private Thread writerThread;
+
+    // Métricas
+    private final AtomicLong recordsWritten = new AtomicLong();
+    private final AtomicLong bytesWritten = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
+    private volatile long lastSyncNanos;
+
+    public BalanceJournal(BalanceBlockingFile snapshotFile, Path path) {
+        this.snapshotFile = snapshotFile;
+        this.tracker = snapshotFile.getTracker();
+        this.path = path;
+    }
+
+    /**
+     * Reaplica o journal existente sobre o tracker carregado do snapshot.
+     * Deve ser chamado antes de {@link #start()}.
+     * @return Número de registros reaplicados
+     */
+    public int replay() throws IOException {
+        if (!path.toFile().exists()) {
+            return 0;
+        }
+        int records = 0;
+        long validBytes = 0;
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            BufferedReader reader = new BufferedReader(Channels.newReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) {
+                    validBytes += 1;
+                    continue;
+                }
+                JsonArray record;
+                try {
+                    record = JsonParser.parseString(line).getAsJsonArray();
+                } catch (RuntimeException e) {
+                    // Linha incompleta no fim do arquivo: o registro não chegou a ser confirmado
+                    logger.at(Level.WARNING).log("Discarding torn balance journal record at byte %d", validBytes);
+                    break;
+                }
+                for (JsonElement element : record) {
+                    apply(element.getAsJsonObject());
+                }
+                records++;
+                validBytes += line.getBytes(StandardCharsets.UTF_8).length + 1;
+            }
+        }
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            if (out.size() > validBytes) {
+                out.truncate(validBytes);
+                out.force(true);
+            }
+        }
+        return records;
+    }
+
+    private void apply(JsonObject entry) {
+        UUID uuid = UUID.fromString(entry.get("UUID").getAsString());
+        tracker.setBalanceUnits(uuid, MoneyUnits.toUnits(entry.get("Balance").getAsBigDecimal()));
+        tracker.setCash(uuid, entry.get("Cash").getAsInt());
+        String nick = entry.has("Nick") ? entry.get("Nick").getAsString() : "";
+        if (!nick.isEmpty()) {
+            tracker.setPlayerNick(uuid, nick);
+        }
+    }
+
+    /**
+     * Abre o journal para escrita, inicia a thread escritora e passa a receber as alterações do tracker
+     */
+    public void start() throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND);
+        this.running = true;
+        this.writerThread = new Thread(this::runWriter, "EconomySystem-Journal");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+        tracker.setChangeListener(this::mark);
+    }
+
+    /**
+     * Marca a conta como alterada (chamado pelo tracker; não bloqueia)
+     */
+    public void mark(UUID uuid) {
+        pending.add(uuid);
+        // Incrementa depois de adicionar: quem lê a sequência antes de drenar nunca conta uma marcação não drenada
+        requestedSeq.incrementAndGet();
+        LockSupport.unpark(writerThread);
+    }
+
+    private void runWriter() {
+        while (running || !pending.isEmpty()) {
+            if (pending.isEmpty() && !compactRequested.get()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                continue;
+            }
+            try {
+                writePending();
+                if (compactRequested.getAndSet(false)) {
+                    compact();
+                }
+            } catch (Exception e) {
+                logger.at(Level.SEVERE).log("Failed to write balance journal: %s", e.getMessage());
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+        }
+    }
+
+    /**
+     * Grava todas as contas pendentes como um único registro e faz o fsync
+     */
+    private void writePending() throws IOException {
+        long seq = requestedSeq.get();
+        List<PlayerBalance> snapshot = tracker.withAllTransferLocks(() -> {
+            List<PlayerBalance> accounts = new ArrayList<>(pending.size());
+            for (UUID uuid : pending) {
+                pending.remove(uuid);
+                PlayerBalance account = tracker.getAccount(uuid);
+                if (account != null) {
+                    accounts.add(PlayerBalance.ofUnits(uuid, account.getNick(), account.getBalanceUnits(),
+                            account.getCash()));
+                }
+            }
+            return accounts;
+        });
+        if (!snapshot.isEmpty()) {
+            long start = System.nanoTime();
+            JsonArray record = new JsonArray();
+            for (PlayerBalance balance : snapshot) {
+                JsonObject entry = new JsonObject();
+                entry.addProperty("UUID", balance.getUuid().toString());
+                entry.addProperty("Nick", balance.getNick() != null ? balance.getNick() : "");
+                entry.addProperty("Balance", MoneyUnits.toBigDecimal(balance.getBalanceUnits()));
+                entry.addProperty("Cash", balance.getCash());
+                record.add(entry);
+            }
+            ByteBuffer buffer = ByteBuffer.wrap((record + "\n").getBytes(StandardCharsets.UTF_8));
+            int size = buffer.remaining();
+            long position = channel.size();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            } catch (IOException e) {
+                // Remove o registro parcial (senão a recuperação pararia nele) e mantém as contas pendentes
+                for (PlayerBalance balance : snapshot) {
+                    pending.add(balance.getUuid());
+                }
+                channel.truncate(position);
+                throw e;
+            }
+            lastSyncNanos = System.nanoTime() - start;
+            recordsWritten.incrementAndGet();
+            bytesWritten.addAndGet(size);
+        }
+        synchronized (durableLock) {
+            durableSeq = Math.max(durableSeq, seq);
+            durableLock.notifyAll();
+        }
+    }
+
+    /**
+     * Regrava o snapshot e trunca o journal. Roda na thread escritora (ou depois que ela parou).
+     */
+    private void compact() throws IOException {
+        long start = System.nanoTime();
+        long size = channel.size();
+        snapshotFile.writeSnapshot();
+        // O snapshot contém tudo o que estava no journal; alterações posteriores continuam pendentes
+        channel.truncate(0);
+        channel.force(true);
+        compactions.incrementAndGet();
+        logger.at(Level.INFO).log("Compacted balance journal (%d bytes) into snapshot in %.1fms",
+                size, (System.nanoTime() - start) / 1_000_000.0);
+    }
+
+    /**
+     * Agenda uma compactação se o journal passou do tamanho indicado
+     */
+    public void compactIfLargerThan(long maxBytes) {
+        try {
+            if (channel != null && channel.size() > maxBytes && compactRequested.compareAndSet(false, true)) {
+                LockSupport.unpark(writerThread);
+            }
+        } catch (IOException e) {
+            logger.at(Level.WARNING).log("Failed to check balance journal size: %s", e.getMessage());
+        }
+    }
+
+    /**
+     * Espera até que todas as alterações marcadas até agora estejam gravadas no disco
+     * @return true se foram gravadas dentro do prazo
+     */
+    public boolean sync(long timeout, TimeUnit unit) throws InterruptedException {
+        long target = requestedSeq.get();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        LockSupport.unpark(writerThread);
+        synchronized (durableLock) {
+            while (durableSeq < target) {
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                if (remainingMs <= 0) {
+                    return false;
+                }
+                durableLock.wait(remainingMs);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Para a thread escritora depois de gravar o que estiver pendente, grava o snapshot final
+     * e trunca o journal
+     */
+    public void shutdown() throws IOException {
+        tracker.setChangeListener(null);
+        running = false;
+        if (writerThread != null) {
+            LockSupport.unpark(writerThread);
+            try {
+                writerThread.join(TimeUnit.SECONDS.toMillis(30));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (channel != null && channel.isOpen()) {
+            writePending();
+            compact();
+            channel.close();
+        }
+    }
+
+    public long getRecordsWritten() {
+        return recordsWritten.get();
+    }
+
+    public long getBytesWritten() {
+        return bytesWritten.get();
+    }
+
+    public long getCompactionCount() {
+        return compactions.get();
+    }
+
+    /**
+     * @return Duração da última gravação + fsync (ms)
+     */
+    public double getLastSyncMillis() {
+        return lastSyncNanos / 1_000_000.0;
+    }
+}
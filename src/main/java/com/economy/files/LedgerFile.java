@@ -0,0 +1,253 @@
+package com.economy.files;
+
+import com.economy.economy.CurrencyType;
+import com.economy.economy.LedgerEntry;
+import com.economy.economy.LedgerSink;
+import com.economy.economy.MoneyUnits;
+import com.economy.economy.TransactionType;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Ledger em arquivos locais (storage JSON): uma linha JSON por registro em arquivos que giram por dia
+ * e por tamanho ({@code ledger-AAAAMMDD-NNNN.jsonl}).
+ * <p>
+ * O histórico lê os arquivos do mais novo para o mais antigo e para quando a página está completa;
+ * a limpeza apaga arquivos inteiros de dias vencidos.
+ */
+public class LedgerFile implements LedgerSink {
+
+    private static final long MAX_FILE_BYTES = 32L * 1024 * 1024;
+    private static final String PREFIX = "ledger-";
+    private static final String SUFFIX = ".jsonl";
+    private static final DateTimeFormatter DAY = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private final Path directory;
+    private FileChannel channel;
+    private LocalDate currentDay;
+    private int currentIndex;
+
+    public LedgerFile(@Nonnull Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+    }
+
+    @Override
+    public synchronized void write(@Nonnull List<LedgerEntry> entries) throws IOException {
+        StringBuilder lines = new StringBuilder(entries.size() * 160);
+        for (LedgerEntry entry : entries) {
+            lines.append(toJson(entry)).append('\n');
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        FileChannel out = channelFor(LocalDate.now(), buffer.remaining());
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        out.force(false);
+    }
+
+    /**
+     * Arquivo atual, trocando de arquivo na virada do dia ou quando o lote passaria do tamanho máximo
+     */
+    private FileChannel channelFor(LocalDate day, int bytes) throws IOException {
+        if (channel != null && day.equals(currentDay) && channel.size() + bytes <= MAX_FILE_BYTES) {
+            return channel;
+        }
+        if (channel != null) {
+            channel.close();
+        }
+        if (!day.equals(currentDay)) {
+            currentDay = day;
+            currentIndex = lastIndexOf(day);
+        }
+        Path path = fileFor(day, currentIndex);
+        if (Files.exists(path) && Files.size(path) + bytes > MAX_FILE_BYTES) {
+            path = fileFor(day, ++currentIndex);
+        }
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        return channel;
+    }
+
+    private Path fileFor(LocalDate day, int index) {
+        return directory.resolve(PREFIX + DAY.format(day) + "-" + String.format("%04d", index) + SUFFIX);
+    }
+
+    private int lastIndexOf(LocalDate day) throws IOException {
+        String dayPrefix = PREFIX + DAY.format(day) + "-";
+        int last = 0;
+        for (Path file : listFiles()) {
+            String name = file.getFileName().toString();
+            if (name.startsWith(dayPrefix)) {
+                last = Math.max(last, Integer.parseInt(name.substring(dayPrefix.length(), name.length() - SUFFIX.length())));
+            }
+        }
+        return last;
+    }
+
+    /**
+     * @return Arquivos do ledger em ordem cronológica (o nome ordena por dia e índice)
+     */
+    private List<Path> listFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX);
+            }).sorted().toList();
+        }
+    }
+
+    @Override
+    public List<LedgerEntry> history(@Nonnull UUID uuid, @Nullable LedgerEntry before, int limit) throws IOException {
+        String needle = uuid.toString();
+        List<Path> files = new ArrayList<>(listFiles());
+        Collections.reverse(files);
+        List<LedgerEntry> result = new ArrayList<>(limit);
+        for (Path file : files) {
+            // Um registro pode cair no arquivo do dia seguinte (gravado logo depois da meia-noite)
+            if (before != null && dayOf(file).isAfter(dayOf(before.getTime()).plusDays(1))) {
+                continue;
+            }
+            // Os arquivos só recebem linhas no fim, então a leitura não precisa travar a escrita
+            List<LedgerEntry> matches = new ArrayList<>();
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    // Filtro barato antes de interpretar o JSON
+                    if (!line.contains(needle)) {
+                        continue;
+                    }
+                    LedgerEntry entry = fromJson(line);
+                    if (entry != null && entry.getUuid().equals(uuid) && (before == null || entry.isOlderThan(before))) {
+                        matches.add(entry);
+                    }
+                }
+            }
+            matches.sort((a, b) -> a.isOlderThan(b) ? 1 : b.isOlderThan(a) ? -1 : 0);
+            for (LedgerEntry entry : matches) {
+                result.add(entry);
+                if (result.size() >= limit) {
+                    return result;
+                }
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<LedgerEntry> keyed(long sinceMillis) throws IOException {
+        LocalDate firstDay = dayOf(sinceMillis);
+        List<LedgerEntry> result = new ArrayList<>();
+        for (Path file : listFiles()) {
+            if (dayOf(file).isBefore(firstDay)) {
+                continue;
+            }
+            try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (!line.contains("\"Key\"")) {
+                        continue;
+                    }
+                    LedgerEntry entry = fromJson(line);
+                    if (entry != null && entry.getIdempotencyKey() != null && entry.getTime() >= sinceMillis) {
+                        result.add(entry);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static LocalDate dayOf(Path file) {
+        String name = file.getFileName().toString();
+        return LocalDate.parse(name.substring(PREFIX.length(), PREFIX.length() + 8), DAY);
+    }
+
+    private static LocalDate dayOf(long millis) {
+        return Instant.ofEpochMilli(millis).atZone(ZoneId.systemDefault()).toLocalDate();
+    }
+
+    @Override
+    public synchronized int prune(long olderThanMillis) throws IOException {
+        LocalDate cutoff = dayOf(olderThanMillis);
+        int deleted = 0;
+        for (Path file : listFiles()) {
+            // Apaga só dias inteiros anteriores ao limite
+            if (dayOf(file).isBefore(cutoff) && !dayOf(file).equals(currentDay)) {
+                Files.deleteIfExists(file);
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+
+    private static String toJson(LedgerEntry entry) {
+        JsonObject json = new JsonObject();
+        json.addProperty("Id", entry.getId());
+        json.addProperty("Time", entry.getTime());
+        json.addProperty("UUID", entry.getUuid().toString());
+        if (entry.getCounterparty() != null) {
+            json.addProperty("Counterparty", entry.getCounterparty().toString());
+        }
+        json.addProperty("Type", entry.getType().name());
+        json.addProperty("Currency", entry.getCurrency().name());
+        if (entry.getCurrency() == CurrencyType.CASH) {
+            json.addProperty("Amount", entry.getAmount());
+        } else {
+            json.addProperty("Amount", MoneyUnits.toBigDecimal(entry.getAmount()));
+        }
+        if (entry.isAbsolute()) {
+            json.addProperty("Absolute", true);
+        }
+        if (entry.getIdempotencyKey() != null) {
+            json.addProperty("Key", entry.getIdempotencyKey());
+        }
+        return json.toString();
+    }
+
+    private static LedgerEntry fromJson(String line) {
+        try {
+            JsonObject json = JsonParser.parseString(line).getAsJsonObject();
+            CurrencyType currency = CurrencyType.valueOf(json.get("Currency").getAsString());
+            long amount = currency == CurrencyType.CASH
+                    ? json.get("Amount").getAsLong()
+                    : MoneyUnits.toUnits(json.get("Amount").getAsBigDecimal());
+            return new LedgerEntry(json.get("Id").getAsLong(), json.get("Time").getAsLong(),
+                    UUID.fromString(json.get("UUID").getAsString()),
+                    json.has("Counterparty") ? UUID.fromString(json.get("Counterparty").getAsString()) : null,
+                    TransactionType.valueOf(json.get("Type").getAsString()), currency, amount,
+                    json.has("Absolute") && json.get("Absolute").getAsBoolean(),
+                    json.has("Key") ? json.get("Key").getAsString() : null);
+        } catch (RuntimeException e) {
+            // Linha incompleta (crash durante a escrita) ou de uma versão futura
+            return null;
+        }
+    }
+}
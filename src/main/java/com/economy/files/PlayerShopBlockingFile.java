@@ -95,40 +95,8 @@ public class PlayerShopBlockingFile extends BlockingDiskFile {
                             if (shopObj.has("Items")) {
                                 JsonArray itemsArray = shopObj.getAsJsonArray("Items");
                                 if (itemsArray != null) {
-                                    itemsArray.forEach(itemElement -> {
-                                        JsonObject itemObj = itemElement.getAsJsonObject();
-                                        PlayerShopItem item = new PlayerShopItem();
-                                        item.setUniqueId(itemObj.get("UniqueId").getAsInt());
-                                        item.setItemId(itemObj.get("ItemId").getAsString());
-                                        item.setQuantity(itemObj.has("Quantity") ? itemObj.get("Quantity").getAsInt() : 1);
-                                        item.setPriceBuy(itemObj.get("PriceBuy").getAsDouble());
-                                        
-                                        if (itemObj.has("PriceSell")) {
-                                            item.setPriceSell(itemObj.get("PriceSell").getAsDouble());
-                                        } else {
-                                            item.setPriceSell(0.0);
-                                        }
-                                        
-                                        item.setOwnerUuid(uuid);
-                                        
-                                        if (itemObj.has("Durability")) {
-                                            item.setDurability(itemObj.get("Durability").getAsDouble());
-                                        }
-                                        
-                                        if (itemObj.has("MaxDurability")) {
-                                            item.setMaxDurability(itemObj.get("MaxDurability").getAsDouble());
-                                        }
-                                        
-                                        if (itemObj.has("Stock")) {
-                                            item.setStock(itemObj.get("Stock").getAsInt());
-                                        }
-                                        
-                                        if (itemObj.has("Tab")) {
-                                            item.setTab(itemObj.get("Tab").getAsString());
-                                        }
-                                        
-                                        this.tracker.getItems().add(item);
-                                    });
+                                    itemsArray.forEach(itemElement ->
+                                            this.tracker.getItems().add(parseItem(itemElement.getAsJsonObject(), uuid)));
                                 }
                             }
                         } catch (Exception e) {
@@ -160,50 +128,57 @@ public class PlayerShopBlockingFile extends BlockingDiskFile {
             
             JsonArray itemsArray = root.getAsJsonArray("Items");
             if (itemsArray != null) {
-                itemsArray.forEach(jsonElement -> {
-                    JsonObject itemObj = jsonElement.getAsJsonObject();
-                    PlayerShopItem item = new PlayerShopItem();
-                    item.setUniqueId(itemObj.get("UniqueId").getAsInt());
-                    item.setItemId(itemObj.get("ItemId").getAsString());
-                    item.setQuantity(itemObj.get("Quantity").getAsInt());
-                    item.setPriceBuy(itemObj.get("PriceBuy").getAsDouble());
-                    
-                    if (itemObj.has("PriceSell")) {
-                        item.setPriceSell(itemObj.get("PriceSell").getAsDouble());
-                    } else {
-                        item.setPriceSell(0.0);
-                    }
-                    
-                    if (itemObj.has("OwnerUuid") && !itemObj.get("OwnerUuid").isJsonNull()) {
-                        try {
-                            item.setOwnerUuid(UUID.fromString(itemObj.get("OwnerUuid").getAsString()));
-                        } catch (Exception e) {
-                            item.setOwnerUuid(null);
-                        }
-                    }
-                    
-                    if (itemObj.has("Durability")) {
-                        item.setDurability(itemObj.get("Durability").getAsDouble());
-                    }
-                    
-                    if (itemObj.has("MaxDurability")) {
-                        item.setMaxDurability(itemObj.get("MaxDurability").getAsDouble());
-                    }
-                    
-                    if (itemObj.has("Stock")) {
-                        item.setStock(itemObj.get("Stock").getAsInt());
-                    }
-                    
-                    if (itemObj.has("Tab")) {
-                        item.setTab(itemObj.get("Tab").getAsString());
-                    }
-                    
-                    this.tracker.getItems().add(item);
-                });
+                itemsArray.forEach(jsonElement -> this.tracker.getItems().add(parseItem(jsonElement.getAsJsonObject(), null)));
             }
         }
     }
 
+    /**
+     * Lê um item (também usado pela migração em streaming para o MySQL)
+     * @param ownerUuid Dono da loja que contém o item, ou null no formato antigo (lê o campo OwnerUuid)
+     */
+    public static PlayerShopItem parseItem(JsonObject itemObj, UUID ownerUuid) {
+        PlayerShopItem item = new PlayerShopItem();
+        item.setUniqueId(itemObj.get("UniqueId").getAsInt());
+        item.setItemId(itemObj.get("ItemId").getAsString());
+        item.setQuantity(itemObj.has("Quantity") ? itemObj.get("Quantity").getAsInt() : 1);
+        item.setPriceBuy(itemObj.get("PriceBuy").getAsDouble());
+        
+        if (itemObj.has("PriceSell")) {
+            item.setPriceSell(itemObj.get("PriceSell").getAsDouble());
+        } else {
+            item.setPriceSell(0.0);
+        }
+        
+        if (ownerUuid != null) {
+            item.setOwnerUuid(ownerUuid);
+        } else if (itemObj.has("OwnerUuid") && !itemObj.get("OwnerUuid").isJsonNull()) {
+            try {
+                item.setOwnerUuid(UUID.fromString(itemObj.get("OwnerUuid").getAsString()));
+            } catch (Exception e) {
+                item.setOwnerUuid(null);
+            }
+        }
+        
+        if (itemObj.has("Durability")) {
+            item.setDurability(itemObj.get("Durability").getAsDouble());
+        }
+        
+        if (itemObj.has("MaxDurability")) {
+            item.setMaxDurability(itemObj.get("MaxDurability").getAsDouble());
+        }
+        
+        if (itemObj.has("Stock")) {
+            item.setStock(itemObj.get("Stock").getAsInt());
+        }
+        
+        if (itemObj.has("Tab")) {
+            item.setTab(itemObj.get("Tab").getAsString());
+        }
+        
+        return item;
+    }
+
     @Override
     protected void write(BufferedWriter bufferedWriter) throws IOException {
         JsonObject root = new JsonObject();
@@ -74,35 +74,39 @@ public class ShopBlockingFile extends BlockingDiskFile {
             }
         }
         
-        itemsArray.forEach(jsonElement -> {
-            JsonObject itemObj = jsonElement.getAsJsonObject();
-            ShopItem item = new ShopItem();
-            item.setUniqueId(itemObj.get("UniqueId").getAsInt());
-            item.setItemId(itemObj.get("ItemId").getAsString());
-            item.setQuantity(itemObj.get("Quantity").getAsInt());
-            item.setPriceSell(itemObj.get("PriceSell").getAsDouble());
-            item.setPriceBuy(itemObj.get("PriceBuy").getAsDouble());
-            // Lê tab se existir (compatibilidade com versões antigas)
-            if (itemObj.has("Tab")) {
-                item.setTab(itemObj.get("Tab").getAsString());
-            } else {
-                item.setTab("");
-            }
-            // Lê campos de comando console se existirem (compatibilidade com versões antigas)
-            if (itemObj.has("IsConsoleCommand")) {
-                item.setConsoleCommand(itemObj.get("IsConsoleCommand").getAsBoolean());
-            }
-            if (itemObj.has("ConsoleCommand")) {
-                item.setConsoleCommand(itemObj.get("ConsoleCommand").getAsString());
-            }
-            if (itemObj.has("DisplayName")) {
-                item.setDisplayName(itemObj.get("DisplayName").getAsString());
-            }
-            if (itemObj.has("UseCash")) {
-                item.setUseCash(itemObj.get("UseCash").getAsBoolean());
-            }
-            this.tracker.addItem(item);
-        });
+        itemsArray.forEach(jsonElement -> this.tracker.addItem(parseItem(jsonElement.getAsJsonObject())));
+    }
+
+    /**
+     * Lê uma entrada do array "Items" (também usado pela migração em streaming para o MySQL)
+     */
+    public static ShopItem parseItem(JsonObject itemObj) {
+        ShopItem item = new ShopItem();
+        item.setUniqueId(itemObj.get("UniqueId").getAsInt());
+        item.setItemId(itemObj.get("ItemId").getAsString());
+        item.setQuantity(itemObj.get("Quantity").getAsInt());
+        item.setPriceSell(itemObj.get("PriceSell").getAsDouble());
+        item.setPriceBuy(itemObj.get("PriceBuy").getAsDouble());
+        // Lê tab se existir (compatibilidade com versões antigas)
+        if (itemObj.has("Tab")) {
+            item.setTab(itemObj.get("Tab").getAsString());
+        } else {
+            item.setTab("");
+        }
+        // Lê campos de comando console se existirem (compatibilidade com versões antigas)
+        if (itemObj.has("IsConsoleCommand")) {
+            item.setConsoleCommand(itemObj.get("IsConsoleCommand").getAsBoolean());
+        }
+        if (itemObj.has("ConsoleCommand")) {
+            item.setConsoleCommand(itemObj.get("ConsoleCommand").getAsString());
+        }
+        if (itemObj.has("DisplayName")) {
+            item.setDisplayName(itemObj.get("DisplayName").getAsString());
+        }
+        if (itemObj.has("UseCash")) {
+            item.setUseCash(itemObj.get("UseCash").getAsBoolean());
+        }
+        return item;
     }
 
     @Override
@@ -1,12 +1,18 @@
 package com.economy.gui;
 
 import com.economy.Main;
+import com.economy.economy.CurrencyType;
 import com.economy.economy.EconomyManager;
+import com.economy.economy.MoneyUnits;
+import com.economy.economy.TransactionType;
+import com.economy.economy.TransferLeg;
 import com.economy.playershop.PlayerShopItem;
 import com.economy.playershop.PlayerShopManager;
 import com.economy.util.CurrencyFormatter;
+import com.economy.util.EconomyMetrics;
 import com.economy.util.InventoryHelper;
 import com.economy.util.LanguageManager;
+import com.economy.util.MetricsHistogram;
 import com.hypixel.hytale.codec.Codec;
 import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
@@ -27,14 +33,19 @@ import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 
 import javax.annotation.Nonnull;
 import java.awt.Color;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 
 public class PlayerShopConfirmationGui extends InteractiveCustomUIPage<PlayerShopConfirmationGui.ConfirmationGuiData> {
 
     private static final HytaleLogger logger = HytaleLogger.getLogger().getSubLogger("EconomySystem");
+    private static final MetricsHistogram BUY_LATENCY = EconomyMetrics.getInstance().histogram("playershop.buy");
+    private static final MetricsHistogram SELL_LATENCY = EconomyMetrics.getInstance().histogram("playershop.sell");
     private final PlayerRef playerRef;
     private final PlayerShopItem shopItem;
     private final String actionType;
@@ -401,10 +412,11 @@ public class PlayerShopConfirmationGui extends InteractiveCustomUIPage<PlayerSho
             return;
         }
         
-        world.execute(() -> {
-            // Verifica novamente o estoque dentro do execute (pode ter mudado)
+        world.execute(BUY_LATENCY.wrap(() -> {
+            // Reserva o estoque antes de entregar: a verificação e a baixa são atômicas, então duas compras
+            // simultâneas não levam a mesma unidade. O que não for entregue ou pago volta ao estoque
             PlayerShopItem itemCheck = PlayerShopManager.getInstance().getItem(shopItem.getUniqueId());
-            if (itemCheck == null || itemCheck.getStock() < quantity) {
+            if (itemCheck == null || !PlayerShopManager.getInstance().decreaseStock(itemCheck.getUniqueId(), quantity)) {
                 player.sendMessage(LanguageManager.getMessage("chat_playershop_insufficient_stock", Color.RED));
                 if (ownerUuid != null) {
                     player.getPageManager().openCustomPage(ref, store, 
@@ -419,71 +431,82 @@ public class PlayerShopConfirmationGui extends InteractiveCustomUIPage<PlayerSho
             double itemMaxDurability = itemCheck.getMaxDurability();
             int actualQuantityAdded = InventoryHelper.addItemAndGetQuantityWithMaxDurability(
                 player, itemCheck.getItemId(), quantity, itemDurability, itemMaxDurability);
+            if (actualQuantityAdded < quantity) {
+                // Inventário cheio: devolve ao estoque o que não coube
+                PlayerShopManager.getInstance().increaseStock(itemCheck.getUniqueId(), quantity - Math.max(0, actualQuantityAdded));
+            }
             
             if (actualQuantityAdded > 0) {
                 // Calcula o preço baseado na quantidade REALMENTE adicionada
                 double actualPrice = pricePerUnit * actualQuantityAdded;
                 
-                // Remove dinheiro do comprador (paga apenas pelo que foi adicionado)
-                EconomyManager.getInstance().subtractBalance(playerUuid, actualPrice);
-                
                 // Calcula a taxa e o valor que o dono recebe (após dedução da taxa)
                 double playerTax = Main.CONFIG.get().getPlayerTax();
                 double taxAmount = actualPrice * (playerTax / 100.0);
                 double ownerReceives = actualPrice - taxAmount;
                 
-                // Adiciona dinheiro ao dono da loja (recebe o preço menos a taxa)
-                if (ownerUuid != null) {
-                    EconomyManager.getInstance().addBalance(ownerUuid, ownerReceives);
-                }
-                
-                // Reduz o estoque apenas pela quantidade realmente adicionada
-                PlayerShopManager.getInstance().decreaseStock(shopItem.getUniqueId(), actualQuantityAdded);
+                // Debita o comprador (apenas pelo que foi adicionado) e credita o dono em uma única operação,
+                // sem bloquear o mundo: o resultado volta para a thread do mundo, que é quem mexe no inventário
+                settle(playerUuid, actualPrice, ownerUuid, ownerReceives).thenAccept(settled -> world.execute(() -> {
+                    if (!settled) {
+                        // O saldo mudou desde a verificação: desfaz a entrega dos itens e a baixa no estoque
+                        InventoryHelper.removeItem(player, itemCheck.getItemId(), actualQuantityAdded);
+                        PlayerShopManager.getInstance().increaseStock(itemCheck.getUniqueId(), actualQuantityAdded);
+                        Map<String, String> placeholders = new HashMap<>();
+                        placeholders.put("amount", CurrencyFormatter.format(actualPrice));
+                        player.sendMessage(LanguageManager.getMessage("chat_shop_insufficient_balance", Color.RED, placeholders));
+                        if (ownerUuid != null) {
+                            player.getPageManager().openCustomPage(ref, store, 
+                                new PlayerShopGui(playerRef, CustomPageLifetime.CanDismiss, ownerUuid));
+                        }
+                        return;
+                    }
                 
-                Map<String, String> placeholders = new HashMap<>();
-                String itemNameText = getItemNameText(shopItem.getItemId());
-                placeholders.put("item", itemNameText);
-                placeholders.put("quantity", String.valueOf(actualQuantityAdded));
-                placeholders.put("price", CurrencyFormatter.format(actualPrice));
+                    Map<String, String> placeholders = new HashMap<>();
+                    String itemNameText = getItemNameText(shopItem.getItemId());
+                    placeholders.put("item", itemNameText);
+                    placeholders.put("quantity", String.valueOf(actualQuantityAdded));
+                    placeholders.put("price", CurrencyFormatter.format(actualPrice));
                 
-                // Se nem todos os itens foram adicionados, avisa o jogador
-                if (actualQuantityAdded < quantity) {
-                    Map<String, String> warningPlaceholders = new HashMap<>();
-                    warningPlaceholders.put("added", String.valueOf(actualQuantityAdded));
-                    warningPlaceholders.put("requested", String.valueOf(quantity));
-                    warningPlaceholders.put("item", itemNameText);
-                    warningPlaceholders.put("price", CurrencyFormatter.format(actualPrice));
-                    player.sendMessage(LanguageManager.getMessage("chat_playershop_item_bought_partial", Color.YELLOW, warningPlaceholders));
-                } else {
-                    player.sendMessage(LanguageManager.getMessage("chat_playershop_item_bought", Color.GREEN, placeholders));
-                }
+                    // Se nem todos os itens foram adicionados, avisa o jogador
+                    if (actualQuantityAdded < quantity) {
+                        Map<String, String> warningPlaceholders = new HashMap<>();
+                        warningPlaceholders.put("added", String.valueOf(actualQuantityAdded));
+                        warningPlaceholders.put("requested", String.valueOf(quantity));
+                        warningPlaceholders.put("item", itemNameText);
+                        warningPlaceholders.put("price", CurrencyFormatter.format(actualPrice));
+                        player.sendMessage(LanguageManager.getMessage("chat_playershop_item_bought_partial", Color.YELLOW, warningPlaceholders));
+                    } else {
+                        player.sendMessage(LanguageManager.getMessage("chat_playershop_item_bought", Color.GREEN, placeholders));
+                    }
                 
-                // Envia mensagem para o dono da loja se estiver online (usando PlayerRef como no chat-plus)
-                if (ownerUuid != null) {
-                    com.hypixel.hytale.server.core.universe.PlayerRef ownerPlayerRef = getOnlinePlayerRefByUuid(ownerUuid);
-                    if (ownerPlayerRef != null) {
-                        Map<String, String> ownerPlaceholders = new HashMap<>();
-                        ownerPlaceholders.put("quantity", String.valueOf(actualQuantityAdded));
-                        ownerPlaceholders.put("item", itemNameText);
-                        ownerPlaceholders.put("player", player.getDisplayName());
-                        ownerPlaceholders.put("money", CurrencyFormatter.format(ownerReceives));
-                        com.hypixel.hytale.server.core.Message ownerMessage = LanguageManager.getMessage("chat_playershop_owner_sold", Color.GREEN, ownerPlaceholders);
-                        ownerPlayerRef.sendMessage(ownerMessage);
+                    // Envia mensagem para o dono da loja se estiver online (usando PlayerRef como no chat-plus)
+                    if (ownerUuid != null) {
+                        com.hypixel.hytale.server.core.universe.PlayerRef ownerPlayerRef = getOnlinePlayerRefByUuid(ownerUuid);
+                        if (ownerPlayerRef != null) {
+                            Map<String, String> ownerPlaceholders = new HashMap<>();
+                            ownerPlaceholders.put("quantity", String.valueOf(actualQuantityAdded));
+                            ownerPlaceholders.put("item", itemNameText);
+                            ownerPlaceholders.put("player", player.getDisplayName());
+                            ownerPlaceholders.put("money", CurrencyFormatter.format(ownerReceives));
+                            com.hypixel.hytale.server.core.Message ownerMessage = LanguageManager.getMessage("chat_playershop_owner_sold", Color.GREEN, ownerPlaceholders);
+                            ownerPlayerRef.sendMessage(ownerMessage);
+                        }
                     }
-                }
                 
-                // Fecha a GUI de confirmação e volta para a loja com estoque atualizado
-                if (ownerUuid != null) {
-                    player.getPageManager().openCustomPage(ref, store, 
-                        new PlayerShopGui(playerRef, CustomPageLifetime.CanDismiss, ownerUuid));
-                }
+                    // Fecha a GUI de confirmação e volta para a loja com estoque atualizado
+                    if (ownerUuid != null) {
+                        player.getPageManager().openCustomPage(ref, store, 
+                            new PlayerShopGui(playerRef, CustomPageLifetime.CanDismiss, ownerUuid));
+                    }
+                }));
             } else {
                 // Se falhar ao adicionar o item, não debita o dinheiro (não foi debitado ainda)
                 Map<String, String> errorPlaceholders = new HashMap<>();
                 errorPlaceholders.put("error", "");
                 player.sendMessage(LanguageManager.getMessage("chat_error_inventory_add", Color.RED, errorPlaceholders));
             }
-        });
+        }));
     }
 
     private void handleSell(@Nonnull Player player, UUID playerUuid, World world, 
@@ -496,7 +519,7 @@ public class PlayerShopConfirmationGui extends InteractiveCustomUIPage<PlayerSho
         double pricePerUnit = shopItem.getPriceSell();
         double totalPrice = pricePerUnit * quantity;
         
-        world.execute(() -> {
+        world.execute(SELL_LATENCY.wrap(() -> {
             // Verifica se o jogador tem itens suficientes no inventário
             int itemCount = InventoryHelper.getItemCount(player, shopItem.getItemId());
             
@@ -535,23 +558,14 @@ public class PlayerShopConfirmationGui extends InteractiveCustomUIPage<PlayerSho
                 return;
             }
             
-            // CRÍTICO: Verifica novamente o saldo do dono antes de adicionar ao estoque
-            // (pode ter mudado entre a primeira verificação e agora)
-            if (ownerUuid != null) {
-                if (!EconomyManager.getInstance().hasBalance(ownerUuid, totalPrice)) {
-                    // Se o dono não tem mais dinheiro, devolve o item ao jogador
-                    InventoryHelper.addItem(player, shopItem.getItemId(), quantity);
-                    Map<String, String> placeholders = new HashMap<>();
-                    placeholders.put("amount", CurrencyFormatter.format(totalPrice));
-                    player.sendMessage(LanguageManager.getMessage("chat_shop_insufficient_balance", Color.RED, placeholders));
-                    player.getPageManager().openCustomPage(ref, store, 
-                        new PlayerShopGui(playerRef, CustomPageLifetime.CanDismiss, ownerUuid));
-                    return;
-                }
-            }
+            // Calcula a taxa e o valor que o vendedor recebe (após dedução da taxa)
+            double playerTax = Main.CONFIG.get().getPlayerTax();
+            double taxAmount = totalPrice * (playerTax / 100.0);
+            double sellerReceives = totalPrice - taxAmount;
             
-            // Adiciona o item ao estoque da loja (ou aumenta se já existir)
-            boolean itemAddedToShop = false;
+            // Adiciona o item ao estoque da loja (ou aumenta se já existir) ANTES de pagar:
+            // se o estoque falhar, nenhum dinheiro se moveu e basta devolver o item ao jogador
+            PlayerShopItem stocked = null;
             if (ownerUuid != null) {
                 PlayerShopManager shopManager = PlayerShopManager.getInstance();
                 
@@ -563,7 +577,7 @@ public class PlayerShopConfirmationGui extends InteractiveCustomUIPage<PlayerSho
                 
                 // Adiciona ou atualiza o item na loja (aumenta o estoque)
                 try {
-                    shopManager.addOrUpdateItem(
+                    stocked = shopManager.addOrUpdateItem(
                         shopItem.getItemId(), 
                         shopItem.getQuantity(), 
                         shopItem.getPriceBuy(), 
@@ -573,9 +587,7 @@ public class PlayerShopConfirmationGui extends InteractiveCustomUIPage<PlayerSho
                         quantity,  // quantidade a adicionar ao estoque
                         itemTab    // IMPORTANTE: passar a tab para encontrar o item correto
                     );
-                    itemAddedToShop = true;
                 } catch (Exception e) {
-                    // Se falhar ao adicionar ao estoque, devolve o item ao jogador
                     logger.at(Level.WARNING).log("Failed to add item to shop stock: " + e.getMessage());
                     InventoryHelper.addItem(player, shopItem.getItemId(), quantity);
                     player.sendMessage(LanguageManager.getMessage("chat_error_item_add", Color.RED));
@@ -583,54 +595,82 @@ public class PlayerShopConfirmationGui extends InteractiveCustomUIPage<PlayerSho
                 }
             }
             
-            // Calcula a taxa e o valor que o vendedor recebe (após dedução da taxa)
-            double playerTax = Main.CONFIG.get().getPlayerTax();
-            double taxAmount = totalPrice * (playerTax / 100.0);
-            double sellerReceives = totalPrice - taxAmount;
+            // CRÍTICO: Debita o dono e paga o vendedor em uma única operação atômica
+            // (se o saldo do dono mudou desde a verificação, nada é aplicado). Não bloqueia o mundo:
+            // o resultado volta para a thread do mundo, que é quem mexe no inventário
+            PlayerShopItem stockedItem = stocked;
+            settle(ownerUuid, totalPrice, playerUuid, sellerReceives).thenAccept(settled -> world.execute(() -> {
+                if (!settled) {
+                    // Se o dono não tem mais dinheiro, desfaz o estoque e devolve o item ao jogador
+                    // (o item fica na loja com estoque 0, como depois de esgotar). Se outro jogador já
+                    // comprou essas unidades, não há o que desfazer: devolver o item o duplicaria
+                    if (stockedItem == null || PlayerShopManager.getInstance().decreaseStock(stockedItem.getUniqueId(), quantity)) {
+                        InventoryHelper.addItem(player, shopItem.getItemId(), quantity);
+                    } else {
+                        logger.at(Level.WARNING).log("Could not take back %d x %s from shop item %d after a failed payment",
+                            quantity, shopItem.getItemId(), stockedItem.getUniqueId());
+                    }
+                    Map<String, String> placeholders = new HashMap<>();
+                    placeholders.put("amount", CurrencyFormatter.format(totalPrice));
+                    player.sendMessage(LanguageManager.getMessage("chat_shop_insufficient_balance", Color.RED, placeholders));
+                    if (ownerUuid != null) {
+                        player.getPageManager().openCustomPage(ref, store, 
+                            new PlayerShopGui(playerRef, CustomPageLifetime.CanDismiss, ownerUuid));
+                    }
+                    return;
+                }
             
-            // Só processa o pagamento se o item foi adicionado ao estoque com sucesso
-            if (itemAddedToShop || ownerUuid == null) {
-                // Paga o preço de venda ao jogador que está vendendo (menos a taxa)
-                EconomyManager.getInstance().addBalance(playerUuid, sellerReceives);
-                
-                // Debita o preço de venda completo do dono da loja
+                Map<String, String> placeholders = new HashMap<>();
+                String itemNameText = getItemNameText(shopItem.getItemId());
+                placeholders.put("item", itemNameText);
+                placeholders.put("quantity", String.valueOf(quantity));
+                placeholders.put("price", CurrencyFormatter.format(sellerReceives));
+                player.sendMessage(LanguageManager.getMessage("chat_shop_item_sold", Color.GREEN, placeholders));
+            
+                // Envia mensagem para o dono da loja se estiver online (usando PlayerRef como no chat-plus)
                 if (ownerUuid != null) {
-                    // Debita o dinheiro do dono (já verificamos que tem saldo suficiente acima)
-                    EconomyManager.getInstance().subtractBalance(ownerUuid, totalPrice);
+                    com.hypixel.hytale.server.core.universe.PlayerRef ownerPlayerRef = getOnlinePlayerRefByUuid(ownerUuid);
+                    if (ownerPlayerRef != null) {
+                        Map<String, String> ownerPlaceholders = new HashMap<>();
+                        ownerPlaceholders.put("quantity", String.valueOf(quantity));
+                        ownerPlaceholders.put("item", itemNameText);
+                        ownerPlaceholders.put("player", player.getDisplayName());
+                        ownerPlaceholders.put("money", CurrencyFormatter.format(totalPrice));
+                        com.hypixel.hytale.server.core.Message ownerMessage = LanguageManager.getMessage("chat_playershop_owner_bought", Color.GREEN, ownerPlaceholders);
+                        ownerPlayerRef.sendMessage(ownerMessage);
+                    }
                 }
-            } else {
-                // Se não conseguiu adicionar ao estoque, devolve o item
-                InventoryHelper.addItem(player, shopItem.getItemId(), quantity);
-                player.sendMessage(LanguageManager.getMessage("chat_error_item_add", Color.RED));
-                return;
-            }
             
-            Map<String, String> placeholders = new HashMap<>();
-            String itemNameText = getItemNameText(shopItem.getItemId());
-            placeholders.put("item", itemNameText);
-            placeholders.put("quantity", String.valueOf(quantity));
-            placeholders.put("price", CurrencyFormatter.format(sellerReceives));
-            player.sendMessage(LanguageManager.getMessage("chat_shop_item_sold", Color.GREEN, placeholders));
-            
-            // Envia mensagem para o dono da loja se estiver online (usando PlayerRef como no chat-plus)
-            if (ownerUuid != null) {
-                com.hypixel.hytale.server.core.universe.PlayerRef ownerPlayerRef = getOnlinePlayerRefByUuid(ownerUuid);
-                if (ownerPlayerRef != null) {
-                    Map<String, String> ownerPlaceholders = new HashMap<>();
-                    ownerPlaceholders.put("quantity", String.valueOf(quantity));
-                    ownerPlaceholders.put("item", itemNameText);
-                    ownerPlaceholders.put("player", player.getDisplayName());
-                    ownerPlaceholders.put("money", CurrencyFormatter.format(totalPrice));
-                    com.hypixel.hytale.server.core.Message ownerMessage = LanguageManager.getMessage("chat_playershop_owner_bought", Color.GREEN, ownerPlaceholders);
-                    ownerPlayerRef.sendMessage(ownerMessage);
+                // Fecha a GUI de confirmação e volta para a loja com estoque atualizado
+                if (ownerUuid != null) {
+                    player.getPageManager().openCustomPage(ref, store, 
+                        new PlayerShopGui(playerRef, CustomPageLifetime.CanDismiss, ownerUuid));
                 }
+            }));
+        }));
+    }
+
+    /**
+     * Debita {@code paid} de quem paga e credita {@code received} a quem recebe em uma única operação
+     * atômica; a diferença é a taxa, que sai de circulação. Qualquer um dos lados pode ser null.
+     * Não espera o banco; uma falha inesperada conta como pagamento não aplicado (a operação é desfeita).
+     * @return Future com true se o pagamento foi aplicado
+     */
+    private static CompletableFuture<Boolean> settle(UUID payer, double paid, UUID payee, double received) {
+        List<TransferLeg> legs = new ArrayList<>(2);
+        try {
+            if (payer != null) {
+                legs.add(TransferLeg.debit(payer, CurrencyType.MONEY, MoneyUnits.toUnits(paid)));
             }
-            
-            // Fecha a GUI de confirmação e volta para a loja com estoque atualizado
-            if (ownerUuid != null) {
-                player.getPageManager().openCustomPage(ref, store, 
-                    new PlayerShopGui(playerRef, CustomPageLifetime.CanDismiss, ownerUuid));
+            if (payee != null) {
+                legs.add(TransferLeg.credit(payee, CurrencyType.MONEY, MoneyUnits.toUnits(received)));
             }
+        } catch (ArithmeticException | IllegalArgumentException e) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return EconomyManager.getInstance().transferAsync(legs, TransactionType.PLAYER_SHOP).exceptionally(e -> {
+            logger.at(Level.WARNING).log("Player shop payment failed: %s", e.getMessage());
+            return false;
         });
     }
 
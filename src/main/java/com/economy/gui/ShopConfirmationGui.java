@@ -27,11 +27,14 @@ import java.awt.Color;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.logging.Level;
 
 public class ShopConfirmationGui extends InteractiveCustomUIPage<ShopConfirmationGui.ConfirmationGuiData> {
 
     private static final HytaleLogger logger = HytaleLogger.getLogger().getSubLogger("EconomySystem");
+    private static final com.economy.util.MetricsHistogram BUY_LATENCY = com.economy.util.EconomyMetrics.getInstance().histogram("shop.buy");
+    private static final com.economy.util.MetricsHistogram SELL_LATENCY = com.economy.util.EconomyMetrics.getInstance().histogram("shop.sell");
     private final PlayerRef playerRef;
     private final ShopItem shopItem;
     private final String actionType; // "buy" ou "sell"
@@ -246,84 +249,18 @@ public class ShopConfirmationGui extends InteractiveCustomUIPage<ShopConfirmatio
             }
         }
         
-        world.execute(() -> {
+        world.execute(BUY_LATENCY.wrap(() -> {
             // Verifica se é um comando console
             if (shopItem.isConsoleCommand()) {
-                // Executa o comando console
-                String command = shopItem.getConsoleCommand();
-                if (command != null && !command.isEmpty()) {
-                    // Substitui placeholders
-                    String playerName = "";
-                    try {
-                        // Usa o PlayerRef que já está disponível na classe (mesmo método usado no HUD)
-                        if (this.playerRef != null) {
-                            playerName = this.playerRef.getUsername();
-                        } else {
-                            // Fallback: tenta obter via EconomyManager
-                            String nameFromManager = com.economy.economy.EconomyManager.getInstance().getPlayerName(playerUuid);
-                            if (nameFromManager != null && !nameFromManager.isEmpty() && !"Desconhecido".equals(nameFromManager)) {
-                                playerName = nameFromManager;
-                            } else {
-                                // Último fallback: tenta obter do player diretamente
-                                try {
-                                    com.hypixel.hytale.server.core.universe.PlayerRef playerRefFromPlayer = player.getPlayerRef();
-                                    if (playerRefFromPlayer != null) {
-                                        playerName = playerRefFromPlayer.getUsername();
-                                    } else {
-                                        playerName = playerUuid.toString();
-                                    }
-                                } catch (Exception e) {
-                                    playerName = playerUuid.toString();
-                                }
-                            }
-                        }
-                    } catch (Exception e) {
-                        // Se falhar, usa UUID como último recurso
-                        playerName = playerUuid.toString();
-                    }
-                    // Suporta múltiplos comandos separados por vírgula
-                    String[] commands = command.split(",");
-                    String[] processedCommands = new String[commands.length];
-                    
-                    for (int i = 0; i < commands.length; i++) {
-                        String cmd = commands[i].trim();
-                        // Substitui placeholders em cada comando
-                        cmd = cmd.replace("{playername}", playerName);
-                        cmd = cmd.replace("{quanty}", String.valueOf(quantity));
-                        processedCommands[i] = cmd;
-                    }
-                    
-                    // Executa todos os comandos no console do servidor
-                    if (processedCommands.length == 1) {
-                        // Comando único (compatibilidade)
-                        com.economy.util.HytaleConsoleCommands.runAsConsole(processedCommands[0]);
-                    } else {
-                        // Múltiplos comandos
-                        com.economy.util.HytaleConsoleCommands.runMany(processedCommands);
-                    }
-                }
-                
-                // Remove dinheiro ou cash do comprador
-                if (shopItem.isUseCash()) {
-                    int cashPrice = (int)totalPrice;
-                    com.economy.economy.EconomyManager.getInstance().subtractCash(playerUuid, cashPrice);
-                } else {
-                    com.economy.economy.EconomyManager.getInstance().subtractBalance(playerUuid, totalPrice);
-                }
-                
-                    Map<String, String> placeholders = new HashMap<>();
-                    String displayName = shopItem.getDisplayName();
-                    if (displayName == null || displayName.isEmpty()) {
-                        displayName = getItemNameText(shopItem.getItemId());
+                // Debita antes de executar: os comandos não podem ser desfeitos. O débito não bloqueia o mundo
+                // (no modo rede ele roda na fila de IO); a compra continua na thread do mundo com o resultado
+                charge(playerUuid, totalPrice).thenAccept(charged -> world.execute(() -> {
+                    if (!charged) {
+                        sendInsufficientFunds(player, totalPrice);
+                        return;
                     }
-                    placeholders.put("item", displayName);
-                    placeholders.put("quantity", String.valueOf(quantity));
-                    if (shopItem.isUseCash()) {
-                        placeholders.put("price", String.valueOf((int)totalPrice) + " " + LanguageManager.getTranslation("gui_shop_manager_payment_cash"));
-                    } else {
-                        placeholders.put("price", CurrencyFormatter.format(totalPrice));
-                    }
-                    player.sendMessage(LanguageManager.getMessage("chat_shop_console_bought", Color.GREEN, placeholders));
+                    runConsoleCommands(player, playerUuid, totalPrice);
+                }));
             } else {
                 // Comportamento normal: adiciona item ao inventário
                 int actualQuantityAdded = InventoryHelper.addItemAndGetQuantity(player, shopItem.getItemId(), quantity, -1.0);
@@ -332,48 +269,151 @@ public class ShopConfirmationGui extends InteractiveCustomUIPage<ShopConfirmatio
                     // Calcula o preço baseado na quantidade REALMENTE adicionada
                     double actualPrice = pricePerUnit * actualQuantityAdded;
                     
-                    // Remove dinheiro ou cash do comprador (paga apenas pelo que foi adicionado)
-                    if (shopItem.isUseCash()) {
-                        int cashPrice = (int)actualPrice;
-                        com.economy.economy.EconomyManager.getInstance().subtractCash(playerUuid, cashPrice);
-                    } else {
-                        com.economy.economy.EconomyManager.getInstance().subtractBalance(playerUuid, actualPrice);
-                    }
-                    
-                    Map<String, String> placeholders = new HashMap<>();
-                    // Obtém o nome do item da mesma forma que na confirmação
-                    String itemNameText = getItemNameText(shopItem.getItemId());
-                    placeholders.put("item", itemNameText);
-                    placeholders.put("quantity", String.valueOf(actualQuantityAdded));
-                    if (shopItem.isUseCash()) {
-                        placeholders.put("price", String.valueOf((int)actualPrice) + " " + LanguageManager.getTranslation("gui_shop_manager_payment_cash")); // Cash é inteiro
-                    } else {
-                        placeholders.put("price", CurrencyFormatter.format(actualPrice));
-                    }
-                    
-                    // Se nem todos os itens foram adicionados, avisa o jogador
-                    if (actualQuantityAdded < quantity) {
-                        Map<String, String> warningPlaceholders = new HashMap<>();
-                        warningPlaceholders.put("added", String.valueOf(actualQuantityAdded));
-                        warningPlaceholders.put("requested", String.valueOf(quantity));
-                        warningPlaceholders.put("item", itemNameText);
+                    // Remove dinheiro ou cash do comprador (paga apenas pelo que foi adicionado), sem bloquear o mundo;
+                    // o resultado volta para a thread do mundo, que é quem pode mexer no inventário
+                    charge(playerUuid, actualPrice).thenAccept(charged -> world.execute(() -> {
+                        if (!charged) {
+                            // O saldo mudou desde a verificação: desfaz a entrega dos itens
+                            InventoryHelper.removeItem(player, shopItem.getItemId(), actualQuantityAdded);
+                            sendInsufficientFunds(player, actualPrice);
+                            return;
+                        }
+                        
+                        Map<String, String> placeholders = new HashMap<>();
+                        // Obtém o nome do item da mesma forma que na confirmação
+                        String itemNameText = getItemNameText(shopItem.getItemId());
+                        placeholders.put("item", itemNameText);
+                        placeholders.put("quantity", String.valueOf(actualQuantityAdded));
                         if (shopItem.isUseCash()) {
-                            warningPlaceholders.put("price", String.valueOf((int)actualPrice) + " " + LanguageManager.getTranslation("gui_shop_manager_payment_cash")); // Cash é inteiro
+                            placeholders.put("price", String.valueOf((int)actualPrice) + " " + LanguageManager.getTranslation("gui_shop_manager_payment_cash")); // Cash é inteiro
                         } else {
-                            warningPlaceholders.put("price", CurrencyFormatter.format(actualPrice));
+                            placeholders.put("price", CurrencyFormatter.format(actualPrice));
                         }
-                        player.sendMessage(LanguageManager.getMessage("chat_shop_item_bought_partial", Color.YELLOW, warningPlaceholders));
-                    } else {
-                        player.sendMessage(LanguageManager.getMessage("chat_shop_item_bought", Color.GREEN, placeholders));
-                    }
+                    
+                        // Se nem todos os itens foram adicionados, avisa o jogador
+                        if (actualQuantityAdded < quantity) {
+                            Map<String, String> warningPlaceholders = new HashMap<>();
+                            warningPlaceholders.put("added", String.valueOf(actualQuantityAdded));
+                            warningPlaceholders.put("requested", String.valueOf(quantity));
+                            warningPlaceholders.put("item", itemNameText);
+                            if (shopItem.isUseCash()) {
+                                warningPlaceholders.put("price", String.valueOf((int)actualPrice) + " " + LanguageManager.getTranslation("gui_shop_manager_payment_cash")); // Cash é inteiro
+                            } else {
+                                warningPlaceholders.put("price", CurrencyFormatter.format(actualPrice));
+                            }
+                            player.sendMessage(LanguageManager.getMessage("chat_shop_item_bought_partial", Color.YELLOW, warningPlaceholders));
+                        } else {
+                            player.sendMessage(LanguageManager.getMessage("chat_shop_item_bought", Color.GREEN, placeholders));
+                        }
+                    }));
                 } else {
                     // Se falhar ao adicionar o item, não debita o dinheiro (não foi debitado ainda)
                     player.sendMessage(LanguageManager.getMessage("chat_error_inventory_add", Color.RED));
                 }
             }
+        }));
+    }
+    
+    /**
+     * Executa os comandos console do item (já pago) e avisa o jogador
+     */
+    private void runConsoleCommands(@Nonnull Player player, UUID playerUuid, double totalPrice) {
+        // Executa o comando console
+        String command = shopItem.getConsoleCommand();
+        if (command != null && !command.isEmpty()) {
+            // Substitui placeholders
+            String playerName = "";
+            try {
+                // Usa o PlayerRef que já está disponível na classe (mesmo método usado no HUD)
+                if (this.playerRef != null) {
+                    playerName = this.playerRef.getUsername();
+                } else {
+                    // Fallback: tenta obter via EconomyManager
+                    String nameFromManager = com.economy.economy.EconomyManager.getInstance().getPlayerName(playerUuid);
+                    if (nameFromManager != null && !nameFromManager.isEmpty() && !"Desconhecido".equals(nameFromManager)) {
+                        playerName = nameFromManager;
+                    } else {
+                        // Último fallback: tenta obter do player diretamente
+                        try {
+                            com.hypixel.hytale.server.core.universe.PlayerRef playerRefFromPlayer = player.getPlayerRef();
+                            if (playerRefFromPlayer != null) {
+                                playerName = playerRefFromPlayer.getUsername();
+                            } else {
+                                playerName = playerUuid.toString();
+                            }
+                        } catch (Exception e) {
+                            playerName = playerUuid.toString();
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                // Se falhar, usa UUID como último recurso
+                playerName = playerUuid.toString();
+            }
+            // Suporta múltiplos comandos separados por vírgula
+            String[] commands = command.split(",");
+            String[] processedCommands = new String[commands.length];
+            
+            for (int i = 0; i < commands.length; i++) {
+                String cmd = commands[i].trim();
+                // Substitui placeholders em cada comando
+                cmd = cmd.replace("{playername}", playerName);
+                cmd = cmd.replace("{quanty}", String.valueOf(quantity));
+                processedCommands[i] = cmd;
+            }
+            
+            // Executa todos os comandos no console do servidor
+            if (processedCommands.length == 1) {
+                // Comando único (compatibilidade)
+                com.economy.util.HytaleConsoleCommands.runAsConsole(processedCommands[0]);
+            } else {
+                // Múltiplos comandos
+                com.economy.util.HytaleConsoleCommands.runMany(processedCommands);
+            }
+        }
+        
+        Map<String, String> placeholders = new HashMap<>();
+        String displayName = shopItem.getDisplayName();
+        if (displayName == null || displayName.isEmpty()) {
+            displayName = getItemNameText(shopItem.getItemId());
+        }
+        placeholders.put("item", displayName);
+        placeholders.put("quantity", String.valueOf(quantity));
+        if (shopItem.isUseCash()) {
+            placeholders.put("price", String.valueOf((int)totalPrice) + " " + LanguageManager.getTranslation("gui_shop_manager_payment_cash"));
+        } else {
+            placeholders.put("price", CurrencyFormatter.format(totalPrice));
+        }
+        player.sendMessage(LanguageManager.getMessage("chat_shop_console_bought", Color.GREEN, placeholders));
+    }
+
+    /**
+     * Debita o preço em dinheiro ou cash, conforme o item, sem esperar o banco.
+     * Uma falha inesperada conta como débito não aplicado (a compra é desfeita).
+     * @return Future com true se o débito foi aplicado
+     */
+    private CompletableFuture<Boolean> charge(UUID playerUuid, double price) {
+        com.economy.economy.EconomyManager economy = com.economy.economy.EconomyManager.getInstance();
+        CompletableFuture<Boolean> debit = shopItem.isUseCash()
+            ? economy.subtractCashAsync(playerUuid, (int)price, com.economy.economy.TransactionType.SHOP_BUY)
+            : economy.subtractBalanceAsync(playerUuid, price, com.economy.economy.TransactionType.SHOP_BUY);
+        return debit.exceptionally(e -> {
+            logger.at(Level.WARNING).log("Shop debit of %s for %s failed: %s", price, playerUuid, e.getMessage());
+            return false;
         });
     }
     
+    private void sendInsufficientFunds(@Nonnull Player player, double price) {
+        Map<String, String> placeholders = new HashMap<>();
+        if (shopItem.isUseCash()) {
+            placeholders.put("amount", String.valueOf((int)price));
+            player.sendMessage(LanguageManager.getMessage("chat_shop_insufficient_cash", Color.RED, placeholders));
+        } else {
+            placeholders.put("amount", CurrencyFormatter.format(price));
+            player.sendMessage(LanguageManager.getMessage("chat_shop_insufficient_balance", Color.RED, placeholders));
+        }
+    }
+    
     private void handleSell(@Nonnull Player player, UUID playerUuid, World world) {
         if (shopItem.getPriceSell() <= 0) {
             return;
@@ -381,7 +421,7 @@ public class ShopConfirmationGui extends InteractiveCustomUIPage<ShopConfirmatio
         
         double totalPrice = shopItem.getPriceSell() * quantity;
         
-        world.execute(() -> {
+        world.execute(SELL_LATENCY.wrap(() -> {
             // Verifica se o jogador tem itens suficientes
             int itemCount = InventoryHelper.getItemCount(player, shopItem.getItemId());
             
@@ -396,7 +436,7 @@ public class ShopConfirmationGui extends InteractiveCustomUIPage<ShopConfirmatio
             
             // Remove o item do inventário
             if (InventoryHelper.removeItem(player, shopItem.getItemId(), quantity)) {
-                com.economy.economy.EconomyManager.getInstance().addBalance(playerUuid, totalPrice);
+                com.economy.economy.EconomyManager.getInstance().addBalance(playerUuid, totalPrice, com.economy.economy.TransactionType.SHOP_SELL);
                 
                 Map<String, String> placeholders = new HashMap<>();
                 String itemNameText = getItemNameText(shopItem.getItemId());
@@ -407,7 +447,7 @@ public class ShopConfirmationGui extends InteractiveCustomUIPage<ShopConfirmatio
             } else {
                 player.sendMessage(LanguageManager.getMessage("chat_error_inventory_remove", Color.RED));
             }
-        });
+        }));
     }
     
     private String extractTextFromMessage(Message message) {
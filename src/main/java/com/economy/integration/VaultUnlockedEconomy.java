@@ -2,6 +2,9 @@ package com.economy.integration;
 
 import com.economy.Main;
 import com.economy.economy.EconomyManager;
+import com.economy.economy.IdempotentResult;
+import com.economy.economy.MoneyUnits;
+import com.economy.economy.TransactionType;
 import com.economy.util.CurrencyFormatter;
 import com.hypixel.hytale.logger.HytaleLogger;
 import com.hypixel.hytale.server.core.HytaleServer;
@@ -59,7 +62,7 @@ public class VaultUnlockedEconomy implements Economy {
   }
 
   public int fractionalDigits() {
-    return 2;
+    return MoneyUnits.scale();
   }
 
   public int fractionalDigits(String currency) {
@@ -71,7 +74,7 @@ public class VaultUnlockedEconomy implements Economy {
   }
 
   public String format(BigDecimal amount) {
-    return format(amount.doubleValue());
+    return CurrencyFormatter.format(amount);
   }
 
   public String format(BigDecimal amount, String currency) {
@@ -142,7 +145,7 @@ public class VaultUnlockedEconomy implements Economy {
   }
 
   public BigDecimal getBalance(UUID playerUuid) {
-    return BigDecimal.valueOf(economyManager.getBalance(playerUuid));
+    return MoneyUnits.toBigDecimal(economyManager.getBalanceUnits(playerUuid));
   }
 
   public BigDecimal getBalance(UUID playerUuid, String world) {
@@ -175,7 +178,11 @@ public class VaultUnlockedEconomy implements Economy {
   }
 
   public boolean has(UUID playerUuid, BigDecimal amount) {
-    return economyManager.hasBalance(playerUuid, amount.doubleValue());
+    try {
+      return economyManager.hasBalanceUnits(playerUuid, MoneyUnits.toUnits(amount));
+    } catch (ArithmeticException e) {
+      return false;
+    }
   }
 
   public boolean has(UUID playerUuid, String world, BigDecimal amount) {
@@ -228,10 +235,18 @@ public class VaultUnlockedEconomy implements Economy {
               "Cannot withdraw negative amounts");
     }
 
-    boolean success = economyManager.subtractBalance(playerUuid, amount.doubleValue());
+    long units;
+    try {
+      units = MoneyUnits.toUnits(amount);
+    } catch (ArithmeticException e) {
+      return new EconomyResponse(BigDecimal.ZERO, getBalance(playerUuid), EconomyResponse.ResponseType.FAILURE,
+              "Amount out of range");
+    }
+
+    boolean success = economyManager.subtractBalanceUnits(playerUuid, units);
     if (success) {
       BigDecimal newBalance = getBalance(playerUuid);
-      return new EconomyResponse(amount, newBalance, EconomyResponse.ResponseType.SUCCESS, "");
+      return new EconomyResponse(MoneyUnits.toBigDecimal(units), newBalance, EconomyResponse.ResponseType.SUCCESS, "");
     } else {
       BigDecimal currentBalance = getBalance(playerUuid);
       return new EconomyResponse(BigDecimal.ZERO, currentBalance, EconomyResponse.ResponseType.FAILURE,
@@ -239,6 +254,16 @@ public class VaultUnlockedEconomy implements Economy {
     }
   }
 
+  /**
+   * Saque com chave de idempotência: uma repetição com a mesma chave (ex: depois de um timeout)
+   * devolve o resultado original sem cobrar de novo. Não faz parte da interface do VaultUnlocked;
+   * plugins que conhecem o TheEconomy podem chamar direto.
+   * @param idempotencyKey Chave única da operação (1 a 64 caracteres)
+   */
+  public EconomyResponse withdraw(UUID playerUuid, BigDecimal amount, String idempotencyKey) {
+    return applyIdempotent(playerUuid, amount, idempotencyKey, false);
+  }
+
   public EconomyResponse withdraw(UUID playerUuid, String world, BigDecimal amount) {
     return withdraw(playerUuid, amount);
   }
@@ -286,9 +311,28 @@ public class VaultUnlockedEconomy implements Economy {
               "Cannot deposit negative amounts");
     }
 
-    economyManager.addBalance(playerUuid, amount.doubleValue());
+    long units;
+    try {
+      units = MoneyUnits.toUnits(amount);
+    } catch (ArithmeticException e) {
+      return new EconomyResponse(BigDecimal.ZERO, getBalance(playerUuid), EconomyResponse.ResponseType.FAILURE,
+              "Amount out of range");
+    }
+
+    if (!economyManager.addBalanceUnits(playerUuid, units)) {
+      return new EconomyResponse(BigDecimal.ZERO, getBalance(playerUuid), EconomyResponse.ResponseType.FAILURE,
+              "Balance overflow");
+    }
     BigDecimal newBalance = getBalance(playerUuid);
-    return new EconomyResponse(amount, newBalance, EconomyResponse.ResponseType.SUCCESS, "");
+    return new EconomyResponse(MoneyUnits.toBigDecimal(units), newBalance, EconomyResponse.ResponseType.SUCCESS, "");
+  }
+
+  /**
+   * Depósito com chave de idempotência (ver {@link #withdraw(UUID, BigDecimal, String)})
+   * @param idempotencyKey Chave única da operação (1 a 64 caracteres)
+   */
+  public EconomyResponse deposit(UUID playerUuid, BigDecimal amount, String idempotencyKey) {
+    return applyIdempotent(playerUuid, amount, idempotencyKey, true);
   }
 
   public EconomyResponse deposit(UUID playerUuid, String world, BigDecimal amount) {
@@ -502,16 +546,54 @@ public class VaultUnlockedEconomy implements Economy {
 
   // ========== Helper Methods ==========
 
+  private EconomyResponse applyIdempotent(UUID playerUuid, BigDecimal amount, String idempotencyKey, boolean deposit) {
+    if (amount.compareTo(BigDecimal.ZERO) < 0) {
+      return new EconomyResponse(BigDecimal.ZERO, getBalance(playerUuid), EconomyResponse.ResponseType.FAILURE,
+              deposit ? "Cannot deposit negative amounts" : "Cannot withdraw negative amounts");
+    }
+
+    long units;
+    try {
+      units = MoneyUnits.toUnits(amount);
+    } catch (ArithmeticException e) {
+      return new EconomyResponse(BigDecimal.ZERO, getBalance(playerUuid), EconomyResponse.ResponseType.FAILURE,
+              "Amount out of range");
+    }
+
+    IdempotentResult result;
+    try {
+      result = deposit
+              ? economyManager.depositIdempotent(playerUuid, units, idempotencyKey, TransactionType.OTHER)
+              : economyManager.withdrawIdempotent(playerUuid, units, idempotencyKey, TransactionType.OTHER);
+    } catch (IllegalArgumentException e) {
+      return new EconomyResponse(BigDecimal.ZERO, getBalance(playerUuid), EconomyResponse.ResponseType.FAILURE,
+              e.getMessage());
+    }
+
+    BigDecimal balance = getBalance(playerUuid);
+    switch (result.getStatus()) {
+      case APPLIED:
+        return new EconomyResponse(MoneyUnits.toBigDecimal(units), balance, EconomyResponse.ResponseType.SUCCESS,
+                result.isReplayed() ? "Already applied" : "");
+      case CONFLICT:
+        return new EconomyResponse(BigDecimal.ZERO, balance, EconomyResponse.ResponseType.FAILURE,
+                "Idempotency key already used with a different amount");
+      default:
+        return new EconomyResponse(BigDecimal.ZERO, balance, EconomyResponse.ResponseType.FAILURE,
+                deposit ? "Balance overflow" : "Insufficient funds");
+    }
+  }
+
   /**
    * Obtém o UUID de um jogador pelo nome.
-   * Tenta primeiro no cache do EconomyManager, depois busca no servidor.
+   * Tenta primeiro no índice de nomes do EconomyManager, depois busca no servidor.
    */
   private UUID getPlayerUUID(String playerName) {
     if (playerName == null || playerName.isEmpty()) {
       return null;
     }
 
-    // Tenta buscar no EconomyManager primeiro (cache de jogadores online)
+    // Tenta buscar no EconomyManager primeiro (índice de nomes, inclui jogadores offline)
     UUID uuid = economyManager.getPlayerUuidByName(playerName);
     if (uuid != null) {
       return uuid;
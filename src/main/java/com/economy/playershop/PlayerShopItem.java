@@ -178,13 +178,32 @@ public class PlayerShopItem {
         this.maxDurability = maxDurability;
     }
 
-    public int getStock() {
+    public synchronized int getStock() {
         return stock;
     }
 
-    public void setStock(int stock) {
+    public synchronized void setStock(int stock) {
         this.stock = stock;
     }
+
+    /**
+     * Dá baixa no estoque só se houver o suficiente (verificação e baixa atômicas, sem vender o que não existe)
+     * @return true se o estoque foi reduzido
+     */
+    public synchronized boolean tryRemoveStock(int amount) {
+        if (amount <= 0 || stock < amount) {
+            return false;
+        }
+        stock -= amount;
+        return true;
+    }
+
+    /**
+     * Aumenta o estoque de forma atômica
+     */
+    public synchronized void addStock(int amount) {
+        stock += amount;
+    }
     
     public String getTab() {
         return tab != null ? tab : "";
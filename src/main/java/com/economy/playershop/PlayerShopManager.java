@@ -2,12 +2,19 @@ package com.economy.playershop;
 
 import com.economy.Main;
 import com.economy.config.EconomyConfig;
-import com.economy.files.PlayerShopBlockingFile;
-import com.economy.storage.MySQLPlayerShopStorageProvider;
+import com.economy.storage.JsonMigration;
+import com.economy.storage.JsonMigrationTarget;
+import com.economy.storage.JsonPlayerShopStorageProvider;
+import com.economy.storage.PlayerShopStorageProvider;
+import com.economy.storage.StorageProviders;
 import com.economy.util.FileUtils;
 import com.hypixel.hytale.logger.HytaleLogger;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 import java.util.logging.Level;
 
@@ -15,11 +22,10 @@ public class PlayerShopManager {
 
     private static final PlayerShopManager INSTANCE = new PlayerShopManager();
 
-    private PlayerShopBlockingFile playerShopBlockingFile;
-    private MySQLPlayerShopStorageProvider mysqlPlayerShopStorageProvider;
+    // As gravações não esperam o storage: o tracker já tem o estado e o provider repete a gravação
+    // (ou a segura enquanto o circuito do MySQL está aberto, ou a deixa para o flush periódico)
+    private PlayerShopStorageProvider storage;
     private PlayerShopTracker tracker;
-    private boolean useMySQL;
-    private boolean isDirty;
     private Thread savingThread;
     private HytaleLogger logger = HytaleLogger.getLogger().getSubLogger("EconomySystem");
 
@@ -31,135 +37,67 @@ public class PlayerShopManager {
     }
 
     private PlayerShopManager() {
-        this.isDirty = false;
         this.tracker = new PlayerShopTracker();
         
         EconomyConfig config = Main.CONFIG.get();
-        this.useMySQL = config.isEnableMySQL();
-        
-        if (this.useMySQL) {
-            // Initialize MySQL storage
-            this.mysqlPlayerShopStorageProvider = new MySQLPlayerShopStorageProvider();
-            try {
-                this.mysqlPlayerShopStorageProvider.initialize().join();
-                // Load data from MySQL into tracker
-                this.mysqlPlayerShopStorageProvider.loadShopData(this.tracker).join();
-                
-                // Load shop open status from tracker
-                for (PlayerShopPlayer player : this.tracker.getAllPlayers()) {
-                    if (player.getUuid() != null) {
-                        boolean isOpen = this.tracker.isShopOpen(player.getUuid());
-                        this.shopOpenStatus.put(player.getUuid(), isOpen);
-                    }
-                }
-                
-                // Se MySQL está vazio, tenta migrar dados do JSON
-                if (this.tracker.getAllPlayers().isEmpty()) {
-                    migrateFromJSON();
-                }
-                
-                // Storage info is in MySQL connection log
-            } catch (Exception e) {
-                logger.at(Level.SEVERE).log("Failed to initialize MySQL storage for PlayerShop, falling back to JSON");
-                logger.at(Level.SEVERE).log(e.getMessage());
-                e.printStackTrace();
-                this.useMySQL = false;
+        this.storage = StorageProviders.playerShop(config);
+        try {
+            this.storage.initialize().join();
+            this.tracker = this.storage.loadShops().join();
+        } catch (Exception e) {
+            logger.at(Level.SEVERE).log("Failed to initialize %s storage for PlayerShop, falling back to JSON", this.storage.getName());
+            logger.at(Level.SEVERE).log(e.getMessage());
+            e.printStackTrace();
+            this.storage = new JsonPlayerShopStorageProvider();
+            this.storage.initialize().join();
+            this.tracker = this.storage.loadShops().join();
+        }
+
+        // Carrega o status de abertura das lojas para a memória
+        for (PlayerShopPlayer player : this.tracker.getAllPlayers()) {
+            if (player.getUuid() != null) {
+                boolean isOpen = this.tracker.isShopOpen(player.getUuid());
+                this.shopOpenStatus.put(player.getUuid(), isOpen);
             }
         }
-        
-        if (!this.useMySQL) {
-            // Initialize JSON file storage (default)
-            this.playerShopBlockingFile = new PlayerShopBlockingFile();
-            FileUtils.ensureMainDirectory();
 
+        if (this.storage instanceof JsonMigrationTarget) {
+            // Se o storage está vazio (ou uma migração foi interrompida), migra os dados do JSON
             try {
-                FileUtils.ensureFile(FileUtils.PLAYER_SHOP_PATH, "{\"NextUniqueId\": 1, \"Shops\": []}");
-                logger.at(Level.INFO).log("Loading player shop data from JSON file...");
-                this.playerShopBlockingFile.syncLoad();
-                this.tracker = this.playerShopBlockingFile.getTracker();
-                
-                // Carrega o status de abertura das lojas do arquivo para a memória
-                for (PlayerShopPlayer player : this.tracker.getAllPlayers()) {
-                    if (player.getUuid() != null) {
-                        boolean isOpen = this.tracker.isShopOpen(player.getUuid());
-                        this.shopOpenStatus.put(player.getUuid(), isOpen);
-                    }
-                }
+                migrateFromJSON();
             } catch (Exception e) {
-                logger.at(Level.SEVERE).log("ERROR LOADING PLAYER SHOP FILE");
-                logger.at(Level.SEVERE).log(e.getMessage());
-                e.printStackTrace();
+                logger.at(Level.WARNING).log("Failed to migrate PlayerShop data from JSON to %s: %s", this.storage.getName(), e.getMessage());
             }
         }
 
+        // Modo rede: lojas alteradas por outros servidores são recarregadas pelo feed de alterações
+        this.storage.onRemoteChange(this::reloadChangedShops);
+
         startSavingThread();
     }
     
     /**
-     * Migra dados do JSON para o MySQL quando MySQL está vazio
+     * Migra as lojas do PlayerShop.json para o storage em lotes (no boot e pelo /money migrate).
+     * Só roda sem lojas no storage ou para continuar uma migração interrompida, para não duplicar itens.
+     * @return Resultado da migração, ou null se já existem lojas no storage
      */
-    private void migrateFromJSON() {
-        try {
-            PlayerShopBlockingFile jsonFile = new PlayerShopBlockingFile();
-            FileUtils.ensureMainDirectory();
-            FileUtils.ensureFile(FileUtils.PLAYER_SHOP_PATH, "{\"NextUniqueId\": 1, \"Shops\": []}");
-            jsonFile.syncLoad();
-            
-            PlayerShopTracker jsonTracker = jsonFile.getTracker();
-            if (jsonTracker == null || jsonTracker.getAllPlayers().isEmpty()) {
-                return; // Não há dados para migrar
-            }
-            
-            int migratedPlayers = 0;
-            int migratedItems = 0;
-            
-            // Migra players e seus items
-            for (PlayerShopPlayer player : jsonTracker.getAllPlayers()) {
-                try {
-                    // Obtém informações do tracker
-                    boolean isOpen = jsonTracker.isShopOpen(player.getUuid());
-                    List<String> tabs = jsonTracker.getTabs(player.getUuid());
-                    
-                    // Cria o player no MySQL
-                    this.mysqlPlayerShopStorageProvider.savePlayerInfo(
-                        player.getUuid(),
-                        player,
-                        isOpen,
-                        tabs
-                    ).join();
-                    migratedPlayers++;
-                    
-                    // Migra items do player
-                    for (PlayerShopItem item : jsonTracker.getItemsByOwner(player.getUuid())) {
-                        try {
-                            this.mysqlPlayerShopStorageProvider.addItem(item).join();
-                            migratedItems++;
-                        } catch (Exception e) {
-                            logger.at(Level.WARNING).log("Failed to migrate item %d for player %s: %s", 
-                                item.getUniqueId(), player.getUuid(), e.getMessage());
-                        }
-                    }
-                } catch (Exception e) {
-                    logger.at(Level.WARNING).log("Failed to migrate player %s: %s", player.getUuid(), e.getMessage());
-                }
-            }
-            
-            if (migratedPlayers > 0 || migratedItems > 0) {
-                logger.at(Level.INFO).log("Migrated PlayerShop from JSON to MySQL: %d players, %d items", 
-                    migratedPlayers, migratedItems);
-                // Recarrega os dados do MySQL após migração
-                this.mysqlPlayerShopStorageProvider.loadShopData(this.tracker).join();
-                // Atualiza o status das lojas
-                for (PlayerShopPlayer player : this.tracker.getAllPlayers()) {
-                    if (player.getUuid() != null) {
-                        boolean isOpen = this.tracker.isShopOpen(player.getUuid());
-                        this.shopOpenStatus.put(player.getUuid(), isOpen);
-                    }
-                }
-            }
-        } catch (Exception e) {
-            logger.at(Level.WARNING).log("Failed to migrate PlayerShop data from JSON to MySQL: %s", e.getMessage());
+    public synchronized JsonMigration.Result migrateFromJSON() throws IOException, SQLException {
+        if (!(this.storage instanceof JsonMigrationTarget target)) {
+            throw new IllegalStateException(this.storage.getName() + " storage does not support JSON migration");
+        }
+        Path source = Path.of(FileUtils.PLAYER_SHOP_PATH);
+        if (!this.tracker.getAllPlayers().isEmpty() && !target.hasPendingMigration(source)) {
+            return null;
         }
+
+        JsonMigration.Result result = target.migrateFromJson(source);
+        if (result.getRows() > 0) {
+            logger.at(Level.INFO).log("Migrated PlayerShop from JSON to %s: %d rows in %.1fs (%.0f rows/s)",
+                    this.storage.getName(), result.getRows(), result.getSeconds(), result.getRowsPerSecond());
+            // Recarrega os dados do storage (e o status das lojas) após migração
+            reload();
+        }
+        return result;
     }
 
     private void startSavingThread() {
@@ -167,9 +105,7 @@ public class PlayerShopManager {
             while (true) {
                 try {
                     Thread.sleep(30000); // Salva a cada 30 segundos
-                    if (isDirty) {
-                        save();
-                    }
+                    save();
                 } catch (InterruptedException e) {
                     break;
                 }
@@ -179,21 +115,12 @@ public class PlayerShopManager {
         this.savingThread.start();
     }
 
-    public void markDirty() {
-        this.isDirty = true;
-    }
-
+    /**
+     * Grava o que o storage deixou para o flush periódico (o MySQL grava cada operação na hora)
+     */
     public void save() {
-        if (useMySQL) {
-            // MySQL operations are saved immediately, no need for periodic save
-            this.isDirty = false;
-            return;
-        }
-        
         try {
-            this.playerShopBlockingFile.syncSave();
-            this.isDirty = false;
-            logger.at(Level.FINE).log("Player shop data saved");
+            this.storage.flush().join();
         } catch (Exception e) {
             logger.at(Level.SEVERE).log("ERROR SAVING PLAYER SHOP FILE");
             logger.at(Level.SEVERE).log(e.getMessage());
@@ -212,57 +139,26 @@ public class PlayerShopManager {
     public PlayerShopItem addItem(String itemId, int quantity, double priceBuy, double priceSell, UUID ownerUuid, double durability, double maxDurability, int stock, String tab) {
         PlayerShopItem item = new PlayerShopItem(0, itemId, quantity, priceBuy, priceSell, ownerUuid, durability, maxDurability, stock, tab);
         
-        if (useMySQL) {
-            // Save to MySQL immediately - MySQL will generate UniqueId via AUTO_INCREMENT
-            item = mysqlPlayerShopStorageProvider.addItem(item).join();
-            // Add to tracker in memory after getting the generated ID
-            // IMPORTANTE: Não usa tracker.addItem() porque isso incrementa nextUniqueId
-            // Em vez disso, adiciona diretamente à lista e sincroniza o nextUniqueId
-            tracker.getItems().add(item);
-            // Sincroniza o nextUniqueId com o ID gerado pelo MySQL + 1
-            if (item.getUniqueId() >= tracker.getNextUniqueId()) {
-                tracker.setNextUniqueId(item.getUniqueId() + 1);
-            }
-        } else {
-            // Add to tracker in memory first (tracker will assign unique ID)
-            tracker.addItem(item);
-            markDirty();
-        }
+        // O storage define o UniqueId (AUTO_INCREMENT no MySQL) e adiciona o item ao tracker
+        item = storage.addItem(tracker, item).join();
         
         logger.at(Level.FINE).log("Item added to player shop: %s (Unique ID: %d, Owner: %s, Tab: %s)", item.getItemId(), item.getUniqueId(), ownerUuid, tab != null ? tab : "");
         return item;
     }
 
     public boolean removeItem(int uniqueId) {
-        // Para MySQL, verifica se o item existe antes de remover da memória
-        if (useMySQL) {
-            PlayerShopItem itemToRemove = tracker.getItem(uniqueId);
-            if (itemToRemove == null) {
-                logger.at(Level.WARNING).log("Attempted to remove item %d that does not exist in memory", uniqueId);
-                // Tenta remover do banco mesmo assim (pode estar desincronizado)
-                try {
-                    mysqlPlayerShopStorageProvider.removeItem(uniqueId).join();
-                } catch (Exception e) {
-                    // Ignora erros se o item não existe
-                }
-                return false;
-            }
+        // Verifica se o item existe antes de remover da memória
+        PlayerShopItem itemToRemove = tracker.getItem(uniqueId);
+        if (itemToRemove == null) {
+            logger.at(Level.WARNING).log("Attempted to remove item %d that does not exist in memory", uniqueId);
+            // Tenta remover do storage mesmo assim (pode estar desincronizado)
+            storage.removeItem(uniqueId);
+            return false;
         }
         
         boolean result = tracker.removeItem(uniqueId);
         if (result) {
-            if (useMySQL) {
-                try {
-                    mysqlPlayerShopStorageProvider.removeItem(uniqueId).join();
-                } catch (Exception e) {
-                    logger.at(Level.SEVERE).log("Exception while removing item %d from MySQL: %s", uniqueId, e.getMessage());
-                    e.printStackTrace();
-                }
-            } else {
-                markDirty();
-                // Para JSON, salva imediatamente após remover item crítico
-                save();
-            }
+            storage.removeItem(uniqueId);
         }
         return result;
     }
@@ -322,15 +218,11 @@ public class PlayerShopManager {
         shopOpenStatus.put(ownerUuid, open);
         tracker.setShopOpen(ownerUuid, open);
         
-        if (useMySQL) {
-            // Save player info with updated isOpen status
-            PlayerShopPlayer player = tracker.getPlayer(ownerUuid);
-            if (player != null) {
-                List<String> tabs = tracker.getTabs(ownerUuid);
-                mysqlPlayerShopStorageProvider.savePlayerInfo(ownerUuid, player, open, tabs).join();
-            }
-        } else {
-            markDirty();
+        // Save player info with updated isOpen status
+        PlayerShopPlayer player = tracker.getPlayer(ownerUuid);
+        if (player != null) {
+            List<String> tabs = tracker.getTabs(ownerUuid);
+            storage.savePlayerInfo(ownerUuid, player, open, tabs);
         }
     }
 
@@ -338,18 +230,29 @@ public class PlayerShopManager {
         return tracker.hasItem(uniqueId);
     }
 
-    public void decreaseStock(int uniqueId, int amount) {
+    /**
+     * Dá baixa no estoque se houver pelo menos {@code amount} unidades. A verificação e a baixa são atômicas,
+     * então compras simultâneas do mesmo item não vendem mais do que o estoque.
+     * @return true se o estoque foi reduzido
+     */
+    public boolean decreaseStock(int uniqueId, int amount) {
         PlayerShopItem item = getItem(uniqueId);
-        if (item != null) {
-            int newStock = Math.max(0, item.getStock() - amount);
-            item.setStock(newStock);
-            
-            if (useMySQL) {
-                mysqlPlayerShopStorageProvider.updateItem(item).join();
-            } else {
-                markDirty();
-            }
-            // Não remove o item quando estoque chega a 0 - pode ser reabastecido depois
+        if (item == null || !item.tryRemoveStock(amount)) {
+            return false;
+        }
+        storage.updateItem(item);
+        // Não remove o item quando estoque chega a 0 - pode ser reabastecido depois
+        return true;
+    }
+
+    /**
+     * Devolve unidades ao estoque (ex: compra desfeita depois da baixa)
+     */
+    public void increaseStock(int uniqueId, int amount) {
+        PlayerShopItem item = getItem(uniqueId);
+        if (item != null && amount > 0) {
+            item.addStock(amount);
+            storage.updateItem(item);
         }
     }
     
@@ -365,11 +268,7 @@ public class PlayerShopManager {
         item.setPriceBuy(priceBuy);
         item.setPriceSell(priceSell);
         
-        if (useMySQL) {
-            mysqlPlayerShopStorageProvider.updateItem(item).join();
-        } else {
-            markDirty();
-        }
+        storage.updateItem(item);
         
         return true;
     }
@@ -404,7 +303,7 @@ public class PlayerShopManager {
                 Math.abs(existingItem.getDurability() - durability) < 0.01 && // Compara durabilidade com tolerância
                 existingTab.equals(tabToMatch)) { // Compara tab
                 // Item já existe - aumenta o estoque
-                existingItem.setStock(existingItem.getStock() + stock);
+                existingItem.addStock(stock);
                 // Atualiza os preços se forem diferentes
                 if (Math.abs(existingItem.getPriceBuy() - priceBuy) > 0.01) {
                     existingItem.setPriceBuy(priceBuy);
@@ -413,11 +312,7 @@ public class PlayerShopManager {
                     existingItem.setPriceSell(priceSell);
                 }
                 
-                if (useMySQL) {
-                    mysqlPlayerShopStorageProvider.updateItem(existingItem).join();
-                } else {
-                    markDirty();
-                }
+                storage.updateItem(existingItem);
                 return existingItem;
             }
         }
@@ -443,13 +338,10 @@ public class PlayerShopManager {
                 player.setNick(nick != null ? nick : "");
             }
             
-            if (useMySQL && player != null) {
-                // Save player info to MySQL
+            if (player != null) {
                 boolean isOpen = tracker.isShopOpen(uuid);
                 List<String> tabs = tracker.getTabs(uuid);
-                mysqlPlayerShopStorageProvider.savePlayerInfo(uuid, player, isOpen, tabs).join();
-            } else {
-                markDirty();
+                storage.savePlayerInfo(uuid, player, isOpen, tabs);
             }
         }
     }
@@ -487,14 +379,9 @@ public class PlayerShopManager {
         // Atualiza o nome personalizado (preserva outros dados como shopIcon)
         player.setCustomName(customName != null ? customName : "");
         
-        if (useMySQL) {
-            // Save player info to MySQL
-            boolean isOpen = tracker.isShopOpen(ownerUuid);
-            List<String> tabs = tracker.getTabs(ownerUuid);
-            mysqlPlayerShopStorageProvider.savePlayerInfo(ownerUuid, player, isOpen, tabs).join();
-        } else {
-            markDirty();
-        }
+        boolean isOpen = tracker.isShopOpen(ownerUuid);
+        List<String> tabs = tracker.getTabs(ownerUuid);
+        storage.savePlayerInfo(ownerUuid, player, isOpen, tabs);
         return true;
     }
     
@@ -533,14 +420,9 @@ public class PlayerShopManager {
         
         player.setShopIcon(itemId != null ? itemId : "");
         
-        if (useMySQL) {
-            // Save player info to MySQL
-            boolean isOpen = tracker.isShopOpen(ownerUuid);
-            List<String> tabs = tracker.getTabs(ownerUuid);
-            mysqlPlayerShopStorageProvider.savePlayerInfo(ownerUuid, player, isOpen, tabs).join();
-        } else {
-            markDirty();
-        }
+        boolean isOpen = tracker.isShopOpen(ownerUuid);
+        List<String> tabs = tracker.getTabs(ownerUuid);
+        storage.savePlayerInfo(ownerUuid, player, isOpen, tabs);
         return true;
     }
     
@@ -561,52 +443,46 @@ public class PlayerShopManager {
     }
     
     /**
-     * Recarrega os dados do arquivo (útil se houver mudanças externas)
+     * Recarrega os dados do storage (útil se houver mudanças externas)
      */
     public void reload() {
-        if (useMySQL) {
-            try {
-                tracker = new PlayerShopTracker();
-                mysqlPlayerShopStorageProvider.loadShopData(tracker).join();
-                
-                // Reload shop open status
-                shopOpenStatus.clear();
-                for (PlayerShopPlayer player : tracker.getAllPlayers()) {
-                    if (player.getUuid() != null) {
-                        boolean isOpen = tracker.isShopOpen(player.getUuid());
-                        shopOpenStatus.put(player.getUuid(), isOpen);
-                    }
-                }
-                
-                logger.at(Level.FINE).log("Player shop data reloaded from MySQL");
-            } catch (Exception e) {
-                logger.at(Level.SEVERE).log("ERROR RELOADING PLAYER SHOP DATA FROM MYSQL");
-                logger.at(Level.SEVERE).log(e.getMessage());
-                e.printStackTrace();
-            }
-        } else {
-            try {
-                this.playerShopBlockingFile.syncLoad();
-                this.tracker = this.playerShopBlockingFile.getTracker();
-                
-                // Reload shop open status
-                shopOpenStatus.clear();
-                for (PlayerShopPlayer player : tracker.getAllPlayers()) {
-                    if (player.getUuid() != null) {
-                        boolean isOpen = tracker.isShopOpen(player.getUuid());
-                        shopOpenStatus.put(player.getUuid(), isOpen);
-                    }
+        try {
+            tracker = storage.loadShops().join();
+            
+            // Reload shop open status
+            shopOpenStatus.clear();
+            for (PlayerShopPlayer player : tracker.getAllPlayers()) {
+                if (player.getUuid() != null) {
+                    boolean isOpen = tracker.isShopOpen(player.getUuid());
+                    shopOpenStatus.put(player.getUuid(), isOpen);
                 }
-                
-                logger.at(Level.FINE).log("Player shop data reloaded from file");
-            } catch (Exception e) {
-                logger.at(Level.SEVERE).log("ERROR RELOADING PLAYER SHOP FILE");
-                logger.at(Level.SEVERE).log(e.getMessage());
-                e.printStackTrace();
             }
+            
+            logger.at(Level.FINE).log("Player shop data reloaded from %s storage", storage.getName());
+        } catch (Exception e) {
+            logger.at(Level.SEVERE).log("ERROR RELOADING PLAYER SHOP DATA");
+            logger.at(Level.SEVERE).log(e.getMessage());
+            e.printStackTrace();
         }
     }
     
+    /**
+     * Recarrega só as lojas dos donos que outros servidores alteraram (chamado pelo feed de alterações)
+     */
+    private void reloadChangedShops(Set<String> ownerUuids) {
+        for (String key : ownerUuids) {
+            UUID ownerUuid = UUID.fromString(key);
+            PlayerShopTracker ownerTracker = storage.loadOwnerShop(ownerUuid).join();
+            tracker.replaceOwner(ownerUuid, ownerTracker);
+            if (ownerTracker.getPlayer(ownerUuid) != null) {
+                shopOpenStatus.put(ownerUuid, ownerTracker.isShopOpen(ownerUuid));
+            } else {
+                shopOpenStatus.remove(ownerUuid);
+            }
+        }
+        logger.at(Level.FINE).log("Reloaded %d player shops changed by other servers", ownerUuids.size());
+    }
+
     /**
      * Cria uma nova tab para a loja do jogador
      */
@@ -620,16 +496,12 @@ public class PlayerShopManager {
             
             tracker.addTab(ownerUuid, tabName);
             
-            if (useMySQL) {
-                mysqlPlayerShopStorageProvider.createTab(ownerUuid, tabName).join();
-                // Also update player info to save tabs
-                PlayerShopPlayer player = tracker.getPlayer(ownerUuid);
-                if (player != null) {
-                    boolean isOpen = tracker.isShopOpen(ownerUuid);
-                    mysqlPlayerShopStorageProvider.savePlayerInfo(ownerUuid, player, isOpen, tracker.getTabs(ownerUuid)).join();
-                }
-            } else {
-                markDirty();
+            storage.createTab(ownerUuid, tabName);
+            // Also update player info to save tabs
+            PlayerShopPlayer player = tracker.getPlayer(ownerUuid);
+            if (player != null) {
+                boolean isOpen = tracker.isShopOpen(ownerUuid);
+                storage.savePlayerInfo(ownerUuid, player, isOpen, tracker.getTabs(ownerUuid));
             }
             
             logger.at(Level.FINE).log("Tab created for player %s: %s", ownerUuid, tabName);
@@ -642,16 +514,12 @@ public class PlayerShopManager {
     public boolean removeTab(UUID ownerUuid, String tabName) {
         boolean result = tracker.removeTab(ownerUuid, tabName);
         if (result) {
-            if (useMySQL) {
-                mysqlPlayerShopStorageProvider.removeTab(ownerUuid, tabName).join();
-                // Also update player info to save tabs
-                PlayerShopPlayer player = tracker.getPlayer(ownerUuid);
-                if (player != null) {
-                    boolean isOpen = tracker.isShopOpen(ownerUuid);
-                    mysqlPlayerShopStorageProvider.savePlayerInfo(ownerUuid, player, isOpen, tracker.getTabs(ownerUuid)).join();
-                }
-            } else {
-                markDirty();
+            storage.removeTab(ownerUuid, tabName);
+            // Also update player info to save tabs
+            PlayerShopPlayer player = tracker.getPlayer(ownerUuid);
+            if (player != null) {
+                boolean isOpen = tracker.isShopOpen(ownerUuid);
+                storage.savePlayerInfo(ownerUuid, player, isOpen, tracker.getTabs(ownerUuid));
             }
             logger.at(Level.FINE).log("Tab removed for player %s: %s", ownerUuid, tabName);
         }
@@ -683,30 +551,17 @@ public class PlayerShopManager {
      * Shutdown and save all data
      */
     public void shutdown() {
-        if (useMySQL && mysqlPlayerShopStorageProvider != null) {
-            // Save all player info before shutdown (usando método síncrono para evitar problemas durante reload)
-            for (PlayerShopPlayer player : tracker.getAllPlayers()) {
-                if (player.getUuid() != null) {
-                    try {
-                        boolean isOpen = tracker.isShopOpen(player.getUuid());
-                        List<String> tabs = tracker.getTabs(player.getUuid());
-                        // Usa método síncrono durante shutdown para evitar RejectedExecutionException
-                        mysqlPlayerShopStorageProvider.savePlayerInfoSync(player.getUuid(), player, isOpen, tabs);
-                    } catch (Exception e) {
-                        logger.at(Level.WARNING).log("Failed to save player shop info for %s during shutdown: %s", 
-                            player.getUuid(), e.getMessage());
-                    }
-                }
-            }
-            // Shutdown de forma síncrona (após salvar todos os dados)
-            try {
-                mysqlPlayerShopStorageProvider.shutdownSync();
-            } catch (Exception e) {
-                logger.at(Level.WARNING).log("Error shutting down MySQL PlayerShop storage: %s", e.getMessage());
-            }
-        } else if (!useMySQL) {
-            save();
+        // Save all player info before shutdown (um lote só, na thread atual para evitar problemas durante reload)
+        try {
+            storage.savePlayers(tracker).join();
+        } catch (Exception e) {
+            logger.at(Level.WARNING).log("Failed to save player shop info during shutdown: %s", e.getMessage());
+        }
+        // Shutdown de forma síncrona (após salvar todos os dados)
+        try {
+            storage.shutdownSync();
+        } catch (Exception e) {
+            logger.at(Level.WARNING).log("Error shutting down %s PlayerShop storage: %s", storage.getName(), e.getMessage());
         }
     }
 }
-
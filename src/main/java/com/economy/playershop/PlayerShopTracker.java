@@ -52,6 +52,31 @@ public class PlayerShopTracker {
         return result;
     }
 
+    /**
+     * Substitui todos os dados de um dono (info, status, tabs e itens) pelos de {@code source}.
+     * Se o dono não existe em {@code source}, os dados dele são removidos.
+     */
+    public void replaceOwner(UUID ownerUuid, PlayerShopTracker source) {
+        items.removeIf(item -> ownerUuid.equals(item.getOwnerUuid()));
+        for (PlayerShopItem item : source.getItemsByOwner(ownerUuid)) {
+            items.add(item);
+            if (item.getUniqueId() >= nextUniqueId) {
+                nextUniqueId = item.getUniqueId() + 1;
+            }
+        }
+
+        PlayerShopPlayer player = source.getPlayer(ownerUuid);
+        if (player != null) {
+            players.put(ownerUuid, player);
+            shopOpenStatus.put(ownerUuid, source.isShopOpen(ownerUuid));
+            tabs.put(ownerUuid, new ArrayList<>(source.getTabs(ownerUuid)));
+        } else {
+            players.remove(ownerUuid);
+            shopOpenStatus.remove(ownerUuid);
+            tabs.remove(ownerUuid);
+        }
+    }
+
     public boolean hasItem(int uniqueId) {
         return items.stream().anyMatch(item -> item.getUniqueId() == uniqueId);
     }
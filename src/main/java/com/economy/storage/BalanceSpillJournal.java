@@ -0,0 +1,631 @@
+package com.economy.storage;
+
+import com.economy.economy.CurrencyType;
+import com.economy.economy.MoneyUnits;
+import com.economy.economy.PlayerBalance;
+import com.economy.economy.TransferLeg;
+import com.economy.util.EconomyMetrics;
+import com.economy.util.MetricsHistogram;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.sql.DataSource;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Journal local (append-only) das gravações de saldo que não chegaram ao MySQL.
+ * <p>
+ * Com o circuito aberto, ou quando um flush falha, o buffer write-behind grava aqui os estados das contas em
+ * vez de segurá-los só na memória: cada lote vira uma linha JSON com fsync e sobrevive a um restart. Enquanto
+ * o journal tiver registros, os lotes novos também vêm para ele, para o banco recebê-los na ordem.
+ * <p>
+ * Quando o banco volta, os registros são reaplicados na ordem como deltas. Cada entrada guarda o estado e a
+ * base (o último estado gravado no banco ou no journal para aquela conta), e o banco recebe
+ * {@code Balance = Balance + (estado - base)}, sem sobrescrever alterações feitas no banco nesse meio tempo.
+ * Entradas sem base (conta que não foi lida desde o boot) são gravadas pelo valor. O progresso fica na
+ * tabela {@code <tabela>_spill}, na mesma transação de cada bloco, então nenhum delta é aplicado duas vezes;
+ * um registro (por exemplo as duas pontas de uma transferência) nunca é dividido entre blocos.
+ * <p>
+ * No modo rede não há buffer: os créditos e os sets sem resposta para quem chama (addBalance, addCash,
+ * setBalance) que não chegam ao banco vêm para um journal próprio ({@link #appendLegs}, {@link #appendSet}),
+ * com as mesmas entradas (deltas com base zero e valores), e são reaplicados pelo {@link NetworkBalanceStore}
+ * com {@link #replay(NetworkReplayer)}: um registro por transação, junto com o progresso.
+ * <p>
+ * O tamanho é limitado por {@code MySQLSpillMaxMB}: acima de 80% é emitido um alerta, e no limite os lotes
+ * voltam a ficar só na memória do buffer. Uma linha incompleta no fim do arquivo (crash durante a escrita)
+ * é descartada ao abrir.
+ */
+public final class BalanceSpillJournal {
+
+  private static final HytaleLogger LOGGER = HytaleLogger.getLogger().getSubLogger("EconomySystem-MySQL");
+  private static final double WARN_FRACTION = 0.8;
+
+  private static final LongAdder APPENDED = EconomyMetrics.getInstance().counter("mysql.spill.appended");
+  private static final LongAdder REPLAYED = EconomyMetrics.getInstance().counter("mysql.spill.replayed");
+  private static final LongAdder REJECTED = EconomyMetrics.getInstance().counter("mysql.spill.rejected");
+  private static final MetricsHistogram REPLAY_DURATION = EconomyMetrics.getInstance().histogram("mysql.spill.replay");
+
+  private final DataSource dataSource;
+  private final String tableName;
+  private final String checkpointTable;
+  private final Path path;
+  private final long maxBytes;
+  private final int batchSize;
+  // Último estado (unidades, cash) gravado no banco ou no journal por conta: a base dos deltas
+  private final ConcurrentHashMap<UUID, long[]> baseline = new ConcurrentHashMap<>();
+
+  private FileChannel channel;
+  private String spillId;
+  private volatile long records;
+  private volatile long sizeBytes;
+  private boolean warned;
+  private boolean full;
+
+  /**
+   * Destino dos registros do modo rede. O {@code checkpoint} grava o progresso do journal e deve rodar na
+   * transação da alteração, para nenhum registro ser aplicado duas vezes.
+   */
+  public interface NetworkReplayer {
+    void applyLegs(@Nonnull List<TransferLeg> legs, @Nonnull SqlStep checkpoint) throws SQLException;
+
+    void set(@Nonnull UUID uuid, @Nonnull String nick, @Nullable Long units, @Nullable Integer cash,
+             @Nonnull SqlStep checkpoint) throws SQLException;
+  }
+
+  public interface SqlStep {
+    void run(@Nonnull Connection conn) throws SQLException;
+  }
+
+  public BalanceSpillJournal(@Nonnull DataSource dataSource, @Nonnull String tableName, @Nonnull Path path,
+                             long maxBytes, int batchSize) {
+    this.dataSource = dataSource;
+    this.tableName = tableName;
+    this.checkpointTable = tableName + "_spill";
+    this.path = path;
+    this.maxBytes = Math.max(1L, maxBytes);
+    this.batchSize = Math.max(1, batchSize);
+
+    EconomyMetrics metrics = EconomyMetrics.getInstance();
+    metrics.gauge("mysql.spill.bytes", () -> sizeBytes);
+    metrics.gauge("mysql.spill.records", () -> records);
+  }
+
+  public void createTable() throws SQLException {
+    try (Connection conn = dataSource.getConnection();
+         Statement stmt = conn.createStatement()) {
+      stmt.execute(String.format("""
+              CREATE TABLE IF NOT EXISTS `%s` (
+                  SpillId VARCHAR(36) NOT NULL PRIMARY KEY,
+                  Position BIGINT NOT NULL DEFAULT 0,
+                  UpdatedAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+              )
+              """, checkpointTable));
+    }
+  }
+
+  /**
+   * Lê o journal deixado por uma execução anterior (se houver), descartando uma linha incompleta no fim.
+   * Deve ser chamado antes de {@link #append} e {@link #drain}.
+   */
+  public synchronized void open() throws IOException {
+    if (!Files.exists(path)) {
+      return;
+    }
+    long validBytes = 0;
+    long lines = 0;
+    long lastLineBytes = 0;
+    String id = null;
+    try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        try {
+          JsonElement parsed = JsonParser.parseString(line);
+          if (id == null) {
+            id = parsed.getAsJsonObject().get("SpillId").getAsString();
+          } else {
+            parsed.getAsJsonArray();
+            lines++;
+          }
+        } catch (RuntimeException e) {
+          LOGGER.at(Level.WARNING).log("Discarding torn balance spill record at byte %d", validBytes);
+          break;
+        }
+        lastLineBytes = line.getBytes(StandardCharsets.UTF_8).length + 1;
+        validBytes += lastLineBytes;
+      }
+    }
+    if (validBytes > Files.size(path)) {
+      // A última linha não terminou (sem '\n'): também conta como incompleta
+      LOGGER.at(Level.WARNING).log("Discarding torn balance spill record at byte %d", validBytes - lastLineBytes);
+      validBytes -= lastLineBytes;
+      if (lines > 0) {
+        lines--;
+      } else {
+        id = null;
+      }
+    }
+    if (id == null) {
+      Files.delete(path);
+      return;
+    }
+    try (FileChannel out = FileChannel.open(path, StandardOpenOption.WRITE)) {
+      if (out.size() > validBytes) {
+        out.truncate(validBytes);
+        out.force(true);
+      }
+    }
+    spillId = id;
+    records = lines;
+    sizeBytes = validBytes;
+    if (lines > 0) {
+      LOGGER.at(Level.WARNING).log("Found %d balance write records spilled while MySQL was unreachable, replaying them",
+              lines);
+    }
+  }
+
+  /**
+   * @return true se não há registros esperando para ir ao banco
+   */
+  public boolean isEmpty() {
+    return records == 0;
+  }
+
+  /**
+   * Estado lido do banco: vira a base da conta, a menos que o journal já tenha um estado mais novo para ela
+   */
+  public void rememberLoaded(@Nonnull UUID uuid, long balanceUnits, int cash) {
+    baseline.putIfAbsent(uuid, new long[]{balanceUnits, cash});
+  }
+
+  /**
+   * Estados confirmados no banco (commit de um lote)
+   */
+  public void rememberWritten(@Nonnull Collection<PlayerBalance> balances) {
+    for (PlayerBalance balance : balances) {
+      baseline.put(balance.getUuid(), new long[]{balance.getBalanceUnits(), balance.getCash()});
+    }
+  }
+
+  /**
+   * @return O último estado (unidades, cash) gravado no banco ou no journal para a conta, ou null se não há
+   */
+  @Nullable
+  public long[] getBaseline(@Nonnull UUID uuid) {
+    return baseline.get(uuid);
+  }
+
+  /**
+   * Conta descarregada da memória: a próxima leitura do banco define a base de novo
+   */
+  public void forget(@Nonnull UUID uuid) {
+    baseline.remove(uuid);
+  }
+
+  /**
+   * @return Os estados que diferem do último estado gravado no banco ou no journal (ou sem base)
+   */
+  public List<PlayerBalance> unsaved(@Nonnull Collection<PlayerBalance> balances) {
+    List<PlayerBalance> changed = new ArrayList<>();
+    for (PlayerBalance balance : balances) {
+      long[] base = baseline.get(balance.getUuid());
+      if (base == null || base[0] != balance.getBalanceUnits() || base[1] != balance.getCash()) {
+        changed.add(balance);
+      }
+    }
+    return changed;
+  }
+
+  /**
+   * Grava os estados como um registro (uma linha, com fsync)
+   * @return false se o journal está no limite de tamanho ou o disco falhou (os estados devem ficar no buffer)
+   */
+  public synchronized boolean append(@Nonnull List<PlayerBalance> balances) {
+    if (balances.isEmpty()) {
+      return true;
+    }
+    JsonArray record = new JsonArray(balances.size());
+    for (PlayerBalance balance : balances) {
+      JsonObject entry = new JsonObject();
+      entry.addProperty("UUID", balance.getUuid().toString());
+      entry.addProperty("Nick", balance.getNick() != null ? balance.getNick() : "");
+      entry.addProperty("Balance", MoneyUnits.toBigDecimal(balance.getBalanceUnits()));
+      entry.addProperty("Cash", balance.getCash());
+      long[] base = baseline.get(balance.getUuid());
+      if (base != null) {
+        entry.addProperty("BaseBalance", MoneyUnits.toBigDecimal(base[0]));
+        entry.addProperty("BaseCash", base[1]);
+      }
+      record.add(entry);
+    }
+    if (!write(record)) {
+      return false;
+    }
+    // As próximas entradas dessas contas são relativas ao que acabou de ser guardado
+    rememberWritten(balances);
+    return true;
+  }
+
+  /**
+   * Modo rede: grava as pernas de uma alteração como um registro de deltas (base zero), uma entrada por conta
+   * @return false se o journal está no limite de tamanho ou o disco falhou (a alteração não foi guardada)
+   */
+  public synchronized boolean appendLegs(@Nonnull List<TransferLeg> legs) {
+    Map<UUID, long[]> deltas = new LinkedHashMap<>();
+    for (TransferLeg leg : legs) {
+      long[] delta = deltas.computeIfAbsent(leg.getUuid(), uuid -> new long[2]);
+      int index = leg.getCurrency() == CurrencyType.CASH ? 1 : 0;
+      delta[index] = Math.addExact(delta[index], leg.isDebit() ? -leg.getAmount() : leg.getAmount());
+    }
+    JsonArray record = new JsonArray(deltas.size());
+    for (Map.Entry<UUID, long[]> delta : deltas.entrySet()) {
+      JsonObject entry = new JsonObject();
+      entry.addProperty("UUID", delta.getKey().toString());
+      entry.addProperty("Nick", "");
+      entry.addProperty("Balance", MoneyUnits.toBigDecimal(delta.getValue()[0]));
+      entry.addProperty("Cash", delta.getValue()[1]);
+      entry.addProperty("BaseBalance", MoneyUnits.toBigDecimal(0L));
+      entry.addProperty("BaseCash", 0);
+      record.add(entry);
+    }
+    return record.isEmpty() || write(record);
+  }
+
+  /**
+   * Modo rede: grava um saldo e/ou cash definido por valor (sem base) como um registro
+   * @param units Novo saldo em unidades mínimas, ou null para manter
+   * @param cash Novo cash, ou null para manter
+   * @return false se o journal está no limite de tamanho ou o disco falhou (a alteração não foi guardada)
+   */
+  public synchronized boolean appendSet(@Nonnull UUID uuid, @Nonnull String nick, @Nullable Long units,
+                                        @Nullable Integer cash) {
+    JsonObject entry = new JsonObject();
+    entry.addProperty("UUID", uuid.toString());
+    entry.addProperty("Nick", nick);
+    if (units != null) {
+      entry.addProperty("Balance", MoneyUnits.toBigDecimal(units));
+    }
+    if (cash != null) {
+      entry.addProperty("Cash", cash);
+    }
+    JsonArray record = new JsonArray(1);
+    record.add(entry);
+    return write(record);
+  }
+
+  private boolean write(JsonArray record) {
+    byte[] line = (record + "\n").getBytes(StandardCharsets.UTF_8);
+    if (sizeBytes + line.length > maxBytes) {
+      REJECTED.add(record.size());
+      if (!full) {
+        full = true;
+        LOGGER.at(Level.SEVERE).log("Balance spill journal is full (%d MB): rejecting %d account writes until MySQL is reachable again",
+                maxBytes / (1024 * 1024), record.size());
+      }
+      return false;
+    }
+
+    try {
+      if (channel == null) {
+        openForAppend();
+      }
+      ByteBuffer buffer = ByteBuffer.wrap(line);
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(false);
+    } catch (IOException e) {
+      LOGGER.at(Level.SEVERE).log("Failed to write the balance spill journal: %s", e.getMessage());
+      return false;
+    }
+    sizeBytes += line.length;
+    records++;
+    APPENDED.add(record.size());
+    if (!warned && sizeBytes >= maxBytes * WARN_FRACTION) {
+      warned = true;
+      LOGGER.at(Level.WARNING).log("Balance spill journal at %.0f%% of its limit (%d records, %.1f MB) while MySQL is unreachable",
+              sizeBytes * 100.0 / maxBytes, records, sizeBytes / (1024.0 * 1024.0));
+    }
+    return true;
+  }
+
+  private void openForAppend() throws IOException {
+    boolean created = !Files.exists(path);
+    if (created && path.getParent() != null) {
+      Files.createDirectories(path.getParent());
+    }
+    channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    if (created || spillId == null) {
+      spillId = UUID.randomUUID().toString();
+      JsonObject header = new JsonObject();
+      header.addProperty("SpillId", spillId);
+      ByteBuffer buffer = ByteBuffer.wrap((header + "\n").getBytes(StandardCharsets.UTF_8));
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      sizeBytes = buffer.limit();
+    }
+  }
+
+  /**
+   * Reaplica os registros no banco, na ordem, em blocos de pelo menos {@code batchSize} entradas com um commit
+   * por bloco, e apaga o journal quando todos foram aplicados. Deve rodar na thread de IO do provider.
+   * @return Entradas aplicadas
+   * @throws SQLException se o banco falhar (os blocos já confirmados não são reaplicados na próxima vez)
+   */
+  public synchronized int drain() throws SQLException, IOException {
+    if (records == 0) {
+      return 0;
+    }
+    long start = System.nanoTime();
+    int applied = 0;
+    try (Connection conn = MySQLCircuitBreaker.getInstance().connect(dataSource)) {
+      long done = readCheckpoint(conn);
+      conn.setAutoCommit(false);
+      try (PreparedStatement delta = conn.prepareStatement(deltaSql());
+           PreparedStatement absolute = conn.prepareStatement(absoluteSql());
+           BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+        reader.readLine(); // cabeçalho
+        long position = 0;
+        int chunkEntries = 0;
+        PreparedStatement current = null;
+        String line;
+        while (position < records && (line = reader.readLine()) != null) {
+          position++;
+          if (position <= done) {
+            continue;
+          }
+          for (JsonElement element : JsonParser.parseString(line).getAsJsonArray()) {
+            JsonObject entry = element.getAsJsonObject();
+            PreparedStatement ps = entry.has("BaseBalance") ? delta : absolute;
+            if (current != null && current != ps) {
+              // Mantém a ordem entre os dois tipos de entrada
+              current.executeBatch();
+            }
+            current = ps;
+            bindEntry(ps, entry);
+            ps.addBatch();
+            chunkEntries++;
+          }
+          if (chunkEntries >= batchSize) {
+            commitChunk(conn, current, position);
+            applied += chunkEntries;
+            REPLAYED.add(chunkEntries);
+            chunkEntries = 0;
+            current = null;
+          }
+        }
+        if (chunkEntries > 0) {
+          commitChunk(conn, current, position);
+          applied += chunkEntries;
+          REPLAYED.add(chunkEntries);
+        }
+      } catch (SQLException | RuntimeException e) {
+        conn.rollback();
+        throw e;
+      } finally {
+        conn.setAutoCommit(true);
+      }
+
+      finish(conn);
+    }
+    REPLAY_DURATION.recordSince(start);
+    LOGGER.at(Level.INFO).log("Replayed %d balance writes spilled while MySQL was unreachable in %.1fms",
+            applied, (System.nanoTime() - start) / 1_000_000.0);
+    return applied;
+  }
+
+  /**
+   * Modo rede: reaplica os registros na ordem pelo {@code replayer}, um registro por transação (a do
+   * replayer, que também grava o progresso), e apaga o journal quando todos foram aplicados.
+   * @return Entradas aplicadas
+   * @throws SQLException se o banco falhar (os registros já confirmados não são reaplicados na próxima vez)
+   */
+  public synchronized int replay(@Nonnull NetworkReplayer replayer) throws SQLException, IOException {
+    if (records == 0) {
+      return 0;
+    }
+    long start = System.nanoTime();
+    int applied = 0;
+    long done;
+    try (Connection conn = MySQLCircuitBreaker.getInstance().connect(dataSource)) {
+      done = readCheckpoint(conn);
+    }
+    try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+      reader.readLine(); // cabeçalho
+      long position = 0;
+      String line;
+      while (position < records && (line = reader.readLine()) != null) {
+        position++;
+        if (position <= done) {
+          continue;
+        }
+        long reached = position;
+        SqlStep checkpoint = conn -> writeCheckpoint(conn, reached);
+        JsonArray record = JsonParser.parseString(line).getAsJsonArray();
+        JsonObject first = record.get(0).getAsJsonObject();
+        if (first.has("BaseBalance")) {
+          replayer.applyLegs(toLegs(record), checkpoint);
+        } else {
+          replayer.set(UUID.fromString(first.get("UUID").getAsString()), first.get("Nick").getAsString(),
+                  first.has("Balance") ? MoneyUnits.toUnits(first.get("Balance").getAsBigDecimal()) : null,
+                  first.has("Cash") ? first.get("Cash").getAsInt() : null, checkpoint);
+        }
+        applied += record.size();
+        REPLAYED.add(record.size());
+      }
+    }
+    try (Connection conn = MySQLCircuitBreaker.getInstance().connect(dataSource)) {
+      finish(conn);
+    }
+    REPLAY_DURATION.recordSince(start);
+    LOGGER.at(Level.INFO).log("Replayed %d balance changes spilled while MySQL was unreachable in %.1fms",
+            applied, (System.nanoTime() - start) / 1_000_000.0);
+    return applied;
+  }
+
+  /**
+   * Entradas de delta (estado - base) como pernas: créditos para diferenças positivas, débitos para negativas
+   */
+  private static List<TransferLeg> toLegs(JsonArray record) {
+    List<TransferLeg> legs = new ArrayList<>(record.size() * 2);
+    for (JsonElement element : record) {
+      JsonObject entry = element.getAsJsonObject();
+      UUID uuid = UUID.fromString(entry.get("UUID").getAsString());
+      long units = MoneyUnits.toUnits(entry.get("Balance").getAsBigDecimal())
+              - MoneyUnits.toUnits(entry.get("BaseBalance").getAsBigDecimal());
+      long cash = entry.get("Cash").getAsLong() - entry.get("BaseCash").getAsLong();
+      addLeg(legs, uuid, CurrencyType.MONEY, units);
+      addLeg(legs, uuid, CurrencyType.CASH, cash);
+    }
+    return legs;
+  }
+
+  private static void addLeg(List<TransferLeg> legs, UUID uuid, CurrencyType currency, long amount) {
+    if (amount > 0) {
+      legs.add(TransferLeg.credit(uuid, currency, amount));
+    } else if (amount < 0) {
+      legs.add(TransferLeg.debit(uuid, currency, -amount));
+    }
+  }
+
+  /**
+   * Apaga o arquivo antes do checkpoint: um crash entre os dois deixa só um checkpoint órfão,
+   * nunca um journal que seria reaplicado do início
+   */
+  private void finish(Connection conn) throws SQLException, IOException {
+    String finishedId = spillId;
+    reset();
+    try (PreparedStatement ps = conn.prepareStatement(
+            String.format("DELETE FROM `%s` WHERE SpillId = ?", checkpointTable))) {
+      ps.setString(1, finishedId);
+      ps.executeUpdate();
+    }
+  }
+
+  private void commitChunk(Connection conn, PreparedStatement current, long position) throws SQLException {
+    if (current != null) {
+      current.executeBatch();
+    }
+    writeCheckpoint(conn, position);
+    conn.commit();
+  }
+
+  private void writeCheckpoint(Connection conn, long position) throws SQLException {
+    String sql = String.format("""
+            INSERT INTO `%s` (SpillId, Position) VALUES (?, ?)
+            ON DUPLICATE KEY UPDATE Position = VALUES(Position)
+            """, checkpointTable);
+    try (PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setString(1, spillId);
+      ps.setLong(2, position);
+      ps.executeUpdate();
+    }
+  }
+
+  private long readCheckpoint(Connection conn) throws SQLException {
+    String sql = String.format("SELECT Position FROM `%s` WHERE SpillId = ?", checkpointTable);
+    try (PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setString(1, spillId);
+      try (ResultSet rs = ps.executeQuery()) {
+        return rs.next() ? rs.getLong(1) : 0L;
+      }
+    }
+  }
+
+  private void reset() throws IOException {
+    if (channel != null) {
+      channel.close();
+      channel = null;
+    }
+    Files.deleteIfExists(path);
+    spillId = null;
+    records = 0;
+    sizeBytes = 0;
+    warned = false;
+    full = false;
+  }
+
+  /**
+   * Conta nova: grava o estado. Conta existente: soma a diferença entre o estado e a base.
+   */
+  private String deltaSql() {
+    return String.format("""
+            INSERT INTO `%s` (UUID, Nickname, Balance, Cash)
+            VALUES (?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                Nickname = VALUES(Nickname),
+                Balance = Balance + ?,
+                Cash = Cash + ?
+            """, tableName);
+  }
+
+  private String absoluteSql() {
+    return String.format("""
+            INSERT INTO `%s` (UUID, Nickname, Balance, Cash)
+            VALUES (?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                Nickname = VALUES(Nickname),
+                Balance = VALUES(Balance),
+                Cash = VALUES(Cash)
+            """, tableName);
+  }
+
+  private static void bindEntry(PreparedStatement ps, JsonObject entry) throws SQLException {
+    long units = MoneyUnits.toUnits(entry.get("Balance").getAsBigDecimal());
+    int cash = entry.get("Cash").getAsInt();
+    ps.setString(1, entry.get("UUID").getAsString());
+    ps.setString(2, entry.get("Nick").getAsString());
+    ps.setBigDecimal(3, MoneyUnits.toBigDecimal(units));
+    ps.setInt(4, cash);
+    if (entry.has("BaseBalance")) {
+      long baseUnits = MoneyUnits.toUnits(entry.get("BaseBalance").getAsBigDecimal());
+      ps.setBigDecimal(5, MoneyUnits.toBigDecimal(units - baseUnits));
+      ps.setInt(6, cash - entry.get("BaseCash").getAsInt());
+    }
+  }
+
+  public synchronized void close() {
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        LOGGER.at(Level.WARNING).log("Failed to close the balance spill journal: %s", e.getMessage());
+      }
+      channel = null;
+    }
+  }
+
+  public long getRecordCount() {
+    return records;
+  }
+
+  public long getSizeBytes() {
+    return sizeBytes;
+  }
+}
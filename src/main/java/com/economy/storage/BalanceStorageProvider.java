@@ -0,0 +1,124 @@
+package com.economy.storage;
+
+import com.economy.economy.BalanceTracker;
+import com.economy.economy.FlushStats;
+import com.economy.economy.LedgerSink;
+import com.economy.economy.PlayerBalance;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Storage das contas (saldo, cash e nick) usado pelo EconomyManager.
+ * <p>
+ * O {@link BalanceTracker} do provider é a fonte da verdade em memória: o EconomyManager altera o tracker
+ * e avisa o provider, que decide como e quando gravar (snapshot/journal em arquivo, buffer write-behind no
+ * banco). As gravações são assíncronas e em lote; os futures completam quando o estado está no storage.
+ * <p>
+ * Os backends existentes são {@link JsonStorageProvider} e {@link MySQLStorageProvider}; o escolhido pela
+ * config vem de {@link StorageProviders#balance}.
+ */
+public interface BalanceStorageProvider {
+
+  /**
+   * Nome do backend, para os logs
+   */
+  String getName();
+
+  /**
+   * Abre o storage e carrega as contas no tracker (no modo lazy, só prepara o acesso)
+   */
+  CompletableFuture<Void> initialize();
+
+  BalanceTracker getBalanceTracker();
+
+  /**
+   * @return Número de contas no storage (não só as que estão em memória)
+   */
+  int getPlayerCount();
+
+  /**
+   * Grava o estado de uma conta. Gravações seguidas da mesma conta podem ser agrupadas.
+   */
+  CompletableFuture<Void> savePlayer(@Nonnull UUID uuid, @Nonnull PlayerBalance balance);
+
+  /**
+   * Grava juntas as contas de uma transferência. O estado de cada conta é lido de {@code currentState}
+   * na hora da gravação.
+   */
+  CompletableFuture<Void> saveTransaction(@Nonnull Collection<UUID> uuids,
+                                          @Nonnull Function<UUID, PlayerBalance> currentState);
+
+  /**
+   * Flush periódico das contas alteradas
+   * @param dirty Contas alteradas desde o último flush (do {@link BalanceTracker#snapshotDirty()})
+   * @return Métricas do flush; falha se as contas não foram gravadas (continuam sujas para o próximo)
+   */
+  CompletableFuture<FlushStats> flush(@Nonnull Map<UUID, Long> dirty);
+
+  /**
+   * Ledger de transações guardado junto com as contas
+   */
+  LedgerSink createLedgerSink() throws IOException, SQLException;
+
+  /**
+   * Grava o que está pendente e fecha o storage (síncrono: chamado no desligamento e no reload)
+   */
+  void shutdownSync();
+
+  /**
+   * @return true se o tracker só tem parte das contas (as demais são lidas quando acessadas)
+   */
+  default boolean isLazyLoading() {
+    return false;
+  }
+
+  /**
+   * Modo lazy: traz para o tracker, de uma vez, as contas que ainda não estão em memória
+   * @throws IllegalStateException se as contas não puderam ser lidas
+   */
+  default void prefetchAccounts(@Nonnull Collection<UUID> uuids) {
+  }
+
+  /**
+   * @return Acesso direto ao banco compartilhado por vários servidores, ou null fora do modo rede
+   */
+  @Nullable
+  default NetworkBalanceStore getNetworkStore() {
+    return null;
+  }
+
+  /**
+   * Ranking lido do storage, para quando o tracker não tem todas as contas (ver {@link #isLazyLoading()})
+   * @return As {@code limit} contas com maior saldo, em ordem decrescente
+   */
+  default CompletableFuture<List<PlayerBalance>> loadTopBalances(int limit) {
+    BalanceTracker tracker = getBalanceTracker();
+    List<Map.Entry<UUID, Long>> top = tracker.getLeaderboard().top(limit);
+    List<PlayerBalance> balances = new ArrayList<>(top.size());
+    for (Map.Entry<UUID, Long> entry : top) {
+      String nick = tracker.getPlayerNick(entry.getKey());
+      balances.add(PlayerBalance.ofUnits(entry.getKey(), nick != null ? nick : "", entry.getValue(),
+              tracker.getCash(entry.getKey())));
+    }
+    return CompletableFuture.completedFuture(balances);
+  }
+
+  /**
+   * Busca pelo nick uma conta que não está no índice em memória
+   * @return UUID ou null se não encontrado
+   */
+  @Nullable
+  default UUID findUuidByNickname(@Nonnull String nickname) {
+    return null;
+  }
+}
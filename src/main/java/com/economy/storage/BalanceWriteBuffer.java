@@ -0,0 +1,527 @@
+package com.economy.storage;
+
+import com.economy.economy.PlayerBalance;
+import com.economy.util.EconomyMetrics;
+import com.economy.util.MetricsHistogram;
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.logging.Level;
+
+/**
+ * Buffer write-behind das gravações de saldo no MySQL.
+ * <p>
+ * Guarda apenas o estado mais recente de cada conta (chave = UUID), então várias alterações
+ * seguidas da mesma conta (ex: minerando um veio) viram uma única linha no próximo flush.
+ * O flush roda no executor de IO do provider, a cada intervalo ou quando o buffer atinge
+ * o tamanho do lote, e grava tudo com uma conexão e um statement, em blocos JDBC de {@code batchSize}
+ * contas ({@code addBatch}/{@code executeBatch}) e um commit por bloco.
+ * <p>
+ * Quem grava nunca espera: as gravações vêm da thread do mundo (recompensas, lojas). Acima de
+ * {@code maxPending} contas o buffer pede um flush imediato e conta o estouro ({@link #getOverflowCount()}),
+ * mas aceita a gravação para não perder alterações de saldo. Como há no máximo uma entrada por conta,
+ * o buffer continua limitado pelo número de contas alteradas.
+ * <p>
+ * Com um {@link BalanceSpillJournal}, o que não pode ir ao banco (circuito aberto ou flush com falha) vai
+ * para o journal em disco em vez de ficar só na memória, e enquanto o journal não for reaplicado as
+ * gravações novas também vão para ele, para chegarem ao banco na ordem.
+ */
+public class BalanceWriteBuffer {
+
+  private static final HytaleLogger LOGGER = HytaleLogger.getLogger().getSubLogger("EconomySystem-MySQL");
+  private static final MetricsHistogram BATCH_SIZE = EconomyMetrics.getInstance().sizeHistogram("mysql.balance.batch_size");
+  private static final MetricsHistogram BATCH_WRITE = EconomyMetrics.getInstance().histogram("mysql.balance.batch_write");
+  private static final MetricsHistogram FLUSH_SIZE = EconomyMetrics.getInstance().sizeHistogram("mysql.balance.flush_size");
+  private static final MetricsHistogram FLUSH_DURATION = EconomyMetrics.getInstance().histogram("mysql.balance.flush");
+  private static final MetricsHistogram WRITE_LATENCY = EconomyMetrics.getInstance().histogram("mysql.balance.write_latency");
+  private static final LongAdder FAILED_BATCHES = EconomyMetrics.getInstance().counter("mysql.balance.failed_batches");
+
+  /**
+   * Grava contas com uma única conexão e um único statement, em blocos de {@code chunkSize} contas
+   * ({@code executeBatch}) com um commit por bloco. Se um bloco falhar, os anteriores continuam confirmados.
+   */
+  @FunctionalInterface
+  public interface BatchWriter {
+
+    /**
+     * @param onChunkCommitted Chamado após o commit de cada bloco, com o número de contas do bloco
+     */
+    void write(@Nonnull List<PlayerBalance> balances, int chunkSize, @Nonnull IntConsumer onChunkCommitted)
+            throws SQLException;
+  }
+
+  private static final class Pending {
+    final PlayerBalance snapshot;
+    final long enqueuedAtNanos;
+    final CompletableFuture<Void> future;
+
+    Pending(PlayerBalance snapshot, long enqueuedAtNanos, CompletableFuture<Void> future) {
+      this.snapshot = snapshot;
+      this.enqueuedAtNanos = enqueuedAtNanos;
+      this.future = future;
+    }
+  }
+
+  private final ConcurrentHashMap<UUID, Pending> pending = new ConcurrentHashMap<>();
+  // Um aviso por estouro, até o buffer voltar abaixo do limite
+  private final AtomicBoolean overflowWarned = new AtomicBoolean(false);
+  private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+  private final ScheduledExecutorService executor;
+  private final BatchWriter writer;
+  @Nullable
+  private final BalanceSpillJournal spill;
+  private final int batchSize;
+  private final int maxPending;
+  private ScheduledFuture<?> periodicFlush;
+
+  // Métricas
+  private final AtomicLong enqueued = new AtomicLong();
+  private final AtomicLong coalesced = new AtomicLong();
+  private final AtomicLong rowsWritten = new AtomicLong();
+  private final AtomicLong flushes = new AtomicLong();
+  private final AtomicLong failedFlushes = new AtomicLong();
+  private final AtomicLong overflows = new AtomicLong();
+  private volatile long lastFlushLatencyNanos;
+  private volatile long maxFlushLatencyNanos;
+  private volatile long lastFlushDurationNanos;
+
+  public BalanceWriteBuffer(@Nonnull ScheduledExecutorService executor, @Nonnull BatchWriter writer,
+                            @Nullable BalanceSpillJournal spill, int batchSize, int maxPending) {
+    this.executor = executor;
+    this.writer = writer;
+    this.spill = spill;
+    this.batchSize = Math.max(1, batchSize);
+    this.maxPending = Math.max(this.batchSize, maxPending);
+  }
+
+  /**
+   * Inicia o flush periódico
+   */
+  public void start(long flushIntervalMs) {
+    long interval = Math.max(10L, flushIntervalMs);
+    this.periodicFlush = executor.scheduleWithFixedDelay(this::flush, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Para o flush periódico (as entradas pendentes continuam no buffer)
+   */
+  public void stop() {
+    if (periodicFlush != null) {
+      periodicFlush.cancel(false);
+    }
+  }
+
+  /**
+   * Coloca o estado da conta no buffer, substituindo qualquer estado ainda não gravado
+   * @return Future completado quando esse estado (ou um mais novo) for gravado
+   */
+  public CompletableFuture<Void> enqueue(@Nonnull PlayerBalance snapshot) {
+    UUID uuid = snapshot.getUuid();
+    checkCapacity(uuid);
+    enqueued.incrementAndGet();
+    Pending merged = pending.merge(uuid,
+            new Pending(snapshot, System.nanoTime(), new CompletableFuture<>()),
+            (previous, next) -> {
+              coalesced.incrementAndGet();
+              // Mantém o momento do primeiro enfileiramento (latência real) e o mesmo future
+              return new Pending(next.snapshot, previous.enqueuedAtNanos, previous.future);
+            });
+    if (pending.size() >= batchSize) {
+      requestFlush();
+    }
+    return merged.future;
+  }
+
+  /**
+   * Buffer cheio: pede um flush e registra o estouro, sem bloquear quem grava
+   */
+  private void checkCapacity(UUID uuid) {
+    if (pending.size() < maxPending || pending.containsKey(uuid)) {
+      return;
+    }
+    overflows.incrementAndGet();
+    if (MySQLCircuitBreaker.getInstance().isOpen()) {
+      // Banco fora do ar: nenhum flush vai liberar espaço, o buffer absorve a gravação
+      return;
+    }
+    requestFlush();
+    if (overflowWarned.compareAndSet(false, true)) {
+      LOGGER.at(Level.WARNING).log("MySQL write buffer is full (%d pending, limit %d), the database is not keeping up",
+              pending.size(), maxPending);
+    }
+  }
+
+  /**
+   * Agenda um flush imediato no executor de IO (no máximo um pendente por vez)
+   */
+  public void requestFlush() {
+    if (flushScheduled.compareAndSet(false, true)) {
+      try {
+        executor.execute(() -> {
+          flushScheduled.set(false);
+          flush();
+        });
+      } catch (Exception e) {
+        flushScheduled.set(false);
+      }
+    }
+  }
+
+  /**
+   * Grava agora as entradas pendentes, no executor de IO
+   * @return Future completado depois do flush
+   */
+  public CompletableFuture<Void> drain() {
+    return CompletableFuture.runAsync(this::flush, executor);
+  }
+
+  /**
+   * Grava todas as entradas pendentes em lotes. Deve rodar no executor de IO.
+   * Com o banco fora do ar, as entradas vão para o journal de spill (se houver) ou ficam no buffer.
+   */
+  public void flush() {
+    if (pending.isEmpty() && (spill == null || spill.isEmpty())) {
+      return;
+    }
+    MySQLCircuitBreaker breaker = MySQLCircuitBreaker.getInstance();
+    boolean reachable = !breaker.isOpen() && drainSpill(breaker);
+    if (pending.isEmpty() || (!reachable && spill == null)) {
+      // Sem journal as entradas ficam no buffer; o breaker pede um flush quando a sonda fechar o circuito
+      return;
+    }
+    long start = System.nanoTime();
+    List<Map.Entry<UUID, Pending>> taken = new ArrayList<>(pending.size());
+    for (Map.Entry<UUID, Pending> entry : pending.entrySet()) {
+      // Remove apenas se não foi substituída nesse meio tempo
+      if (pending.remove(entry.getKey(), entry.getValue())) {
+        taken.add(entry);
+      }
+    }
+    if (pending.size() < maxPending) {
+      overflowWarned.set(false);
+    }
+
+    List<PlayerBalance> balances = new ArrayList<>(taken.size());
+    List<Pending> entries = new ArrayList<>(taken.size());
+    for (Map.Entry<UUID, Pending> entry : taken) {
+      balances.add(entry.getValue().snapshot);
+      entries.add(entry.getValue());
+    }
+    if (!reachable) {
+      if (!spillStates(balances, entries, 0)) {
+        requeue(taken);
+      }
+      return;
+    }
+    int[] committed = {0};
+    try {
+      writeChunks(balances, batchSize, upTo -> {
+        long now = System.nanoTime();
+        for (int i = committed[0]; i < upTo; i++) {
+          Pending entry = taken.get(i).getValue();
+          recordLatency(now - entry.enqueuedAtNanos);
+          entry.future.complete(null);
+        }
+        committed[0] = upTo;
+      });
+      breaker.recordSuccess();
+    } catch (SQLException e) {
+      breaker.recordFailure(e);
+      failedFlushes.incrementAndGet();
+      FAILED_BATCHES.increment();
+      LOGGER.at(Level.WARNING).log("Failed to flush %d balances to MySQL, keeping them for the next flush: %s",
+              taken.size() - committed[0], e.getMessage());
+      if (!spillStates(balances, entries, committed[0])) {
+        requeue(taken.subList(committed[0], taken.size()));
+      }
+    }
+
+    int written = committed[0];
+    if (written > 0) {
+      rowsWritten.addAndGet(written);
+      flushes.incrementAndGet();
+      lastFlushDurationNanos = System.nanoTime() - start;
+      LOGGER.at(Level.FINE).log("Flushed %d balances to MySQL in %.1fms (latency %.1fms)",
+              written, lastFlushDurationNanos / 1_000_000.0, lastFlushLatencyNanos / 1_000_000.0);
+    }
+  }
+
+  /**
+   * Grava um grupo de contas em uma única transação, fora dos lotes normais.
+   * Usado pelas transferências, para que as duas pontas cheguem juntas ao banco.
+   * <p>
+   * Roda no executor de IO. O estado gravado é lido de {@code currentState} no momento da gravação,
+   * então é pelo menos tão novo quanto qualquer entrada pendente dessas contas, que é absorvida.
+   * Se a gravação falhar (ou o circuito estiver aberto), os estados vão para o journal de spill, em um
+   * único registro; sem journal (ou com ele cheio) voltam para o buffer e o future falha.
+   */
+  public CompletableFuture<Void> writeGroup(@Nonnull Collection<UUID> uuids,
+                                            @Nonnull Function<UUID, PlayerBalance> currentState) {
+    CompletableFuture<Void> result = new CompletableFuture<>();
+    try {
+      executor.execute(() -> {
+        long start = System.nanoTime();
+        // Alinhadas por índice: a entrada pendente absorvida (ou null) e o estado atual de cada conta
+        List<Pending> absorbed = new ArrayList<>(uuids.size());
+        List<PlayerBalance> balances = new ArrayList<>(uuids.size());
+        for (UUID uuid : uuids) {
+          absorbed.add(pending.remove(uuid));
+          balances.add(currentState.apply(uuid));
+        }
+
+        MySQLCircuitBreaker breaker = MySQLCircuitBreaker.getInstance();
+        if (breaker.isOpen() || !drainSpill(breaker)) {
+          // Banco fora do ar (ou journal ainda não reaplicado): journal, ou o buffer até o circuito fechar
+          if (spillStates(balances, absorbed, 0)) {
+            result.complete(null);
+          } else {
+            keepInBuffer(balances, absorbed, 0);
+            result.completeExceptionally(new SQLTransientConnectionException("MySQL circuit breaker is open"));
+          }
+          return;
+        }
+        int[] committed = {0};
+        try {
+          writeChunks(balances, Integer.MAX_VALUE, upTo -> {
+            long now = System.nanoTime();
+            for (int i = committed[0]; i < upTo; i++) {
+              Pending previous = absorbed.get(i);
+              if (previous != null) {
+                recordLatency(now - previous.enqueuedAtNanos);
+                previous.future.complete(null);
+              }
+            }
+            committed[0] = upTo;
+          });
+          breaker.recordSuccess();
+          result.complete(null);
+        } catch (SQLException e) {
+          breaker.recordFailure(e);
+          failedFlushes.incrementAndGet();
+          FAILED_BATCHES.increment();
+          if (spillStates(balances, absorbed, committed[0])) {
+            result.complete(null);
+          } else {
+            keepInBuffer(balances, absorbed, committed[0]);
+            result.completeExceptionally(e);
+          }
+        }
+        if (committed[0] > 0) {
+          rowsWritten.addAndGet(committed[0]);
+          flushes.incrementAndGet();
+          lastFlushDurationNanos = System.nanoTime() - start;
+        }
+      });
+    } catch (Exception e) {
+      result.completeExceptionally(e);
+    }
+    return result;
+  }
+
+  /**
+   * Reaplica o journal de spill antes de qualquer gravação direta, para o banco receber as alterações na ordem
+   * @return true se o journal está vazio (ou não existe) e o banco pode receber gravações
+   */
+  private boolean drainSpill(MySQLCircuitBreaker breaker) {
+    if (spill == null || spill.isEmpty()) {
+      return true;
+    }
+    try {
+      spill.drain();
+      breaker.recordSuccess();
+      return true;
+    } catch (SQLException e) {
+      breaker.recordFailure(e);
+      LOGGER.at(Level.WARNING).log("Failed to replay the balance spill journal (%d records), retrying later: %s",
+              spill.getRecordCount(), e.getMessage());
+    } catch (IOException | RuntimeException e) {
+      LOGGER.at(Level.SEVERE).log("Failed to read the balance spill journal: %s", e.getMessage());
+    }
+    return false;
+  }
+
+  /**
+   * Grava no journal de spill os estados a partir de {@code from}, como um registro, e completa os futures
+   * das entradas correspondentes (o estado está em disco e será reaplicado)
+   * @return false se não há journal ou ele recusou o registro (cheio); nada foi completado
+   */
+  private boolean spillStates(List<PlayerBalance> balances, List<Pending> entries, int from) {
+    if (spill == null || from >= balances.size()) {
+      return from >= balances.size();
+    }
+    if (!spill.append(balances.subList(from, balances.size()))) {
+      return false;
+    }
+    for (int i = from; i < entries.size(); i++) {
+      Pending entry = entries.get(i);
+      if (entry != null) {
+        entry.future.complete(null);
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Move as entradas pendentes para o journal de spill (usado no shutdown quando o banco não está acessível)
+   * @return true se o buffer ficou vazio
+   */
+  public boolean spillPending() {
+    List<Map.Entry<UUID, Pending>> taken = new ArrayList<>(pending.size());
+    for (Map.Entry<UUID, Pending> entry : pending.entrySet()) {
+      if (pending.remove(entry.getKey(), entry.getValue())) {
+        taken.add(entry);
+      }
+    }
+    List<PlayerBalance> balances = new ArrayList<>(taken.size());
+    List<Pending> entries = new ArrayList<>(taken.size());
+    for (Map.Entry<UUID, Pending> entry : taken) {
+      balances.add(entry.getValue().snapshot);
+      entries.add(entry.getValue());
+    }
+    if (!spillStates(balances, entries, 0)) {
+      requeue(taken);
+    }
+    return pending.isEmpty();
+  }
+
+  /**
+   * Devolve ao buffer os estados a partir de {@code from}, junto com as entradas pendentes que eles absorveram
+   */
+  private void keepInBuffer(List<PlayerBalance> balances, List<Pending> absorbed, int from) {
+    long now = System.nanoTime();
+    List<Map.Entry<UUID, Pending>> failed = new ArrayList<>();
+    for (int i = from; i < balances.size(); i++) {
+      PlayerBalance balance = balances.get(i);
+      // Uma entrada enfileirada depois da leitura do estado é mais nova e tem prioridade
+      pending.putIfAbsent(balance.getUuid(), new Pending(balance, now, new CompletableFuture<>()));
+      if (absorbed.get(i) != null) {
+        failed.add(Map.entry(balance.getUuid(), absorbed.get(i)));
+      }
+    }
+    requeue(failed);
+  }
+
+  /**
+   * Chama o writer medindo cada bloco confirmado ({@code batch_size}, {@code batch_write}) e a gravação
+   * inteira ({@code flush_size}, {@code flush})
+   * @param onCommitted Recebe o total de contas confirmadas após cada bloco
+   */
+  private void writeChunks(List<PlayerBalance> balances, int chunkSize, IntConsumer onCommitted) throws SQLException {
+    long start = System.nanoTime();
+    long[] chunkStart = {start};
+    int[] committed = {0};
+    try {
+      writer.write(balances, chunkSize, count -> {
+        long now = System.nanoTime();
+        BATCH_WRITE.record(now - chunkStart[0]);
+        BATCH_SIZE.record(count);
+        chunkStart[0] = now;
+        committed[0] += count;
+        onCommitted.accept(committed[0]);
+      });
+    } finally {
+      if (committed[0] > 0) {
+        FLUSH_DURATION.recordSince(start);
+        FLUSH_SIZE.record(committed[0]);
+      }
+    }
+  }
+
+  private void requeue(List<Map.Entry<UUID, Pending>> failed) {
+    for (Map.Entry<UUID, Pending> entry : failed) {
+      Pending old = entry.getValue();
+      pending.merge(entry.getKey(), old, (newer, ignored) -> {
+        // Um estado mais novo já foi enfileirado: ele substitui o antigo, mas quem esperava o antigo
+        // deve ser avisado quando o novo for gravado
+        newer.future.whenComplete((v, t) -> old.future.complete(null));
+        return new Pending(newer.snapshot, old.enqueuedAtNanos, newer.future);
+      });
+    }
+  }
+
+  private void recordLatency(long latencyNanos) {
+    WRITE_LATENCY.record(latencyNanos);
+    lastFlushLatencyNanos = latencyNanos;
+    if (latencyNanos > maxFlushLatencyNanos) {
+      maxFlushLatencyNanos = latencyNanos;
+    }
+  }
+
+  /**
+   * Descarta as entradas pendentes (usado no shutdown, depois que todos os saldos foram gravados)
+   */
+  public void clear() {
+    for (Pending entry : pending.values()) {
+      entry.future.complete(null);
+    }
+    pending.clear();
+  }
+
+  public int getPendingCount() {
+    return pending.size();
+  }
+
+  public long getEnqueuedCount() {
+    return enqueued.get();
+  }
+
+  /**
+   * @return Gravações absorvidas por um estado mais novo da mesma conta
+   */
+  public long getCoalescedCount() {
+    return coalesced.get();
+  }
+
+  public long getRowsWritten() {
+    return rowsWritten.get();
+  }
+
+  public long getFlushCount() {
+    return flushes.get();
+  }
+
+  public long getFailedFlushCount() {
+    return failedFlushes.get();
+  }
+
+  /**
+   * @return Gravações aceitas com o buffer acima de {@code maxPending}
+   */
+  public long getOverflowCount() {
+    return overflows.get();
+  }
+
+  /**
+   * @return Tempo entre a alteração e a gravação no banco do último lote (ms)
+   */
+  public double getLastFlushLatencyMillis() {
+    return lastFlushLatencyNanos / 1_000_000.0;
+  }
+
+  public double getMaxFlushLatencyMillis() {
+    return maxFlushLatencyNanos / 1_000_000.0;
+  }
+
+  public double getLastFlushDurationMillis() {
+    return lastFlushDurationNanos / 1_000_000.0;
+  }
+}
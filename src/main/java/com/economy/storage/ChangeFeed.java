@@ -0,0 +1,266 @@
+package com.economy.storage;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import javax.annotation.Nonnull;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+
+/**
+ * Feed de alterações entre servidores (modo rede do MySQL).
+ * <p>
+ * Toda alteração de saldo ou de loja grava uma linha {@code (Id, Server, EntityType, EntityKey)} na tabela
+ * do feed, na mesma conexão (e, para saldos, na mesma transação) da alteração. Cada servidor lê o feed a
+ * partir do último Id visto e entrega as chaves alteradas por outros servidores aos handlers registrados,
+ * que recarregam só aquelas contas ou lojas em vez de recarregar tudo.
+ * <p>
+ * Ids de AUTO_INCREMENT podem ficar visíveis fora de ordem (uma transação com Id menor confirma depois) ou
+ * nunca aparecer (rollback). Um buraco no Id segura o cursor por até {@link #GAP_TIMEOUT_MS}; as linhas
+ * acima dele já são aplicadas e lembradas para não serem aplicadas de novo.
+ */
+public final class ChangeFeed {
+
+  public static final String BALANCE = "balance";     // chave: UUID da conta
+  public static final String SHOP = "shop";           // chave: shopId da loja admin/NPC
+  public static final String PLAYER_SHOP = "playershop"; // chave: UUID do dono da loja
+
+  private static final ChangeFeed INSTANCE = new ChangeFeed();
+  private static final HytaleLogger LOGGER = HytaleLogger.getLogger().getSubLogger("EconomySystem-MySQL");
+  private static final int POLL_LIMIT = 5000;
+  private static final long GAP_TIMEOUT_MS = 5000;
+  private static final long RETENTION_SECONDS = TimeUnit.HOURS.toSeconds(1);
+  private static final long PRUNE_INTERVAL_MS = TimeUnit.MINUTES.toMillis(5);
+
+  private final String serverId = UUID.randomUUID().toString();
+  private final Map<String, Consumer<Set<String>>> handlers = new ConcurrentHashMap<>();
+  private volatile boolean enabled;
+  private volatile String tableName;
+  private DataSource dataSource;
+  private ScheduledExecutorService executor;
+
+  // Estado do leitor (só acessado pela thread do feed)
+  private long cursor;
+  private final TreeSet<Long> appliedAboveCursor = new TreeSet<>();
+  private long gapSinceMillis;
+  private long lastPruneMillis;
+
+  // Métricas
+  private final AtomicLong recorded = new AtomicLong();
+  private final AtomicLong received = new AtomicLong();
+  private final AtomicLong skippedGaps = new AtomicLong();
+
+  public static ChangeFeed getInstance() {
+    return INSTANCE;
+  }
+
+  private ChangeFeed() {
+  }
+
+  /**
+   * Cria a tabela do feed (se preciso), posiciona o cursor no fim e começa a ler
+   */
+  public synchronized void start(@Nonnull DataSource dataSource, @Nonnull String tableName, long pollMs)
+          throws SQLException {
+    stop();
+    try (Connection conn = dataSource.getConnection();
+         Statement stmt = conn.createStatement()) {
+      stmt.execute(String.format("""
+              CREATE TABLE IF NOT EXISTS `%s` (
+                  Id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+                  Server VARCHAR(36) NOT NULL,
+                  EntityType VARCHAR(32) NOT NULL,
+                  EntityKey VARCHAR(64) NOT NULL,
+                  CreatedAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+                  INDEX idx_created (CreatedAt)
+              ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+              """, tableName));
+      try (ResultSet rs = stmt.executeQuery(String.format("SELECT COALESCE(MAX(Id), 0) FROM `%s`", tableName))) {
+        cursor = rs.next() ? rs.getLong(1) : 0L;
+      }
+    }
+    this.dataSource = dataSource;
+    this.tableName = tableName;
+    appliedAboveCursor.clear();
+    gapSinceMillis = 0;
+    lastPruneMillis = System.currentTimeMillis();
+    executor = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "EconomySystem-ChangeFeed");
+      t.setDaemon(true);
+      return t;
+    });
+    executor.scheduleWithFixedDelay(this::poll, pollMs, pollMs, TimeUnit.MILLISECONDS);
+    enabled = true;
+    LOGGER.at(Level.INFO).log("Change feed started on `%s` (server %s, cursor %d)", tableName, serverId, cursor);
+  }
+
+  /**
+   * Para de gravar e de ler o feed
+   */
+  public synchronized void stop() {
+    enabled = false;
+    if (executor != null) {
+      executor.shutdown();
+      try {
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      executor = null;
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Registra quem trata as alterações de um tipo feitas por outros servidores (substitui o anterior).
+   * O handler roda na thread do feed e recebe as chaves alteradas desde a última leitura, sem repetição.
+   */
+  public void register(@Nonnull String entityType, @Nonnull Consumer<Set<String>> handler) {
+    handlers.put(entityType, handler);
+  }
+
+  /**
+   * Grava as alterações na conexão indicada (dentro da transação do chamador, se houver uma).
+   * Não faz nada se o feed está desligado.
+   */
+  public void record(@Nonnull Connection conn, @Nonnull String entityType, @Nonnull Collection<String> keys)
+          throws SQLException {
+    if (!enabled || keys.isEmpty()) {
+      return;
+    }
+    String sql = String.format("INSERT INTO `%s` (Server, EntityType, EntityKey) VALUES (?, ?, ?)", tableName);
+    try (PreparedStatement ps = conn.prepareStatement(sql)) {
+      for (String key : keys) {
+        ps.setString(1, serverId);
+        ps.setString(2, entityType);
+        ps.setString(3, key);
+        ps.addBatch();
+      }
+      ps.executeBatch();
+    }
+    recorded.addAndGet(keys.size());
+  }
+
+  /**
+   * Como {@link #record(Connection, String, Collection)} para gravações fora de transação: a alteração
+   * já foi gravada, então uma falha aqui só é registrada no log (os outros servidores a veem no próximo reload)
+   */
+  public void recordQuietly(@Nonnull Connection conn, @Nonnull String entityType, @Nonnull String key) {
+    try {
+      record(conn, entityType, Set.of(key));
+    } catch (SQLException e) {
+      LOGGER.at(Level.WARNING).log("Failed to record %s change for %s: %s", entityType, key, e.getMessage());
+    }
+  }
+
+  private void poll() {
+    try {
+      Map<String, Set<String>> changes = new HashMap<>();
+      try (Connection conn = dataSource.getConnection()) {
+        String sql = String.format(
+                "SELECT Id, Server, EntityType, EntityKey FROM `%s` WHERE Id > ? ORDER BY Id LIMIT %d",
+                tableName, POLL_LIMIT);
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+          ps.setLong(1, cursor);
+          try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+              if (appliedAboveCursor.add(rs.getLong("Id")) && !serverId.equals(rs.getString("Server"))) {
+                changes.computeIfAbsent(rs.getString("EntityType"), type -> new LinkedHashSet<>())
+                        .add(rs.getString("EntityKey"));
+                received.incrementAndGet();
+              }
+            }
+          }
+        }
+        advanceCursor();
+        pruneIfDue(conn);
+      }
+      for (Map.Entry<String, Set<String>> entry : changes.entrySet()) {
+        Consumer<Set<String>> handler = handlers.get(entry.getKey());
+        if (handler == null) {
+          continue;
+        }
+        try {
+          handler.accept(entry.getValue());
+        } catch (Exception e) {
+          LOGGER.at(Level.WARNING).log("Failed to apply %d remote %s changes: %s",
+                  entry.getValue().size(), entry.getKey(), e.getMessage());
+        }
+      }
+    } catch (Exception e) {
+      LOGGER.at(Level.WARNING).log("Failed to poll change feed: %s", e.getMessage());
+    }
+  }
+
+  /**
+   * Avança o cursor pelos Ids contíguos já aplicados. Um buraco segura o cursor até a linha aparecer
+   * ou até {@link #GAP_TIMEOUT_MS} (transação desfeita ou Id reservado e nunca usado).
+   */
+  private void advanceCursor() {
+    long now = System.currentTimeMillis();
+    while (!appliedAboveCursor.isEmpty()) {
+      if (appliedAboveCursor.remove(cursor + 1)) {
+        cursor++;
+        gapSinceMillis = 0;
+        continue;
+      }
+      if (gapSinceMillis == 0) {
+        gapSinceMillis = now;
+      }
+      if (now - gapSinceMillis < GAP_TIMEOUT_MS) {
+        break;
+      }
+      skippedGaps.incrementAndGet();
+      cursor = appliedAboveCursor.first() - 1;
+      gapSinceMillis = 0;
+    }
+  }
+
+  private void pruneIfDue(Connection conn) throws SQLException {
+    long now = System.currentTimeMillis();
+    if (now - lastPruneMillis < PRUNE_INTERVAL_MS) {
+      return;
+    }
+    lastPruneMillis = now;
+    String sql = String.format("DELETE FROM `%s` WHERE CreatedAt < NOW() - INTERVAL %d SECOND",
+            tableName, RETENTION_SECONDS);
+    try (Statement stmt = conn.createStatement()) {
+      int deleted = stmt.executeUpdate(sql);
+      if (deleted > 0) {
+        LOGGER.at(Level.FINE).log("Pruned %d old change feed rows", deleted);
+      }
+    }
+  }
+
+  public long getRecordedCount() {
+    return recorded.get();
+  }
+
+  public long getReceivedCount() {
+    return received.get();
+  }
+
+  public long getSkippedGapCount() {
+    return skippedGaps.get();
+  }
+}
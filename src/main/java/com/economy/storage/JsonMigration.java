@@ -0,0 +1,378 @@
+package com.economy.storage;
+
+import com.economy.util.EconomyMetrics;
+import com.economy.util.MetricsHistogram;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import javax.annotation.Nonnull;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Migração de um arquivo JSON do plugin para o MySQL, lendo o arquivo em streaming.
+ * <p>
+ * Cada {@link Step} percorre um array do objeto raiz do arquivo, um elemento por vez ({@link JsonReader}),
+ * e grava as linhas em lotes JDBC de {@code batchSize} elementos, um lote por transação. A posição no array
+ * é gravada na tabela de checkpoint na mesma transação do lote: uma migração interrompida continua do último
+ * lote confirmado e nenhum elemento é gravado duas vezes.
+ * <p>
+ * O checkpoint guarda o tamanho e a data de modificação do arquivo; se o arquivo mudou, o passo recomeça
+ * do início.
+ */
+public final class JsonMigration {
+
+  private static final HytaleLogger LOGGER = HytaleLogger.getLogger().getSubLogger("EconomySystem-MySQL");
+
+  // Intervalo entre as linhas de progresso no log
+  private static final long PROGRESS_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(5);
+  private static final MetricsHistogram BATCH_LATENCY = EconomyMetrics.getInstance().histogram("mysql.migration.batch");
+  private static final LongAdder MIGRATED_ROWS = EconomyMetrics.getInstance().counter("mysql.migration.rows");
+
+  private final DataSource dataSource;
+  private final String checkpointTable;
+  private final int batchSize;
+
+  /**
+   * Grava as linhas de um elemento do array nos statements do passo (na ordem de {@link Step#statements()})
+   */
+  @FunctionalInterface
+  public interface ElementWriter {
+
+    /**
+     * Uma RuntimeException (elemento inválido) faz o elemento ser ignorado; por isso o elemento deve ser
+     * lido por completo antes do primeiro {@code addBatch}
+     * @return Número de linhas adicionadas aos lotes
+     */
+    int write(@Nonnull JsonElement element, @Nonnull PreparedStatement[] statements) throws SQLException;
+  }
+
+  /**
+   * Um array do objeto raiz e os statements que recebem os seus elementos
+   */
+  public static final class Step {
+
+    private final String array;
+    private final List<String> statements;
+    private final ElementWriter writer;
+
+    public Step(@Nonnull String array, @Nonnull List<String> statements, @Nonnull ElementWriter writer) {
+      this.array = array;
+      this.statements = statements;
+      this.writer = writer;
+    }
+
+    public String array() {
+      return array;
+    }
+
+    public List<String> statements() {
+      return statements;
+    }
+
+    public ElementWriter writer() {
+      return writer;
+    }
+  }
+
+  public JsonMigration(@Nonnull DataSource dataSource, @Nonnull String checkpointTable, int batchSize) {
+    this.dataSource = dataSource;
+    this.checkpointTable = checkpointTable;
+    this.batchSize = Math.max(1, batchSize);
+  }
+
+  public void createTable() throws SQLException {
+    try (Connection conn = dataSource.getConnection();
+         Statement stmt = conn.createStatement()) {
+      stmt.execute(String.format("""
+              CREATE TABLE IF NOT EXISTS `%s` (
+                  Name VARCHAR(128) NOT NULL PRIMARY KEY,
+                  Fingerprint VARCHAR(64) NOT NULL,
+                  Position BIGINT NOT NULL DEFAULT 0,
+                  RowsWritten BIGINT NOT NULL DEFAULT 0,
+                  Finished BOOLEAN NOT NULL DEFAULT FALSE,
+                  UpdatedAt TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+              )
+              """, checkpointTable));
+    }
+  }
+
+  /**
+   * @return true se algum passo do arquivo tem uma migração interrompida que pode continuar
+   */
+  public boolean hasPending(@Nonnull Path file, @Nonnull List<Step> steps) throws IOException, SQLException {
+    if (!Files.exists(file)) {
+      return false;
+    }
+    String fingerprint = fingerprint(file);
+    try (Connection conn = dataSource.getConnection()) {
+      for (Step step : steps) {
+        Checkpoint checkpoint = readCheckpoint(conn, checkpointName(file, step));
+        if (checkpoint != null && !checkpoint.finished && checkpoint.fingerprint.equals(fingerprint)) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Migra os arrays do arquivo, continuando de um checkpoint não concluído quando o arquivo não mudou
+   * @return Resultado somado dos passos (vazio se o arquivo não existe)
+   */
+  public Result migrate(@Nonnull Path file, @Nonnull List<Step> steps) throws IOException, SQLException {
+    Result total = new Result();
+    if (!Files.exists(file)) {
+      return total;
+    }
+    for (Step step : steps) {
+      total.add(migrateStep(file, step));
+    }
+    return total;
+  }
+
+  private Result migrateStep(Path file, Step step) throws IOException, SQLException {
+    String name = checkpointName(file, step);
+    String fingerprint = fingerprint(file);
+    Result result = new Result();
+    long start = System.nanoTime();
+
+    try (Connection conn = dataSource.getConnection();
+         JsonReader reader = new JsonReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+      long position = 0;
+      Checkpoint checkpoint = readCheckpoint(conn, name);
+      if (checkpoint != null && !checkpoint.finished) {
+        if (checkpoint.fingerprint.equals(fingerprint)) {
+          position = checkpoint.position;
+          result.resumedRows = checkpoint.rows;
+          LOGGER.at(Level.INFO).log("Resuming migration of %s at entry %d (%d rows already migrated)",
+                  name, position, checkpoint.rows);
+        } else {
+          LOGGER.at(Level.WARNING).log("%s changed since the interrupted migration, restarting it", file.getFileName());
+        }
+      }
+
+      if (!seekArray(reader, step.array())) {
+        saveCheckpoint(conn, name, fingerprint, 0, 0, true);
+        return result;
+      }
+      for (long skipped = 0; skipped < position && reader.hasNext(); skipped++) {
+        reader.skipValue();
+      }
+
+      conn.setAutoCommit(false);
+      PreparedStatement[] statements = new PreparedStatement[step.statements().size()];
+      try {
+        for (int i = 0; i < statements.length; i++) {
+          statements[i] = conn.prepareStatement(step.statements().get(i));
+        }
+        long rows = result.resumedRows;
+        int batchElements = 0;
+        int batchRows = 0;
+        long lastLog = start;
+        while (reader.hasNext()) {
+          JsonElement element = JsonParser.parseReader(reader);
+          position++;
+          try {
+            batchRows += step.writer().write(element, statements);
+          } catch (RuntimeException e) {
+            result.skipped++;
+            LOGGER.at(Level.WARNING).log("Skipping invalid entry %d of %s: %s", position, name, e.getMessage());
+          }
+          if (++batchElements < batchSize) {
+            continue;
+          }
+          rows += batchRows;
+          result.rows += batchRows;
+          commitBatch(conn, statements, name, fingerprint, position, rows, batchRows, false);
+          batchElements = 0;
+          batchRows = 0;
+          long now = System.nanoTime();
+          if (now - lastLog >= PROGRESS_LOG_INTERVAL_NANOS) {
+            lastLog = now;
+            LOGGER.at(Level.INFO).log("Migrating %s: %d rows (%.0f rows/s)", name, rows,
+                    Result.perSecond(result.rows, now - start));
+          }
+        }
+        // Último lote (mesmo vazio) marca o passo como concluído
+        rows += batchRows;
+        result.rows += batchRows;
+        commitBatch(conn, statements, name, fingerprint, position, rows, batchRows, true);
+      } catch (SQLException | IOException | RuntimeException e) {
+        conn.rollback();
+        throw e;
+      } finally {
+        for (PreparedStatement statement : statements) {
+          if (statement != null) {
+            statement.close();
+          }
+        }
+        conn.setAutoCommit(true);
+      }
+    }
+
+    result.nanos = System.nanoTime() - start;
+    LOGGER.at(Level.INFO).log("Migrated %s: %d rows in %.1fs (%.0f rows/s, %d invalid entries skipped)", name,
+            result.rows, result.nanos / 1e9, result.getRowsPerSecond(), result.skipped);
+    return result;
+  }
+
+  /**
+   * Executa os lotes dos statements e grava o checkpoint na mesma transação
+   */
+  private void commitBatch(Connection conn, PreparedStatement[] statements, String name, String fingerprint,
+                           long position, long rows, int batchRows, boolean finished) throws SQLException {
+    long start = System.nanoTime();
+    for (PreparedStatement statement : statements) {
+      statement.executeBatch();
+    }
+    saveCheckpoint(conn, name, fingerprint, position, rows, finished);
+    conn.commit();
+    BATCH_LATENCY.recordSince(start);
+    MIGRATED_ROWS.add(batchRows);
+  }
+
+  /**
+   * Avança o reader até o início do array {@code field} do objeto raiz
+   * @return false se o arquivo não tem o array
+   */
+  private static boolean seekArray(JsonReader reader, String field) throws IOException {
+    if (reader.peek() != JsonToken.BEGIN_OBJECT) {
+      return false;
+    }
+    reader.beginObject();
+    while (reader.hasNext()) {
+      if (reader.nextName().equals(field) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+        reader.beginArray();
+        return true;
+      }
+      reader.skipValue();
+    }
+    return false;
+  }
+
+  private Checkpoint readCheckpoint(Connection conn, String name) throws SQLException {
+    String sql = String.format("SELECT Fingerprint, Position, RowsWritten, Finished FROM `%s` WHERE Name = ?",
+            checkpointTable);
+    try (PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setString(1, name);
+      try (ResultSet rs = ps.executeQuery()) {
+        if (!rs.next()) {
+          return null;
+        }
+        return new Checkpoint(rs.getString("Fingerprint"), rs.getLong("Position"), rs.getLong("RowsWritten"),
+                rs.getBoolean("Finished"));
+      }
+    }
+  }
+
+  private void saveCheckpoint(Connection conn, String name, String fingerprint, long position, long rows,
+                              boolean finished) throws SQLException {
+    String sql = String.format("""
+            INSERT INTO `%s` (Name, Fingerprint, Position, RowsWritten, Finished)
+            VALUES (?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                Fingerprint = VALUES(Fingerprint),
+                Position = VALUES(Position),
+                RowsWritten = VALUES(RowsWritten),
+                Finished = VALUES(Finished)
+            """, checkpointTable);
+    try (PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setString(1, name);
+      ps.setString(2, fingerprint);
+      ps.setLong(3, position);
+      ps.setLong(4, rows);
+      ps.setBoolean(5, finished);
+      ps.executeUpdate();
+    }
+  }
+
+  private static String checkpointName(Path file, Step step) {
+    return file.getFileName() + "#" + step.array();
+  }
+
+  private static String fingerprint(Path file) throws IOException {
+    return Files.size(file) + ":" + Files.getLastModifiedTime(file).toMillis();
+  }
+
+  private static final class Checkpoint {
+
+    private final String fingerprint;
+    private final long position;
+    private final long rows;
+    private final boolean finished;
+
+    Checkpoint(String fingerprint, long position, long rows, boolean finished) {
+      this.fingerprint = fingerprint;
+      this.position = position;
+      this.rows = rows;
+      this.finished = finished;
+    }
+  }
+
+  /**
+   * Linhas gravadas e velocidade de uma migração
+   */
+  public static final class Result {
+
+    private long rows;
+    private long resumedRows;
+    private long skipped;
+    private long nanos;
+
+    void add(Result other) {
+      rows += other.rows;
+      resumedRows += other.resumedRows;
+      skipped += other.skipped;
+      nanos += other.nanos;
+    }
+
+    /**
+     * @return Linhas gravadas nesta execução
+     */
+    public long getRows() {
+      return rows;
+    }
+
+    /**
+     * @return Linhas que já tinham sido gravadas pela execução interrompida
+     */
+    public long getResumedRows() {
+      return resumedRows;
+    }
+
+    /**
+     * @return Elementos inválidos ignorados
+     */
+    public long getSkipped() {
+      return skipped;
+    }
+
+    public double getSeconds() {
+      return nanos / 1e9;
+    }
+
+    public double getRowsPerSecond() {
+      return perSecond(rows, nanos);
+    }
+
+    private static double perSecond(long rows, long nanos) {
+      return nanos > 0 ? rows * 1e9 / nanos : 0.0;
+    }
+  }
+}
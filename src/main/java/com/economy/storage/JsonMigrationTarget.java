@@ -0,0 +1,23 @@
+package com.economy.storage;
+
+import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.SQLException;
+
+/**
+ * Storage que importa os arquivos JSON do plugin (Balances.json, Shop.json, PlayerShop.json) em lotes,
+ * no boot e pelo /money migrate. Uma migração interrompida continua do checkpoint.
+ */
+public interface JsonMigrationTarget {
+
+  /**
+   * Migra o arquivo, continuando do checkpoint se uma migração anterior foi interrompida
+   */
+  JsonMigration.Result migrateFromJson(@Nonnull Path file) throws IOException, SQLException;
+
+  /**
+   * @return true se uma migração do arquivo foi interrompida e deve continuar
+   */
+  boolean hasPendingMigration(@Nonnull Path file) throws IOException, SQLException;
+}
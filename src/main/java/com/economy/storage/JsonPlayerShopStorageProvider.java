@@ -0,0 +1,151 @@
+package com.economy.storage;
+
+import com.economy.files.PlayerShopBlockingFile;
+import com.economy.playershop.PlayerShopItem;
+import com.economy.playershop.PlayerShopPlayer;
+import com.economy.playershop.PlayerShopTracker;
+import com.economy.util.FileUtils;
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.logging.Level;
+
+/**
+ * Storage das lojas de jogadores em arquivo (padrão, sem MySQL): PlayerShop.json na pasta do plugin.
+ * <p>
+ * O arquivo é um único documento com o tracker inteiro: as alterações só marcam o arquivo como sujo e ele
+ * é reescrito no flush periódico. Remoções de itens são gravadas na hora.
+ */
+public class JsonPlayerShopStorageProvider implements PlayerShopStorageProvider {
+
+  private static final HytaleLogger LOGGER = HytaleLogger.getLogger().getSubLogger("EconomySystem");
+  private static final String EMPTY_FILE = "{\"NextUniqueId\": 1, \"Shops\": []}";
+
+  private final PlayerShopBlockingFile playerShopBlockingFile = new PlayerShopBlockingFile();
+  private volatile boolean dirty;
+
+  @Override
+  public String getName() {
+    return "JSON";
+  }
+
+  @Override
+  public CompletableFuture<Void> initialize() {
+    FileUtils.ensureMainDirectory();
+    return CompletableFuture.completedFuture(null);
+  }
+
+  /**
+   * Relê o arquivo. O tracker devolvido é o que o arquivo grava, então é ele que o manager deve usar
+   * (mesmo se a leitura falhar, para as alterações seguintes não se perderem).
+   */
+  @Override
+  public CompletableFuture<PlayerShopTracker> loadShops() {
+    try {
+      FileUtils.ensureFile(FileUtils.PLAYER_SHOP_PATH, EMPTY_FILE);
+      LOGGER.at(Level.INFO).log("Loading player shop data from JSON file...");
+      this.playerShopBlockingFile.syncLoad();
+      this.dirty = false;
+    } catch (Exception e) {
+      LOGGER.at(Level.SEVERE).log("ERROR LOADING PLAYER SHOP FILE");
+      LOGGER.at(Level.SEVERE).log(e.getMessage());
+      e.printStackTrace();
+    }
+    return CompletableFuture.completedFuture(this.playerShopBlockingFile.getTracker());
+  }
+
+  /**
+   * Lê a loja do arquivo sem mexer no tracker em uso
+   */
+  @Override
+  public CompletableFuture<PlayerShopTracker> loadOwnerShop(@Nonnull UUID ownerUuid) {
+    try {
+      PlayerShopBlockingFile file = new PlayerShopBlockingFile();
+      file.syncLoad();
+      PlayerShopTracker ownerTracker = new PlayerShopTracker();
+      ownerTracker.replaceOwner(ownerUuid, file.getTracker());
+      return CompletableFuture.completedFuture(ownerTracker);
+    } catch (Exception e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  @Override
+  public CompletableFuture<PlayerShopItem> addItem(@Nonnull PlayerShopTracker tracker, @Nonnull PlayerShopItem item) {
+    // O tracker atribui o UniqueId
+    tracker.addItem(item);
+    this.dirty = true;
+    return CompletableFuture.completedFuture(item);
+  }
+
+  /**
+   * Remoção de item é crítica (o item foi entregue ao jogador): grava na hora
+   */
+  @Override
+  public CompletableFuture<Boolean> removeItem(int uniqueId) {
+    this.dirty = true;
+    return flush().thenApply(ignored -> true);
+  }
+
+  @Override
+  public CompletableFuture<Boolean> updateItem(@Nonnull PlayerShopItem item) {
+    this.dirty = true;
+    return CompletableFuture.completedFuture(true);
+  }
+
+  @Override
+  public CompletableFuture<Void> savePlayerInfo(@Nonnull UUID uuid, @Nonnull PlayerShopPlayer player, boolean isOpen,
+                                                @Nonnull List<String> tabs) {
+    this.dirty = true;
+    return CompletableFuture.completedFuture(null);
+  }
+
+  @Override
+  public CompletableFuture<Void> savePlayers(@Nonnull PlayerShopTracker tracker) {
+    this.dirty = true;
+    return CompletableFuture.completedFuture(null);
+  }
+
+  @Override
+  public CompletableFuture<Void> createTab(@Nonnull UUID ownerUuid, @Nonnull String tabName) {
+    this.dirty = true;
+    return CompletableFuture.completedFuture(null);
+  }
+
+  @Override
+  public CompletableFuture<Boolean> removeTab(@Nonnull UUID ownerUuid, @Nonnull String tabName) {
+    this.dirty = true;
+    return CompletableFuture.completedFuture(true);
+  }
+
+  @Override
+  public CompletableFuture<Void> flush() {
+    if (!this.dirty) {
+      return CompletableFuture.completedFuture(null);
+    }
+    try {
+      this.dirty = false;
+      this.playerShopBlockingFile.syncSave();
+      LOGGER.at(Level.FINE).log("Player shop data saved");
+      return CompletableFuture.completedFuture(null);
+    } catch (Exception e) {
+      this.dirty = true;
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  @Override
+  public void shutdownSync() {
+    try {
+      this.playerShopBlockingFile.syncSave();
+      this.dirty = false;
+    } catch (Exception e) {
+      LOGGER.at(Level.SEVERE).log("ERROR SAVING PLAYER SHOP FILE");
+      LOGGER.at(Level.SEVERE).log(e.getMessage());
+      e.printStackTrace();
+    }
+  }
+}
@@ -0,0 +1,225 @@
+package com.economy.storage;
+
+import com.economy.files.ShopBlockingFile;
+import com.economy.files.ShopNpcBlockingFile;
+import com.economy.shop.ShopItem;
+import com.economy.shop.ShopTracker;
+import com.economy.util.FileUtils;
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Level;
+
+/**
+ * Storage das lojas admin em arquivo (padrão, sem MySQL): Shop.json para a loja padrão e
+ * shop_npc_&lt;shopId&gt;.json para cada loja de NPC, na pasta do plugin.
+ * <p>
+ * Cada arquivo é um único documento com o tracker inteiro. A loja padrão é reescrita no flush periódico;
+ * as lojas de NPC são gravadas a cada alteração.
+ */
+public class JsonShopStorageProvider implements ShopStorageProvider {
+
+  private static final HytaleLogger LOGGER = HytaleLogger.getLogger().getSubLogger("EconomySystem");
+  private static final String EMPTY_SHOP = "{\"NextUniqueId\": 1, \"Items\": [], \"Tabs\": []}";
+
+  private final ShopBlockingFile shopBlockingFile = new ShopBlockingFile();
+  private final Map<Integer, ShopNpcBlockingFile> npcShopFiles = new ConcurrentHashMap<>(); // shopId -> arquivo
+  private volatile boolean dirty; // Loja padrão alterada desde o último flush
+
+  @Override
+  public String getName() {
+    return "JSON";
+  }
+
+  @Override
+  public CompletableFuture<Void> initialize() {
+    FileUtils.ensureMainDirectory();
+    return CompletableFuture.completedFuture(null);
+  }
+
+  /**
+   * Relê o arquivo da loja. O tracker devolvido é o que o arquivo grava, então é ele que o manager deve usar
+   * (mesmo se a leitura falhar, para as alterações seguintes não se perderem).
+   */
+  @Override
+  public CompletableFuture<ShopTracker> loadShop(int shopId) {
+    if (shopId == 0) {
+      try {
+        FileUtils.ensureFile(FileUtils.SHOP_PATH, EMPTY_SHOP);
+        LOGGER.at(Level.INFO).log("Loading shop data from JSON file...");
+        this.shopBlockingFile.syncLoad();
+        this.dirty = false;
+      } catch (Exception e) {
+        LOGGER.at(Level.SEVERE).log("ERROR LOADING SHOP FILE");
+        LOGGER.at(Level.SEVERE).log(e.getMessage());
+        e.printStackTrace();
+      }
+      return CompletableFuture.completedFuture(this.shopBlockingFile.getTracker());
+    }
+
+    ShopNpcBlockingFile file = new ShopNpcBlockingFile(shopId);
+    try {
+      FileUtils.ensureFile(npcShopPath(shopId), EMPTY_SHOP);
+      file.syncLoad();
+    } catch (Exception e) {
+      LOGGER.at(Level.WARNING).log("Failed to load NPC shop file for shopId %d: %s", shopId, e.getMessage());
+    }
+    ShopTracker tracker = file.getTracker();
+    // Garante que o tracker tenha um NextUniqueId válido
+    if (tracker.getNextUniqueId() <= 0) {
+      tracker.setNextUniqueId(1);
+    }
+    this.npcShopFiles.put(shopId, file);
+    return CompletableFuture.completedFuture(tracker);
+  }
+
+  /**
+   * Lojas de NPC com arquivo na pasta do plugin (shop_npc_1.json -> 1)
+   */
+  @Override
+  public List<Integer> listShops() {
+    List<Integer> shopIds = new ArrayList<>();
+    Path mainPath = Paths.get(FileUtils.MAIN_PATH);
+    if (!Files.exists(mainPath)) {
+      return shopIds;
+    }
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(mainPath, "shop_npc_*.json")) {
+      for (Path path : stream) {
+        String fileName = path.getFileName().toString();
+        try {
+          int shopId = Integer.parseInt(fileName.replace("shop_npc_", "").replace(".json", ""));
+          if (shopId > 0) {
+            shopIds.add(shopId);
+          }
+        } catch (NumberFormatException e) {
+          // Ignora arquivos com nome inválido
+        }
+      }
+    } catch (IOException e) {
+      LOGGER.at(Level.WARNING).log("Failed to list NPC shops: %s", e.getMessage());
+    }
+    return shopIds;
+  }
+
+  @Override
+  public CompletableFuture<ShopItem> addItem(@Nonnull ShopTracker tracker, @Nonnull ShopItem item, int shopId) {
+    // O tracker atribui o UniqueId
+    tracker.addItem(item);
+    changed(shopId);
+    return CompletableFuture.completedFuture(item);
+  }
+
+  @Override
+  public CompletableFuture<Boolean> removeItem(int uniqueId, int shopId) {
+    changed(shopId);
+    return CompletableFuture.completedFuture(true);
+  }
+
+  @Override
+  public CompletableFuture<Boolean> updateItem(@Nonnull ShopItem item, int shopId) {
+    changed(shopId);
+    return CompletableFuture.completedFuture(true);
+  }
+
+  @Override
+  public CompletableFuture<Void> createTab(@Nonnull String tabName, int shopId) {
+    changed(shopId);
+    return CompletableFuture.completedFuture(null);
+  }
+
+  @Override
+  public CompletableFuture<Boolean> removeTab(@Nonnull String tabName, int shopId) {
+    changed(shopId);
+    return CompletableFuture.completedFuture(true);
+  }
+
+  /**
+   * Remove o arquivo da loja de NPC
+   */
+  @Override
+  public CompletableFuture<Void> deleteShop(int shopId) {
+    if (shopId <= 0) {
+      return CompletableFuture.completedFuture(null);
+    }
+    this.npcShopFiles.remove(shopId);
+    try {
+      Files.deleteIfExists(Path.of(npcShopPath(shopId)));
+      return CompletableFuture.completedFuture(null);
+    } catch (IOException e) {
+      LOGGER.at(Level.WARNING).log("Failed to delete NPC shop file for shopId %d: %s", shopId, e.getMessage());
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /**
+   * A loja padrão espera o flush periódico; as lojas de NPC são gravadas na hora
+   */
+  private void changed(int shopId) {
+    if (shopId == 0) {
+      this.dirty = true;
+    } else {
+      saveNpcShop(shopId);
+    }
+  }
+
+  private void saveNpcShop(int shopId) {
+    ShopNpcBlockingFile file = this.npcShopFiles.get(shopId);
+    if (file == null) {
+      return;
+    }
+    try {
+      file.syncSave();
+    } catch (Exception e) {
+      LOGGER.at(Level.WARNING).log("Failed to save NPC shop data for shopId %d: %s", shopId, e.getMessage());
+    }
+  }
+
+  @Override
+  public CompletableFuture<Void> flush() {
+    if (!this.dirty) {
+      return CompletableFuture.completedFuture(null);
+    }
+    try {
+      this.dirty = false;
+      this.shopBlockingFile.syncSave();
+      LOGGER.at(Level.FINE).log("Shop data saved");
+      return CompletableFuture.completedFuture(null);
+    } catch (Exception e) {
+      this.dirty = true;
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /**
+   * Grava a loja padrão e todas as lojas de NPC
+   */
+  @Override
+  public void shutdownSync() {
+    try {
+      this.shopBlockingFile.syncSave();
+      this.dirty = false;
+    } catch (Exception e) {
+      LOGGER.at(Level.SEVERE).log("ERROR SAVING SHOP FILE");
+      LOGGER.at(Level.SEVERE).log(e.getMessage());
+      e.printStackTrace();
+    }
+    for (Integer shopId : this.npcShopFiles.keySet()) {
+      saveNpcShop(shopId);
+    }
+  }
+
+  private static String npcShopPath(int shopId) {
+    return FileUtils.MAIN_PATH + File.separator + "shop_npc_" + shopId + ".json";
+  }
+}
@@ -0,0 +1,164 @@
+package com.economy.storage;
+
+import com.economy.Main;
+import com.economy.config.EconomyConfig;
+import com.economy.economy.BalanceTracker;
+import com.economy.economy.FlushStats;
+import com.economy.economy.LedgerSink;
+import com.economy.economy.PlayerBalance;
+import com.economy.files.BalanceBlockingFile;
+import com.economy.files.BalanceJournal;
+import com.economy.files.LedgerFile;
+import com.economy.util.FileUtils;
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import javax.annotation.Nonnull;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.logging.Level;
+
+/**
+ * Storage de contas em arquivo (padrão, sem MySQL): snapshot Balances.json/Balances.dat na pasta do plugin.
+ * <p>
+ * Com EnableBalanceJournal cada alteração do tracker vai para o {@link BalanceJournal} e o flush só garante
+ * que ele está no disco (compactando quando passa de BalanceJournalCompactMB); sem o journal o flush
+ * reescreve o snapshot inteiro.
+ */
+public class JsonStorageProvider implements BalanceStorageProvider {
+
+  private static final HytaleLogger LOGGER = HytaleLogger.getLogger().getSubLogger("EconomySystem");
+  private static final long SYNC_TIMEOUT_SECONDS = 30;
+
+  private final BalanceBlockingFile balanceBlockingFile = new BalanceBlockingFile();
+  private BalanceJournal balanceJournal;
+  private long lastJournalBytes;
+
+  @Override
+  public String getName() {
+    return "JSON";
+  }
+
+  @Override
+  public CompletableFuture<Void> initialize() {
+    FileUtils.ensureMainDirectory();
+    try {
+      FileUtils.ensureFile(FileUtils.BALANCES_PATH, "{}");
+      LOGGER.at(Level.INFO).log("Loading balance data from JSON file...");
+      this.balanceBlockingFile.load();
+    } catch (Exception e) {
+      LOGGER.at(Level.SEVERE).log("ERROR LOADING BALANCE FILE");
+      LOGGER.at(Level.SEVERE).log(e.getMessage());
+      e.printStackTrace();
+    }
+    if (Main.CONFIG.get().isEnableBalanceJournal()) {
+      startJournal();
+    }
+    return CompletableFuture.completedFuture(null);
+  }
+
+  /**
+   * Reaplica o journal sobre o snapshot carregado e passa a registrar as alterações nele
+   */
+  private void startJournal() {
+    try {
+      BalanceJournal journal = new BalanceJournal(this.balanceBlockingFile, Path.of(FileUtils.BALANCES_JOURNAL_PATH));
+      int replayed = journal.replay();
+      journal.start();
+      this.balanceJournal = journal;
+      if (replayed > 0) {
+        LOGGER.at(Level.INFO).log("Recovered %d balance journal records", replayed);
+        // Incorpora o que foi recuperado ao snapshot
+        journal.compactIfLargerThan(0);
+      }
+    } catch (Exception e) {
+      LOGGER.at(Level.SEVERE).log("Failed to open balance journal, falling back to periodic full saves: %s", e.getMessage());
+      e.printStackTrace();
+    }
+  }
+
+  @Override
+  public BalanceTracker getBalanceTracker() {
+    return this.balanceBlockingFile.getTracker();
+  }
+
+  @Override
+  public int getPlayerCount() {
+    return getBalanceTracker().size();
+  }
+
+  /**
+   * As alterações já estão no tracker (e no journal, pelo listener do tracker): vão para o disco no flush
+   */
+  @Override
+  public CompletableFuture<Void> savePlayer(@Nonnull UUID uuid, @Nonnull PlayerBalance balance) {
+    return CompletableFuture.completedFuture(null);
+  }
+
+  @Override
+  public CompletableFuture<Void> saveTransaction(@Nonnull Collection<UUID> uuids,
+                                                 @Nonnull Function<UUID, PlayerBalance> currentState) {
+    return CompletableFuture.completedFuture(null);
+  }
+
+  @Override
+  public CompletableFuture<FlushStats> flush(@Nonnull Map<UUID, Long> dirty) {
+    long start = System.nanoTime();
+    try {
+      int rows;
+      long bytes;
+      if (this.balanceJournal != null) {
+        // As alterações já vão para o journal; aqui só garante que estão no disco
+        // e compacta o journal quando ele cresce demais
+        if (!this.balanceJournal.sync(SYNC_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+          throw new IllegalStateException("Timed out waiting for the balance journal");
+        }
+        rows = dirty.size();
+        long journalBytes = this.balanceJournal.getBytesWritten();
+        bytes = journalBytes - this.lastJournalBytes;
+        this.lastJournalBytes = journalBytes;
+        EconomyConfig config = Main.CONFIG.get();
+        this.balanceJournal.compactIfLargerThan(config.getBalanceJournalCompactMB() * 1024L * 1024L);
+      } else {
+        // O snapshot é um único documento: reescreve tudo, mas só quando algo mudou
+        rows = getBalanceTracker().size();
+        if (BalanceBlockingFile.isBinaryFormat()) {
+          this.balanceBlockingFile.writeSnapshot();
+          bytes = new File(FileUtils.BALANCES_BINARY_PATH).length();
+        } else {
+          this.balanceBlockingFile.syncSave();
+          bytes = new File(FileUtils.BALANCES_PATH).length();
+        }
+      }
+      return CompletableFuture.completedFuture(
+              new FlushStats(rows, bytes, System.nanoTime() - start, System.currentTimeMillis()));
+    } catch (Exception e) {
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  @Override
+  public LedgerSink createLedgerSink() throws IOException {
+    return new LedgerFile(Path.of(FileUtils.LEDGER_PATH));
+  }
+
+  /**
+   * Grava o snapshot final e esvazia o journal (o flush final já foi feito pelo EconomyManager)
+   */
+  @Override
+  public void shutdownSync() {
+    if (this.balanceJournal != null) {
+      try {
+        this.balanceJournal.shutdown();
+      } catch (Exception e) {
+        LOGGER.at(Level.WARNING).log("Error closing balance journal: %s", e.getMessage());
+      }
+    }
+  }
+}
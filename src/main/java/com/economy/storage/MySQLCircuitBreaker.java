@@ -0,0 +1,293 @@
+package com.economy.storage;
+
+import com.economy.Main;
+import com.economy.config.EconomyConfig;
+import com.economy.util.EconomyMetrics;
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import javax.annotation.Nonnull;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+
+/**
+ * Circuit breaker compartilhado pelos providers MySQL (saldos, loja admin e lojas de jogadores),
+ * que falam com o mesmo servidor.
+ * <p>
+ * Falhas de conexão seguidas ({@code MySQLBreakerFailureThreshold}) abrem o circuito. Aberto, nenhuma
+ * operação tenta conectar (cada tentativa travaria a thread de IO até o timeout do pool): as gravações de
+ * saldo ficam no buffer write-behind, as operações com retry esperam na fila e as demais falham na hora.
+ * Uma sonda de saúde roda a cada {@code MySQLBreakerProbeIntervalMs} e fecha o circuito quando o banco
+ * volta; aí as operações em espera são reenviadas e os ouvintes (flush do buffer) são avisados.
+ * <p>
+ * O retry não usa {@code Thread.sleep}: a próxima tentativa é agendada na thread do breaker e reenviada
+ * ao executor de IO do provider, que fica livre para as outras operações nesse meio tempo.
+ */
+public final class MySQLCircuitBreaker {
+
+  private static final MySQLCircuitBreaker INSTANCE = new MySQLCircuitBreaker();
+  private static final HytaleLogger LOGGER = HytaleLogger.getLogger().getSubLogger("EconomySystem-MySQL");
+  private static final long RETRY_BASE_DELAY_MS = 1000;
+  private static final long RETRY_MAX_DELAY_MS = 30_000;
+  private static final int PROBE_TIMEOUT_SECONDS = 2;
+
+  private static final LongAdder TRIPS = EconomyMetrics.getInstance().counter("mysql.breaker.trips");
+  private static final LongAdder RETRIES = EconomyMetrics.getInstance().counter("mysql.retry.scheduled");
+  private static final LongAdder RETRY_FAILURES = EconomyMetrics.getInstance().counter("mysql.retry.exhausted");
+
+  /**
+   * Operação JDBC que pode ser repetida
+   */
+  @FunctionalInterface
+  public interface SqlOperation<T> {
+    T run() throws SQLException;
+  }
+
+  private final Map<String, DataSource> probeTargets = new ConcurrentHashMap<>();
+  private final Queue<Runnable> waiting = new ConcurrentLinkedQueue<>();
+  private final Queue<Runnable> closeListeners = new ConcurrentLinkedQueue<>();
+  private final AtomicInteger consecutiveFailures = new AtomicInteger();
+  private final AtomicLong degradedNanos = new AtomicLong();
+  private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+    Thread t = new Thread(r, "EconomySystem-MySQL-Health");
+    t.setDaemon(true);
+    return t;
+  });
+  private volatile boolean open;
+  private volatile long openedAtNanos;
+
+  private MySQLCircuitBreaker() {
+    EconomyMetrics metrics = EconomyMetrics.getInstance();
+    metrics.gauge("mysql.breaker.open", () -> open ? 1 : 0);
+    metrics.gauge("mysql.breaker.degraded_ms", this::getDegradedMillis);
+    metrics.gauge("mysql.retry.waiting", waiting::size);
+  }
+
+  public static MySQLCircuitBreaker getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Registra o pool de um provider para as sondas de saúde
+   */
+  public void register(@Nonnull String name, @Nonnull DataSource dataSource) {
+    probeTargets.put(name, dataSource);
+  }
+
+  public void unregister(@Nonnull String name) {
+    probeTargets.remove(name);
+  }
+
+  /**
+   * Chamado (na thread do breaker) sempre que o circuito fecha
+   */
+  public void addCloseListener(@Nonnull Runnable listener) {
+    closeListeners.add(listener);
+  }
+
+  public void removeCloseListener(@Nonnull Runnable listener) {
+    closeListeners.remove(listener);
+  }
+
+  public boolean isOpen() {
+    return open;
+  }
+
+  /**
+   * Pega uma conexão do pool, falhando na hora se o circuito está aberto.
+   * Falhas ao conectar contam para abrir o circuito.
+   */
+  public Connection connect(@Nonnull DataSource dataSource) throws SQLException {
+    if (open) {
+      throw new SQLTransientConnectionException("MySQL circuit breaker is open");
+    }
+    try {
+      Connection conn = dataSource.getConnection();
+      consecutiveFailures.set(0);
+      return conn;
+    } catch (SQLException e) {
+      recordFailure(e);
+      throw e;
+    }
+  }
+
+  public void recordSuccess() {
+    consecutiveFailures.set(0);
+  }
+
+  /**
+   * Conta a falha para abrir o circuito se for uma falha de conexão (erros de SQL não contam)
+   */
+  public void recordFailure(@Nonnull SQLException e) {
+    if (!isConnectionFailure(e)) {
+      return;
+    }
+    int failures = consecutiveFailures.incrementAndGet();
+    EconomyConfig config = Main.CONFIG.get();
+    if (failures >= config.getMySQLBreakerFailureThreshold()) {
+      tripOpen(e);
+    }
+  }
+
+  /**
+   * Executa a operação no executor de IO do provider. Se ela falhar por conexão, a próxima tentativa é
+   * agendada com backoff exponencial (até {@code MySQLRetryMaxAttempts}); com o circuito aberto ela espera
+   * o circuito fechar sem gastar tentativas. Outros erros completam o future na hora.
+   * @param name Nome da operação, para os logs
+   * @return Future com o resultado ou com a última exceção
+   */
+  public <T> CompletableFuture<T> retry(@Nonnull String name, @Nonnull Executor executor,
+                                        @Nonnull SqlOperation<T> operation) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    attempt(name, executor, operation, result, 1);
+    return result;
+  }
+
+  private <T> void attempt(String name, Executor executor, SqlOperation<T> operation,
+                           CompletableFuture<T> result, int attempt) {
+    Runnable task = () -> {
+      if (open) {
+        // Circuito aberto: espera a sonda fechar, sem gastar a tentativa
+        waiting.add(() -> attempt(name, executor, operation, result, attempt));
+        if (!open) {
+          drainWaiting();
+        }
+        return;
+      }
+      try {
+        result.complete(operation.run());
+        consecutiveFailures.set(0);
+      } catch (SQLException e) {
+        int maxAttempts = Main.CONFIG.get().getMySQLRetryMaxAttempts();
+        if (!isConnectionFailure(e) || attempt >= maxAttempts) {
+          if (attempt > 1) {
+            RETRY_FAILURES.increment();
+          }
+          result.completeExceptionally(e);
+          return;
+        }
+        long delayMs = Math.min(RETRY_MAX_DELAY_MS, RETRY_BASE_DELAY_MS << Math.min(attempt - 1, 16));
+        RETRIES.increment();
+        LOGGER.at(Level.WARNING).log("MySQL %s failed (attempt %d/%d): %s. Retrying in %dms",
+                name, attempt, maxAttempts, e.getMessage(), delayMs);
+        scheduler.schedule(() -> attempt(name, executor, operation, result, attempt + 1),
+                delayMs, TimeUnit.MILLISECONDS);
+      } catch (RuntimeException e) {
+        result.completeExceptionally(e);
+      }
+    };
+    try {
+      executor.execute(task);
+    } catch (RuntimeException e) {
+      // Executor encerrado (shutdown/reload)
+      result.completeExceptionally(e);
+    }
+  }
+
+  private void tripOpen(SQLException cause) {
+    synchronized (this) {
+      if (open) {
+        return;
+      }
+      openedAtNanos = System.nanoTime();
+      open = true;
+    }
+    TRIPS.increment();
+    LOGGER.at(Level.WARNING).log("MySQL unreachable (%s), opening circuit breaker: writes are buffered until a health probe succeeds",
+            cause.getMessage());
+    scheduleProbe();
+  }
+
+  private void scheduleProbe() {
+    long intervalMs = Main.CONFIG.get().getMySQLBreakerProbeIntervalMs();
+    scheduler.schedule(this::probe, intervalMs, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Sonda de saúde (thread do breaker): fecha o circuito se algum pool registrado consegue uma conexão válida
+   */
+  private void probe() {
+    if (!open) {
+      return;
+    }
+    for (DataSource dataSource : probeTargets.values()) {
+      try (Connection conn = dataSource.getConnection()) {
+        if (conn.isValid(PROBE_TIMEOUT_SECONDS)) {
+          close();
+          return;
+        }
+      } catch (SQLException | RuntimeException ignored) {
+        // Ainda fora do ar (ou pool fechado): tenta o próximo e depois a próxima sonda
+      }
+    }
+    scheduleProbe();
+  }
+
+  private void close() {
+    long degraded;
+    synchronized (this) {
+      if (!open) {
+        return;
+      }
+      degraded = System.nanoTime() - openedAtNanos;
+      degradedNanos.addAndGet(degraded);
+      consecutiveFailures.set(0);
+      open = false;
+    }
+    LOGGER.at(Level.INFO).log("MySQL reachable again after %.1fs, closing circuit breaker (%d operations waiting)",
+            degraded / 1_000_000_000.0, waiting.size());
+    drainWaiting();
+    for (Runnable listener : closeListeners) {
+      try {
+        listener.run();
+      } catch (RuntimeException e) {
+        LOGGER.at(Level.WARNING).log("MySQL circuit breaker listener failed: %s", e.getMessage());
+      }
+    }
+  }
+
+  private void drainWaiting() {
+    Runnable next;
+    while (!open && (next = waiting.poll()) != null) {
+      next.run();
+    }
+  }
+
+  /**
+   * @return Tempo total com o circuito aberto desde o início do servidor (ms), incluindo o período atual
+   */
+  public long getDegradedMillis() {
+    long total = degradedNanos.get();
+    if (open) {
+      total += System.nanoTime() - openedAtNanos;
+    }
+    return TimeUnit.NANOSECONDS.toMillis(total);
+  }
+
+  /**
+   * Falha de conexão (banco fora do ar, rede, timeout do pool), e não um erro na instrução SQL
+   */
+  public static boolean isConnectionFailure(@Nonnull SQLException e) {
+    String state = e.getSQLState();
+    return e instanceof SQLTransientConnectionException
+            || e instanceof SQLNonTransientConnectionException
+            || e instanceof SQLRecoverableException
+            || (state != null && state.startsWith("08"));
+  }
+}
@@ -0,0 +1,213 @@
+package com.economy.storage;
+
+import com.economy.Main;
+import com.economy.config.EconomyConfig;
+import com.economy.util.EconomyMetrics;
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.logging.Level;
+
+/**
+ * Pool de conexões e threads de IO compartilhados pelos providers MySQL (saldos, loja admin e lojas de
+ * jogadores), que falam com o mesmo banco.
+ * <p>
+ * Um único HikariCP de {@code MySQLPoolSize} conexões substitui os três pools (um keepalive, um conjunto de
+ * métricas {@code mysql.pool.*}). O IO roda em {@code MySQLIOThreads} filas de uma thread: cada operação vai
+ * para a fila escolhida pela sua chave (conta, loja, item), então operações da mesma chave continuam na
+ * ordem em que foram enviadas e chaves diferentes rodam em paralelo.
+ * <p>
+ * As gravações de saldo em lote (buffer write-behind e journal de spill) cobrem muitas contas de uma vez e
+ * precisam de uma única ordem, então ficam em uma fila própria ({@link #writerLane()}); assim uma fila
+ * longa de gravações de saldo não atrasa as operações das lojas.
+ * <p>
+ * Cada provider chama {@link #acquire()} ao iniciar e {@link #release()} ao desligar; o pool é criado com a
+ * config atual no primeiro acquire e fechado no último release (um reload recria tudo com a config nova).
+ */
+public final class MySQLConnectionPool {
+
+  private static final MySQLConnectionPool INSTANCE = new MySQLConnectionPool();
+  private static final HytaleLogger LOGGER = HytaleLogger.getLogger().getSubLogger("EconomySystem-MySQL");
+  private static final String BREAKER_NAME = "pool";
+
+  private HikariDataSource dataSource;
+  // Índice 0: fila das gravações de saldo; as demais recebem as operações por chave
+  private ScheduledThreadPoolExecutor[] lanes;
+  private Executor[] timedLanes;
+  private int users;
+
+  private MySQLConnectionPool() {
+  }
+
+  public static MySQLConnectionPool getInstance() {
+    return INSTANCE;
+  }
+
+  /**
+   * Registra um provider como usuário do pool, criando o pool e as threads de IO se ainda não existem.
+   * Não espera o banco: o HikariCP conecta em segundo plano.
+   * @return DataSource compartilhado
+   */
+  public synchronized HikariDataSource acquire() {
+    if (users == 0) {
+      open(Main.CONFIG.get());
+    }
+    users++;
+    return dataSource;
+  }
+
+  /**
+   * Libera o uso do pool; o último provider fecha o pool e as threads de IO (as tarefas já enviadas ainda rodam)
+   */
+  public synchronized void release() {
+    if (users == 0) {
+      return;
+    }
+    users--;
+    if (users > 0) {
+      return;
+    }
+    MySQLCircuitBreaker.getInstance().unregister(BREAKER_NAME);
+    for (ScheduledThreadPoolExecutor lane : lanes) {
+      lane.shutdown();
+    }
+    if (!dataSource.isClosed()) {
+      dataSource.close();
+    }
+    LOGGER.at(Level.INFO).log("MySQL HikariCP pool closed");
+  }
+
+  private void open(EconomyConfig config) {
+    HikariConfig hikariConfig = new HikariConfig();
+
+    // JDBC URL for MariaDB
+    String jdbcUrl = String.format("jdbc:mariadb://%s:%d/%s?useSSL=false&allowPublicKeyRetrieval=true",
+            config.getMySQLHost(), config.getMySQLPort(), config.getMySQLDatabaseName());
+    hikariConfig.setDriverClassName("org.mariadb.jdbc.Driver");
+    hikariConfig.setJdbcUrl(jdbcUrl);
+    hikariConfig.setUsername(config.getMySQLUser());
+    hikariConfig.setPassword(config.getMySQLPassword());
+
+    // Pool settings
+    hikariConfig.setPoolName("EconomyPool");
+    hikariConfig.setMaximumPoolSize(config.getMySQLPoolSize());
+    hikariConfig.setMinimumIdle(Math.min(config.getMySQLPoolMinIdle(), config.getMySQLPoolSize()));
+
+    // Timeouts (in milliseconds)
+    hikariConfig.setConnectionTimeout(10000);     // 10 seconds
+    hikariConfig.setIdleTimeout(300000);          // 5 minutes
+    hikariConfig.setMaxLifetime(1800000);         // 30 minutes
+    hikariConfig.setValidationTimeout(3000);      // 3 seconds
+    hikariConfig.setKeepaliveTime(60000);         // 1 minute
+
+    // Connection behavior
+    hikariConfig.setAutoCommit(true);
+    hikariConfig.setConnectionInitSql("SET NAMES utf8mb4");
+
+    // Connection test query to ensure connections are valid
+    hikariConfig.setConnectionTestQuery("SELECT 1");
+
+    // Leak detection (logs warning if connection not returned within threshold)
+    hikariConfig.setLeakDetectionThreshold(30000); // 30 seconds
+
+    // Allow pool suspension on initialization failure
+    hikariConfig.setInitializationFailTimeout(-1); // Don't fail fast, keep retrying
+
+    // MariaDB-specific optimizations
+    hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
+    hikariConfig.addDataSourceProperty("prepStmtCacheSize", "250");
+    hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
+    hikariConfig.addDataSourceProperty("useServerPrepStmts", "true");
+    hikariConfig.addDataSourceProperty("useLocalSessionState", "true");
+    hikariConfig.addDataSourceProperty("rewriteBatchedStatements", "true");
+    // Connector/J 3.x: envia lotes de executeBatch como um único comando bulk
+    hikariConfig.addDataSourceProperty("useBulkStmts", "true");
+    hikariConfig.addDataSourceProperty("cacheResultSetMetadata", "true");
+    hikariConfig.addDataSourceProperty("cacheServerConfiguration", "true");
+    hikariConfig.addDataSourceProperty("maintainTimeStats", "false");
+
+    dataSource = new HikariDataSource(hikariConfig);
+
+    // ThreadPoolExecutor (e não Executors.newSingleThread...) para expor o tamanho das filas nas métricas
+    EconomyMetrics metrics = EconomyMetrics.getInstance();
+    int threads = config.getMySQLIOThreads();
+    lanes = new ScheduledThreadPoolExecutor[threads + 1];
+    timedLanes = new Executor[threads + 1];
+    for (int i = 0; i <= threads; i++) {
+      String name = i == 0 ? "EconomySystem-MySQL-Writer" : "EconomySystem-MySQL-IO-" + i;
+      lanes[i] = new ScheduledThreadPoolExecutor(1, r -> {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+      });
+      // Mesma fila, medindo espera e duração de cada operação
+      timedLanes[i] = metrics.timedExecutor("mysql.io", lanes[i]);
+    }
+    ScheduledThreadPoolExecutor[] published = lanes;
+    metrics.gauge("mysql.io.queue", () -> {
+      long queued = 0;
+      for (ScheduledThreadPoolExecutor lane : published) {
+        queued += lane.getQueue().size();
+      }
+      return queued;
+    });
+    metrics.registerPool("mysql", dataSource);
+    MySQLCircuitBreaker.getInstance().register(BREAKER_NAME, dataSource);
+
+    LOGGER.at(Level.INFO).log("MySQL pool created: %s:%d/%s (%d connections, %d IO threads + writer)",
+            config.getMySQLHost(), config.getMySQLPort(), config.getMySQLDatabaseName(),
+            config.getMySQLPoolSize(), threads);
+  }
+
+  /**
+   * Fila das gravações de saldo em lote, para agendar tarefas (flush periódico, limpeza de contas)
+   */
+  public synchronized ScheduledExecutorService writerLane() {
+    if (lanes == null) {
+      throw new IllegalStateException("MySQL pool is not open");
+    }
+    return lanes[0];
+  }
+
+  /**
+   * Executor da fila das gravações de saldo, com as métricas de {@link #executor(Object)}
+   */
+  public synchronized Executor writerExecutor() {
+    if (timedLanes == null) {
+      throw new IllegalStateException("MySQL pool is not open");
+    }
+    return timedLanes[0];
+  }
+
+  /**
+   * Fila de IO da chave, para agendar tarefas (as tarefas agendadas rodam na ordem das demais da chave)
+   * @param key Conta, loja ou item; a mesma chave cai sempre na mesma fila
+   */
+  public synchronized ScheduledExecutorService lane(@Nonnull Object key) {
+    if (lanes == null) {
+      throw new IllegalStateException("MySQL pool is not open");
+    }
+    return lanes[index(key)];
+  }
+
+  /**
+   * Executor da fila de IO da chave, com as métricas {@code mysql.io.queue_wait} e {@code mysql.io.op}
+   */
+  public synchronized Executor executor(@Nonnull Object key) {
+    if (timedLanes == null) {
+      throw new IllegalStateException("MySQL pool is not open");
+    }
+    return timedLanes[index(key)];
+  }
+
+  private int index(Object key) {
+    // Espalha os bits altos: UUIDs e ids sequenciais caem em filas diferentes
+    int hash = key.hashCode();
+    return 1 + Math.floorMod(hash ^ (hash >>> 16), lanes.length - 1);
+  }
+}
@@ -0,0 +1,199 @@
+package com.economy.storage;
+
+import com.economy.economy.CurrencyType;
+import com.economy.economy.IdempotencyCache;
+import com.economy.economy.LedgerEntry;
+import com.economy.economy.LedgerSink;
+import com.economy.economy.MoneyUnits;
+import com.economy.economy.TransactionType;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Ledger no MySQL: uma linha por registro, gravadas em lotes JDBC dentro de uma transação.
+ * <p>
+ * O índice (UUID, Time, Id) atende o histórico de uma conta com paginação por chave (sem OFFSET);
+ * o índice em Time atende a limpeza dos registros vencidos.
+ */
+public class MySQLLedgerStore implements LedgerSink {
+
+  private static final int PRUNE_CHUNK_SIZE = 10_000;
+
+  private final DataSource dataSource;
+  private final String tableName;
+
+  MySQLLedgerStore(@Nonnull DataSource dataSource, @Nonnull String tableName) {
+    this.dataSource = dataSource;
+    this.tableName = tableName;
+  }
+
+  void createTable() throws SQLException {
+    try (Connection conn = dataSource.getConnection();
+         Statement stmt = conn.createStatement()) {
+      stmt.execute(String.format("""
+              CREATE TABLE IF NOT EXISTS `%s` (
+                  RowId BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY,
+                  Id BIGINT NOT NULL,
+                  Time BIGINT NOT NULL,
+                  UUID VARCHAR(36) NOT NULL,
+                  Counterparty VARCHAR(36),
+                  Type VARCHAR(16) NOT NULL,
+                  Currency VARCHAR(8) NOT NULL,
+                  Amount DECIMAL(20,%d) NOT NULL,
+                  Absolute BOOLEAN NOT NULL DEFAULT FALSE,
+                  IdempotencyKey VARCHAR(%d),
+                  INDEX idx_uuid_time (UUID, Time, Id),
+                  INDEX idx_time (Time)
+              ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci
+              """, tableName, MoneyUnits.scale(), IdempotencyCache.MAX_KEY_LENGTH));
+
+      // Adiciona colunas se não existirem (migração)
+      try {
+        stmt.execute(String.format("ALTER TABLE `%s` ADD COLUMN IF NOT EXISTS IdempotencyKey VARCHAR(%d)",
+                tableName, IdempotencyCache.MAX_KEY_LENGTH));
+      } catch (SQLException e) {
+        // Coluna já existe, ignora
+      }
+    }
+  }
+
+  @Override
+  public void write(@Nonnull List<LedgerEntry> entries) throws SQLException {
+    String sql = String.format("""
+            INSERT INTO `%s` (Id, Time, UUID, Counterparty, Type, Currency, Amount, Absolute, IdempotencyKey)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """, tableName);
+    try (Connection conn = dataSource.getConnection()) {
+      conn.setAutoCommit(false);
+      try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        for (LedgerEntry entry : entries) {
+          ps.setLong(1, entry.getId());
+          ps.setLong(2, entry.getTime());
+          ps.setString(3, entry.getUuid().toString());
+          if (entry.getCounterparty() != null) {
+            ps.setString(4, entry.getCounterparty().toString());
+          } else {
+            ps.setNull(4, Types.VARCHAR);
+          }
+          ps.setString(5, entry.getType().name());
+          ps.setString(6, entry.getCurrency().name());
+          ps.setBigDecimal(7, entry.getCurrency() == CurrencyType.CASH
+                  ? BigDecimal.valueOf(entry.getAmount())
+                  : MoneyUnits.toBigDecimal(entry.getAmount()));
+          ps.setBoolean(8, entry.isAbsolute());
+          if (entry.getIdempotencyKey() != null) {
+            ps.setString(9, entry.getIdempotencyKey());
+          } else {
+            ps.setNull(9, Types.VARCHAR);
+          }
+          ps.addBatch();
+        }
+        ps.executeBatch();
+        conn.commit();
+      } catch (SQLException e) {
+        conn.rollback();
+        throw e;
+      } finally {
+        conn.setAutoCommit(true);
+      }
+    }
+  }
+
+  @Override
+  public List<LedgerEntry> history(@Nonnull UUID uuid, @Nullable LedgerEntry before, int limit) throws SQLException {
+    String sql = before == null
+            ? String.format("""
+                    SELECT Id, Time, UUID, Counterparty, Type, Currency, Amount, Absolute, IdempotencyKey FROM `%s`
+                    WHERE UUID = ?
+                    ORDER BY Time DESC, Id DESC LIMIT ?
+                    """, tableName)
+            : String.format("""
+                    SELECT Id, Time, UUID, Counterparty, Type, Currency, Amount, Absolute, IdempotencyKey FROM `%s`
+                    WHERE UUID = ? AND (Time < ? OR (Time = ? AND Id < ?))
+                    ORDER BY Time DESC, Id DESC LIMIT ?
+                    """, tableName);
+    List<LedgerEntry> entries = new ArrayList<>(limit);
+    try (Connection conn = dataSource.getConnection();
+         PreparedStatement ps = conn.prepareStatement(sql)) {
+      int index = 1;
+      ps.setString(index++, uuid.toString());
+      if (before != null) {
+        ps.setLong(index++, before.getTime());
+        ps.setLong(index++, before.getTime());
+        ps.setLong(index++, before.getId());
+      }
+      ps.setInt(index, limit);
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          entries.add(readEntry(rs));
+        }
+      }
+    }
+    return entries;
+  }
+
+  @Override
+  public List<LedgerEntry> keyed(long sinceMillis) throws SQLException {
+    String sql = String.format("""
+            SELECT Id, Time, UUID, Counterparty, Type, Currency, Amount, Absolute, IdempotencyKey FROM `%s`
+            WHERE Time >= ? AND IdempotencyKey IS NOT NULL
+            ORDER BY Time, Id
+            """, tableName);
+    List<LedgerEntry> entries = new ArrayList<>();
+    try (Connection conn = dataSource.getConnection();
+         PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setLong(1, sinceMillis);
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          entries.add(readEntry(rs));
+        }
+      }
+    }
+    return entries;
+  }
+
+  private static LedgerEntry readEntry(ResultSet rs) throws SQLException {
+    CurrencyType currency = CurrencyType.valueOf(rs.getString("Currency"));
+    BigDecimal amount = rs.getBigDecimal("Amount");
+    String counterparty = rs.getString("Counterparty");
+    return new LedgerEntry(rs.getLong("Id"), rs.getLong("Time"), UUID.fromString(rs.getString("UUID")),
+            counterparty != null ? UUID.fromString(counterparty) : null,
+            TransactionType.valueOf(rs.getString("Type")), currency,
+            currency == CurrencyType.CASH ? amount.longValue() : MoneyUnits.toUnits(amount),
+            rs.getBoolean("Absolute"), rs.getString("IdempotencyKey"));
+  }
+
+  @Override
+  public int prune(long olderThanMillis) throws SQLException {
+    // Em blocos para não segurar locks de uma vez em tabelas grandes
+    String sql = String.format("DELETE FROM `%s` WHERE Time < ? LIMIT %d", tableName, PRUNE_CHUNK_SIZE);
+    int total = 0;
+    try (Connection conn = dataSource.getConnection();
+         PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setLong(1, olderThanMillis);
+      int deleted;
+      do {
+        deleted = ps.executeUpdate();
+        total += deleted;
+      } while (deleted == PRUNE_CHUNK_SIZE);
+    }
+    return total;
+  }
+
+  @Override
+  public void close() {
+    // O pool é o MySQLConnectionPool compartilhado
+  }
+}
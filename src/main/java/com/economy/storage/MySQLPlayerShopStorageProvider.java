@@ -2,30 +2,37 @@ package com.economy.storage;
 
 import com.economy.Main;
 import com.economy.config.EconomyConfig;
+import com.economy.files.PlayerShopBlockingFile;
 import com.economy.playershop.PlayerShopItem;
 import com.economy.playershop.PlayerShopPlayer;
 import com.economy.playershop.PlayerShopTracker;
 import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
 import com.google.gson.reflect.TypeToken;
 import com.hypixel.hytale.logger.HytaleLogger;
-import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
 import javax.annotation.Nonnull;
+import java.io.IOException;
 import java.lang.reflect.Type;
+import java.nio.file.Path;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 
 /**
  * HikariCP-based MariaDB storage provider for PlayerShop data.
  * <p>
- * Stores player shop info and items in MariaDB database using HikariCP connection pool.
+ * Stores player shop info and items in MariaDB database using the shared {@link MySQLConnectionPool}.
  * Database: theeconomy
  * Tables: {tablePrefix}_info and {tablePrefix}_items
  * <p>
@@ -49,27 +56,41 @@ import java.util.logging.Level;
  *
  * @author EconomySystem
  */
-public class MySQLPlayerShopStorageProvider {
+public class MySQLPlayerShopStorageProvider implements PlayerShopStorageProvider, JsonMigrationTarget {
 
   private static final HytaleLogger LOGGER = HytaleLogger.getLogger().getSubLogger("EconomySystem-MySQL-PlayerShop");
   private static final Gson GSON = new Gson();
   private static final Type LIST_STRING_TYPE = new TypeToken<List<String>>() {
   }.getType();
 
-  private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
-    Thread t = new Thread(r, "EconomySystem-MySQL-PlayerShop-IO");
-    t.setDaemon(true);
-    return t;
-  });
+  // Chave da fila de IO das operações que não são de um dono ou item (carga inicial, shutdown)
+  private static final String IO_KEY = "playershop";
+
+  // Pool e threads de IO compartilhados com os outros providers. As operações de um dono (info e abas)
+  // ficam na fila do UUID dele e as de um item na fila do UniqueId, então cada uma roda na ordem
+  private final MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
+  // Compartilhado com os outros providers: falhas de conexão abrem o circuito e as operações falham na hora
+  private final MySQLCircuitBreaker breaker = MySQLCircuitBreaker.getInstance();
 
   private HikariDataSource dataSource;
+  private boolean acquired;
+  private JsonMigration migration;
   private String infoTableName;
   private String itemsTableName;
   private String host;
   private int port;
   private String database;
 
+  @Override
+  public String getName() {
+    return "MySQL";
+  }
+
+  @Override
   public CompletableFuture<Void> initialize() {
+    // O pool compartilhado conecta em segundo plano; as tabelas são criadas na fila de IO
+    dataSource = pool.acquire();
+    acquired = true;
     return CompletableFuture.runAsync(() -> {
       try {
         EconomyConfig config = Main.CONFIG.get();
@@ -77,66 +98,16 @@ public class MySQLPlayerShopStorageProvider {
         this.host = config.getMySQLHost();
         this.port = config.getMySQLPort();
         this.database = config.getMySQLDatabaseName(); // Configurable database name
-        String username = config.getMySQLUser();
-        String password = config.getMySQLPassword();
         String tablePrefix = config.getMySQLPlayerShopTableName();
 
         // Set table names
         infoTableName = tablePrefix + "_info";
         itemsTableName = tablePrefix + "_items";
 
-        // Configure HikariCP for MariaDB
-        HikariConfig hikariConfig = new HikariConfig();
-
-        // JDBC URL for MariaDB
-        String jdbcUrl = String.format("jdbc:mariadb://%s:%d/%s?useSSL=false&allowPublicKeyRetrieval=true",
-                host, port, database);
-        hikariConfig.setDriverClassName("org.mariadb.jdbc.Driver");
-        hikariConfig.setJdbcUrl(jdbcUrl);
-        hikariConfig.setUsername(username);
-        hikariConfig.setPassword(password);
-
-        // Pool settings
-        hikariConfig.setPoolName("EconomyPlayerShopPool");
-        hikariConfig.setMaximumPoolSize(10);
-        hikariConfig.setMinimumIdle(2); // Reduced from 5 to avoid connection overhead
-
-        // Timeouts (in milliseconds)
-        hikariConfig.setConnectionTimeout(10000);     // 10 seconds (reduced from 30)
-        hikariConfig.setIdleTimeout(300000);          // 5 minutes (reduced from 10)
-        hikariConfig.setMaxLifetime(1800000);         // 30 minutes
-        hikariConfig.setValidationTimeout(3000);      // 3 seconds (reduced from 5)
-        hikariConfig.setKeepaliveTime(60000);         // 1 minute (reduced from 2)
-
-        // Connection behavior
-        hikariConfig.setAutoCommit(true);
-        hikariConfig.setConnectionInitSql("SET NAMES utf8mb4");
-
-        // Connection test query to ensure connections are valid
-        hikariConfig.setConnectionTestQuery("SELECT 1");
-
-        // Leak detection (logs warning if connection not returned within threshold)
-        hikariConfig.setLeakDetectionThreshold(30000); // 30 seconds (reduced from 60)
-
-        // Allow pool suspension on initialization failure
-        hikariConfig.setInitializationFailTimeout(-1); // Don't fail fast, keep retrying
-
-        // MariaDB-specific optimizations
-        hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
-        hikariConfig.addDataSourceProperty("prepStmtCacheSize", "250");
-        hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
-        hikariConfig.addDataSourceProperty("useServerPrepStmts", "true");
-        hikariConfig.addDataSourceProperty("useLocalSessionState", "true");
-        hikariConfig.addDataSourceProperty("rewriteBatchedStatements", "true");
-        hikariConfig.addDataSourceProperty("cacheResultSetMetadata", "true");
-        hikariConfig.addDataSourceProperty("cacheServerConfiguration", "true");
-        hikariConfig.addDataSourceProperty("maintainTimeStats", "false");
-
-        // Create HikariCP DataSource
-        dataSource = new HikariDataSource(hikariConfig);
-
         // Create tables
         createTables();
+        migration = new JsonMigration(dataSource, tablePrefix + "_migration", config.getMySQLMigrationBatchSize());
+        migration.createTable();
 
         // Connection established - will log after data is loaded
 
@@ -144,7 +115,11 @@ public class MySQLPlayerShopStorageProvider {
         LOGGER.at(Level.SEVERE).log("Failed to connect to MariaDB for PlayerShop: %s", e.getMessage());
         throw new RuntimeException("MariaDB connection failed", e);
       }
-    }, executor);
+    }, io(IO_KEY));
+  }
+
+  private Executor io(@Nonnull Object key) {
+    return pool.executor(key);
   }
 
   private void createTables() throws SQLException {
@@ -205,46 +180,22 @@ public class MySQLPlayerShopStorageProvider {
     }
   }
 
+  @Override
+  public CompletableFuture<PlayerShopTracker> loadShops() {
+    PlayerShopTracker tracker = new PlayerShopTracker();
+    return loadShopData(tracker).thenApply(ignored -> tracker);
+  }
+
   public CompletableFuture<Void> loadShopData(@Nonnull PlayerShopTracker tracker) {
     return CompletableFuture.runAsync(() -> {
-      try (Connection conn = dataSource.getConnection()) {
+      try (Connection conn = breaker.connect(dataSource)) {
         // Load all player shop info
         String infoSql = String.format("SELECT UUID, NickName, CustomName, ShopIcon, isOpen, Tabs FROM `%s`",
                 infoTableName);
         try (Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(infoSql)) {
           while (rs.next()) {
-            UUID uuid = UUID.fromString(rs.getString("UUID"));
-            String nickname = rs.getString("NickName");
-            String customName = rs.getString("CustomName");
-            String shopIcon = rs.getString("ShopIcon");
-            boolean isOpen = rs.getBoolean("isOpen");
-            String tabsJson = rs.getString("Tabs");
-
-            // Create or update player
-            PlayerShopPlayer player = new PlayerShopPlayer(uuid, nickname != null ? nickname : "");
-            player.setCustomName(customName != null ? customName : "");
-            player.setShopIcon(shopIcon != null ? shopIcon : "");
-            tracker.getPlayers().put(uuid, player);
-
-            // Set shop open status
-            tracker.setShopOpen(uuid, isOpen);
-
-            // Load tabs from JSON
-            if (tabsJson != null && !tabsJson.isEmpty() && !tabsJson.equals("[]")) {
-              try {
-                List<String> tabs = GSON.fromJson(tabsJson, LIST_STRING_TYPE);
-                if (tabs != null) {
-                  for (String tab : tabs) {
-                    if (tab != null && !tab.isEmpty()) {
-                      tracker.addTab(uuid, tab);
-                    }
-                  }
-                }
-              } catch (Exception e) {
-                LOGGER.at(Level.WARNING).log("Failed to parse tabs JSON for player %s: %s", uuid, e.getMessage());
-              }
-            }
+            readPlayerInfo(rs, tracker);
           }
         }
 
@@ -257,39 +208,15 @@ public class MySQLPlayerShopStorageProvider {
         try (Statement stmt = conn.createStatement();
              ResultSet rs = stmt.executeQuery(itemsSql)) {
           while (rs.next()) {
-            int uniqueId = rs.getInt("UniqueId");
-            String itemId = rs.getString("ItemId");
-            double priceBuy = rs.getDouble("PriceBuy");
-            double priceSell = rs.getDouble("PriceSell");
-            double durability = rs.getDouble("Durability");
-            double maxDurability = 0.0;
-            try {
-              maxDurability = rs.getDouble("MaxDurability");
-            } catch (SQLException e) {
-              // Coluna não existe ainda, mantém 0.0
-            }
-            int stock = rs.getInt("Stock");
-            String tab = rs.getString("Tab");
-            UUID ownerUuid = UUID.fromString(rs.getString("OwnerUuid"));
+            PlayerShopItem item = readItem(rs);
 
             // Track the maximum UniqueId to sync nextUniqueId
-            if (uniqueId > maxUniqueId) {
-              maxUniqueId = uniqueId;
+            if (item.getUniqueId() > maxUniqueId) {
+              maxUniqueId = item.getUniqueId();
             }
 
-            // Note: Quantity is stored as Stock in items table, but we'll use default quantity of 1
             // IMPORTANTE: Não usa tracker.addItem() porque isso incrementa nextUniqueId
             // Em vez disso, adiciona diretamente à lista e define o UniqueId manualmente
-            PlayerShopItem item = new PlayerShopItem(uniqueId,
-                    itemId,
-                    1,
-                    priceBuy,
-                    priceSell,
-                    ownerUuid,
-                    durability,
-                    maxDurability,
-                    stock,
-                    tab != null ? tab : "");
             tracker.getItems().add(item);
           }
         }
@@ -310,27 +237,133 @@ public class MySQLPlayerShopStorageProvider {
       } catch (SQLException e) {
         LOGGER.at(Level.SEVERE).log("Failed to load PlayerShop data from MySQL: %s", e.getMessage());
       }
-    }, executor);
+    }, io(IO_KEY));
   }
 
-  public CompletableFuture<PlayerShopItem> addItem(@Nonnull PlayerShopItem item) {
+  /**
+   * Carrega só a loja de um jogador (info, tabs e itens) em um tracker separado.
+   * Usado para aplicar alterações feitas por outros servidores sem recarregar todas as lojas.
+   */
+  @Override
+  public CompletableFuture<PlayerShopTracker> loadOwnerShop(@Nonnull UUID ownerUuid) {
     return CompletableFuture.supplyAsync(() -> {
-      try (Connection conn = dataSource.getConnection()) {
-        // Don't include UniqueId in INSERT - let MySQL AUTO_INCREMENT handle it
-        String sql = String.format("""
-                INSERT INTO `%s` (ItemId, PriceBuy, PriceSell, Durability, MaxDurability, Stock, Tab, OwnerUuid)
-                VALUES (?, ?, ?, ?, ?, ?, ?, ?)
-                """, itemsTableName);
+      PlayerShopTracker ownerTracker = new PlayerShopTracker();
+      try (Connection conn = breaker.connect(dataSource)) {
+        String infoSql = String.format("SELECT UUID, NickName, CustomName, ShopIcon, isOpen, Tabs FROM `%s` WHERE UUID = ?",
+                infoTableName);
+        try (PreparedStatement ps = conn.prepareStatement(infoSql)) {
+          ps.setString(1, ownerUuid.toString());
+          try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+              readPlayerInfo(rs, ownerTracker);
+            }
+          }
+        }
 
-        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-          ps.setString(1, item.getItemId());
-          ps.setDouble(2, item.getPriceBuy());
-          ps.setDouble(3, item.getPriceSell());
-          ps.setDouble(4, item.getDurability());
-          ps.setDouble(5, item.getMaxDurability());
-          ps.setInt(6, item.getStock());
-          ps.setString(7, item.getTab() != null ? item.getTab() : "");
-          ps.setString(8, item.getOwnerUuid().toString());
+        String itemsSql = String.format(
+                "SELECT UniqueId, ItemId, PriceBuy, PriceSell, Durability, MaxDurability, Stock, Tab, OwnerUuid FROM " +
+                        "`%s` WHERE OwnerUuid = ? ORDER BY UniqueId",
+                itemsTableName);
+        try (PreparedStatement ps = conn.prepareStatement(itemsSql)) {
+          ps.setString(1, ownerUuid.toString());
+          try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+              ownerTracker.getItems().add(readItem(rs));
+            }
+          }
+        }
+        return ownerTracker;
+      } catch (SQLException e) {
+        LOGGER.at(Level.SEVERE).log("Failed to load PlayerShop of %s from MySQL: %s", ownerUuid, e.getMessage());
+        throw new RuntimeException("Failed to load player shop", e);
+      }
+    }, io(ownerUuid));
+  }
+
+  private static void readPlayerInfo(ResultSet rs, PlayerShopTracker tracker) throws SQLException {
+    UUID uuid = UUID.fromString(rs.getString("UUID"));
+    String nickname = rs.getString("NickName");
+    String customName = rs.getString("CustomName");
+    String shopIcon = rs.getString("ShopIcon");
+    boolean isOpen = rs.getBoolean("isOpen");
+    String tabsJson = rs.getString("Tabs");
+
+    // Create or update player
+    PlayerShopPlayer player = new PlayerShopPlayer(uuid, nickname != null ? nickname : "");
+    player.setCustomName(customName != null ? customName : "");
+    player.setShopIcon(shopIcon != null ? shopIcon : "");
+    tracker.getPlayers().put(uuid, player);
+
+    // Set shop open status
+    tracker.setShopOpen(uuid, isOpen);
+
+    // Load tabs from JSON
+    if (tabsJson != null && !tabsJson.isEmpty() && !tabsJson.equals("[]")) {
+      try {
+        List<String> tabs = GSON.fromJson(tabsJson, LIST_STRING_TYPE);
+        if (tabs != null) {
+          for (String tab : tabs) {
+            if (tab != null && !tab.isEmpty()) {
+              tracker.addTab(uuid, tab);
+            }
+          }
+        }
+      } catch (Exception e) {
+        LOGGER.at(Level.WARNING).log("Failed to parse tabs JSON for player %s: %s", uuid, e.getMessage());
+      }
+    }
+  }
+
+  private static PlayerShopItem readItem(ResultSet rs) throws SQLException {
+    int uniqueId = rs.getInt("UniqueId");
+    String itemId = rs.getString("ItemId");
+    double priceBuy = rs.getDouble("PriceBuy");
+    double priceSell = rs.getDouble("PriceSell");
+    double durability = rs.getDouble("Durability");
+    double maxDurability = 0.0;
+    try {
+      maxDurability = rs.getDouble("MaxDurability");
+    } catch (SQLException e) {
+      // Coluna não existe ainda, mantém 0.0
+    }
+    int stock = rs.getInt("Stock");
+    String tab = rs.getString("Tab");
+    UUID ownerUuid = UUID.fromString(rs.getString("OwnerUuid"));
+
+    // Note: Quantity is stored as Stock in items table, but we'll use default quantity of 1
+    return new PlayerShopItem(uniqueId,
+            itemId,
+            1,
+            priceBuy,
+            priceSell,
+            ownerUuid,
+            durability,
+            maxDurability,
+            stock,
+            tab != null ? tab : "");
+  }
+
+  /**
+   * Insere o item e só então o adiciona ao tracker, com o UniqueId gerado pelo AUTO_INCREMENT
+   */
+  @Override
+  public CompletableFuture<PlayerShopItem> addItem(@Nonnull PlayerShopTracker tracker, @Nonnull PlayerShopItem item) {
+    return addItem(item).thenApply(added -> {
+      // IMPORTANTE: Não usa tracker.addItem() porque isso incrementa nextUniqueId
+      tracker.getItems().add(added);
+      // Sincroniza o nextUniqueId com o ID gerado pelo MySQL + 1
+      if (added.getUniqueId() >= tracker.getNextUniqueId()) {
+        tracker.setNextUniqueId(added.getUniqueId() + 1);
+      }
+      return added;
+    });
+  }
+
+  public CompletableFuture<PlayerShopItem> addItem(@Nonnull PlayerShopItem item) {
+    return CompletableFuture.supplyAsync(() -> {
+      try (Connection conn = breaker.connect(dataSource)) {
+        try (PreparedStatement ps = conn.prepareStatement(insertItemSql(), Statement.RETURN_GENERATED_KEYS)) {
+          bindItem(ps, item);
           ps.executeUpdate();
 
           // Get the generated UniqueId
@@ -341,29 +374,52 @@ public class MySQLPlayerShopStorageProvider {
             }
           }
         }
+        ChangeFeed.getInstance().recordQuietly(conn, ChangeFeed.PLAYER_SHOP, item.getOwnerUuid().toString());
 
         return item;
       } catch (SQLException e) {
         LOGGER.at(Level.SEVERE).log("Failed to add item to MySQL: %s", e.getMessage());
         throw new RuntimeException("Failed to add item", e);
       }
-    }, executor);
+    }, io(item.getOwnerUuid()));
+  }
+
+  private String insertItemSql() {
+    // Don't include UniqueId in INSERT - let MySQL AUTO_INCREMENT handle it
+    return String.format("""
+            INSERT INTO `%s` (ItemId, PriceBuy, PriceSell, Durability, MaxDurability, Stock, Tab, OwnerUuid)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            """, itemsTableName);
   }
 
+  private static void bindItem(PreparedStatement ps, PlayerShopItem item) throws SQLException {
+    ps.setString(1, item.getItemId());
+    ps.setDouble(2, item.getPriceBuy());
+    ps.setDouble(3, item.getPriceSell());
+    ps.setDouble(4, item.getDurability());
+    ps.setDouble(5, item.getMaxDurability());
+    ps.setInt(6, item.getStock());
+    ps.setString(7, item.getTab() != null ? item.getTab() : "");
+    ps.setString(8, item.getOwnerUuid().toString());
+  }
+
+  @Override
   public CompletableFuture<Boolean> removeItem(int uniqueId) {
-    return CompletableFuture.supplyAsync(() -> {
-      try (Connection conn = dataSource.getConnection()) {
-        // Primeiro verifica se o item existe
-        String checkSql = String.format("SELECT UniqueId FROM `%s` WHERE UniqueId = ?", itemsTableName);
-        boolean itemExists = false;
+    return breaker.retry("player shop remove item", io(uniqueId), () -> {
+      try (Connection conn = breaker.connect(dataSource)) {
+        // Primeiro verifica se o item existe (o dono identifica a loja no feed de alterações)
+        String checkSql = String.format("SELECT OwnerUuid FROM `%s` WHERE UniqueId = ?", itemsTableName);
+        String ownerUuid = null;
         try (PreparedStatement checkPs = conn.prepareStatement(checkSql)) {
           checkPs.setInt(1, uniqueId);
           try (ResultSet rs = checkPs.executeQuery()) {
-            itemExists = rs.next();
+            if (rs.next()) {
+              ownerUuid = rs.getString("OwnerUuid");
+            }
           }
         }
 
-        if (!itemExists) {
+        if (ownerUuid == null) {
           return true; // Item não existe, objetivo alcançado
         }
 
@@ -372,18 +428,22 @@ public class MySQLPlayerShopStorageProvider {
         try (PreparedStatement ps = conn.prepareStatement(sql)) {
           ps.setInt(1, uniqueId);
           int rowsAffected = ps.executeUpdate();
+          if (rowsAffected > 0) {
+            ChangeFeed.getInstance().recordQuietly(conn, ChangeFeed.PLAYER_SHOP, ownerUuid);
+          }
           return rowsAffected > 0;
         }
-      } catch (SQLException e) {
-        LOGGER.at(Level.SEVERE).log("Failed to remove item from MySQL: %s", e.getMessage());
-        return false;
       }
-    }, executor);
+    }).exceptionally(e -> {
+      LOGGER.at(Level.SEVERE).log("Failed to remove item from MySQL: %s", e.getMessage());
+      return false;
+    });
   }
 
+  @Override
   public CompletableFuture<Boolean> updateItem(@Nonnull PlayerShopItem item) {
-    return CompletableFuture.supplyAsync(() -> {
-      try (Connection conn = dataSource.getConnection()) {
+    return breaker.retry("player shop update item", io(item.getUniqueId()), () -> {
+      try (Connection conn = breaker.connect(dataSource)) {
         String sql = String.format("""
                 UPDATE `%s` 
                 SET ItemId = ?, PriceBuy = ?, PriceSell = ?, Durability = ?, MaxDurability = ?, Stock = ?, Tab = ?
@@ -400,100 +460,149 @@ public class MySQLPlayerShopStorageProvider {
           ps.setString(7, item.getTab() != null ? item.getTab() : "");
           ps.setInt(8, item.getUniqueId());
           int rowsAffected = ps.executeUpdate();
+          if (rowsAffected > 0 && item.getOwnerUuid() != null) {
+            ChangeFeed.getInstance().recordQuietly(conn, ChangeFeed.PLAYER_SHOP, item.getOwnerUuid().toString());
+          }
           return rowsAffected > 0;
         }
-      } catch (SQLException e) {
-        LOGGER.at(Level.SEVERE).log("Failed to update item in MySQL: %s", e.getMessage());
-        return false;
       }
-    }, executor);
+    }).exceptionally(e -> {
+      LOGGER.at(Level.SEVERE).log("Failed to update item in MySQL: %s", e.getMessage());
+      return false;
+    });
   }
 
+  @Override
   public CompletableFuture<Void> savePlayerInfo(@Nonnull UUID uuid,
                                                 @Nonnull PlayerShopPlayer player,
                                                 boolean isOpen,
                                                 @Nonnull List<String> tabs) {
-    return CompletableFuture.runAsync(() -> {
-      savePlayerInfoSync(uuid, player, isOpen, tabs);
-    }, executor);
+    return breaker.<Void>retry("player shop save info", io(uuid), () -> {
+      writePlayerInfo(uuid, player, isOpen, tabs);
+      return null;
+    }).exceptionally(e -> {
+      LOGGER.at(Level.SEVERE).log("Failed to save player info to MySQL: %s", e.getMessage());
+      return null;
+    });
   }
 
   /**
-   * Salva informações do jogador de forma síncrona (usado durante shutdown)
+   * Grava as informações de todas as lojas em um único lote e transação. Roda na thread de quem chama
+   * (usado durante shutdown e reload, quando as filas de IO podem já estar encerradas)
    */
-  public void savePlayerInfoSync(@Nonnull UUID uuid,
-                                 @Nonnull PlayerShopPlayer player,
-                                 boolean isOpen,
-                                 @Nonnull List<String> tabs) {
+  @Override
+  public CompletableFuture<Void> savePlayers(@Nonnull PlayerShopTracker tracker) {
     // Verifica se a conexão está disponível antes de tentar salvar
     if (dataSource == null || dataSource.isClosed()) {
-      LOGGER.at(Level.WARNING).log("Cannot save player info for %s: HikariCP DataSource is closed", uuid);
-      return;
+      LOGGER.at(Level.WARNING).log("Cannot save player shop info: HikariCP DataSource is closed");
+      return CompletableFuture.completedFuture(null);
     }
 
-    try (Connection conn = dataSource.getConnection()) {
-      String tabsJson = GSON.toJson(tabs);
+    Map<UUID, PlayerShopPlayer> players = new LinkedHashMap<>();
+    for (PlayerShopPlayer player : tracker.getAllPlayers()) {
+      if (player.getUuid() != null) {
+        players.put(player.getUuid(), player);
+      }
+    }
+    if (players.isEmpty()) {
+      return CompletableFuture.completedFuture(null);
+    }
 
-      String sql = String.format("""
-              INSERT INTO `%s` (UUID, NickName, CustomName, ShopIcon, isOpen, Tabs)
-              VALUES (?, ?, ?, ?, ?, ?)
-              ON DUPLICATE KEY UPDATE
-                  NickName = VALUES(NickName),
-                  CustomName = VALUES(CustomName),
-                  ShopIcon = VALUES(ShopIcon),
-                  isOpen = VALUES(isOpen),
-                  Tabs = VALUES(Tabs)
-              """, infoTableName);
+    try (Connection conn = breaker.connect(dataSource)) {
+      conn.setAutoCommit(false);
+      try (PreparedStatement ps = conn.prepareStatement(upsertInfoSql())) {
+        List<String> keys = new ArrayList<>(players.size());
+        for (Map.Entry<UUID, PlayerShopPlayer> entry : players.entrySet()) {
+          UUID uuid = entry.getKey();
+          bindPlayerInfo(ps, uuid, entry.getValue(), tracker.isShopOpen(uuid), tracker.getTabs(uuid));
+          ps.addBatch();
+          keys.add(uuid.toString());
+        }
+        ps.executeBatch();
+        ChangeFeed.getInstance().record(conn, ChangeFeed.PLAYER_SHOP, keys);
+        conn.commit();
+      } catch (SQLException e) {
+        conn.rollback();
+        throw e;
+      } finally {
+        conn.setAutoCommit(true);
+      }
+      return CompletableFuture.completedFuture(null);
+    } catch (SQLException e) {
+      LOGGER.at(Level.SEVERE).log("Failed to save player shop info to MySQL: %s", e.getMessage());
+      return CompletableFuture.failedFuture(e);
+    }
+  }
 
-      try (PreparedStatement ps = conn.prepareStatement(sql)) {
-        ps.setString(1, uuid.toString());
-        ps.setString(2, player.getNick() != null ? player.getNick() : "");
-        ps.setString(3, player.getCustomName() != null ? player.getCustomName() : "");
-        ps.setString(4, player.getShopIcon() != null ? player.getShopIcon() : "");
-        ps.setBoolean(5, isOpen);
-        ps.setString(6, tabsJson);
+  private void writePlayerInfo(UUID uuid, PlayerShopPlayer player, boolean isOpen, List<String> tabs)
+          throws SQLException {
+    try (Connection conn = breaker.connect(dataSource)) {
+      try (PreparedStatement ps = conn.prepareStatement(upsertInfoSql())) {
+        bindPlayerInfo(ps, uuid, player, isOpen, tabs);
         ps.executeUpdate();
       }
-    } catch (SQLException e) {
-      LOGGER.at(Level.SEVERE).log("Failed to save player info to MySQL: %s", e.getMessage());
+      ChangeFeed.getInstance().recordQuietly(conn, ChangeFeed.PLAYER_SHOP, uuid.toString());
     }
   }
 
+  private String upsertInfoSql() {
+    return String.format("""
+            INSERT INTO `%s` (UUID, NickName, CustomName, ShopIcon, isOpen, Tabs)
+            VALUES (?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                NickName = VALUES(NickName),
+                CustomName = VALUES(CustomName),
+                ShopIcon = VALUES(ShopIcon),
+                isOpen = VALUES(isOpen),
+                Tabs = VALUES(Tabs)
+            """, infoTableName);
+  }
+
+  private static void bindPlayerInfo(PreparedStatement ps, UUID uuid, PlayerShopPlayer player, boolean isOpen,
+                                     List<String> tabs) throws SQLException {
+    ps.setString(1, uuid.toString());
+    ps.setString(2, player.getNick() != null ? player.getNick() : "");
+    ps.setString(3, player.getCustomName() != null ? player.getCustomName() : "");
+    ps.setString(4, player.getShopIcon() != null ? player.getShopIcon() : "");
+    ps.setBoolean(5, isOpen);
+    ps.setString(6, GSON.toJson(tabs));
+  }
+
+  @Override
   public CompletableFuture<Void> createTab(@Nonnull UUID ownerUuid, @Nonnull String tabName) {
-    return CompletableFuture.runAsync(() -> {
-      try {
-        // Load current tabs
-        List<String> tabs = loadTabs(ownerUuid);
-        if (!tabs.contains(tabName)) {
-          tabs.add(tabName);
-          saveTabs(ownerUuid, tabs);
-        }
-      } catch (SQLException e) {
+    return breaker.<Void>retry("player shop create tab", io(ownerUuid), () -> {
+      // Load current tabs
+      List<String> tabs = loadTabs(ownerUuid);
+      if (!tabs.contains(tabName)) {
+        tabs.add(tabName);
+        saveTabs(ownerUuid, tabs);
+      }
+      return null;
+    }).whenComplete((ignored, e) -> {
+      if (e != null) {
         LOGGER.at(Level.SEVERE).log("Failed to create tab in MySQL: %s", e.getMessage());
-        throw new RuntimeException("Failed to create tab", e);
       }
-    }, executor);
+    });
   }
 
+  @Override
   public CompletableFuture<Boolean> removeTab(@Nonnull UUID ownerUuid, @Nonnull String tabName) {
-    return CompletableFuture.supplyAsync(() -> {
-      try {
-        // Load current tabs
-        List<String> tabs = loadTabs(ownerUuid);
-        if (tabs.remove(tabName)) {
-          saveTabs(ownerUuid, tabs);
-          return true;
-        }
-        return false;
-      } catch (SQLException e) {
-        LOGGER.at(Level.SEVERE).log("Failed to remove tab from MySQL: %s", e.getMessage());
-        return false;
+    return breaker.retry("player shop remove tab", io(ownerUuid), () -> {
+      // Load current tabs
+      List<String> tabs = loadTabs(ownerUuid);
+      if (tabs.remove(tabName)) {
+        saveTabs(ownerUuid, tabs);
+        return true;
       }
-    }, executor);
+      return false;
+    }).exceptionally(e -> {
+      LOGGER.at(Level.SEVERE).log("Failed to remove tab from MySQL: %s", e.getMessage());
+      return false;
+    });
   }
 
   private List<String> loadTabs(UUID ownerUuid) throws SQLException {
-    try (Connection conn = dataSource.getConnection()) {
+    try (Connection conn = breaker.connect(dataSource)) {
       String sql = String.format("SELECT Tabs FROM `%s` WHERE UUID = ?", infoTableName);
       try (PreparedStatement ps = conn.prepareStatement(sql)) {
         ps.setString(1, ownerUuid.toString());
@@ -518,7 +627,7 @@ public class MySQLPlayerShopStorageProvider {
   }
 
   private void saveTabs(UUID ownerUuid, List<String> tabs) throws SQLException {
-    try (Connection conn = dataSource.getConnection()) {
+    try (Connection conn = breaker.connect(dataSource)) {
       String tabsJson = GSON.toJson(tabs);
       String sql = String.format("UPDATE `%s` SET Tabs = ? WHERE UUID = ?", infoTableName);
       try (PreparedStatement ps = conn.prepareStatement(sql)) {
@@ -526,25 +635,108 @@ public class MySQLPlayerShopStorageProvider {
         ps.setString(2, ownerUuid.toString());
         ps.executeUpdate();
       }
+      ChangeFeed.getInstance().recordQuietly(conn, ChangeFeed.PLAYER_SHOP, ownerUuid.toString());
     }
   }
 
-  public CompletableFuture<Void> shutdown() {
-    return CompletableFuture.runAsync(this::shutdownSync, executor);
+  /**
+   * Migra as lojas do PlayerShop.json (formato atual "Shops" e o antigo "Players"/"Items") em lotes de
+   * MySQLMigrationBatchSize entradas, continuando do checkpoint se uma migração anterior foi interrompida
+   */
+  @Override
+  public JsonMigration.Result migrateFromJson(@Nonnull Path file) throws IOException, SQLException {
+    return migration.migrate(file, migrationSteps());
+  }
+
+  /**
+   * @return true se uma migração do arquivo foi interrompida e deve continuar
+   */
+  @Override
+  public boolean hasPendingMigration(@Nonnull Path file) throws IOException, SQLException {
+    return migration.hasPending(file, migrationSteps());
+  }
+
+  private List<JsonMigration.Step> migrationSteps() {
+    List<String> shopStatements = List.of(upsertInfoSql(), insertItemSql());
+    // Formato atual: cada loja tem as informações do dono, as tabs e os itens
+    JsonMigration.Step shops = new JsonMigration.Step("Shops", shopStatements, (element, statements) -> {
+      JsonObject shopObj = element.getAsJsonObject();
+      UUID uuid = UUID.fromString(shopObj.get("uuid").getAsString());
+      PlayerShopPlayer player = new PlayerShopPlayer(uuid, shopObj.has("nick") ? shopObj.get("nick").getAsString() : "");
+      player.setCustomName(shopObj.has("customName") ? shopObj.get("customName").getAsString() : "");
+      player.setShopIcon(shopObj.has("shopIcon") ? shopObj.get("shopIcon").getAsString() : "");
+      boolean isOpen = shopObj.has("isOpen") && shopObj.get("isOpen").getAsBoolean();
+      List<String> tabs = new ArrayList<>();
+      if (shopObj.has("Tabs")) {
+        for (JsonElement tab : shopObj.getAsJsonArray("Tabs")) {
+          if (tab.isJsonPrimitive() && !tab.getAsString().isEmpty()) {
+            tabs.add(tab.getAsString());
+          }
+        }
+      }
+      List<PlayerShopItem> items = new ArrayList<>();
+      if (shopObj.has("Items")) {
+        for (JsonElement item : shopObj.getAsJsonArray("Items")) {
+          items.add(PlayerShopBlockingFile.parseItem(item.getAsJsonObject(), uuid));
+        }
+      }
+
+      bindPlayerInfo(statements[0], uuid, player, isOpen, tabs);
+      statements[0].addBatch();
+      for (PlayerShopItem item : items) {
+        bindItem(statements[1], item);
+        statements[1].addBatch();
+      }
+      return 1 + items.size();
+    });
+    // Formato antigo: jogadores e itens em arrays separados
+    JsonMigration.Step players = new JsonMigration.Step("Players", List.of(upsertInfoSql()), (element, statements) -> {
+      JsonObject playerObj = element.getAsJsonObject();
+      UUID uuid = UUID.fromString(playerObj.get("Uuid").getAsString());
+      PlayerShopPlayer player = new PlayerShopPlayer(uuid, playerObj.has("Nick") ? playerObj.get("Nick").getAsString() : "");
+      bindPlayerInfo(statements[0], uuid, player, false, List.of());
+      statements[0].addBatch();
+      return 1;
+    });
+    JsonMigration.Step items = new JsonMigration.Step("Items", List.of(insertItemSql()), (element, statements) -> {
+      PlayerShopItem item = PlayerShopBlockingFile.parseItem(element.getAsJsonObject(), null);
+      if (item.getOwnerUuid() == null) {
+        throw new IllegalArgumentException("item " + item.getUniqueId() + " has no owner");
+      }
+      bindItem(statements[0], item);
+      statements[0].addBatch();
+      return 1;
+    });
+    return List.of(shops, players, items);
+  }
+
+  /**
+   * Cada operação já é gravada quando acontece
+   */
+  @Override
+  public CompletableFuture<Void> flush() {
+    return CompletableFuture.completedFuture(null);
+  }
+
+  @Override
+  public void onRemoteChange(@Nonnull Consumer<Set<String>> handler) {
+    ChangeFeed.getInstance().register(ChangeFeed.PLAYER_SHOP, handler);
   }
 
   /**
    * Shutdown síncrono (usado durante reload para evitar RejectedExecutionException)
    */
+  @Override
   public void shutdownSync() {
     try {
-      if (dataSource != null && !dataSource.isClosed()) {
-        dataSource.close();
+      // O pool só fecha quando o último provider o libera
+      if (acquired) {
+        acquired = false;
+        pool.release();
       }
-      executor.shutdown();
-      LOGGER.at(Level.INFO).log("MySQL PlayerShop HikariCP pool closed");
+      LOGGER.at(Level.INFO).log("MySQL PlayerShop storage closed");
     } catch (Exception e) {
-      LOGGER.at(Level.WARNING).log("Error closing MySQL PlayerShop HikariCP pool: %s", e.getMessage());
+      LOGGER.at(Level.WARNING).log("Error closing MySQL PlayerShop storage: %s", e.getMessage());
     }
   }
 }
@@ -2,23 +2,27 @@ package com.economy.storage;
 
 import com.economy.Main;
 import com.economy.config.EconomyConfig;
+import com.economy.files.ShopBlockingFile;
 import com.economy.shop.ShopItem;
 import com.economy.shop.ShopTracker;
 import com.hypixel.hytale.logger.HytaleLogger;
-import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
 import javax.annotation.Nonnull;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.sql.*;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 import java.util.logging.Level;
 
 /**
  * HikariCP-based MariaDB storage provider for AdminShop data.
  * <p>
- * Stores shop items and tabs in MariaDB database using HikariCP connection pool.
+ * Stores shop items and tabs in MariaDB database using the shared {@link MySQLConnectionPool}.
  * Database: theeconomy
  * Tables: {tablePrefix}_items and {tablePrefix}_tabs
  * <p>
@@ -36,24 +40,34 @@ import java.util.logging.Level;
  *
  * @author EconomySystem
  */
-public class MySQLShopStorageProvider {
+public class MySQLShopStorageProvider implements ShopStorageProvider, JsonMigrationTarget {
 
   private static final HytaleLogger LOGGER = HytaleLogger.getLogger().getSubLogger("EconomySystem-MySQL-Shop");
 
-  private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
-    Thread t = new Thread(r, "EconomySystem-MySQL-Shop-IO");
-    t.setDaemon(true);
-    return t;
-  });
+  // Pool e threads de IO compartilhados com os outros providers; as operações de uma loja ficam na mesma fila
+  private final MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
+  // Compartilhado com os outros providers: falhas de conexão abrem o circuito e as operações falham na hora
+  private final MySQLCircuitBreaker breaker = MySQLCircuitBreaker.getInstance();
 
   private HikariDataSource dataSource;
+  private boolean acquired;
+  private JsonMigration migration;
   private String itemsTableName;
   private String tabsTableName;
   private String host;
   private int port;
   private String database;
 
+  @Override
+  public String getName() {
+    return "MySQL";
+  }
+
+  @Override
   public CompletableFuture<Void> initialize() {
+    // O pool compartilhado conecta em segundo plano; as tabelas são criadas na fila de IO
+    dataSource = pool.acquire();
+    acquired = true;
     return CompletableFuture.runAsync(() -> {
       try {
         EconomyConfig config = Main.CONFIG.get();
@@ -61,66 +75,16 @@ public class MySQLShopStorageProvider {
         this.host = config.getMySQLHost();
         this.port = config.getMySQLPort();
         this.database = config.getMySQLDatabaseName(); // Configurable database name
-        String username = config.getMySQLUser();
-        String password = config.getMySQLPassword();
         String tablePrefix = config.getMySQLAdminShopTableName();
 
         // Set table names
         itemsTableName = tablePrefix + "_items";
         tabsTableName = tablePrefix + "_tabs";
 
-        // Configure HikariCP for MariaDB
-        HikariConfig hikariConfig = new HikariConfig();
-
-        // JDBC URL for MariaDB
-        String jdbcUrl = String.format("jdbc:mariadb://%s:%d/%s?useSSL=false&allowPublicKeyRetrieval=true",
-                host, port, database);
-        hikariConfig.setDriverClassName("org.mariadb.jdbc.Driver");
-        hikariConfig.setJdbcUrl(jdbcUrl);
-        hikariConfig.setUsername(username);
-        hikariConfig.setPassword(password);
-
-        // Pool settings
-        hikariConfig.setPoolName("EconomyAdminShopPool");
-        hikariConfig.setMaximumPoolSize(10);
-        hikariConfig.setMinimumIdle(2); // Reduced from 5 to avoid connection overhead
-
-        // Timeouts (in milliseconds)
-        hikariConfig.setConnectionTimeout(10000);     // 10 seconds (reduced from 30)
-        hikariConfig.setIdleTimeout(300000);          // 5 minutes (reduced from 10)
-        hikariConfig.setMaxLifetime(1800000);         // 30 minutes
-        hikariConfig.setValidationTimeout(3000);      // 3 seconds (reduced from 5)
-        hikariConfig.setKeepaliveTime(60000);         // 1 minute (reduced from 2)
-
-        // Connection behavior
-        hikariConfig.setAutoCommit(true);
-        hikariConfig.setConnectionInitSql("SET NAMES utf8mb4");
-
-        // Connection test query to ensure connections are valid
-        hikariConfig.setConnectionTestQuery("SELECT 1");
-
-        // Leak detection (logs warning if connection not returned within threshold)
-        hikariConfig.setLeakDetectionThreshold(30000); // 30 seconds (reduced from 60)
-
-        // Allow pool suspension on initialization failure
-        hikariConfig.setInitializationFailTimeout(-1); // Don't fail fast, keep retrying
-
-        // MariaDB-specific optimizations
-        hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
-        hikariConfig.addDataSourceProperty("prepStmtCacheSize", "250");
-        hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
-        hikariConfig.addDataSourceProperty("useServerPrepStmts", "true");
-        hikariConfig.addDataSourceProperty("useLocalSessionState", "true");
-        hikariConfig.addDataSourceProperty("rewriteBatchedStatements", "true");
-        hikariConfig.addDataSourceProperty("cacheResultSetMetadata", "true");
-        hikariConfig.addDataSourceProperty("cacheServerConfiguration", "true");
-        hikariConfig.addDataSourceProperty("maintainTimeStats", "false");
-
-        // Create HikariCP DataSource
-        dataSource = new HikariDataSource(hikariConfig);
-
         // Create tables
         createTables();
+        migration = new JsonMigration(dataSource, tablePrefix + "_migration", config.getMySQLMigrationBatchSize());
+        migration.createTable();
 
         // Connection established - will log after data is loaded
 
@@ -128,7 +92,14 @@ public class MySQLShopStorageProvider {
         LOGGER.at(Level.SEVERE).log("Failed to connect to MariaDB for AdminShop: %s", e.getMessage());
         throw new RuntimeException("MariaDB connection failed", e);
       }
-    }, executor);
+    }, io(0));
+  }
+
+  /**
+   * Fila de IO da loja: as operações de uma loja rodam na ordem em que foram enviadas
+   */
+  private Executor io(int shopId) {
+    return pool.executor("adminshop:" + shopId);
   }
 
   private void createTables() throws SQLException {
@@ -222,13 +193,15 @@ public class MySQLShopStorageProvider {
   }
 
 
-  public CompletableFuture<Void> loadShopData(@Nonnull ShopTracker tracker) {
-    return loadShopData(tracker, 0);
+  @Override
+  public CompletableFuture<ShopTracker> loadShop(int shopId) {
+    ShopTracker tracker = new ShopTracker();
+    return loadShopData(tracker, shopId).thenApply(ignored -> tracker);
   }
 
   public CompletableFuture<Void> loadShopData(@Nonnull ShopTracker tracker, int shopId) {
     return CompletableFuture.runAsync(() -> {
-      try (Connection conn = dataSource.getConnection()) {
+      try (Connection conn = breaker.connect(dataSource)) {
         // Load tabs first
         String tabsSql = String.format("SELECT TabName FROM `%s` WHERE ShopId = ? ORDER BY Id", tabsTableName);
         try (PreparedStatement ps = conn.prepareStatement(tabsSql)) {
@@ -293,33 +266,25 @@ public class MySQLShopStorageProvider {
       } catch (SQLException e) {
         LOGGER.at(Level.SEVERE).log("Failed to load shop data from MySQL (shopId %d): %s", shopId, e.getMessage());
       }
-    }, executor);
+    }, io(shopId));
   }
 
-  public CompletableFuture<ShopItem> addItem(@Nonnull ShopItem item) {
-    return addItem(item, 0);
+  /**
+   * Insere o item e só então o adiciona ao tracker, com o UniqueId gerado pelo AUTO_INCREMENT
+   */
+  @Override
+  public CompletableFuture<ShopItem> addItem(@Nonnull ShopTracker tracker, @Nonnull ShopItem item, int shopId) {
+    return addItem(item, shopId).thenApply(added -> {
+      tracker.addItem(added);
+      return added;
+    });
   }
 
   public CompletableFuture<ShopItem> addItem(@Nonnull ShopItem item, int shopId) {
     return CompletableFuture.supplyAsync(() -> {
-      try (Connection conn = dataSource.getConnection()) {
-        // Don't include UniqueId in INSERT - let MySQL AUTO_INCREMENT handle it
-        String sql = String.format("""
-                INSERT INTO `%s` (ShopId, ItemId, Quantity, PriceSell, PriceBuy, Tab, IsConsoleCommand, ConsoleCommand, DisplayName, UseCash)
-                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-                """, itemsTableName);
-
-        try (PreparedStatement ps = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
-          ps.setInt(1, shopId);
-          ps.setString(2, item.getItemId());
-          ps.setInt(3, item.getQuantity());
-          ps.setDouble(4, item.getPriceSell());
-          ps.setDouble(5, item.getPriceBuy());
-          ps.setString(6, item.getTab() != null ? item.getTab() : "");
-          ps.setBoolean(7, item.isConsoleCommand());
-          ps.setString(8, item.getConsoleCommand() != null ? item.getConsoleCommand() : "");
-          ps.setString(9, item.getDisplayName() != null ? item.getDisplayName() : "");
-          ps.setBoolean(10, item.isUseCash());
+      try (Connection conn = breaker.connect(dataSource)) {
+        try (PreparedStatement ps = conn.prepareStatement(insertItemSql(), Statement.RETURN_GENERATED_KEYS)) {
+          bindItem(ps, item, shopId);
           ps.executeUpdate();
 
           // Get the generated UniqueId
@@ -330,43 +295,62 @@ public class MySQLShopStorageProvider {
             }
           }
         }
+        ChangeFeed.getInstance().recordQuietly(conn, ChangeFeed.SHOP, String.valueOf(shopId));
 
         return item;
       } catch (SQLException e) {
         LOGGER.at(Level.SEVERE).log("Failed to add item to MySQL (shopId %d): %s", shopId, e.getMessage());
         throw new RuntimeException("Failed to add item", e);
       }
-    }, executor);
+    }, io(shopId));
   }
 
-  public CompletableFuture<Boolean> removeItem(int uniqueId) {
-    return removeItem(uniqueId, 0);
+  private String insertItemSql() {
+    // Don't include UniqueId in INSERT - let MySQL AUTO_INCREMENT handle it
+    return String.format("""
+            INSERT INTO `%s` (ShopId, ItemId, Quantity, PriceSell, PriceBuy, Tab, IsConsoleCommand, ConsoleCommand, DisplayName, UseCash)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """, itemsTableName);
   }
 
+  private static void bindItem(PreparedStatement ps, ShopItem item, int shopId) throws SQLException {
+    ps.setInt(1, shopId);
+    ps.setString(2, item.getItemId());
+    ps.setInt(3, item.getQuantity());
+    ps.setDouble(4, item.getPriceSell());
+    ps.setDouble(5, item.getPriceBuy());
+    ps.setString(6, item.getTab() != null ? item.getTab() : "");
+    ps.setBoolean(7, item.isConsoleCommand());
+    ps.setString(8, item.getConsoleCommand() != null ? item.getConsoleCommand() : "");
+    ps.setString(9, item.getDisplayName() != null ? item.getDisplayName() : "");
+    ps.setBoolean(10, item.isUseCash());
+  }
+
+  @Override
   public CompletableFuture<Boolean> removeItem(int uniqueId, int shopId) {
-    return CompletableFuture.supplyAsync(() -> {
-      try (Connection conn = dataSource.getConnection()) {
+    return breaker.retry("shop remove item", io(shopId), () -> {
+      try (Connection conn = breaker.connect(dataSource)) {
         String sql = String.format("DELETE FROM `%s` WHERE UniqueId = ? AND ShopId = ?", itemsTableName);
         try (PreparedStatement ps = conn.prepareStatement(sql)) {
           ps.setInt(1, uniqueId);
           ps.setInt(2, shopId);
           int rowsAffected = ps.executeUpdate();
+          if (rowsAffected > 0) {
+            ChangeFeed.getInstance().recordQuietly(conn, ChangeFeed.SHOP, String.valueOf(shopId));
+          }
           return rowsAffected > 0;
         }
-      } catch (SQLException e) {
-        LOGGER.at(Level.SEVERE).log("Failed to remove item from MySQL (shopId %d): %s", shopId, e.getMessage());
-        return false;
       }
-    }, executor);
-  }
-
-  public CompletableFuture<Boolean> updateItem(@Nonnull ShopItem item) {
-    return updateItem(item, 0);
+    }).exceptionally(e -> {
+      LOGGER.at(Level.SEVERE).log("Failed to remove item from MySQL (shopId %d): %s", shopId, e.getMessage());
+      return false;
+    });
   }
 
+  @Override
   public CompletableFuture<Boolean> updateItem(@Nonnull ShopItem item, int shopId) {
-    return CompletableFuture.supplyAsync(() -> {
-      try (Connection conn = dataSource.getConnection()) {
+    return breaker.retry("shop update item", io(shopId), () -> {
+      try (Connection conn = breaker.connect(dataSource)) {
         String sql = String.format("""
                 UPDATE `%s` 
                 SET ItemId = ?, Quantity = ?, PriceSell = ?, PriceBuy = ?, Tab = ?, IsConsoleCommand = ?, ConsoleCommand = ?, DisplayName = ?, UseCash = ?
@@ -386,74 +370,154 @@ public class MySQLShopStorageProvider {
           ps.setInt(10, item.getUniqueId());
           ps.setInt(11, shopId);
           int rowsAffected = ps.executeUpdate();
+          if (rowsAffected > 0) {
+            ChangeFeed.getInstance().recordQuietly(conn, ChangeFeed.SHOP, String.valueOf(shopId));
+          }
           return rowsAffected > 0;
         }
-      } catch (SQLException e) {
-        LOGGER.at(Level.SEVERE).log("Failed to update item in MySQL (shopId %d): %s", shopId, e.getMessage());
-        return false;
       }
-    }, executor);
-  }
-
-  public CompletableFuture<Void> createTab(@Nonnull String tabName) {
-    return createTab(tabName, 0);
+    }).exceptionally(e -> {
+      LOGGER.at(Level.SEVERE).log("Failed to update item in MySQL (shopId %d): %s", shopId, e.getMessage());
+      return false;
+    });
   }
 
+  @Override
   public CompletableFuture<Void> createTab(@Nonnull String tabName, int shopId) {
     return CompletableFuture.runAsync(() -> {
-      try (Connection conn = dataSource.getConnection()) {
+      try (Connection conn = breaker.connect(dataSource)) {
         String sql = String.format("INSERT INTO `%s` (ShopId, TabName) VALUES (?, ?)", tabsTableName);
         try (PreparedStatement ps = conn.prepareStatement(sql)) {
           ps.setInt(1, shopId);
           ps.setString(2, tabName);
           ps.executeUpdate();
         }
+        ChangeFeed.getInstance().recordQuietly(conn, ChangeFeed.SHOP, String.valueOf(shopId));
       } catch (SQLException e) {
         LOGGER.at(Level.SEVERE).log("Failed to create tab in MySQL (shopId %d): %s", shopId, e.getMessage());
         throw new RuntimeException("Failed to create tab", e);
       }
-    }, executor);
-  }
-
-  public CompletableFuture<Boolean> removeTab(@Nonnull String tabName) {
-    return removeTab(tabName, 0);
+    }, io(shopId));
   }
 
+  @Override
   public CompletableFuture<Boolean> removeTab(@Nonnull String tabName, int shopId) {
-    return CompletableFuture.supplyAsync(() -> {
-      try (Connection conn = dataSource.getConnection()) {
+    return breaker.retry("shop remove tab", io(shopId), () -> {
+      try (Connection conn = breaker.connect(dataSource)) {
         String sql = String.format("DELETE FROM `%s` WHERE TabName = ? AND ShopId = ?", tabsTableName);
         try (PreparedStatement ps = conn.prepareStatement(sql)) {
           ps.setString(1, tabName);
           ps.setInt(2, shopId);
           int rowsAffected = ps.executeUpdate();
+          if (rowsAffected > 0) {
+            ChangeFeed.getInstance().recordQuietly(conn, ChangeFeed.SHOP, String.valueOf(shopId));
+          }
           return rowsAffected > 0;
         }
-      } catch (SQLException e) {
-        LOGGER.at(Level.SEVERE).log("Failed to remove tab from MySQL (shopId %d): %s", shopId, e.getMessage());
-        return false;
       }
-    }, executor);
+    }).exceptionally(e -> {
+      LOGGER.at(Level.SEVERE).log("Failed to remove tab from MySQL (shopId %d): %s", shopId, e.getMessage());
+      return false;
+    });
   }
 
-  public CompletableFuture<Void> saveAll(@Nonnull ShopTracker tracker) {
-    // For now, we don't need to save all since each operation is saved immediately
-    // This method can be used for bulk operations if needed in the future
+  /**
+   * Apaga os itens e as tabs da loja em uma única transação
+   */
+  @Override
+  public CompletableFuture<Void> deleteShop(int shopId) {
+    return breaker.<Void>retry("shop delete", io(shopId), () -> {
+      try (Connection conn = breaker.connect(dataSource)) {
+        conn.setAutoCommit(false);
+        try (PreparedStatement items = conn.prepareStatement(
+                String.format("DELETE FROM `%s` WHERE ShopId = ?", itemsTableName));
+             PreparedStatement tabs = conn.prepareStatement(
+                     String.format("DELETE FROM `%s` WHERE ShopId = ?", tabsTableName))) {
+          items.setInt(1, shopId);
+          items.executeUpdate();
+          tabs.setInt(1, shopId);
+          tabs.executeUpdate();
+          ChangeFeed.getInstance().record(conn, ChangeFeed.SHOP, List.of(String.valueOf(shopId)));
+          conn.commit();
+        } catch (SQLException e) {
+          conn.rollback();
+          throw e;
+        } finally {
+          conn.setAutoCommit(true);
+        }
+        return null;
+      }
+    }).whenComplete((ignored, e) -> {
+      if (e != null) {
+        LOGGER.at(Level.SEVERE).log("Failed to delete shop from MySQL (shopId %d): %s", shopId, e.getMessage());
+      }
+    });
+  }
+
+  /**
+   * Cada operação já é gravada quando acontece
+   */
+  @Override
+  public CompletableFuture<Void> flush() {
     return CompletableFuture.completedFuture(null);
   }
 
-  public CompletableFuture<Void> shutdown() {
-    return CompletableFuture.runAsync(() -> {
-      try {
-        if (dataSource != null && !dataSource.isClosed()) {
-          dataSource.close();
-        }
-        executor.shutdown();
-        LOGGER.at(Level.INFO).log("MySQL AdminShop HikariCP pool closed");
-      } catch (Exception e) {
-        LOGGER.at(Level.WARNING).log("Error closing MySQL AdminShop HikariCP pool: %s", e.getMessage());
+  @Override
+  public void onRemoteChange(@Nonnull Consumer<Set<String>> handler) {
+    ChangeFeed.getInstance().register(ChangeFeed.SHOP, handler);
+  }
+
+  /**
+   * Migra as tabs e os itens do Shop.json para a loja padrão (shopId 0) em lotes de MySQLMigrationBatchSize
+   * entradas, continuando do checkpoint se uma migração anterior foi interrompida
+   */
+  @Override
+  public JsonMigration.Result migrateFromJson(@Nonnull Path file) throws IOException, SQLException {
+    return migration.migrate(file, migrationSteps());
+  }
+
+  /**
+   * @return true se uma migração do arquivo foi interrompida e deve continuar
+   */
+  @Override
+  public boolean hasPendingMigration(@Nonnull Path file) throws IOException, SQLException {
+    return migration.hasPending(file, migrationSteps());
+  }
+
+  private List<JsonMigration.Step> migrationSteps() {
+    String tabSql = String.format("""
+            INSERT INTO `%s` (ShopId, TabName) VALUES (0, ?)
+            ON DUPLICATE KEY UPDATE TabName = VALUES(TabName)
+            """, tabsTableName);
+    JsonMigration.Step tabs = new JsonMigration.Step("Tabs", List.of(tabSql), (element, statements) -> {
+      String tabName = element.getAsString();
+      if (tabName.isEmpty()) {
+        return 0;
       }
+      statements[0].setString(1, tabName);
+      statements[0].addBatch();
+      return 1;
+    });
+    JsonMigration.Step items = new JsonMigration.Step("Items", List.of(insertItemSql()), (element, statements) -> {
+      bindItem(statements[0], ShopBlockingFile.parseItem(element.getAsJsonObject()), 0);
+      statements[0].addBatch();
+      return 1;
     });
+    return List.of(tabs, items);
+  }
+
+  @Override
+  public void shutdownSync() {
+    try {
+      // O pool só fecha quando o último provider o libera
+      if (acquired) {
+        acquired = false;
+        pool.release();
+      }
+      LOGGER.at(Level.INFO).log("MySQL AdminShop storage closed");
+    } catch (Exception e) {
+      LOGGER.at(Level.WARNING).log("Error closing MySQL AdminShop storage: %s", e.getMessage());
+    }
   }
 }
 
@@ -3,50 +3,114 @@ package com.economy.storage;
 import com.economy.Main;
 import com.economy.config.EconomyConfig;
 import com.economy.economy.BalanceTracker;
+import com.economy.economy.FlushStats;
+import com.economy.economy.LedgerSink;
+import com.economy.economy.MoneyUnits;
 import com.economy.economy.PlayerBalance;
+import com.economy.files.BalanceBlockingFile;
+import com.economy.util.EconomyMetrics;
+import com.economy.util.FileUtils;
 import com.hypixel.hytale.logger.HytaleLogger;
-import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.Predicate;
 import java.util.logging.Level;
 
 /**
  * HikariCP-based MariaDB storage provider for economy balance data.
  * <p>
- * Stores player balances in a MariaDB database using HikariCP connection pool.
+ * Stores player balances in a MariaDB database using the shared {@link MySQLConnectionPool}.
  * Database: theeconomy
  * Table: configurable (default: bank)
- * Columns: UUID (VARCHAR(36) PRIMARY KEY), Nickname (VARCHAR(64)), Balance (DOUBLE)
+ * Columns: UUID (VARCHAR(36) PRIMARY KEY), Nickname (VARCHAR(64)), Balance (DECIMAL, escala = CurrencyScale), Cash (INT)
+ * <p>
+ * Com MySQLLazyLoading a tabela não é carregada no boot: as contas são lidas quando acessadas
+ * (jogadores online ficam fixados em memória) e as contas offline são descarregadas por LRU,
+ * respeitando MySQLCacheMaxOfflineAccounts e MySQLCacheIdleMinutes.
+ * <p>
+ * Com MySQLNetworkMode (vários servidores na mesma tabela) as alterações de saldo vão direto ao banco
+ * pelo {@link NetworkBalanceStore} e apenas as contas dos jogadores online ficam em cache.
+ * <p>
+ * Fora do modo rede, as gravações de saldo que não chegam ao banco (MariaDB fora do ar) vão para o
+ * {@link BalanceSpillJournal} em disco e são reaplicadas quando o banco volta, ou no próximo boot.
  *
  * @author EconomySystem
  */
-public class MySQLStorageProvider {
+public class MySQLStorageProvider implements BalanceStorageProvider, JsonMigrationTarget {
 
   private static final HytaleLogger LOGGER = HytaleLogger.getLogger().getSubLogger("EconomySystem-MySQL");
 
-  private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
-    Thread t = new Thread(r, "EconomySystem-MySQL-IO");
-    t.setDaemon(true);
-    return t;
-  });
+  // Intervalo da limpeza de contas offline e tempo mínimo sem acesso antes de descarregar uma conta
+  private static final long EVICTION_INTERVAL_SECONDS = 60;
+  private static final long EVICTION_MIN_IDLE_MS = 60_000;
+  // Contas por consulta ao carregar várias contas de uma vez (WHERE UUID IN (...))
+  private static final int PREFETCH_CHUNK_SIZE = 500;
+  // Chave da fila de IO do ranking. As leituras de uma conta vão para a fila do UUID dela; as gravações
+  // (buffer, journal de spill, limpeza de contas) ficam todas na fila de gravações do pool, na mesma thread,
+  // então as gravações de uma conta nunca se cruzam.
+  private static final String TOP_KEY = "balance.top";
+  // Modo rede: intervalo entre as tentativas de reaplicar o journal de spill (além de quando o circuito fecha)
+  private static final long NETWORK_SPILL_REPLAY_SECONDS = 5;
+
+  // Pool e threads de IO compartilhados com os providers das lojas
+  private final MySQLConnectionPool pool = MySQLConnectionPool.getInstance();
+  private ScheduledExecutorService writeLane;
+  private Executor writeExecutor;
+  private boolean acquired;
 
   private HikariDataSource dataSource;
+  private BalanceWriteBuffer writeBuffer;
+  private BalanceSpillJournal spill;
+  private BalanceSpillJournal networkSpill;
+  private Runnable flushOnRecovery;
+  private Runnable replayOnRecovery;
   private BalanceTracker balanceTracker;
-  private int playerCount = 0;
+  private volatile int playerCount = 0;
+  private boolean lazyLoading;
+  private NetworkBalanceStore networkStore;
+  private JsonMigration migration;
   private String tableName = "bank"; // Default table name
+  private int writeBatchSize = 500; // Contas por executeBatch/commit nas gravações em massa
   private String host;
   private int port;
   private String database;
 
+  @Override
+  public String getName() {
+    return "MySQL";
+  }
+
+  @Override
   public CompletableFuture<Void> initialize() {
+    // O pool compartilhado conecta em segundo plano; tabelas e carga rodam na fila de gravações
+    dataSource = pool.acquire();
+    acquired = true;
+    writeLane = pool.writerLane();
+    writeExecutor = pool.writerExecutor();
     return CompletableFuture.runAsync(() -> {
       try {
         EconomyConfig config = Main.CONFIG.get();
@@ -54,68 +118,77 @@ public class MySQLStorageProvider {
         this.host = config.getMySQLHost();
         this.port = config.getMySQLPort();
         this.database = config.getMySQLDatabaseName(); // Configurable database name
-        String username = config.getMySQLUser();
-        String password = config.getMySQLPassword();
         tableName = config.getMySQLTableName(); // Get table name from config
-
-        // Configure HikariCP for MariaDB
-        HikariConfig hikariConfig = new HikariConfig();
-
-        // JDBC URL for MariaDB
-        String jdbcUrl = String.format("jdbc:mariadb://%s:%d/%s?useSSL=false&allowPublicKeyRetrieval=true",
-                host, port, database);
-        hikariConfig.setDriverClassName("org.mariadb.jdbc.Driver");
-        hikariConfig.setJdbcUrl(jdbcUrl);
-        hikariConfig.setUsername(username);
-        hikariConfig.setPassword(password);
-
-        // Pool settings
-        hikariConfig.setPoolName("EconomyBalancePool");
-        hikariConfig.setMaximumPoolSize(10);
-        hikariConfig.setMinimumIdle(2); // Reduced from 5 to avoid connection overhead
-
-        // Timeouts (in milliseconds)
-        hikariConfig.setConnectionTimeout(10000);     // 10 seconds (reduced from 30)
-        hikariConfig.setIdleTimeout(300000);          // 5 minutes (reduced from 10)
-        hikariConfig.setMaxLifetime(1800000);         // 30 minutes
-        hikariConfig.setValidationTimeout(3000);      // 3 seconds (reduced from 5)
-        hikariConfig.setKeepaliveTime(60000);         // 1 minute (reduced from 2)
-
-        // Connection behavior
-        hikariConfig.setAutoCommit(true);
-        hikariConfig.setConnectionInitSql("SET NAMES utf8mb4");
-
-        // Connection test query to ensure connections are valid
-        hikariConfig.setConnectionTestQuery("SELECT 1");
-
-        // Leak detection (logs warning if connection not returned within threshold)
-        hikariConfig.setLeakDetectionThreshold(30000); // 30 seconds (reduced from 60)
-
-        // Allow pool suspension on initialization failure
-        hikariConfig.setInitializationFailTimeout(-1); // Don't fail fast, keep retrying
-
-        // MariaDB-specific optimizations
-        hikariConfig.addDataSourceProperty("cachePrepStmts", "true");
-        hikariConfig.addDataSourceProperty("prepStmtCacheSize", "250");
-        hikariConfig.addDataSourceProperty("prepStmtCacheSqlLimit", "2048");
-        hikariConfig.addDataSourceProperty("useServerPrepStmts", "true");
-        hikariConfig.addDataSourceProperty("useLocalSessionState", "true");
-        hikariConfig.addDataSourceProperty("rewriteBatchedStatements", "true");
-        hikariConfig.addDataSourceProperty("cacheResultSetMetadata", "true");
-        hikariConfig.addDataSourceProperty("cacheServerConfiguration", "true");
-        hikariConfig.addDataSourceProperty("maintainTimeStats", "false");
-
-        // Create HikariCP DataSource
-        dataSource = new HikariDataSource(hikariConfig);
+        writeBatchSize = config.getMySQLWriteBufferBatchSize();
 
         // Create tables
         createTables();
+        migration = new JsonMigration(dataSource, tableName + "_migration", config.getMySQLMigrationBatchSize());
+        migration.createTable();
 
         // Initialize balance tracker
         balanceTracker = new BalanceTracker();
 
-        // Load all players from database
-        loadAllPlayers();
+        // O modo rede só mantém em cache as contas dos jogadores online
+        lazyLoading = config.isMySQLLazyLoading() || config.isMySQLNetworkMode();
+        if (config.isMySQLNetworkMode()) {
+          // Créditos e sets que não chegaram ao banco ficam no journal até ele voltar
+          networkSpill = openSpill(config, FileUtils.BALANCES_NETWORK_SPILL_PATH);
+          networkStore = new NetworkBalanceStore(dataSource, tableName, balanceTracker, networkSpill);
+          networkStore.ensureVersionColumn();
+          int refreshSeconds = config.getMySQLNetworkRefreshSeconds();
+          writeLane.scheduleWithFixedDelay(this::refreshOnlineAccounts, refreshSeconds, refreshSeconds, TimeUnit.SECONDS);
+          // Alterações de outros servidores chegam pelo feed e só as contas em cache são relidas
+          ChangeFeed.getInstance().register(ChangeFeed.BALANCE, this::refreshChangedAccounts);
+          ChangeFeed.getInstance().start(dataSource, tableName + "_changes", config.getMySQLChangeFeedPollMs());
+          replayNetworkSpill();
+          writeLane.scheduleWithFixedDelay(this::replayNetworkSpill, NETWORK_SPILL_REPLAY_SECONDS,
+                  NETWORK_SPILL_REPLAY_SECONDS, TimeUnit.SECONDS);
+          replayOnRecovery = () -> writeLane.execute(this::replayNetworkSpill);
+          MySQLCircuitBreaker.getInstance().addCloseListener(replayOnRecovery);
+        }
+        if (networkStore == null) {
+          // Saldos que não chegaram ao banco na última execução entram antes de qualquer leitura
+          spill = openSpill(config, FileUtils.BALANCES_SPILL_PATH);
+          try {
+            spill.drain();
+          } catch (IOException e) {
+            throw new SQLException("Failed to read the balance spill journal: " + e.getMessage(), e);
+          }
+        }
+        if (lazyLoading) {
+          // Contas carregadas sob demanda; no boot só conta as linhas
+          playerCount = countPlayers();
+          balanceTracker.setAccountLoader(this::readAccountOrThrow);
+          long idleMs = networkStore != null ? EVICTION_MIN_IDLE_MS : TimeUnit.MINUTES.toMillis(config.getMySQLCacheIdleMinutes());
+          int maxOffline = networkStore != null ? 0 : config.getMySQLCacheMaxOfflineAccounts();
+          writeLane.scheduleWithFixedDelay(() -> evictOfflineAccounts(maxOffline, idleMs),
+                  EVICTION_INTERVAL_SECONDS, EVICTION_INTERVAL_SECONDS, TimeUnit.SECONDS);
+        } else {
+          // Load all players from database
+          loadAllPlayers();
+        }
+
+        // Buffer write-behind: agrupa as gravações de saldo por conta e grava em lotes
+        writeBuffer = new BalanceWriteBuffer(writeLane, this::writeBatch, spill,
+                config.getMySQLWriteBufferBatchSize(), config.getMySQLWriteBufferMaxPending());
+        writeBuffer.start(config.getMySQLWriteBufferFlushIntervalMs());
+        // Banco fora do ar: o breaker segura os flushes e pede um novo quando a sonda fechar o circuito
+        MySQLCircuitBreaker breaker = MySQLCircuitBreaker.getInstance();
+        flushOnRecovery = writeBuffer::requestFlush;
+        breaker.addCloseListener(flushOnRecovery);
+
+        EconomyMetrics metrics = EconomyMetrics.getInstance();
+        metrics.gauge("mysql.balance.pending", writeBuffer::getPendingCount);
+        metrics.gauge("mysql.balance.overflows", writeBuffer::getOverflowCount);
+        if (networkStore != null) {
+          metrics.gauge("mysql.network.retries", networkStore::getRetries);
+          metrics.gauge("mysql.network.version_conflicts", networkStore::getVersionConflicts);
+          ChangeFeed feed = ChangeFeed.getInstance();
+          metrics.gauge("mysql.changefeed.recorded", feed::getRecordedCount);
+          metrics.gauge("mysql.changefeed.received", feed::getReceivedCount);
+          metrics.gauge("mysql.changefeed.skipped_gaps", feed::getSkippedGapCount);
+        }
 
         LOGGER.at(Level.INFO).log("MySQL connected: %s:%d/%s (%d players)", host, port, database, playerCount);
 
@@ -123,31 +196,145 @@ public class MySQLStorageProvider {
         LOGGER.at(Level.SEVERE).log("Failed to connect to MariaDB: %s", e.getMessage());
         throw new RuntimeException("MariaDB connection failed", e);
       }
-    }, executor);
+    }, writeExecutor);
+  }
+
+  private BalanceSpillJournal openSpill(EconomyConfig config, String path) throws SQLException {
+    BalanceSpillJournal journal = new BalanceSpillJournal(dataSource, tableName, Path.of(path),
+            config.getMySQLSpillMaxMB() * 1024L * 1024L, config.getMySQLWriteBufferBatchSize());
+    journal.createTable();
+    try {
+      journal.open();
+    } catch (IOException e) {
+      throw new SQLException("Failed to read the balance spill journal: " + e.getMessage(), e);
+    }
+    return journal;
+  }
+
+  /**
+   * Modo rede: reaplica os créditos e sets que foram para o journal com o banco fora do ar
+   */
+  private void replayNetworkSpill() {
+    try {
+      networkStore.replaySpill();
+    } catch (SQLException e) {
+      LOGGER.at(Level.WARNING).log("Failed to replay the balance spill journal (%d records), retrying later: %s",
+              networkSpill.getRecordCount(), e.getMessage());
+    } catch (IOException | RuntimeException e) {
+      LOGGER.at(Level.SEVERE).log("Failed to read the balance spill journal: %s", e.getMessage());
+    }
   }
 
   private void createTables() throws SQLException {
     try (Connection conn = dataSource.getConnection();
          Statement stmt = conn.createStatement()) {
       // Create table with configurable name, UUID as PRIMARY KEY
+      // Balance é DECIMAL na escala configurada para guardar as unidades mínimas sem erro de arredondamento
       String createTableSql = String.format("""
               CREATE TABLE IF NOT EXISTS `%s` (
                   UUID VARCHAR(36) NOT NULL PRIMARY KEY,
                   Nickname VARCHAR(64),
-                  Balance DOUBLE DEFAULT 0.0,
+                  Balance DECIMAL(20,%d) DEFAULT 0,
                   Cash INT DEFAULT 0
               )
-              """, tableName);
+              """, tableName, MoneyUnits.scale());
 
       stmt.execute(createTableSql);
 
       // Table created/verified silently
     }
+    migrateBalanceColumn();
+    ensureIndex("Nickname");
+    // Ranking (ORDER BY Balance DESC LIMIT) direto do banco
+    ensureIndex("Balance");
   }
 
+  /**
+   * Cria um índice na coluna, se ainda não existir (Nickname: busca de jogadores offline pelo nome;
+   * Balance: ranking)
+   */
+  private void ensureIndex(String column) throws SQLException {
+    try (Connection conn = dataSource.getConnection()) {
+      String sql = """
+              SELECT 1 FROM information_schema.STATISTICS
+              WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?
+              LIMIT 1
+              """;
+      try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        ps.setString(1, tableName);
+        ps.setString(2, column);
+        try (ResultSet rs = ps.executeQuery()) {
+          if (rs.next()) {
+            return;
+          }
+        }
+      }
+      try (Statement stmt = conn.createStatement()) {
+        stmt.execute(String.format("CREATE INDEX `idx_%s_%s` ON `%s` (%s)",
+                tableName, column.toLowerCase(Locale.ROOT), tableName, column));
+        LOGGER.at(Level.INFO).log("Created index on `%s`.%s", tableName, column);
+      }
+    }
+  }
+
+  /**
+   * Converte a coluna Balance de tabelas antigas (DOUBLE) para DECIMAL na escala configurada
+   */
+  private void migrateBalanceColumn() throws SQLException {
+    try (Connection conn = dataSource.getConnection()) {
+      String sql = """
+              SELECT DATA_TYPE, NUMERIC_SCALE FROM information_schema.COLUMNS
+              WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = 'Balance'
+              """;
+      try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        ps.setString(1, tableName);
+        try (ResultSet rs = ps.executeQuery()) {
+          if (!rs.next()) {
+            return;
+          }
+          String dataType = rs.getString("DATA_TYPE");
+          int numericScale = rs.getInt("NUMERIC_SCALE");
+          if ("decimal".equalsIgnoreCase(dataType) && numericScale == MoneyUnits.scale()) {
+            return;
+          }
+        }
+      }
+      try (Statement stmt = conn.createStatement()) {
+        stmt.execute(String.format("ALTER TABLE `%s` MODIFY COLUMN Balance DECIMAL(20,%d) DEFAULT 0",
+                tableName, MoneyUnits.scale()));
+        LOGGER.at(Level.INFO).log("Converted `%s`.Balance to DECIMAL(20,%d)", tableName, MoneyUnits.scale());
+      }
+    }
+  }
+
+  /**
+   * Lê a coluna Balance como unidades mínimas
+   */
+  private static long readBalanceUnits(ResultSet rs) throws SQLException {
+    BigDecimal balance = rs.getBigDecimal("Balance");
+    return balance != null ? MoneyUnits.toUnits(balance) : 0L;
+  }
+
+  /**
+   * Lê todas as contas do banco para o tracker atual (no boot, com o tracker ainda vazio)
+   */
   private void loadAllPlayers() {
-    playerCount = 0; // Reset counter
-    balanceTracker = new BalanceTracker(); // Reset tracker
+    List<PlayerBalance> loaded;
+    try {
+      loaded = readAllPlayers();
+    } catch (SQLException e) {
+      LOGGER.at(Level.SEVERE).log("Failed to load players from MySQL: %s", e.getMessage());
+      return;
+    }
+    for (PlayerBalance balance : loaded) {
+      rememberLoaded(balance.getUuid(), balance.getBalanceUnits(), balance.getCash());
+    }
+    balanceTracker.setBalances(loaded.toArray(new PlayerBalance[0]));
+    playerCount = loaded.size();
+  }
+
+  private List<PlayerBalance> readAllPlayers() throws SQLException {
+    List<PlayerBalance> loaded = new ArrayList<>();
     try (Connection conn = dataSource.getConnection()) {
       String sql = String.format("SELECT UUID, Nickname, Balance, Cash FROM `%s`", tableName);
       try (Statement stmt = conn.createStatement();
@@ -155,59 +342,360 @@ public class MySQLStorageProvider {
         while (rs.next()) {
           UUID uuid = UUID.fromString(rs.getString("UUID"));
           String nickname = rs.getString("Nickname");
-          double balance = rs.getDouble("Balance");
-          int cash = rs.getInt("Cash");
+          loaded.add(PlayerBalance.ofUnits(uuid, nickname != null ? nickname : "", readBalanceUnits(rs), rs.getInt("Cash")));
+        }
+      }
+    }
+    return loaded;
+  }
+
+  private int countPlayers() throws SQLException {
+    try (Connection conn = dataSource.getConnection();
+         Statement stmt = conn.createStatement();
+         ResultSet rs = stmt.executeQuery(String.format("SELECT COUNT(*) FROM `%s`", tableName))) {
+      return rs.next() ? rs.getInt(1) : 0;
+    }
+  }
+
+  /**
+   * Recarrega do MySQL as contas do tracker atual (após migração). As gravações pendentes vão para o banco
+   * antes e a leitura roda sem locks. Depois, com todos os locks de transferência do tracker (nenhuma
+   * transferência fica pela metade), as contas em memória são atualizadas no lugar: recebem a diferença
+   * entre o banco e o último estado gravado, então uma escrita feita durante a leitura não se perde.
+   * No modo lazy só as contas em cache são relidas.
+   */
+  public void reloadAllPlayers() {
+    drainWriteBuffer();
+    // Na fila de gravações: nenhum flush grava entre a leitura e a atualização das bases do journal
+    CompletableFuture.runAsync(this::reconcileWithDatabase, writeExecutor).join();
+  }
 
-          balanceTracker.setBalance(uuid, balance);
-          balanceTracker.setCash(uuid, cash);
-          if (nickname != null && !nickname.isEmpty()) {
-            balanceTracker.setPlayerNick(uuid, nickname);
+  private void reconcileWithDatabase() {
+    if (spill != null && !spill.isEmpty()) {
+      // O banco ainda não tem o journal: as contas seriam atualizadas com o saldo antigo
+      LOGGER.at(Level.WARNING).log("Skipping the player reload: %d balance writes are still waiting in the spill journal",
+              spill.getRecordCount());
+      return;
+    }
+    List<PlayerBalance> loaded;
+    Predicate<UUID> scope;
+    try {
+      if (lazyLoading) {
+        List<UUID> cached = new ArrayList<>(balanceTracker.size());
+        balanceTracker.forEach(balance -> cached.add(balance.getUuid()));
+        loaded = readAccounts(cached);
+        Set<UUID> read = new HashSet<>(cached);
+        scope = read::contains;
+        playerCount = countPlayers();
+      } else {
+        loaded = readAllPlayers();
+        scope = uuid -> true;
+        playerCount = loaded.size();
+      }
+    } catch (SQLException e) {
+      LOGGER.at(Level.SEVERE).log("Failed to reload players from MySQL: %s", e.getMessage());
+      return;
+    }
+    balanceTracker.withAllTransferLocks(() -> {
+      balanceTracker.reconcile(loaded, scope, uuid -> spill != null ? spill.getBaseline(uuid) : null);
+      return null;
+    });
+    if (spill != null) {
+      // O que foi lido passa a ser o último estado gravado de cada conta
+      spill.rememberWritten(loaded);
+    }
+  }
+
+  /**
+   * Espera o buffer de gravações esvaziar (com o banco fora do ar as entradas ficam no journal ou no buffer)
+   */
+  private void drainWriteBuffer() {
+    if (writeBuffer == null) {
+      return;
+    }
+    try {
+      writeBuffer.drain().join();
+    } catch (CompletionException e) {
+      LOGGER.at(Level.WARNING).log("Failed to drain the MySQL write buffer: %s", e.getMessage());
+    }
+  }
+
+  @Override
+  public boolean isLazyLoading() {
+    return lazyLoading;
+  }
+
+  /**
+   * Lê uma conta direto do banco (não altera o tracker)
+   * @return Conta ou null se não existe
+   */
+  private PlayerBalance readAccount(@Nonnull UUID playerUuid) throws SQLException {
+    if (dataSource == null || dataSource.isClosed()) {
+      throw new SQLException("DataSource is closed");
+    }
+    String sql = String.format("SELECT Nickname, Balance, Cash FROM `%s` WHERE UUID = ?", tableName);
+    try (Connection conn = dataSource.getConnection();
+         PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setString(1, playerUuid.toString());
+      try (ResultSet rs = ps.executeQuery()) {
+        if (!rs.next()) {
+          return null;
+        }
+        String nickname = rs.getString("Nickname");
+        long balanceUnits = readBalanceUnits(rs);
+        int cash = rs.getInt("Cash");
+        rememberLoaded(playerUuid, balanceUnits, cash);
+        return PlayerBalance.ofUnits(playerUuid, nickname != null ? nickname : "", balanceUnits, cash);
+      }
+    }
+  }
+
+  /**
+   * Modo lazy: lê do banco, com uma consulta por bloco de {@value #PREFETCH_CHUNK_SIZE} contas, as contas
+   * que ainda não estão em memória (lotes e transferências com muitas contas)
+   * @throws IllegalStateException se a consulta falhar (mesmo contrato do loader do tracker)
+   */
+  @Override
+  public void prefetchAccounts(@Nonnull Collection<UUID> uuids) {
+    if (!lazyLoading) {
+      return;
+    }
+    List<UUID> missing = new ArrayList<>();
+    for (UUID uuid : uuids) {
+      PlayerBalance cached = balanceTracker.getAccount(uuid);
+      if (cached != null) {
+        cached.touch();
+      } else {
+        missing.add(uuid);
+      }
+    }
+    if (missing.isEmpty()) {
+      return;
+    }
+    try {
+      for (PlayerBalance loaded : readAccounts(missing)) {
+        rememberLoaded(loaded.getUuid(), loaded.getBalanceUnits(), loaded.getCash());
+        balanceTracker.putIfAbsent(loaded).touch();
+      }
+    } catch (SQLException e) {
+      throw new IllegalStateException("Failed to load " + missing.size() + " accounts: " + e.getMessage(), e);
+    }
+  }
+
+  /**
+   * Lê as contas, com uma consulta por bloco de {@value #PREFETCH_CHUNK_SIZE} contas (contas que não
+   * existem no banco ficam de fora)
+   */
+  private List<PlayerBalance> readAccounts(List<UUID> uuids) throws SQLException {
+    List<PlayerBalance> accounts = new ArrayList<>(uuids.size());
+    try (Connection conn = dataSource.getConnection()) {
+      for (int start = 0; start < uuids.size(); start += PREFETCH_CHUNK_SIZE) {
+        List<UUID> chunk = uuids.subList(start, Math.min(start + PREFETCH_CHUNK_SIZE, uuids.size()));
+        String sql = String.format("SELECT UUID, Nickname, Balance, Cash FROM `%s` WHERE UUID IN (%s)",
+                tableName, String.join(",", Collections.nCopies(chunk.size(), "?")));
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+          for (int i = 0; i < chunk.size(); i++) {
+            ps.setString(i + 1, chunk.get(i).toString());
+          }
+          try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+              String nickname = rs.getString("Nickname");
+              accounts.add(PlayerBalance.ofUnits(UUID.fromString(rs.getString("UUID")),
+                      nickname != null ? nickname : "", readBalanceUnits(rs), rs.getInt("Cash")));
+            }
           }
-          playerCount++;
         }
       }
+    }
+    return accounts;
+  }
+
+
+  /**
+   * Estado lido do banco: base dos deltas do journal de spill para a conta
+   */
+  private void rememberLoaded(UUID uuid, long balanceUnits, int cash) {
+    if (spill != null) {
+      spill.rememberLoaded(uuid, balanceUnits, cash);
+    }
+  }
+
+  /**
+   * Loader do tracker no modo lazy: uma falha de leitura não pode virar "conta inexistente",
+   * senão a conta seria recriada com saldo zero e sobrescreveria o saldo real
+   */
+  private PlayerBalance readAccountOrThrow(@Nonnull UUID playerUuid) {
+    try {
+      if (networkStore != null) {
+        return networkStore.load(playerUuid);
+      }
+      return readAccount(playerUuid);
     } catch (SQLException e) {
-      LOGGER.at(Level.SEVERE).log("Failed to load players from MySQL: %s", e.getMessage());
+      throw new IllegalStateException("Failed to load account " + playerUuid + ": " + e.getMessage(), e);
     }
   }
 
   /**
-   * Recarrega todos os dados do MySQL (útil após migração)
+   * Ledger de transações na tabela {@code <tabela>_ledger}, usando o pool deste provider
    */
-  public void reloadAllPlayers() {
-    loadAllPlayers();
+  @Override
+  public LedgerSink createLedgerSink() throws SQLException {
+    MySQLLedgerStore store = new MySQLLedgerStore(dataSource, tableName + "_ledger");
+    store.createTable();
+    return store;
   }
 
+  /**
+   * @return Acesso direto ao banco no modo rede, ou null se o modo rede está desligado
+   */
+  @Override
+  public NetworkBalanceStore getNetworkStore() {
+    return networkStore;
+  }
+
+  /**
+   * Modo rede: traz para o cache as alterações que outros servidores fizeram nas contas dos jogadores online
+   */
+  private void refreshOnlineAccounts() {
+    try {
+      int updated = networkStore.refresh(balanceTracker.getPinned());
+      if (updated > 0) {
+        LOGGER.at(Level.FINE).log("Refreshed %d online accounts changed by other servers", updated);
+      }
+    } catch (Exception e) {
+      LOGGER.at(Level.WARNING).log("Failed to refresh online accounts: %s", e.getMessage());
+    }
+  }
+
+  /**
+   * Modo rede: relê as contas em cache que outros servidores alteraram (chamado pelo feed de alterações)
+   */
+  private void refreshChangedAccounts(Set<String> keys) {
+    List<UUID> cached = new ArrayList<>(keys.size());
+    for (String key : keys) {
+      UUID uuid = UUID.fromString(key);
+      if (balanceTracker.contains(uuid)) {
+        cached.add(uuid);
+      }
+    }
+    try {
+      networkStore.refresh(cached);
+    } catch (SQLException e) {
+      LOGGER.at(Level.WARNING).log("Failed to refresh %d accounts changed by other servers: %s",
+              cached.size(), e.getMessage());
+    }
+  }
+
+  /**
+   * Descarrega contas offline: as que estão sem acesso há mais de {@code idleMs} e, se ainda houver
+   * mais de {@code maxOffline} contas offline em memória, as acessadas há mais tempo (LRU)
+   */
+  private void evictOfflineAccounts(int maxOffline, long idleMs) {
+    if (spill != null && !spill.isEmpty()) {
+      // O banco ainda não tem o journal: uma conta descarregada seria relida com o saldo antigo
+      return;
+    }
+    try {
+      long now = System.currentTimeMillis();
+      long accessedBefore = now - EVICTION_MIN_IDLE_MS;
+      List<PlayerBalance> candidates = new ArrayList<>();
+      for (PlayerBalance balance : balanceTracker.values()) {
+        if (balance.getLastAccessMillis() < accessedBefore && !balanceTracker.isPinned(balance.getUuid())) {
+          candidates.add(balance);
+        }
+      }
+      int excess = balanceTracker.size() - balanceTracker.getPinnedCount() - maxOffline;
+      if (candidates.isEmpty()) {
+        return;
+      }
+      candidates.sort(Comparator.comparingLong(PlayerBalance::getLastAccessMillis));
+      int evicted = 0;
+      for (PlayerBalance balance : candidates) {
+        boolean expired = balance.getLastAccessMillis() < now - idleMs;
+        if (!expired && evicted >= excess) {
+          break;
+        }
+        if (balanceTracker.evict(balance.getUuid(), accessedBefore)) {
+          if (spill != null) {
+            spill.forget(balance.getUuid());
+          }
+          evicted++;
+        }
+      }
+      if (evicted > 0) {
+        LOGGER.at(Level.FINE).log("Evicted %d offline accounts (%d cached)", evicted, balanceTracker.size());
+      }
+    } catch (Exception e) {
+      LOGGER.at(Level.WARNING).log("Failed to evict offline accounts: %s", e.getMessage());
+    }
+  }
+
+  /**
+   * Ranking direto do banco (modo lazy, em que o tracker só tem parte das contas).
+   * Reflete o que já foi gravado; alterações ainda no buffer de gravações entram no próximo flush.
+   * @return As {@code limit} contas com maior saldo, em ordem decrescente (cash não é lido)
+   */
+  @Override
+  public CompletableFuture<List<PlayerBalance>> loadTopBalances(int limit) {
+    return CompletableFuture.supplyAsync(() -> {
+      String sql = String.format("SELECT UUID, Nickname, Balance FROM `%s` ORDER BY Balance DESC LIMIT ?", tableName);
+      List<PlayerBalance> top = new ArrayList<>(limit);
+      try (Connection conn = dataSource.getConnection();
+           PreparedStatement ps = conn.prepareStatement(sql)) {
+        ps.setInt(1, limit);
+        try (ResultSet rs = ps.executeQuery()) {
+          while (rs.next()) {
+            String nickname = rs.getString("Nickname");
+            top.add(PlayerBalance.ofUnits(UUID.fromString(rs.getString("UUID")),
+                    nickname != null ? nickname : "", readBalanceUnits(rs), 0));
+          }
+        }
+      } catch (SQLException e) {
+        throw new CompletionException(e);
+      }
+      return top;
+    }, pool.executor(TOP_KEY));
+  }
+
+  /**
+   * Busca o UUID de uma conta pelo Nickname direto no banco (jogadores que não estão no índice em memória).
+   * A comparação segue a collation da coluna (sem diferenciar maiúsculas/minúsculas por padrão).
+   * @return UUID ou null se não encontrado ou se a consulta falhar
+   */
+  @Override
+  public UUID findUuidByNickname(@Nonnull String nickname) {
+    if (dataSource == null || dataSource.isClosed()) {
+      return null;
+    }
+    String sql = String.format("SELECT UUID FROM `%s` WHERE Nickname = ? LIMIT 1", tableName);
+    try (Connection conn = dataSource.getConnection();
+         PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setString(1, nickname);
+      try (ResultSet rs = ps.executeQuery()) {
+        if (rs.next()) {
+          return UUID.fromString(rs.getString("UUID"));
+        }
+      }
+    } catch (SQLException | IllegalArgumentException e) {
+      LOGGER.at(Level.WARNING).log("Failed to look up player %s in MySQL: %s", nickname, e.getMessage());
+    }
+    return null;
+  }
+
+  @Override
   public BalanceTracker getBalanceTracker() {
     return balanceTracker;
   }
 
   public CompletableFuture<PlayerBalance> loadPlayer(@Nonnull UUID playerUuid) {
     return CompletableFuture.supplyAsync(() -> {
-      try (Connection conn = dataSource.getConnection()) {
-        String sql = String.format("SELECT Nickname, Balance, Cash FROM `%s` WHERE UUID = ?", tableName);
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-          ps.setString(1, playerUuid.toString());
-          try (ResultSet rs = ps.executeQuery()) {
-            if (rs.next()) {
-              String nickname = rs.getString("Nickname");
-              double balance = rs.getDouble("Balance");
-              int cash = rs.getInt("Cash");
-              PlayerBalance playerBalance = new PlayerBalance(playerUuid,
-                      nickname != null ? nickname : "",
-                      balance,
-                      cash);
-              // Add to tracker if not already present
-              if (balanceTracker.getBalance(playerUuid) == 0.0) {
-                balanceTracker.setBalance(playerUuid, balance);
-                balanceTracker.setCash(playerUuid, cash);
-                if (nickname != null && !nickname.isEmpty()) {
-                  balanceTracker.setPlayerNick(playerUuid, nickname);
-                }
-              }
-              return playerBalance;
-            }
-          }
+      try {
+        PlayerBalance playerBalance = readAccount(playerUuid);
+        if (playerBalance != null) {
+          // Add to tracker if not already present (a conta em memória é a mais recente)
+          PlayerBalance cached = balanceTracker.putIfAbsent(playerBalance);
+          cached.touch();
+          return PlayerBalance.ofUnits(playerUuid, cached.getNick(), cached.getBalanceUnits(), cached.getCash());
         }
 
         // Create new player with initial balance
@@ -215,7 +703,7 @@ public class MySQLStorageProvider {
         PlayerBalance newBalance = new PlayerBalance(playerUuid, "", initialBalance, 0);
         balanceTracker.setBalance(playerUuid, initialBalance);
         balanceTracker.setCash(playerUuid, 0);
-        savePlayerSync(playerUuid, newBalance);
+        savePlayer(playerUuid, newBalance);
         playerCount++;
         return newBalance;
 
@@ -223,185 +711,350 @@ public class MySQLStorageProvider {
         LOGGER.at(Level.SEVERE).log("Failed to load player %s: %s", playerUuid, e.getMessage());
         return new PlayerBalance(playerUuid, "", Main.CONFIG.get().getInitialBalance(), 0);
       }
-    }, executor);
+    }, pool.executor(playerUuid));
   }
 
+  /**
+   * Coloca o estado da conta no buffer write-behind. Gravações seguidas da mesma conta
+   * são agrupadas e apenas o estado mais recente vai para o banco.
+   * @return Future completado quando o estado for gravado
+   */
+  @Override
   public CompletableFuture<Void> savePlayer(@Nonnull UUID playerUuid, @Nonnull PlayerBalance balance) {
-    return CompletableFuture.runAsync(() -> {
-      savePlayerSync(playerUuid, balance);
-    }, executor);
+    if (writeBuffer == null) {
+      return MySQLCircuitBreaker.getInstance().<Void>retry("balance save", writeExecutor, () -> {
+        savePlayerSync(playerUuid, balance);
+        return null;
+      }).whenComplete((ignored, e) -> {
+        if (e != null) {
+          LOGGER.at(Level.SEVERE).log("Failed to save player %s: %s", playerUuid, e.getMessage());
+        }
+      });
+    }
+    return writeBuffer.enqueue(balance);
   }
 
-  private void savePlayerSync(@Nonnull UUID playerUuid, @Nonnull PlayerBalance balance) {
-    // Vérifie si le pool est fermé ou indisponible
-    if (dataSource == null || dataSource.isClosed()) {
-      LOGGER.at(Level.WARNING).log("Cannot save player %s: DataSource is closed", playerUuid);
-      return;
+  /**
+   * Grava as contas envolvidas em uma transferência juntas, em uma única transação.
+   * O estado de cada conta é lido de {@code currentState} no executor de IO, na hora da gravação.
+   * @return Future completado quando a transação for confirmada
+   */
+  @Override
+  public CompletableFuture<Void> saveTransaction(@Nonnull Collection<UUID> uuids,
+                                                 @Nonnull Function<UUID, PlayerBalance> currentState) {
+    if (writeBuffer == null) {
+      return CompletableFuture.runAsync(() -> {
+        List<PlayerBalance> balances = new ArrayList<>(uuids.size());
+        for (UUID uuid : uuids) {
+          balances.add(currentState.apply(uuid));
+        }
+        try {
+          writeBatch(balances, Integer.MAX_VALUE, count -> {
+          });
+        } catch (SQLException e) {
+          throw new CompletionException(e);
+        }
+      }, writeExecutor);
     }
+    return writeBuffer.writeGroup(uuids, currentState);
+  }
 
-    // Vérifie l'état du pool
-    if (dataSource.getHikariPoolMXBean() != null) {
-      int totalConnections = dataSource.getHikariPoolMXBean().getTotalConnections();
-      int activeConnections = dataSource.getHikariPoolMXBean().getActiveConnections();
-      int idleConnections = dataSource.getHikariPoolMXBean().getIdleConnections();
+  /**
+   * Grava as contas com uma conexão e um statement reutilizado, em blocos de {@code chunkSize} contas
+   * com um executeBatch e um commit por bloco (executado pelo buffer no executor de IO).
+   * Se um bloco falhar, só ele é desfeito; os anteriores continuam confirmados.
+   * @param onChunkCommitted Recebe o número de contas de cada bloco confirmado
+   */
+  private void writeBatch(@Nonnull List<PlayerBalance> balances, int chunkSize,
+                          @Nonnull IntConsumer onChunkCommitted) throws SQLException {
+    if (dataSource == null || dataSource.isClosed()) {
+      throw new SQLException("DataSource is closed");
+    }
 
-      if (totalConnections == 0) {
-        LOGGER.at(Level.SEVERE).log("Cannot save player %s: No connections available in pool (total=0, active=%d, idle=%d)",
-                playerUuid, activeConnections, idleConnections);
-        LOGGER.at(Level.SEVERE).log("Pool may be closed or database may be unreachable. Consider checking database connectivity.");
-        return;
+    try (Connection conn = dataSource.getConnection()) {
+      conn.setAutoCommit(false);
+      try (PreparedStatement ps = conn.prepareStatement(upsertSql())) {
+        int size = balances.size();
+        for (int from = 0; from < size; ) {
+          int to = (int) Math.min(size, (long) from + chunkSize);
+          for (int i = from; i < to; i++) {
+            bindBalance(ps, balances.get(i));
+            ps.addBatch();
+          }
+          ps.executeBatch();
+          conn.commit();
+          if (spill != null) {
+            spill.rememberWritten(balances.subList(from, to));
+          }
+          onChunkCommitted.accept(to - from);
+          from = to;
+        }
+      } catch (SQLException e) {
+        conn.rollback();
+        throw e;
+      } finally {
+        conn.setAutoCommit(true);
       }
     }
+  }
 
-    // Retry logic avec backoff
-    int maxRetries = 3;
-    int retryDelayMs = 1000;
+  private String upsertSql() {
+    return String.format("""
+            INSERT INTO `%s` (UUID, Nickname, Balance, Cash)
+            VALUES (?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE
+                Nickname = VALUES(Nickname),
+                Balance = VALUES(Balance),
+                Cash = VALUES(Cash)
+            """, tableName);
+  }
 
-    for (int attempt = 1; attempt <= maxRetries; attempt++) {
-      try (Connection conn = dataSource.getConnection()) {
-        // Verifica se o player já existe no tracker
-        boolean playerExists = balanceTracker.getBalances().length > 0 &&
-                java.util.Arrays.stream(balanceTracker.getBalances())
-                        .anyMatch(b -> b.getUuid().equals(playerUuid));
+  private static void bindBalance(PreparedStatement ps, PlayerBalance balance) throws SQLException {
+    ps.setString(1, balance.getUuid().toString());
+    ps.setString(2, balance.getNick() != null ? balance.getNick() : "");
+    ps.setBigDecimal(3, MoneyUnits.toBigDecimal(balance.getBalanceUnits()));
+    ps.setInt(4, balance.getCash());
+  }
 
-        String sql = String.format("""
-                INSERT INTO `%s` (UUID, Nickname, Balance, Cash)
-                VALUES (?, ?, ?, ?)
-                ON DUPLICATE KEY UPDATE 
-                    Nickname = VALUES(Nickname),
-                    Balance = VALUES(Balance),
-                    Cash = VALUES(Cash)
-                """, tableName);
+  /**
+   * Migra o Balances.json para a tabela em lotes de MySQLMigrationBatchSize contas, continuando do
+   * checkpoint se uma migração anterior foi interrompida. As gravações pendentes vão para o banco antes
+   * (para não sobrescreverem o que foi migrado) e no final o tracker é recarregado do banco
+   * (ver {@link #reloadAllPlayers()}).
+   */
+  @Override
+  public JsonMigration.Result migrateFromJson(@Nonnull Path file) throws IOException, SQLException {
+    drainWriteBuffer();
+    JsonMigration.Result result = migration.migrate(file, migrationSteps());
+    // O tracker passa a refletir o que foi gravado
+    reloadAllPlayers();
+    return result;
+  }
 
-        try (PreparedStatement ps = conn.prepareStatement(sql)) {
-          ps.setString(1, playerUuid.toString());
-          ps.setString(2, balance.getNick() != null ? balance.getNick() : "");
-          ps.setDouble(3, balance.getBalance());
-          ps.setInt(4, balance.getCash());
-          ps.executeUpdate();
-
-          // Update tracker
-          if (!playerExists) {
-            // Novo player adicionado, incrementa contador
-            playerCount++;
-          }
-          balanceTracker.setBalance(playerUuid, balance.getBalance());
-          balanceTracker.setCash(playerUuid, balance.getCash());
-          if (balance.getNick() != null && !balance.getNick().isEmpty()) {
-            balanceTracker.setPlayerNick(playerUuid, balance.getNick());
-          }
+  /**
+   * @return true se uma migração do arquivo foi interrompida e deve continuar
+   */
+  @Override
+  public boolean hasPendingMigration(@Nonnull Path file) throws IOException, SQLException {
+    return migration.hasPending(file, migrationSteps());
+  }
 
-          // Success - exit retry loop
-          if (attempt > 1) {
-            LOGGER.at(Level.INFO).log("Successfully saved player %s after %d attempts", playerUuid, attempt);
-          }
-          return;
-        }
-      } catch (SQLException e) {
-        if (attempt < maxRetries) {
-          LOGGER.at(Level.WARNING).log("Failed to save player %s (attempt %d/%d): %s. Retrying in %dms...",
-                  playerUuid, attempt, maxRetries, e.getMessage(), retryDelayMs);
-          try {
-            Thread.sleep(retryDelayMs);
-            retryDelayMs *= 2; // Exponential backoff
-          } catch (InterruptedException ie) {
-            Thread.currentThread().interrupt();
-            break;
-          }
-        } else {
-          LOGGER.at(Level.SEVERE).log("Failed to save player %s after %d attempts: %s",
-                  playerUuid, maxRetries, e.getMessage());
-        }
-      }
+  private List<JsonMigration.Step> migrationSteps() {
+    return List.of(new JsonMigration.Step("Values", List.of(upsertSql()), (element, statements) -> {
+      bindBalance(statements[0], BalanceBlockingFile.parseBalance(element.getAsJsonObject()));
+      statements[0].addBatch();
+      return 1;
+    }));
+  }
+
+  /**
+   * Grava uma conta em uma única tentativa (o retry, sem bloquear a thread de IO, fica com o
+   * {@link MySQLCircuitBreaker})
+   */
+  private void savePlayerSync(@Nonnull UUID playerUuid, @Nonnull PlayerBalance balance) throws SQLException {
+    if (dataSource == null || dataSource.isClosed()) {
+      throw new SQLException("DataSource is closed");
+    }
+
+    boolean playerExists = balanceTracker.contains(playerUuid);
+    try (Connection conn = MySQLCircuitBreaker.getInstance().connect(dataSource);
+         PreparedStatement ps = conn.prepareStatement(upsertSql())) {
+      bindBalance(ps, balance);
+      ps.executeUpdate();
+    }
+    if (!playerExists) {
+      // Novo player adicionado, incrementa contador
+      playerCount++;
     }
+    // Não reescreve o tracker aqui: o snapshot salvo pode já estar desatualizado
+    // (o tracker é a fonte da verdade e pode ter sido alterado por outra thread)
   }
 
+  /**
+   * Grava as contas alteradas de uma vez: uma conexão, blocos de MySQLWriteBufferBatchSize contas
+   * e um commit por bloco, com um único future para todas. Usado apenas sem o buffer write-behind.
+   */
   public CompletableFuture<Void> saveAll(@Nonnull Map<UUID, PlayerBalance> dirtyPlayers) {
     if (dirtyPlayers.isEmpty()) {
       return CompletableFuture.completedFuture(null);
     }
+    return CompletableFuture.runAsync(() -> {
+      try {
+        writeBatch(new ArrayList<>(dirtyPlayers.values()), writeBatchSize, count -> {
+        });
+      } catch (SQLException e) {
+        throw new CompletionException(e);
+      }
+      LOGGER.at(Level.FINE).log("Saved %d players to MySQL", dirtyPlayers.size());
+    }, writeExecutor);
+  }
+
+  /**
+   * Flush periódico: grava as contas alteradas que estão em memória em um único {@link #saveAll}.
+   * Contas que saíram da memória não têm estado para gravar (nunca grava um saldo zerado no lugar).
+   * <p>
+   * Com o buffer write-behind, cada alteração já passou por {@link #savePlayer} ou {@link #saveTransaction}:
+   * o flush só esvazia o buffer, sem regravar as contas. O que não puder ir ao banco fica no buffer ou no
+   * journal de spill, então as contas podem deixar de ser sujas para o tracker.
+   */
+  @Override
+  public CompletableFuture<FlushStats> flush(@Nonnull Map<UUID, Long> dirty) {
+    long start = System.nanoTime();
+    if (writeBuffer != null) {
+      long rowsBefore = writeBuffer.getRowsWritten();
+      return writeBuffer.drain().thenApply(ignored -> {
+        int rows = (int) Math.min(Integer.MAX_VALUE, writeBuffer.getRowsWritten() - rowsBefore);
+        return new FlushStats(rows, rows * estimateRowBytes(null), System.nanoTime() - start,
+                System.currentTimeMillis());
+      });
+    }
 
-    CompletableFuture<?>[] futures = dirtyPlayers.entrySet().stream()
-            .map(entry -> savePlayer(entry.getKey(), entry.getValue()))
-            .toArray(CompletableFuture[]::new);
+    Map<UUID, PlayerBalance> dirtyPlayers = new HashMap<>();
+    long bytes = 0L;
+    for (UUID uuid : dirty.keySet()) {
+      PlayerBalance account = balanceTracker.getAccount(uuid);
+      if (account == null) {
+        // Conta fora da memória: não há estado para gravar (nunca grava um saldo zerado no lugar)
+        continue;
+      }
+      String nick = account.getNick();
+      PlayerBalance snapshot = PlayerBalance.ofUnits(uuid, nick != null ? nick : "",
+              account.getBalanceUnits(), account.getCash());
+      dirtyPlayers.put(uuid, snapshot);
+      bytes += estimateRowBytes(snapshot);
+    }
+    long rowBytes = bytes;
+    // Timeout para não travar o save (e o shutdown) se o banco estiver fora do ar;
+    // nesse caso as contas continuam sujas para o próximo flush
+    return saveAll(dirtyPlayers).thenApply(ignored -> new FlushStats(dirtyPlayers.size(), rowBytes,
+            System.nanoTime() - start, System.currentTimeMillis()));
+  }
 
-    return CompletableFuture.allOf(futures).thenRun(() -> {
-      LOGGER.at(Level.FINE).log("Saved %d players to MySQL", dirtyPlayers.size());
-    });
+  /**
+   * Tamanho aproximado de uma linha enviada ao MySQL (UUID + nick + saldo + cash)
+   */
+  private static long estimateRowBytes(@Nullable PlayerBalance balance) {
+    String nick = balance != null ? balance.getNick() : null;
+    return 36L + (nick != null ? nick.length() : 0) + Long.BYTES + Integer.BYTES;
   }
 
   public CompletableFuture<Void> shutdown() {
     return CompletableFuture.runAsync(() -> {
       shutdownSync();
-    }, executor);
+    }, writeExecutor);
   }
 
   /**
    * Shutdown síncrono (usado durante reload para evitar RejectedExecutionException)
    */
+  @Override
   public void shutdownSync() {
     try {
-      // Save all current balances before shutdown (de forma síncrona)
-      if (balanceTracker != null) {
-        Map<UUID, PlayerBalance> allBalances = new HashMap<>();
-        for (PlayerBalance balance : balanceTracker.getBalances()) {
-          allBalances.put(balance.getUuid(), balance);
+      if (networkStore != null) {
+        // O que não for reaplicado agora fica no journal para o próximo boot
+        replayNetworkSpill();
+        ChangeFeed.getInstance().stop();
+      }
+      if (writeBuffer != null) {
+        writeBuffer.stop();
+      }
+      MySQLCircuitBreaker breaker = MySQLCircuitBreaker.getInstance();
+      if (flushOnRecovery != null) {
+        breaker.removeCloseListener(flushOnRecovery);
+      }
+      if (replayOnRecovery != null) {
+        breaker.removeCloseListener(replayOnRecovery);
+      }
+      // Save all current balances before shutdown (de forma síncrona).
+      // No modo rede o banco já tem tudo e gravar o cache sobrescreveria alterações de outros servidores.
+      if (balanceTracker != null && networkStore == null) {
+        List<PlayerBalance> allBalances = new ArrayList<>(balanceTracker.size());
+        for (PlayerBalance balance : balanceTracker.values()) {
+          String nick = balance.getNick();
+          allBalances.add(PlayerBalance.ofUnits(balance.getUuid(), nick != null ? nick : "",
+                  balance.getBalanceUnits(), balance.getCash()));
         }
         // Salva de forma síncrona durante shutdown
         try {
+          if (spill != null) {
+            // O journal vai antes: reaplicar os deltas depois dos estados atuais contaria tudo duas vezes
+            if (breaker.isOpen()) {
+              throw new SQLTransientConnectionException("MySQL circuit breaker is open");
+            }
+            spill.drain();
+          }
           saveAllSync(allBalances);
+          // Todos os saldos atuais foram gravados, as entradas do buffer estão obsoletas
+          if (writeBuffer != null) {
+            writeBuffer.clear();
+          }
         } catch (Exception e) {
           LOGGER.at(Level.WARNING).log("Failed to save balances during shutdown: %s", e.getMessage());
+          if (spill != null) {
+            spillOnShutdown(allBalances);
+          }
         }
       }
+      if (spill != null) {
+        spill.close();
+      }
+      if (networkSpill != null) {
+        networkSpill.close();
+      }
 
-      if (dataSource != null && !dataSource.isClosed()) {
-        dataSource.close();
+      // O pool só fecha quando o último provider o libera
+      if (acquired) {
+        acquired = false;
+        pool.release();
       }
-      executor.shutdown();
-      LOGGER.at(Level.INFO).log("MySQL HikariCP pool closed");
+      LOGGER.at(Level.INFO).log("MySQL balance storage closed");
     } catch (Exception e) {
-      LOGGER.at(Level.WARNING).log("Error closing MySQL HikariCP pool: %s", e.getMessage());
+      LOGGER.at(Level.WARNING).log("Error closing MySQL balance storage: %s", e.getMessage());
     }
   }
 
   /**
-   * Salva todos os balances de forma síncrona (usado durante shutdown)
+   * Banco fora do ar no shutdown: as entradas do buffer e as contas que diferem do último estado gravado
+   * vão para o journal de spill, para serem reaplicadas no próximo boot
    */
-  private void saveAllSync(Map<UUID, PlayerBalance> balances) throws SQLException {
-    if (dataSource == null || dataSource.isClosed()) {
-      return;
+  private void spillOnShutdown(List<PlayerBalance> allBalances) {
+    boolean kept = writeBuffer == null || writeBuffer.spillPending();
+    List<PlayerBalance> unsaved = spill.unsaved(allBalances);
+    kept &= spill.append(unsaved);
+    if (kept) {
+      if (writeBuffer != null) {
+        writeBuffer.clear();
+      }
+      LOGGER.at(Level.WARNING).log("MySQL unreachable during shutdown: %d balance records kept in %s",
+              spill.getRecordCount(), FileUtils.BALANCES_SPILL_PATH);
+    } else {
+      LOGGER.at(Level.SEVERE).log("MySQL unreachable and the balance spill journal is full: balance changes since the outage are lost");
     }
+  }
 
-    try (Connection conn = dataSource.getConnection()) {
-      String sql = String.format("""
-              INSERT INTO `%s` (UUID, Nickname, Balance, Cash)
-              VALUES (?, ?, ?, ?)
-              ON DUPLICATE KEY UPDATE
-                  Nickname = VALUES(Nickname),
-                  Balance = VALUES(Balance),
-                  Cash = VALUES(Cash)
-              """, tableName);
-
-      try (PreparedStatement ps = conn.prepareStatement(sql)) {
-        for (Map.Entry<UUID, PlayerBalance> entry : balances.entrySet()) {
-          UUID uuid = entry.getKey();
-          PlayerBalance balance = entry.getValue();
-
-          ps.setString(1, uuid.toString());
-          String nickname = balanceTracker.getPlayerNick(uuid);
-          ps.setString(2, nickname != null ? nickname : "");
-          ps.setDouble(3, balance.getBalance());
-          ps.setInt(4, balance.getCash());
-          ps.addBatch();
-        }
-        ps.executeBatch();
-      }
+  /**
+   * Salva todos os balances de forma síncrona (usado durante shutdown), nos mesmos blocos do save periódico
+   */
+  private void saveAllSync(List<PlayerBalance> balances) throws SQLException {
+    if (dataSource == null || dataSource.isClosed() || balances.isEmpty()) {
+      return;
     }
+    long start = System.nanoTime();
+    writeBatch(balances, writeBatchSize, count -> {
+    });
+    LOGGER.at(Level.INFO).log("Saved %d balances to MySQL in %.1fms", balances.size(),
+            (System.nanoTime() - start) / 1_000_000.0);
   }
 
+  @Override
   public int getPlayerCount() {
     return playerCount;
   }
-}
 
+  /**
+   * @return Buffer de gravações de saldo (métricas de fila e latência), ou null antes da inicialização
+   */
+  public BalanceWriteBuffer getWriteBuffer() {
+    return writeBuffer;
+  }
+}
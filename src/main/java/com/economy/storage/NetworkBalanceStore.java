@@ -0,0 +1,557 @@
+package com.economy.storage;
+
+import com.economy.economy.BalanceTracker;
+import com.economy.economy.CurrencyType;
+import com.economy.economy.MoneyUnits;
+import com.economy.economy.PlayerBalance;
+import com.economy.economy.TransferLeg;
+import com.hypixel.hytale.logger.HytaleLogger;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.sql.SQLTransactionRollbackException;
+import java.sql.SQLTransientException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Modo rede do MySQL: vários servidores usando a mesma tabela de saldos.
+ * <p>
+ * Em vez de gravar o estado do cache local (o último servidor a gravar venceria e o dinheiro alterado
+ * pelos outros se perderia), cada alteração vai direto para o banco como um delta atômico
+ * ({@code Balance = Balance + ?}); débitos só são aplicados se o saldo não ficar negativo. Toda alteração
+ * incrementa a coluna Version. Saldos definidos por valor absoluto (/money set) usam a versão lida como
+ * controle otimista e são repetidos em caso de conflito. Os valores confirmados pelo banco atualizam o cache.
+ * <p>
+ * Não há um escritor único: cada servidor altera só as linhas das contas envolvidas, então a vazão cresce
+ * com o número de servidores. As linhas de uma transação são travadas sempre na mesma ordem (UUID), o que
+ * evita deadlocks entre transferências cruzadas; deadlocks e timeouts de lock ainda são repetidos.
+ * <p>
+ * As alterações rodam na fila de IO da conta ({@link MySQLConnectionPool#lane(Object)}) e devolvem um future:
+ * quem chama (muitas vezes a thread do mundo) nunca executa a transação, e as novas tentativas são agendadas
+ * na fila em vez de dormir em alguma thread.
+ * <p>
+ * Somente as contas dos jogadores online ficam em cache. Cada alteração é anunciada no {@link ChangeFeed}
+ * e os outros servidores relêem só as contas alteradas ({@link #refresh(Collection)}); uma conferência
+ * periódica pela versão cobre o que o feed perder.
+ * <p>
+ * Créditos e sets sem resposta para quem chama ({@link #creditOrSpill(List)}, {@link #setOrSpill}) não se
+ * perdem com o banco fora do ar: vão para o {@link BalanceSpillJournal} e são reaplicados com
+ * {@link #replaySpill()} quando ele volta. Débitos continuam dependendo do banco para conferir o saldo.
+ */
+public class NetworkBalanceStore {
+
+  private static final HytaleLogger LOGGER = HytaleLogger.getLogger().getSubLogger("EconomySystem-MySQL");
+  private static final int MAX_ATTEMPTS = 5;
+  private static final int REFRESH_CHUNK_SIZE = 500;
+
+  private final DataSource dataSource;
+  private final String tableName;
+  private final BalanceTracker tracker;
+  private final BalanceSpillJournal spill;
+
+  // Métricas
+  private final AtomicLong versionConflicts = new AtomicLong();
+  private final AtomicLong retries = new AtomicLong();
+
+  private static final class Row {
+    final String nick;
+    final long units;
+    final int cash;
+    final long version;
+
+    Row(String nick, long units, int cash, long version) {
+      this.nick = nick != null ? nick : "";
+      this.units = units;
+      this.cash = cash;
+      this.version = version;
+    }
+  }
+
+  NetworkBalanceStore(@Nonnull DataSource dataSource, @Nonnull String tableName, @Nonnull BalanceTracker tracker,
+                      @Nullable BalanceSpillJournal spill) {
+    this.dataSource = dataSource;
+    this.tableName = tableName;
+    this.tracker = tracker;
+    this.spill = spill;
+  }
+
+  /**
+   * Cria a coluna Version em tabelas que ainda não a têm
+   */
+  void ensureVersionColumn() throws SQLException {
+    try (Connection conn = dataSource.getConnection()) {
+      String sql = """
+              SELECT 1 FROM information_schema.COLUMNS
+              WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = 'Version'
+              """;
+      try (PreparedStatement ps = conn.prepareStatement(sql)) {
+        ps.setString(1, tableName);
+        try (ResultSet rs = ps.executeQuery()) {
+          if (rs.next()) {
+            return;
+          }
+        }
+      }
+      try (Statement stmt = conn.createStatement()) {
+        stmt.execute(String.format("ALTER TABLE `%s` ADD COLUMN Version BIGINT NOT NULL DEFAULT 0", tableName));
+        LOGGER.at(Level.INFO).log("Added Version column to `%s` (network mode)", tableName);
+      }
+    }
+  }
+
+  /**
+   * Lê a conta do banco e atualiza o cache (carregador do tracker no modo rede)
+   * @return A conta em cache ou null se ela não existe
+   */
+  public PlayerBalance load(@Nonnull UUID uuid) throws SQLException {
+    Row row;
+    try (Connection conn = MySQLCircuitBreaker.getInstance().connect(dataSource)) {
+      row = readRows(conn, List.of(uuid)).get(uuid);
+    }
+    return row != null ? applyToCache(uuid, row) : null;
+  }
+
+  /**
+   * Aplica as pernas no banco em uma única transação, na fila de IO da primeira conta. Débitos só são
+   * aplicados se houver saldo suficiente; créditos criam a conta se ela não existir.
+   * @return Future com true se todas as pernas foram aplicadas ou false se algum débito não tinha saldo
+   * (nada é alterado); falha com a SQLException se o banco falhar mesmo depois das novas tentativas
+   */
+  public CompletableFuture<Boolean> applyLegs(@Nonnull List<TransferLeg> legs) {
+    List<TransferLeg> ordered = ordered(legs);
+    return submit(ordered.get(0).getUuid(), () -> applyLegsOnce(ordered, null));
+  }
+
+  /**
+   * Como {@link #applyLegs(List)}, para créditos que ninguém espera (addBalance, addCash): se o banco estiver
+   * fora do ar, as pernas vão para o journal de spill e são reaplicadas quando ele voltar. Enquanto o journal
+   * tiver registros, as alterações novas também vão para ele, para o banco recebê-las na ordem.
+   * @return Future com true se as pernas foram aplicadas ou guardadas no journal; falha com a SQLException
+   * se o banco falhar por outro motivo ou o journal não aceitar o registro
+   */
+  public CompletableFuture<Boolean> creditOrSpill(@Nonnull List<TransferLeg> legs) {
+    if (spill == null) {
+      return applyLegs(legs);
+    }
+    List<TransferLeg> ordered = ordered(legs);
+    return submit(ordered.get(0).getUuid(), () -> {
+      if (spill.isEmpty()) {
+        try {
+          return applyLegsOnce(ordered, null);
+        } catch (SQLException e) {
+          if (!MySQLCircuitBreaker.isConnectionFailure(e)) {
+            throw e;
+          }
+          spillOrThrow(spill.appendLegs(ordered), e);
+          return true;
+        }
+      }
+      spillOrThrow(spill.appendLegs(ordered), null);
+      return true;
+    });
+  }
+
+  /**
+   * Mesma ordem em todos os servidores (UUID, débitos antes dos créditos da mesma conta)
+   */
+  private static List<TransferLeg> ordered(List<TransferLeg> legs) {
+    List<TransferLeg> ordered = new ArrayList<>(legs);
+    ordered.sort(Comparator.comparing(TransferLeg::getUuid).thenComparing(leg -> !leg.isDebit()));
+    return ordered;
+  }
+
+  /**
+   * @param inTransaction Roda na transação das pernas antes do commit (progresso do journal), ou null
+   */
+  private boolean applyLegsOnce(List<TransferLeg> ordered, @Nullable BalanceSpillJournal.SqlStep inTransaction)
+          throws SQLException {
+    Set<UUID> uuids = new LinkedHashSet<>();
+    for (TransferLeg leg : ordered) {
+      uuids.add(leg.getUuid());
+    }
+    List<String> keys = new ArrayList<>(uuids.size());
+    for (UUID uuid : uuids) {
+      keys.add(uuid.toString());
+    }
+    Map<UUID, Row> rows;
+    try (Connection conn = MySQLCircuitBreaker.getInstance().connect(dataSource)) {
+      conn.setAutoCommit(false);
+      try {
+        for (TransferLeg leg : ordered) {
+          if (leg.isDebit()) {
+            if (!debit(conn, leg)) {
+              conn.rollback();
+              return false;
+            }
+          } else {
+            credit(conn, leg);
+          }
+        }
+        rows = readRows(conn, uuids);
+        ChangeFeed.getInstance().record(conn, ChangeFeed.BALANCE, keys);
+        if (inTransaction != null) {
+          inTransaction.run(conn);
+        }
+        conn.commit();
+      } catch (SQLException e) {
+        conn.rollback();
+        throw e;
+      } finally {
+        conn.setAutoCommit(true);
+      }
+    }
+    for (Map.Entry<UUID, Row> entry : rows.entrySet()) {
+      applyToCache(entry.getKey(), entry.getValue());
+    }
+    return true;
+  }
+
+  private boolean debit(Connection conn, TransferLeg leg) throws SQLException {
+    String column = leg.getCurrency() == CurrencyType.CASH ? "Cash" : "Balance";
+    String sql = String.format("UPDATE `%s` SET %s = %s - ?, Version = Version + 1 WHERE UUID = ? AND %s >= ?",
+            tableName, column, column, column);
+    try (PreparedStatement ps = conn.prepareStatement(sql)) {
+      setAmount(ps, 1, leg);
+      ps.setString(2, leg.getUuid().toString());
+      setAmount(ps, 3, leg);
+      return ps.executeUpdate() > 0;
+    }
+  }
+
+  private void credit(Connection conn, TransferLeg leg) throws SQLException {
+    boolean cash = leg.getCurrency() == CurrencyType.CASH;
+    String column = cash ? "Cash" : "Balance";
+    String sql = String.format("""
+            INSERT INTO `%s` (UUID, Nickname, Balance, Cash, Version)
+            VALUES (?, ?, %s, %s, 1)
+            ON DUPLICATE KEY UPDATE %s = %s + VALUES(%s), Version = Version + 1
+            """, tableName, cash ? "0" : "?", cash ? "?" : "0", column, column, column);
+    try (PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setString(1, leg.getUuid().toString());
+      String nick = tracker.getPlayerNick(leg.getUuid());
+      ps.setString(2, nick != null ? nick : "");
+      setAmount(ps, 3, leg);
+      ps.executeUpdate();
+    }
+  }
+
+  private static void setAmount(PreparedStatement ps, int index, TransferLeg leg) throws SQLException {
+    if (leg.getCurrency() == CurrencyType.CASH) {
+      ps.setInt(index, (int) leg.getAmount());
+    } else {
+      ps.setBigDecimal(index, MoneyUnits.toBigDecimal(leg.getAmount()));
+    }
+  }
+
+  /**
+   * Define saldo e/ou cash por valor absoluto, na fila de IO da conta. A gravação só vale se a versão no
+   * banco ainda for a lida; em caso de conflito (outro servidor alterou a conta) relê e tenta de novo.
+   * @param units Novo saldo em unidades mínimas, ou null para manter
+   * @param cash Novo cash, ou null para manter
+   * @return Future completado quando o valor foi gravado; falha com a SQLException se o banco falhar ou
+   * os conflitos continuarem depois das novas tentativas
+   */
+  public CompletableFuture<Void> set(@Nonnull UUID uuid, String nick, Long units, Integer cash) {
+    return submit(uuid, () -> {
+      setOnce(uuid, nick, units, cash, null);
+      return null;
+    });
+  }
+
+  /**
+   * Como {@link #set}, para sets que ninguém espera (setBalance, setCash): se o banco estiver fora do ar, o
+   * valor vai para o journal de spill e é gravado quando ele voltar (ver {@link #creditOrSpill(List)})
+   * @return Future completado quando o valor foi gravado ou guardado no journal
+   */
+  public CompletableFuture<Void> setOrSpill(@Nonnull UUID uuid, String nick, Long units, Integer cash) {
+    if (spill == null) {
+      return set(uuid, nick, units, cash);
+    }
+    return submit(uuid, () -> {
+      if (spill.isEmpty()) {
+        try {
+          setOnce(uuid, nick, units, cash, null);
+          return null;
+        } catch (SQLException e) {
+          if (!MySQLCircuitBreaker.isConnectionFailure(e)) {
+            throw e;
+          }
+          spillOrThrow(spill.appendSet(uuid, nick != null ? nick : "", units, cash), e);
+          return null;
+        }
+      }
+      spillOrThrow(spill.appendSet(uuid, nick != null ? nick : "", units, cash), null);
+      return null;
+    });
+  }
+
+  private static void spillOrThrow(boolean spilled, @Nullable SQLException cause) throws SQLException {
+    if (!spilled) {
+      throw cause != null ? cause : new SQLException("Balance spill journal rejected the change");
+    }
+  }
+
+  /**
+   * Reaplica no banco, na ordem, o que foi para o journal de spill enquanto ele estava fora do ar. Cada
+   * registro roda em uma transação com o progresso do journal e anuncia as contas no feed. Deve rodar na fila
+   * de gravações do provider.
+   * @return Entradas aplicadas
+   * @throws SQLException se o banco falhar (o resto fica para a próxima vez)
+   */
+  public int replaySpill() throws SQLException, IOException {
+    if (spill == null || spill.isEmpty() || MySQLCircuitBreaker.getInstance().isOpen()) {
+      return 0;
+    }
+    return spill.replay(new BalanceSpillJournal.NetworkReplayer() {
+      @Override
+      public void applyLegs(@Nonnull List<TransferLeg> legs, @Nonnull BalanceSpillJournal.SqlStep checkpoint)
+              throws SQLException {
+        if (!applyLegsOnce(ordered(legs), checkpoint)) {
+          // Só débitos podem falhar por saldo, e o journal do modo rede guarda créditos
+          LOGGER.at(Level.WARNING).log("Dropped a spilled balance change (%d legs) that would leave a balance negative",
+                  legs.size());
+          try (Connection conn = MySQLCircuitBreaker.getInstance().connect(dataSource)) {
+            checkpoint.run(conn);
+          }
+        }
+      }
+
+      @Override
+      public void set(@Nonnull UUID uuid, @Nonnull String nick, @Nullable Long units, @Nullable Integer cash,
+                      @Nonnull BalanceSpillJournal.SqlStep checkpoint) throws SQLException {
+        setOnce(uuid, nick, units, cash, checkpoint);
+      }
+    });
+  }
+
+  /**
+   * @param inTransaction Roda na transação do set antes do commit (progresso do journal), ou null
+   */
+  private void setOnce(UUID uuid, String nick, Long units, Integer cash,
+                       @Nullable BalanceSpillJournal.SqlStep inTransaction) throws SQLException {
+    Row updated;
+    try (Connection conn = MySQLCircuitBreaker.getInstance().connect(dataSource)) {
+      // A gravação e o registro no feed na mesma transação, como em applyLegsOnce
+      conn.setAutoCommit(false);
+      try {
+        Row current = readRows(conn, List.of(uuid)).get(uuid);
+        if (current == null) {
+          updated = new Row(nick, units != null ? units : 0L, cash != null ? cash : 0, 1L);
+          String sql = String.format("INSERT INTO `%s` (UUID, Nickname, Balance, Cash, Version) VALUES (?, ?, ?, ?, 1)",
+                  tableName);
+          try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, uuid.toString());
+            ps.setString(2, updated.nick);
+            ps.setBigDecimal(3, MoneyUnits.toBigDecimal(updated.units));
+            ps.setInt(4, updated.cash);
+            ps.executeUpdate();
+          } catch (SQLIntegrityConstraintViolationException e) {
+            // Outro servidor criou a conta ao mesmo tempo
+            throw versionConflict(uuid);
+          }
+        } else {
+          updated = new Row(current.nick, units != null ? units : current.units,
+                  cash != null ? cash : current.cash, current.version + 1);
+          String sql = String.format("UPDATE `%s` SET Balance = ?, Cash = ?, Version = Version + 1 WHERE UUID = ? AND Version = ?",
+                  tableName);
+          try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setBigDecimal(1, MoneyUnits.toBigDecimal(updated.units));
+            ps.setInt(2, updated.cash);
+            ps.setString(3, uuid.toString());
+            ps.setLong(4, current.version);
+            if (ps.executeUpdate() == 0) {
+              throw versionConflict(uuid);
+            }
+          }
+        }
+        ChangeFeed.getInstance().record(conn, ChangeFeed.BALANCE, List.of(uuid.toString()));
+        if (inTransaction != null) {
+          inTransaction.run(conn);
+        }
+        conn.commit();
+      } catch (SQLException e) {
+        conn.rollback();
+        throw e;
+      } finally {
+        conn.setAutoCommit(true);
+      }
+    }
+    applyToCache(uuid, updated);
+  }
+
+  /**
+   * Conflito de versão como falha de serialização (SQLSTATE 40001), repetida como um deadlock
+   */
+  private SQLException versionConflict(UUID uuid) {
+    versionConflicts.incrementAndGet();
+    return new SQLTransactionRollbackException("Version conflict setting balance of " + uuid, "40001");
+  }
+
+  /**
+   * Atualiza o nick no banco (não altera a versão: não é uma alteração de saldo)
+   */
+  public void updateNickname(@Nonnull UUID uuid, @Nonnull String nick) throws SQLException {
+    String sql = String.format("UPDATE `%s` SET Nickname = ? WHERE UUID = ?", tableName);
+    try (Connection conn = MySQLCircuitBreaker.getInstance().connect(dataSource);
+         PreparedStatement ps = conn.prepareStatement(sql)) {
+      ps.setString(1, nick);
+      ps.setString(2, uuid.toString());
+      ps.executeUpdate();
+    }
+  }
+
+  /**
+   * Relê as contas indicadas e atualiza as que mudaram no banco (alterações de outros servidores)
+   * @return Número de contas atualizadas
+   */
+  public int refresh(@Nonnull Collection<UUID> uuids) throws SQLException {
+    if (uuids.isEmpty()) {
+      return 0;
+    }
+    List<UUID> all = new ArrayList<>(uuids);
+    int updated = 0;
+    try (Connection conn = MySQLCircuitBreaker.getInstance().connect(dataSource)) {
+      for (int start = 0; start < all.size(); start += REFRESH_CHUNK_SIZE) {
+        List<UUID> chunk = all.subList(start, Math.min(start + REFRESH_CHUNK_SIZE, all.size()));
+        for (Map.Entry<UUID, Row> entry : readRows(conn, chunk).entrySet()) {
+          PlayerBalance cached = tracker.getAccount(entry.getKey());
+          if (cached == null || cached.getVersion() != entry.getValue().version) {
+            applyToCache(entry.getKey(), entry.getValue());
+            updated++;
+          }
+        }
+      }
+    }
+    return updated;
+  }
+
+  private Map<UUID, Row> readRows(Connection conn, Collection<UUID> uuids) throws SQLException {
+    String sql = String.format("SELECT UUID, Nickname, Balance, Cash, Version FROM `%s` WHERE UUID IN (%s)",
+            tableName, String.join(",", Collections.nCopies(uuids.size(), "?")));
+    Map<UUID, Row> rows = new HashMap<>(uuids.size() * 2);
+    try (PreparedStatement ps = conn.prepareStatement(sql)) {
+      int index = 1;
+      for (UUID uuid : uuids) {
+        ps.setString(index++, uuid.toString());
+      }
+      try (ResultSet rs = ps.executeQuery()) {
+        while (rs.next()) {
+          BigDecimal balance = rs.getBigDecimal("Balance");
+          rows.put(UUID.fromString(rs.getString("UUID")), new Row(rs.getString("Nickname"),
+                  balance != null ? MoneyUnits.toUnits(balance) : 0L, rs.getInt("Cash"), rs.getLong("Version")));
+        }
+      }
+    }
+    return rows;
+  }
+
+  /**
+   * Grava no cache o estado confirmado pelo banco. Um estado mais antigo que o do cache
+   * (transação concorrente que terminou depois) é ignorado.
+   */
+  private PlayerBalance applyToCache(UUID uuid, Row row) {
+    PlayerBalance cached = tracker.putIfAbsent(PlayerBalance.ofUnits(uuid, row.nick, row.units, row.cash));
+    synchronized (cached) {
+      if (cached.getVersion() > row.version) {
+        return cached;
+      }
+      if (cached.getBalanceUnits() != row.units) {
+        tracker.setBalanceUnits(uuid, row.units);
+      }
+      if (cached.getCash() != row.cash) {
+        tracker.setCash(uuid, row.cash);
+      }
+      if (!row.nick.isEmpty() && tracker.getPlayerNick(uuid) == null) {
+        tracker.setPlayerNick(uuid, row.nick);
+      }
+      cached.setVersion(row.version);
+    }
+    return cached;
+  }
+
+  /**
+   * Deadlock, timeout de lock ou falha transitória: vale a pena tentar de novo.
+   * Falhas de conexão não são repetidas aqui (cada tentativa esperaria o timeout do pool): elas contam
+   * para o {@link MySQLCircuitBreaker}, que passa a recusar as operações até o banco voltar.
+   */
+  private static boolean isRetryable(SQLException e) {
+    if (MySQLCircuitBreaker.isConnectionFailure(e)) {
+      return false;
+    }
+    return e instanceof SQLTransientException
+            || "40001".equals(e.getSQLState())
+            || e.getErrorCode() == 1213  // ER_LOCK_DEADLOCK
+            || e.getErrorCode() == 1205; // ER_LOCK_WAIT_TIMEOUT
+  }
+
+  /**
+   * Roda a operação na fila de IO da chave. Falhas repetíveis agendam a próxima tentativa na mesma fila
+   * (sem dormir: a fila atende as outras contas nesse meio tempo); as demais completam o future na hora.
+   */
+  private <T> CompletableFuture<T> submit(UUID key, MySQLCircuitBreaker.SqlOperation<T> operation) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    attempt(key, operation, result, 1);
+    return result;
+  }
+
+  private <T> void attempt(UUID key, MySQLCircuitBreaker.SqlOperation<T> operation, CompletableFuture<T> result,
+                           int attempt) {
+    Runnable task = () -> {
+      try {
+        result.complete(operation.run());
+      } catch (SQLException e) {
+        if (attempt >= MAX_ATTEMPTS || !isRetryable(e)) {
+          result.completeExceptionally(e);
+          return;
+        }
+        retries.incrementAndGet();
+        long delayMs = attempt * 10L + ThreadLocalRandom.current().nextInt(10);
+        try {
+          MySQLConnectionPool.getInstance().lane(key)
+                  .schedule(() -> attempt(key, operation, result, attempt + 1), delayMs, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException scheduleFailure) {
+          // Pool fechado (shutdown/reload)
+          result.completeExceptionally(e);
+        }
+      } catch (RuntimeException e) {
+        result.completeExceptionally(e);
+      }
+    };
+    try {
+      MySQLConnectionPool.getInstance().executor(key).execute(task);
+    } catch (RuntimeException e) {
+      result.completeExceptionally(e);
+    }
+  }
+
+  public long getVersionConflicts() {
+    return versionConflicts.get();
+  }
+
+  public long getRetries() {
+    return retries.get();
+  }
+}
@@ -0,0 +1,84 @@
+package com.economy.storage;
+
+import com.economy.playershop.PlayerShopItem;
+import com.economy.playershop.PlayerShopPlayer;
+import com.economy.playershop.PlayerShopTracker;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Storage das lojas de jogadores usado pelo PlayerShopManager.
+ * <p>
+ * O PlayerShopManager guarda o {@link PlayerShopTracker} devolvido por {@link #loadShops()} e o altera antes
+ * de avisar o provider (exceto em {@link #addItem}, em que o UniqueId vem do storage). As gravações são
+ * assíncronas: o tracker já tem o estado e o provider repete ou adia a gravação se preciso.
+ * <p>
+ * Os backends existentes são {@link JsonPlayerShopStorageProvider} e {@link MySQLPlayerShopStorageProvider};
+ * o escolhido pela config vem de {@link StorageProviders#playerShop}.
+ */
+public interface PlayerShopStorageProvider {
+
+  /**
+   * Nome do backend, para os logs
+   */
+  String getName();
+
+  CompletableFuture<Void> initialize();
+
+  /**
+   * Lê todas as lojas do storage em um tracker novo
+   */
+  CompletableFuture<PlayerShopTracker> loadShops();
+
+  /**
+   * Lê só a loja de um jogador (info, tabs e itens) em um tracker separado
+   */
+  CompletableFuture<PlayerShopTracker> loadOwnerShop(@Nonnull UUID ownerUuid);
+
+  /**
+   * Grava um item novo e o adiciona ao tracker, com o UniqueId definitivo (gerado pelo storage)
+   * @return O próprio item, com o UniqueId preenchido
+   */
+  CompletableFuture<PlayerShopItem> addItem(@Nonnull PlayerShopTracker tracker, @Nonnull PlayerShopItem item);
+
+  CompletableFuture<Boolean> removeItem(int uniqueId);
+
+  CompletableFuture<Boolean> updateItem(@Nonnull PlayerShopItem item);
+
+  /**
+   * Grava nick, nome personalizado, ícone, status e tabs da loja de um jogador
+   */
+  CompletableFuture<Void> savePlayerInfo(@Nonnull UUID uuid, @Nonnull PlayerShopPlayer player, boolean isOpen,
+                                         @Nonnull List<String> tabs);
+
+  /**
+   * Grava as informações de todas as lojas do tracker de uma vez (no desligamento)
+   */
+  CompletableFuture<Void> savePlayers(@Nonnull PlayerShopTracker tracker);
+
+  CompletableFuture<Void> createTab(@Nonnull UUID ownerUuid, @Nonnull String tabName);
+
+  CompletableFuture<Boolean> removeTab(@Nonnull UUID ownerUuid, @Nonnull String tabName);
+
+  /**
+   * Grava as alterações que o storage deixou para o flush periódico
+   */
+  CompletableFuture<Void> flush();
+
+  /**
+   * Registra quem recarrega as lojas alteradas por outros servidores (chaves: UUID do dono).
+   * Storages locais não têm outros servidores e ignoram o registro.
+   */
+  default void onRemoteChange(@Nonnull Consumer<Set<String>> handler) {
+  }
+
+  /**
+   * Grava o que está pendente e fecha o storage (síncrono: chamado no desligamento e no reload)
+   */
+  void shutdownSync();
+}
@@ -0,0 +1,78 @@
+package com.economy.storage;
+
+import com.economy.shop.ShopItem;
+import com.economy.shop.ShopTracker;
+
+import javax.annotation.Nonnull;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+/**
+ * Storage das lojas admin (shopId 0, /shop) e das lojas de NPC (shopId 1+) usado pelo ShopManager.
+ * <p>
+ * O ShopManager guarda um {@link ShopTracker} por loja, devolvido por {@link #loadShop}, e o altera antes
+ * de avisar o provider (exceto em {@link #addItem}, em que o UniqueId vem do storage). As gravações são
+ * assíncronas: o tracker já tem o estado e o provider repete ou adia a gravação se preciso.
+ * <p>
+ * Os backends existentes são {@link JsonShopStorageProvider} e {@link MySQLShopStorageProvider}; o escolhido
+ * pela config vem de {@link StorageProviders#shop}.
+ */
+public interface ShopStorageProvider {
+
+  /**
+   * Nome do backend, para os logs
+   */
+  String getName();
+
+  CompletableFuture<Void> initialize();
+
+  /**
+   * Lê uma loja do storage em um tracker novo (loja inexistente volta vazia)
+   */
+  CompletableFuture<ShopTracker> loadShop(int shopId);
+
+  /**
+   * @return Lojas de NPC que devem ser carregadas no boot (as demais são lidas quando usadas)
+   */
+  default List<Integer> listShops() {
+    return List.of();
+  }
+
+  /**
+   * Grava um item novo e o adiciona ao tracker, com o UniqueId definitivo (gerado pelo storage)
+   * @return O próprio item, com o UniqueId preenchido
+   */
+  CompletableFuture<ShopItem> addItem(@Nonnull ShopTracker tracker, @Nonnull ShopItem item, int shopId);
+
+  CompletableFuture<Boolean> removeItem(int uniqueId, int shopId);
+
+  CompletableFuture<Boolean> updateItem(@Nonnull ShopItem item, int shopId);
+
+  CompletableFuture<Void> createTab(@Nonnull String tabName, int shopId);
+
+  CompletableFuture<Boolean> removeTab(@Nonnull String tabName, int shopId);
+
+  /**
+   * Apaga a loja inteira (itens e tabs) de uma vez, usado quando o NPC é removido
+   */
+  CompletableFuture<Void> deleteShop(int shopId);
+
+  /**
+   * Grava as alterações que o storage deixou para o flush periódico
+   */
+  CompletableFuture<Void> flush();
+
+  /**
+   * Registra quem recarrega as lojas alteradas por outros servidores (chaves: shopId).
+   * Storages locais não têm outros servidores e ignoram o registro.
+   */
+  default void onRemoteChange(@Nonnull Consumer<Set<String>> handler) {
+  }
+
+  /**
+   * Grava o que está pendente e fecha o storage (síncrono: chamado no desligamento e no reload)
+   */
+  void shutdownSync();
+}
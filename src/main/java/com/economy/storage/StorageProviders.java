@@ -0,0 +1,29 @@
+package com.economy.storage;
+
+import com.economy.config.EconomyConfig;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Escolhe o backend de cada storage pela config: MySQL com EnableMySQL, senão os arquivos JSON.
+ * <p>
+ * Os managers só conhecem as interfaces; um backend novo implementa a interface (e {@link JsonMigrationTarget},
+ * se puder importar os arquivos JSON) e é escolhido aqui.
+ */
+public final class StorageProviders {
+
+  private StorageProviders() {
+  }
+
+  public static BalanceStorageProvider balance(@Nonnull EconomyConfig config) {
+    return config.isEnableMySQL() ? new MySQLStorageProvider() : new JsonStorageProvider();
+  }
+
+  public static ShopStorageProvider shop(@Nonnull EconomyConfig config) {
+    return config.isEnableMySQL() ? new MySQLShopStorageProvider() : new JsonShopStorageProvider();
+  }
+
+  public static PlayerShopStorageProvider playerShop(@Nonnull EconomyConfig config) {
+    return config.isEnableMySQL() ? new MySQLPlayerShopStorageProvider() : new JsonPlayerShopStorageProvider();
+  }
+}
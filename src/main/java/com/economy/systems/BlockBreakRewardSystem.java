@@ -2,8 +2,11 @@ package com.economy.systems;
 
 import com.economy.Main;
 import com.economy.economy.EconomyManager;
+import com.economy.economy.TransactionType;
 import com.economy.util.CurrencyFormatter;
+import com.economy.util.EconomyMetrics;
 import com.economy.util.LanguageManager;
+import com.economy.util.MetricsHistogram;
 import com.economy.util.NotifyUtils;
 import com.hypixel.hytale.component.ArchetypeChunk;
 import com.hypixel.hytale.component.CommandBuffer;
@@ -36,6 +39,7 @@ public class BlockBreakRewardSystem extends EntityEventSystem<EntityStore, Break
 
     private static final Set<Integer> ORE_BLOCK_IDS = new HashSet<>();
     private static final Set<Integer> WOOD_BLOCK_IDS = new HashSet<>();
+    private static final MetricsHistogram REWARD_LATENCY = EconomyMetrics.getInstance().histogram("reward.block_break");
 
     static {
         // IDs de minérios comuns (serão detectados dinamicamente se possível)
@@ -50,6 +54,15 @@ public class BlockBreakRewardSystem extends EntityEventSystem<EntityStore, Break
 
     @Override
     public void handle(final int index, @Nonnull final ArchetypeChunk<EntityStore> archetypeChunk, @Nonnull final Store<EntityStore> store, @Nonnull final CommandBuffer<EntityStore> commandBuffer, @Nonnull final BreakBlockEvent event) {
+        long start = System.nanoTime();
+        try {
+            rewardBreak(index, archetypeChunk, store, event);
+        } finally {
+            REWARD_LATENCY.recordSince(start);
+        }
+    }
+
+    private void rewardBreak(int index, ArchetypeChunk<EntityStore> archetypeChunk, Store<EntityStore> store, BreakBlockEvent event) {
         if (event.isCancelled()) {
             return;
         }
@@ -124,7 +137,7 @@ public class BlockBreakRewardSystem extends EntityEventSystem<EntityStore, Break
                 // Obtém o valor específico do minério
                 double reward = Main.CONFIG.get().getOreReward(blockName);
                 if (reward > 0) {
-                    EconomyManager.getInstance().addBalance(playerRef.getUuid(), reward);
+                    EconomyManager.getInstance().addBalance(playerRef.getUuid(), reward, TransactionType.REWARD);
                     
                     // Envia notificação de ganho com cores
                     java.util.Map<String, String> placeholders = new java.util.HashMap<>();
@@ -144,7 +157,7 @@ public class BlockBreakRewardSystem extends EntityEventSystem<EntityStore, Break
                 // Obtém o valor específico da madeira
                 double reward = Main.CONFIG.get().getWoodReward(blockName);
                 if (reward > 0) {
-                    EconomyManager.getInstance().addBalance(playerRef.getUuid(), reward);
+                    EconomyManager.getInstance().addBalance(playerRef.getUuid(), reward, TransactionType.REWARD);
                     
                     // Envia notificação de ganho com cores
                     java.util.Map<String, String> placeholders = new java.util.HashMap<>();
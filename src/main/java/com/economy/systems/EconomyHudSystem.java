@@ -7,9 +7,11 @@ import com.economy.config.HudField;
 import com.economy.economy.EconomyManager;
 import com.economy.playershop.PlayerShopManager;
 import com.economy.util.CurrencyFormatter;
+import com.economy.util.EconomyMetrics;
 import com.economy.util.HudHelper;
 import com.economy.util.LanguageManager;
 import com.economy.util.MessageFormatter;
+import com.economy.util.MetricsHistogram;
 import com.hypixel.hytale.component.ArchetypeChunk;
 import com.hypixel.hytale.component.CommandBuffer;
 import com.hypixel.hytale.component.Holder;
@@ -108,11 +110,20 @@ public class EconomyHudSystem extends EntityTickingSystem<EntityStore> {
 
     private static final int UPDATE_INTERVAL = 10; // Atualiza a cada 10 ticks (~2 vezes por segundo, 20 ticks = 1 segundo)
     private static final Map<PlayerRef, Integer> tickCounters = new ConcurrentHashMap<>();
+    private static final MetricsHistogram TICK_LATENCY = EconomyMetrics.getInstance().histogram("hud.tick");
 
     @Override
     public void tick(float deltaTime, int entityIndex, @NonNullDecl ArchetypeChunk<EntityStore> chunk,
                      @NonNullDecl Store<EntityStore> store, @NonNullDecl CommandBuffer<EntityStore> commandBuffer) {
+        long start = System.nanoTime();
+        try {
+            tickPlayer(entityIndex, chunk);
+        } finally {
+            TICK_LATENCY.recordSince(start);
+        }
+    }
 
+    private void tickPlayer(int entityIndex, ArchetypeChunk<EntityStore> chunk) {
         Holder<EntityStore> holder = EntityUtils.toHolder(entityIndex, chunk);
 
         Player player = holder.getComponent(Player.getComponentType());
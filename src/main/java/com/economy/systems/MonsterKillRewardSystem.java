@@ -2,8 +2,11 @@ package com.economy.systems;
 
 import com.economy.Main;
 import com.economy.economy.EconomyManager;
+import com.economy.economy.TransactionType;
 import com.economy.util.CurrencyFormatter;
+import com.economy.util.EconomyMetrics;
 import com.economy.util.LanguageManager;
+import com.economy.util.MetricsHistogram;
 import com.economy.util.NotifyUtils;
 import com.hypixel.hytale.component.CommandBuffer;
 import com.hypixel.hytale.component.ComponentType;
@@ -25,6 +28,8 @@ import java.util.UUID;
 
 public class MonsterKillRewardSystem extends DeathSystems.OnDeathSystem {
 
+    private static final MetricsHistogram REWARD_LATENCY = EconomyMetrics.getInstance().histogram("reward.monster_kill");
+
     @Override
     public Query<EntityStore> getQuery() {
         return Query.any();
@@ -37,6 +42,15 @@ public class MonsterKillRewardSystem extends DeathSystems.OnDeathSystem {
         @Nonnull Store<EntityStore> store,
         @Nonnull CommandBuffer<EntityStore> commandBuffer
     ) {
+        long start = System.nanoTime();
+        try {
+            rewardKill(ref, component, store);
+        } finally {
+            REWARD_LATENCY.recordSince(start);
+        }
+    }
+
+    private void rewardKill(Ref<EntityStore> ref, DeathComponent component, Store<EntityStore> store) {
         if (!Main.CONFIG.get().isEnableMonsterRewards()) {
             return;
         }
@@ -158,7 +172,7 @@ public class MonsterKillRewardSystem extends DeathSystems.OnDeathSystem {
             // Obtém a recompensa configurada para este monstro
             Double reward = Main.CONFIG.get().getMonsterReward(monsterId);
             if (reward != null && reward > 0) {
-                EconomyManager.getInstance().addBalance(killerUuid, reward);
+                EconomyManager.getInstance().addBalance(killerUuid, reward, TransactionType.REWARD);
                 
                 // Envia notificação de ganho com cores
                 java.util.Map<String, String> placeholders = new java.util.HashMap<>();
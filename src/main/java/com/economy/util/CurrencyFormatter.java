@@ -1,7 +1,9 @@
 package com.economy.util;
 
 import com.economy.Main;
+import com.economy.economy.MoneyUnits;
 
+import java.math.BigDecimal;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.util.Locale;
@@ -18,13 +20,33 @@ public class CurrencyFormatter {
         US_FORMAT.setDecimalSeparator('.');
     }
 
+    /**
+     * Padrão com o número de casas decimais da escala configurada (ex: "#,##0.00" para escala 2)
+     */
+    private static final String DECIMALS_PATTERN = MoneyUnits.scale() > 0
+            ? "#,##0." + "0".repeat(MoneyUnits.scale())
+            : "#,##0";
+
     /**
      * Formata um número com separadores americanos/internacionais (1,000.00)
      */
     private static String formatNumber(double amount, boolean withDecimals) {
         DecimalFormat formatter;
         if (withDecimals) {
-            formatter = new DecimalFormat("#,##0.00", US_FORMAT);
+            formatter = new DecimalFormat(DECIMALS_PATTERN, US_FORMAT);
+        } else {
+            formatter = new DecimalFormat("#,##0", US_FORMAT);
+        }
+        return formatter.format(amount);
+    }
+
+    /**
+     * Formata um valor exato (sem passar por double) com separadores americanos/internacionais
+     */
+    private static String formatNumber(BigDecimal amount, boolean withDecimals) {
+        DecimalFormat formatter;
+        if (withDecimals) {
+            formatter = new DecimalFormat(DECIMALS_PATTERN, US_FORMAT);
         } else {
             formatter = new DecimalFormat("#,##0", US_FORMAT);
         }
@@ -48,6 +70,29 @@ public class CurrencyFormatter {
         }
     }
 
+    /**
+     * Formata um valor monetário exato com a sigla da moeda configurada
+     * @param amount Valor a formatar
+     * @return String formatada (ex: "$1,000.50" ou "€1,000.50")
+     */
+    public static String format(BigDecimal amount) {
+        String symbol = Main.CONFIG != null && Main.CONFIG.get() != null 
+            ? Main.CONFIG.get().getCurrencySymbol() 
+            : "$";
+
+        boolean withDecimals = amount.stripTrailingZeros().scale() > 0;
+        return symbol + formatNumber(amount, withDecimals);
+    }
+
+    /**
+     * Formata um saldo em unidades mínimas (ver MoneyUnits) com a sigla da moeda configurada
+     * @param units Valor em unidades mínimas
+     * @return String formatada (ex: "$1,000.50" ou "€1,000.50")
+     */
+    public static String formatUnits(long units) {
+        return format(MoneyUnits.toBigDecimal(units));
+    }
+
     /**
      * Formata um valor monetário com a sigla da moeda configurada, sem decimais
      * @param amount Valor a formatar
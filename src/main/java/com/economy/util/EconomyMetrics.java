@@ -0,0 +1,229 @@
+package com.economy.util;
+
+import com.hypixel.hytale.logger.HytaleLogger;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.ToIntFunction;
+import java.util.logging.Level;
+
+/**
+ * Métricas dos caminhos quentes (mutações de saldo, gravações no MySQL, compras, HUD, recompensas).
+ * <p>
+ * Contadores são {@link LongAdder} e latências vão para {@link MetricsHistogram}; quem instrumenta guarda a
+ * referência em um campo estático, então registrar um evento não passa pelo mapa. Gauges são lidos só
+ * quando o resumo é montado ({@code /money metrics} e o log periódico).
+ * <p>
+ * Nomes seguem {@code área.operação} (ex: {@code economy.transfer}, {@code mysql.balance.batch_size}).
+ */
+public final class EconomyMetrics {
+
+    private static final EconomyMetrics INSTANCE = new EconomyMetrics();
+    private static final HytaleLogger logger = HytaleLogger.getLogger().getSubLogger("EconomySystem");
+
+    private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+    private final Map<String, MetricsHistogram> histograms = new ConcurrentHashMap<>();
+    private final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+    // Estado do log periódico (só a thread do log acessa)
+    private final Map<String, MetricsHistogram.Snapshot> lastLogged = new HashMap<>();
+    private final Map<String, Long> lastLoggedCounters = new HashMap<>();
+    private ScheduledExecutorService logExecutor;
+
+    public static EconomyMetrics getInstance() {
+        return INSTANCE;
+    }
+
+    private EconomyMetrics() {
+    }
+
+    public LongAdder counter(@Nonnull String name) {
+        return counters.computeIfAbsent(name, key -> new LongAdder());
+    }
+
+    /**
+     * Histograma de latência (valores em ns, normalmente via {@link MetricsHistogram#recordSince})
+     */
+    public MetricsHistogram histogram(@Nonnull String name) {
+        return histograms.computeIfAbsent(name, key -> new MetricsHistogram(key, true));
+    }
+
+    /**
+     * Histograma de quantidades (ex: tamanho de lote)
+     */
+    public MetricsHistogram sizeHistogram(@Nonnull String name) {
+        return histograms.computeIfAbsent(name, key -> new MetricsHistogram(key, false));
+    }
+
+    /**
+     * Registra (ou substitui) um valor lido na hora do resumo, como o tamanho de uma fila
+     */
+    public void gauge(@Nonnull String name, @Nonnull LongSupplier supplier) {
+        gauges.put(name, supplier);
+    }
+
+    /**
+     * Gauges do pool de conexões: ativas, ociosas, total e threads esperando uma conexão
+     */
+    public void registerPool(@Nonnull String prefix, @Nonnull HikariDataSource dataSource) {
+        gauge(prefix + ".pool.active", () -> poolValue(dataSource, HikariPoolMXBean::getActiveConnections));
+        gauge(prefix + ".pool.idle", () -> poolValue(dataSource, HikariPoolMXBean::getIdleConnections));
+        gauge(prefix + ".pool.total", () -> poolValue(dataSource, HikariPoolMXBean::getTotalConnections));
+        gauge(prefix + ".pool.waiting", () -> poolValue(dataSource, HikariPoolMXBean::getThreadsAwaitingConnection));
+    }
+
+    private static long poolValue(HikariDataSource dataSource, ToIntFunction<HikariPoolMXBean> getter) {
+        if (dataSource.isClosed()) {
+            return 0;
+        }
+        HikariPoolMXBean pool = dataSource.getHikariPoolMXBean();
+        return pool != null ? getter.applyAsInt(pool) : 0;
+    }
+
+    /**
+     * Envolve o executor de IO de um storage: mede a espera na fila ({@code prefix.queue_wait}) e a duração
+     * de cada tarefa ({@code prefix.op}), e publica o tamanho da fila ({@code prefix.queue})
+     */
+    public Executor timedExecutor(@Nonnull String prefix, @Nonnull ThreadPoolExecutor executor) {
+        gauge(prefix + ".queue", () -> executor.getQueue().size());
+        return timedExecutor(prefix, (Executor) executor);
+    }
+
+    /**
+     * Como {@link #timedExecutor(String, ThreadPoolExecutor)}, sem o gauge da fila: vários executores com o
+     * mesmo prefixo dividem os histogramas e quem os criou publica a fila
+     */
+    public Executor timedExecutor(@Nonnull String prefix, @Nonnull Executor executor) {
+        MetricsHistogram queueWait = histogram(prefix + ".queue_wait");
+        MetricsHistogram op = histogram(prefix + ".op");
+        return task -> {
+            long enqueuedAt = System.nanoTime();
+            executor.execute(() -> {
+                long start = System.nanoTime();
+                queueWait.record(start - enqueuedAt);
+                try {
+                    task.run();
+                } finally {
+                    op.recordSince(start);
+                }
+            });
+        };
+    }
+
+    /**
+     * @return Uma linha por métrica, em ordem alfabética (valores acumulados desde o início)
+     */
+    public List<String> summary() {
+        List<String> lines = new ArrayList<>();
+        for (Map.Entry<String, LongAdder> entry : new TreeMap<>(counters).entrySet()) {
+            lines.add(entry.getKey() + " = " + entry.getValue().sum());
+        }
+        for (Map.Entry<String, LongSupplier> entry : new TreeMap<>(gauges).entrySet()) {
+            lines.add(entry.getKey() + " = " + readGauge(entry.getValue()));
+        }
+        for (MetricsHistogram histogram : new TreeMap<>(histograms).values()) {
+            MetricsHistogram.Snapshot snapshot = histogram.snapshot();
+            if (snapshot.getCount() > 0) {
+                lines.add(format(histogram, snapshot));
+            }
+        }
+        return lines;
+    }
+
+    private static long readGauge(LongSupplier supplier) {
+        try {
+            return supplier.getAsLong();
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static String format(MetricsHistogram histogram, MetricsHistogram.Snapshot snapshot) {
+        if (histogram.isLatency()) {
+            return String.format("%s n=%d mean=%s p50=%s p99=%s p999=%s max=%s", histogram.getName(), snapshot.getCount(),
+                    formatNanos((long) snapshot.getMean()), formatNanos(snapshot.getPercentile(50)),
+                    formatNanos(snapshot.getPercentile(99)), formatNanos(snapshot.getPercentile(99.9)),
+                    formatNanos(snapshot.getMax()));
+        }
+        return String.format("%s n=%d mean=%.1f p50=%d p99=%d max=%d", histogram.getName(), snapshot.getCount(),
+                snapshot.getMean(), snapshot.getPercentile(50), snapshot.getPercentile(99), snapshot.getMax());
+    }
+
+    private static String formatNanos(long nanos) {
+        if (nanos < 10_000) {
+            return nanos + "ns";
+        }
+        if (nanos < 10_000_000) {
+            return String.format("%.1fus", nanos / 1_000.0);
+        }
+        return String.format("%.1fms", nanos / 1_000_000.0);
+    }
+
+    /**
+     * Começa a escrever no log, a cada intervalo, o que mudou desde o último resumo
+     * @param intervalSeconds Intervalo do resumo (0 = desligado)
+     */
+    public synchronized void startPeriodicLog(int intervalSeconds) {
+        stopPeriodicLog();
+        if (intervalSeconds <= 0) {
+            return;
+        }
+        logExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "EconomySystem-Metrics");
+            t.setDaemon(true);
+            return t;
+        });
+        logExecutor.scheduleWithFixedDelay(this::logInterval, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    public synchronized void stopPeriodicLog() {
+        if (logExecutor != null) {
+            logExecutor.shutdownNow();
+            logExecutor = null;
+        }
+    }
+
+    private void logInterval() {
+        try {
+            List<String> lines = new ArrayList<>();
+            for (Map.Entry<String, LongAdder> entry : new TreeMap<>(counters).entrySet()) {
+                long total = entry.getValue().sum();
+                Long previous = lastLoggedCounters.put(entry.getKey(), total);
+                long delta = total - (previous != null ? previous : 0L);
+                if (delta != 0) {
+                    lines.add(entry.getKey() + " +" + delta);
+                }
+            }
+            for (Map.Entry<String, LongSupplier> entry : new TreeMap<>(gauges).entrySet()) {
+                lines.add(entry.getKey() + " = " + readGauge(entry.getValue()));
+            }
+            for (MetricsHistogram histogram : new TreeMap<>(histograms).values()) {
+                MetricsHistogram.Snapshot current = histogram.snapshot();
+                MetricsHistogram.Snapshot previous = lastLogged.put(histogram.getName(), current);
+                MetricsHistogram.Snapshot interval = previous != null ? current.minus(previous) : current;
+                if (interval.getCount() > 0) {
+                    lines.add(format(histogram, interval));
+                }
+            }
+            if (!lines.isEmpty()) {
+                logger.at(Level.INFO).log("Economy metrics:\n  %s", String.join("\n  ", lines));
+            }
+        } catch (Exception e) {
+            logger.at(Level.WARNING).log("Failed to log economy metrics: %s", e.getMessage());
+        }
+    }
+}
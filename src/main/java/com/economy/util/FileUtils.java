@@ -8,6 +8,11 @@ public class FileUtils {
 
     public static String MAIN_PATH = Constants.UNIVERSE_PATH.resolve("EconomySystem").toAbsolutePath().toString();
     public static String BALANCES_PATH = MAIN_PATH + File.separator + "Balances.json";
+    public static String BALANCES_BINARY_PATH = MAIN_PATH + File.separator + "Balances.dat";
+    public static String BALANCES_JOURNAL_PATH = MAIN_PATH + File.separator + "Balances.journal";
+    public static String BALANCES_SPILL_PATH = MAIN_PATH + File.separator + "Balances.spill";
+    public static String BALANCES_NETWORK_SPILL_PATH = MAIN_PATH + File.separator + "Balances.network.spill";
+    public static String LEDGER_PATH = MAIN_PATH + File.separator + "Ledger";
     public static String SHOP_PATH = MAIN_PATH + File.separator + "Shop.json";
     public static String PLAYER_SHOP_PATH = MAIN_PATH + File.separator + "PlayerShop.json";
     public static String HUD_PREFERENCES_PATH = MAIN_PATH + File.separator + "HudPreferences.json";
@@ -23,6 +28,16 @@ public class FileUtils {
         ensureDirectory(MAIN_PATH);
     }
 
+    /**
+     * Resolve um nome de arquivo dentro da pasta do plugin
+     * @return O caminho, ou null se o nome apontar para fora da pasta (ex: "../")
+     */
+    public static java.nio.file.Path resolveInMainDirectory(String fileName){
+        java.nio.file.Path base = java.nio.file.Path.of(MAIN_PATH).toAbsolutePath().normalize();
+        java.nio.file.Path resolved = base.resolve(fileName).normalize();
+        return resolved.startsWith(base) && !resolved.equals(base) ? resolved : null;
+    }
+
     public static File ensureFile(String path, String defaultContent){
         var file = new File(path);
         if (!file.exists()) {
@@ -446,6 +446,7 @@ public class LanguageManager {
                 "  \"chat_cannot_pay_yourself\": \"Você não pode pagar a si mesmo!\",\n" +
                 "  \"chat_payment_sent\": \"Pagamento enviado com sucesso!\",\n" +
                 "  \"chat_payment_received\": \"Você recebeu um pagamento!\",\n" +
+                "  \"chat_payment_failed\": \"Não foi possível concluir o pagamento. Tente novamente.\",\n" +
                 "  \"chat_balance_set\": \"Saldo definido com sucesso!\",\n" +
                 "  \"chat_balance_added\": \"Saldo adicionado com sucesso!\",\n" +
                 "  \"chat_usage_money\": \"Uso: /money [nick]\",\n" +
@@ -582,6 +583,25 @@ public class LanguageManager {
                 "  \"desc_money_pay\": \"Transfere dinheiro para outro jogador\",\n" +
                 "  \"desc_money_top\": \"Mostra o top 10 jogadores mais ricos\",\n" +
                 "  \"desc_money_set\": \"Define o saldo de um jogador\",\n" +
+                "  \"desc_money_migrate\": \"Migra os dados dos arquivos JSON para o MySQL (continua uma migração interrompida)\",\n" +
+                "  \"chat_migration_started\": \"Migrando os dados do JSON para o MySQL...\",\n" +
+                "  \"chat_migration_done\": \"{source}: {rows} linhas em {seconds}s ({rate} linhas/s, {skipped} entradas inválidas ignoradas)\",\n" +
+                "  \"chat_migration_skipped\": \"{source}: nada para migrar (sem arquivo JSON ou o MySQL já tem dados).\",\n" +
+                "  \"chat_migration_error\": \"{source}: a migração falhou: {error}\",\n" +
+                "  \"chat_migration_requires_mysql\": \"O MySQL está desativado (EnableMySQL), não há para onde migrar.\",\n" +
+                "  \"desc_money_metrics\": \"Mostra as métricas de desempenho da economia\",\n" +
+                "  \"chat_metrics_header\": \"=== Métricas da economia (desde o início) ===\",\n" +
+                "  \"chat_metrics_empty\": \"Nenhuma métrica registrada ainda.\",\n" +
+                "  \"desc_money_history\": \"Mostra o histórico de transações\",\n" +
+                "  \"chat_history_header\": \"Histórico de transações (/money history next para mais)\",\n" +
+                "  \"chat_history_entry\": \"[{time}] {type} {amount} ({player})\",\n" +
+                "  \"chat_history_empty\": \"Nenhuma transação encontrada.\",\n" +
+                "  \"chat_history_disabled\": \"O histórico de transações está desativado.\",\n" +
+                "  \"desc_money_export\": \"Exporta todos os saldos para um arquivo JSON\",\n" +
+                "  \"desc_money_import\": \"Importa saldos de um arquivo JSON\",\n" +
+                "  \"chat_balances_exported\": \"{count} saldos exportados para {file}\",\n" +
+                "  \"chat_balances_imported\": \"{count} saldos importados de {file}\",\n" +
+                "  \"chat_balances_file_error\": \"Erro no arquivo de saldos: {error}\",\n" +
                 "  \"desc_money_give\": \"Adiciona saldo a um jogador\",\n" +
                 "  \"desc_cash\": \"Sistema de cash\",\n" +
                 "  \"desc_cash_give\": \"Adiciona cash a um jogador\",\n" +
@@ -717,6 +737,7 @@ public class LanguageManager {
                 "  \"chat_cannot_pay_yourself\": \"You cannot pay yourself!\",\n" +
                 "  \"chat_payment_sent\": \"Payment sent successfully!\",\n" +
                 "  \"chat_payment_received\": \"You received a payment!\",\n" +
+                "  \"chat_payment_failed\": \"The payment could not be completed. Please try again.\",\n" +
                 "  \"chat_balance_set\": \"Balance set successfully!\",\n" +
                 "  \"chat_balance_added\": \"Balance added successfully!\",\n" +
                 "  \"chat_usage_money\": \"Usage: /money [nick]\",\n" +
@@ -853,6 +874,25 @@ public class LanguageManager {
                 "  \"desc_money_pay\": \"Transfers money to another player\",\n" +
                 "  \"desc_money_top\": \"Shows the top 10 richest players\",\n" +
                 "  \"desc_money_set\": \"Sets a player's balance\",\n" +
+                "  \"desc_money_migrate\": \"Migrates the JSON data files to MySQL (resumes an interrupted migration)\",\n" +
+                "  \"chat_migration_started\": \"Migrating JSON data to MySQL...\",\n" +
+                "  \"chat_migration_done\": \"{source}: {rows} rows in {seconds}s ({rate} rows/s, {skipped} invalid entries skipped)\",\n" +
+                "  \"chat_migration_skipped\": \"{source}: nothing to migrate (no JSON file or MySQL already has data).\",\n" +
+                "  \"chat_migration_error\": \"{source}: migration failed: {error}\",\n" +
+                "  \"chat_migration_requires_mysql\": \"MySQL is disabled (EnableMySQL), there is nothing to migrate to.\",\n" +
+                "  \"desc_money_metrics\": \"Shows economy performance metrics\",\n" +
+                "  \"chat_metrics_header\": \"=== Economy metrics (since startup) ===\",\n" +
+                "  \"chat_metrics_empty\": \"No metrics recorded yet.\",\n" +
+                "  \"desc_money_history\": \"Shows your transaction history\",\n" +
+                "  \"chat_history_header\": \"Transaction history (/money history next for more)\",\n" +
+                "  \"chat_history_entry\": \"[{time}] {type} {amount} ({player})\",\n" +
+                "  \"chat_history_empty\": \"No transactions found.\",\n" +
+                "  \"chat_history_disabled\": \"Transaction history is disabled.\",\n" +
+                "  \"desc_money_export\": \"Exports all balances to a JSON file\",\n" +
+                "  \"desc_money_import\": \"Imports balances from a JSON file\",\n" +
+                "  \"chat_balances_exported\": \"Exported {count} balances to {file}\",\n" +
+                "  \"chat_balances_imported\": \"Imported {count} balances from {file}\",\n" +
+                "  \"chat_balances_file_error\": \"Balance file error: {error}\",\n" +
                 "  \"desc_money_give\": \"Adds balance to a player\",\n" +
                 "  \"desc_cash\": \"Cash system\",\n" +
                 "  \"desc_cash_give\": \"Adds cash to a player\",\n" +
@@ -988,6 +1028,7 @@ public class LanguageManager {
                 "  \"chat_cannot_pay_yourself\": \"¡No puedes pagarte a ti mismo!\",\n" +
                 "  \"chat_payment_sent\": \"¡Pago enviado con éxito!\",\n" +
                 "  \"chat_payment_received\": \"¡Has recibido un pago!\",\n" +
+                "  \"chat_payment_failed\": \"No se pudo completar el pago. Inténtalo de nuevo.\",\n" +
                 "  \"chat_money_received_from\": \"Has recibido {amount} de {player}.\",\n" +
                 "  \"chat_balance_set\": \"¡Saldo definido con éxito!\",\n" +
                 "  \"chat_balance_added\": \"¡Saldo agregado con éxito!\",\n" +
@@ -1125,6 +1166,25 @@ public class LanguageManager {
                 "  \"desc_money_pay\": \"Transfiere dinero a otro jugador\",\n" +
                 "  \"desc_money_top\": \"Muestra el top 10 de jugadores más ricos\",\n" +
                 "  \"desc_money_set\": \"Establece el saldo de un jugador\",\n" +
+                "  \"desc_money_migrate\": \"Migra los datos de los archivos JSON a MySQL (continúa una migración interrumpida)\",\n" +
+                "  \"chat_migration_started\": \"Migrando los datos de JSON a MySQL...\",\n" +
+                "  \"chat_migration_done\": \"{source}: {rows} filas en {seconds}s ({rate} filas/s, {skipped} entradas inválidas omitidas)\",\n" +
+                "  \"chat_migration_skipped\": \"{source}: nada que migrar (sin archivo JSON o MySQL ya tiene datos).\",\n" +
+                "  \"chat_migration_error\": \"{source}: la migración falló: {error}\",\n" +
+                "  \"chat_migration_requires_mysql\": \"MySQL está desactivado (EnableMySQL), no hay destino para migrar.\",\n" +
+                "  \"desc_money_metrics\": \"Muestra las métricas de rendimiento de la economía\",\n" +
+                "  \"chat_metrics_header\": \"=== Métricas de la economía (desde el inicio) ===\",\n" +
+                "  \"chat_metrics_empty\": \"Aún no hay métricas registradas.\",\n" +
+                "  \"desc_money_history\": \"Muestra tu historial de transacciones\",\n" +
+                "  \"chat_history_header\": \"Historial de transacciones (/money history next para más)\",\n" +
+                "  \"chat_history_entry\": \"[{time}] {type} {amount} ({player})\",\n" +
+                "  \"chat_history_empty\": \"No se encontraron transacciones.\",\n" +
+                "  \"chat_history_disabled\": \"El historial de transacciones está desactivado.\",\n" +
+                "  \"desc_money_export\": \"Exporta todos los saldos a un archivo JSON\",\n" +
+                "  \"desc_money_import\": \"Importa saldos desde un archivo JSON\",\n" +
+                "  \"chat_balances_exported\": \"{count} saldos exportados a {file}\",\n" +
+                "  \"chat_balances_imported\": \"{count} saldos importados desde {file}\",\n" +
+                "  \"chat_balances_file_error\": \"Error en el archivo de saldos: {error}\",\n" +
                 "  \"desc_money_give\": \"Añade saldo a un jugador\",\n" +
                 "  \"desc_cash\": \"Sistema de cash\",\n" +
                 "  \"desc_cash_give\": \"Añade cash a un jugador\",\n" +
@@ -1260,6 +1320,7 @@ public class LanguageManager {
                 "  \"chat_cannot_pay_yourself\": \"Ты не можешь заплатить самому себе!\",\n" +
                 "  \"chat_payment_sent\": \"Платёж успешно отправлен!\",\n" +
                 "  \"chat_payment_received\": \"Вы получили платёж!\",\n" +
+                "  \"chat_payment_failed\": \"Не удалось выполнить платёж. Попробуйте ещё раз.\",\n" +
                 "  \"chat_balance_set\": \"Баланс успешно установлен!\",\n" +
                 "  \"chat_balance_added\": \"Баланс успешно пополнен!\",\n" +
                 "  \"chat_usage_money\": \"Используй: /money [nick]\",\n" +
@@ -1389,6 +1450,25 @@ public class LanguageManager {
                 "  \"desc_money_pay\": \"Переводит деньги другому игроку\",\n" +
                 "  \"desc_money_top\": \"Показывает топ 10 самых богатых игроков\",\n" +
                 "  \"desc_money_set\": \"Устанавливает баланс игрока\",\n" +
+                "  \"desc_money_migrate\": \"Переносит данные из JSON-файлов в MySQL (продолжает прерванный перенос)\",\n" +
+                "  \"chat_migration_started\": \"Перенос данных из JSON в MySQL...\",\n" +
+                "  \"chat_migration_done\": \"{source}: {rows} строк за {seconds}с ({rate} строк/с, пропущено неверных записей: {skipped})\",\n" +
+                "  \"chat_migration_skipped\": \"{source}: нечего переносить (нет JSON-файла или в MySQL уже есть данные).\",\n" +
+                "  \"chat_migration_error\": \"{source}: ошибка переноса: {error}\",\n" +
+                "  \"chat_migration_requires_mysql\": \"MySQL отключён (EnableMySQL), переносить некуда.\",\n" +
+                "  \"desc_money_metrics\": \"Показывает метрики производительности экономики\",\n" +
+                "  \"chat_metrics_header\": \"=== Метрики экономики (с момента запуска) ===\",\n" +
+                "  \"chat_metrics_empty\": \"Метрики ещё не записаны.\",\n" +
+                "  \"desc_money_history\": \"Показывает историю транзакций\",\n" +
+                "  \"chat_history_header\": \"История транзакций (/money history next для продолжения)\",\n" +
+                "  \"chat_history_entry\": \"[{time}] {type} {amount} ({player})\",\n" +
+                "  \"chat_history_empty\": \"Транзакции не найдены.\",\n" +
+                "  \"chat_history_disabled\": \"История транзакций отключена.\",\n" +
+                "  \"desc_money_export\": \"Экспортирует все балансы в JSON файл\",\n" +
+                "  \"desc_money_import\": \"Импортирует балансы из JSON файла\",\n" +
+                "  \"chat_balances_exported\": \"Экспортировано балансов: {count} в {file}\",\n" +
+                "  \"chat_balances_imported\": \"Импортировано балансов: {count} из {file}\",\n" +
+                "  \"chat_balances_file_error\": \"Ошибка файла балансов: {error}\",\n" +
                 "  \"desc_money_give\": \"Добавляет баланс игроку\",\n" +
                 "  \"desc_cash\": \"Система кеша\",\n" +
                 "  \"desc_cash_give\": \"Добавляет кеш игроку\",\n" +
@@ -1524,6 +1604,7 @@ public class LanguageManager {
                 "  \"chat_cannot_pay_yourself\": \"Nie możesz zapłacić sobie!\",\n" +
                 "  \"chat_payment_sent\": \"Płatność wysłana pomyślnie!\",\n" +
                 "  \"chat_payment_received\": \"Otrzymałeś płatność!\",\n" +
+                "  \"chat_payment_failed\": \"Nie udało się zrealizować płatności. Spróbuj ponownie.\",\n" +
                 "  \"chat_balance_set\": \"Saldo ustawione pomyślnie!\",\n" +
                 "  \"chat_balance_added\": \"Saldo dodane pomyślnie!\",\n" +
                 "  \"chat_usage_money\": \"Użycie: /money [nick]\",\n" +
@@ -1660,6 +1741,25 @@ public class LanguageManager {
                 "  \"desc_money_pay\": \"Przekazuje pieniądze innemu graczowi\",\n" +
                 "  \"desc_money_top\": \"Pokazuje top 10 najbogatszych graczy\",\n" +
                 "  \"desc_money_set\": \"Ustawia saldo gracza\",\n" +
+                "  \"desc_money_migrate\": \"Migruje dane z plików JSON do MySQL (wznawia przerwaną migrację)\",\n" +
+                "  \"chat_migration_started\": \"Migracja danych z JSON do MySQL...\",\n" +
+                "  \"chat_migration_done\": \"{source}: {rows} wierszy w {seconds}s ({rate} wierszy/s, pominięto {skipped} błędnych wpisów)\",\n" +
+                "  \"chat_migration_skipped\": \"{source}: nic do migracji (brak pliku JSON lub MySQL ma już dane).\",\n" +
+                "  \"chat_migration_error\": \"{source}: migracja nie powiodła się: {error}\",\n" +
+                "  \"chat_migration_requires_mysql\": \"MySQL jest wyłączony (EnableMySQL), nie ma dokąd migrować.\",\n" +
+                "  \"desc_money_metrics\": \"Pokazuje metryki wydajności ekonomii\",\n" +
+                "  \"chat_metrics_header\": \"=== Metryki ekonomii (od uruchomienia) ===\",\n" +
+                "  \"chat_metrics_empty\": \"Brak zarejestrowanych metryk.\",\n" +
+                "  \"desc_money_history\": \"Pokazuje historię transakcji\",\n" +
+                "  \"chat_history_header\": \"Historia transakcji (/money history next, aby zobaczyć więcej)\",\n" +
+                "  \"chat_history_entry\": \"[{time}] {type} {amount} ({player})\",\n" +
+                "  \"chat_history_empty\": \"Nie znaleziono transakcji.\",\n" +
+                "  \"chat_history_disabled\": \"Historia transakcji jest wyłączona.\",\n" +
+                "  \"desc_money_export\": \"Eksportuje wszystkie salda do pliku JSON\",\n" +
+                "  \"desc_money_import\": \"Importuje salda z pliku JSON\",\n" +
+                "  \"chat_balances_exported\": \"Wyeksportowano {count} sald do {file}\",\n" +
+                "  \"chat_balances_imported\": \"Zaimportowano {count} sald z {file}\",\n" +
+                "  \"chat_balances_file_error\": \"Błąd pliku sald: {error}\",\n" +
                 "  \"desc_money_give\": \"Dodaje saldo graczowi\",\n" +
                 "  \"desc_cash\": \"System gotówki\",\n" +
                 "  \"desc_cash_give\": \"Dodaje gotówkę graczowi\",\n" +
@@ -1795,6 +1895,7 @@ public class LanguageManager {
                 "  \"chat_cannot_pay_yourself\": \"Du kannst dir nicht selbst Geld zahlen!\",\n" +
                 "  \"chat_payment_sent\": \"Zahlung erfolgreich gesendet!\",\n" +
                 "  \"chat_payment_received\": \"Du hast eine Zahlung erhalten!\",\n" +
+                "  \"chat_payment_failed\": \"Die Zahlung konnte nicht abgeschlossen werden. Versuche es erneut.\",\n" +
                 "  \"chat_balance_set\": \"Guthaben erfolgreich festgelegt!\",\n" +
                 "  \"chat_balance_added\": \"Guthaben erfolgreich hinzugefügt!\",\n" +
                 "  \"chat_usage_money\": \"Verwendung: /money [Spielername]\",\n" +
@@ -1931,6 +2032,25 @@ public class LanguageManager {
                 "  \"desc_money_pay\": \"Überweist Geld an einen anderen Spieler\",\n" +
                 "  \"desc_money_top\": \"Zeigt die Top 10 reichsten Spieler\",\n" +
                 "  \"desc_money_set\": \"Setzt das Guthaben eines Spielers\",\n" +
+                "  \"desc_money_migrate\": \"Migriert die JSON-Dateien nach MySQL (setzt eine unterbrochene Migration fort)\",\n" +
+                "  \"chat_migration_started\": \"Migriere JSON-Daten nach MySQL...\",\n" +
+                "  \"chat_migration_done\": \"{source}: {rows} Zeilen in {seconds}s ({rate} Zeilen/s, {skipped} ungültige Einträge übersprungen)\",\n" +
+                "  \"chat_migration_skipped\": \"{source}: nichts zu migrieren (keine JSON-Datei oder MySQL enthält bereits Daten).\",\n" +
+                "  \"chat_migration_error\": \"{source}: Migration fehlgeschlagen: {error}\",\n" +
+                "  \"chat_migration_requires_mysql\": \"MySQL ist deaktiviert (EnableMySQL), es gibt kein Migrationsziel.\",\n" +
+                "  \"desc_money_metrics\": \"Zeigt Leistungsmetriken der Wirtschaft\",\n" +
+                "  \"chat_metrics_header\": \"=== Wirtschaftsmetriken (seit dem Start) ===\",\n" +
+                "  \"chat_metrics_empty\": \"Noch keine Metriken erfasst.\",\n" +
+                "  \"desc_money_history\": \"Zeigt deinen Transaktionsverlauf\",\n" +
+                "  \"chat_history_header\": \"Transaktionsverlauf (/money history next für mehr)\",\n" +
+                "  \"chat_history_entry\": \"[{time}] {type} {amount} ({player})\",\n" +
+                "  \"chat_history_empty\": \"Keine Transaktionen gefunden.\",\n" +
+                "  \"chat_history_disabled\": \"Der Transaktionsverlauf ist deaktiviert.\",\n" +
+                "  \"desc_money_export\": \"Exportiert alle Guthaben in eine JSON-Datei\",\n" +
+                "  \"desc_money_import\": \"Importiert Guthaben aus einer JSON-Datei\",\n" +
+                "  \"chat_balances_exported\": \"{count} Guthaben nach {file} exportiert\",\n" +
+                "  \"chat_balances_imported\": \"{count} Guthaben aus {file} importiert\",\n" +
+                "  \"chat_balances_file_error\": \"Fehler in der Guthabendatei: {error}\",\n" +
                 "  \"desc_money_give\": \"Fügt einem Spieler Guthaben hinzu\",\n" +
                 "  \"desc_cash\": \"Bargeld-System\",\n" +
                 "  \"desc_cash_give\": \"Fügt einem Spieler Bargeld hinzu\",\n" +
@@ -2066,6 +2186,7 @@ public class LanguageManager {
                 "  \"chat_cannot_pay_yourself\": \"Saját magadnak nem fizethetsz!\",\n" +
                 "  \"chat_payment_sent\": \"Sikeres utalás!\",\n" +
                 "  \"chat_payment_received\": \"Pénzt kaptál!\",\n" +
+                "  \"chat_payment_failed\": \"A fizetést nem sikerült végrehajtani. Próbáld újra.\",\n" +
                 "  \"chat_balance_set\": \"Egyenleg sikeresen beállitva!\",\n" +
                 "  \"chat_balance_added\": \"Összeg sikeresen hozzáadva!\",\n" +
                 "  \"chat_usage_money\": \"Használat: /money [név]\",\n" +
@@ -2202,6 +2323,25 @@ public class LanguageManager {
                 "  \"desc_money_pay\": \"Pénzt utal egy másik játékosnak\",\n" +
                 "  \"desc_money_top\": \"Megmutatja a top 10 leggazdagabb játékost\",\n" +
                 "  \"desc_money_set\": \"Beállitja egy játékos egyenlegét\",\n" +
+                "  \"desc_money_migrate\": \"Átmásolja a JSON adatfájlokat MySQL-be (folytatja a megszakadt migrációt)\",\n" +
+                "  \"chat_migration_started\": \"JSON adatok átmásolása MySQL-be...\",\n" +
+                "  \"chat_migration_done\": \"{source}: {rows} sor {seconds} mp alatt ({rate} sor/mp, {skipped} hibás bejegyzés kihagyva)\",\n" +
+                "  \"chat_migration_skipped\": \"{source}: nincs mit átmásolni (nincs JSON fájl, vagy a MySQL-ben már van adat).\",\n" +
+                "  \"chat_migration_error\": \"{source}: a migráció sikertelen: {error}\",\n" +
+                "  \"chat_migration_requires_mysql\": \"A MySQL ki van kapcsolva (EnableMySQL), nincs hová átmásolni.\",\n" +
+                "  \"desc_money_metrics\": \"Megmutatja a gazdaság teljesítménymutatóit\",\n" +
+                "  \"chat_metrics_header\": \"=== Gazdasági mutatók (indítás óta) ===\",\n" +
+                "  \"chat_metrics_empty\": \"Még nincsenek rögzített mutatók.\",\n" +
+                "  \"desc_money_history\": \"Megmutatja a tranzakciós előzményeidet\",\n" +
+                "  \"chat_history_header\": \"Tranzakciós előzmények (/money history next a továbbiakhoz)\",\n" +
+                "  \"chat_history_entry\": \"[{time}] {type} {amount} ({player})\",\n" +
+                "  \"chat_history_empty\": \"Nem található tranzakció.\",\n" +
+                "  \"chat_history_disabled\": \"A tranzakciós előzmények le vannak tiltva.\",\n" +
+                "  \"desc_money_export\": \"Az összes egyenleg exportálása JSON fájlba\",\n" +
+                "  \"desc_money_import\": \"Egyenlegek importálása JSON fájlból\",\n" +
+                "  \"chat_balances_exported\": \"{count} egyenleg exportálva ide: {file}\",\n" +
+                "  \"chat_balances_imported\": \"{count} egyenleg importálva innen: {file}\",\n" +
+                "  \"chat_balances_file_error\": \"Hiba az egyenleg fájlban: {error}\",\n" +
                 "  \"desc_money_give\": \"Hozzáad egyenleget egy játékoshoz\",\n" +
                 "  \"desc_cash\": \"Készpénz rendszer\",\n" +
                 "  \"desc_cash_give\": \"Hozzáad készpénzt egy játékoshoz\",\n" +
@@ -2337,6 +2477,7 @@ public class LanguageManager {
                 "  \"chat_cannot_pay_yourself\": \"Vous ne pouvez pas vous payer vous-même!\",\n" +
                 "  \"chat_payment_sent\": \"Paiement envoyé avec succès!\",\n" +
                 "  \"chat_payment_received\": \"Vous avez reçu un paiement!\",\n" +
+                "  \"chat_payment_failed\": \"Le paiement n'a pas pu être effectué. Réessayez.\",\n" +
                 "  \"chat_balance_set\": \"Solde défini avec succès!\",\n" +
                 "  \"chat_balance_added\": \"Solde ajouté avec succès!\",\n" +
                 "  \"chat_usage_money\": \"Utilisation: /money [pseudo]\",\n" +
@@ -2473,6 +2614,25 @@ public class LanguageManager {
                 "  \"desc_money_pay\": \"Transfère de l'argent à un autre joueur\",\n" +
                 "  \"desc_money_top\": \"Affiche le top 10 des joueurs les plus riches\",\n" +
                 "  \"desc_money_set\": \"Définit le solde d'un joueur\",\n" +
+                "  \"desc_money_migrate\": \"Migre les fichiers de données JSON vers MySQL (reprend une migration interrompue)\",\n" +
+                "  \"chat_migration_started\": \"Migration des données JSON vers MySQL...\",\n" +
+                "  \"chat_migration_done\": \"{source} : {rows} lignes en {seconds}s ({rate} lignes/s, {skipped} entrées invalides ignorées)\",\n" +
+                "  \"chat_migration_skipped\": \"{source} : rien à migrer (pas de fichier JSON ou MySQL contient déjà des données).\",\n" +
+                "  \"chat_migration_error\": \"{source} : échec de la migration : {error}\",\n" +
+                "  \"chat_migration_requires_mysql\": \"MySQL est désactivé (EnableMySQL), il n'y a pas de destination de migration.\",\n" +
+                "  \"desc_money_metrics\": \"Affiche les métriques de performance de l'économie\",\n" +
+                "  \"chat_metrics_header\": \"=== Métriques de l'économie (depuis le démarrage) ===\",\n" +
+                "  \"chat_metrics_empty\": \"Aucune métrique enregistrée pour l'instant.\",\n" +
+                "  \"desc_money_history\": \"Affiche votre historique de transactions\",\n" +
+                "  \"chat_history_header\": \"Historique des transactions (/money history next pour plus)\",\n" +
+                "  \"chat_history_entry\": \"[{time}] {type} {amount} ({player})\",\n" +
+                "  \"chat_history_empty\": \"Aucune transaction trouvée.\",\n" +
+                "  \"chat_history_disabled\": \"L'historique des transactions est désactivé.\",\n" +
+                "  \"desc_money_export\": \"Exporte tous les soldes vers un fichier JSON\",\n" +
+                "  \"desc_money_import\": \"Importe des soldes depuis un fichier JSON\",\n" +
+                "  \"chat_balances_exported\": \"{count} soldes exportés vers {file}\",\n" +
+                "  \"chat_balances_imported\": \"{count} soldes importés depuis {file}\",\n" +
+                "  \"chat_balances_file_error\": \"Erreur du fichier de soldes : {error}\",\n" +
                 "  \"desc_money_give\": \"Ajoute du solde à un joueur\",\n" +
                 "  \"desc_cash\": \"Système de cash\",\n" +
                 "  \"desc_cash_give\": \"Ajoute du cash à un joueur\",\n" +
@@ -0,0 +1,170 @@
+package com.economy.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histograma log-linear de valores não negativos (latências em ns ou tamanhos de lote).
+ * <p>
+ * Cada potência de 2 é dividida em 8 faixas, então o erro relativo de um percentil é no máximo 12,5%,
+ * com 496 contadores fixos para toda a faixa de {@code long}. Registrar um valor é um incremento atômico
+ * sem alocação e sem lock.
+ */
+public final class MetricsHistogram {
+
+    private static final int SUB_BITS = 3;
+    private static final int SUB_COUNT = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS) * SUB_COUNT + SUB_COUNT;
+
+    private final String name;
+    private final boolean latency;
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    MetricsHistogram(String name, boolean latency) {
+        this.name = name;
+        this.latency = latency;
+    }
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        buckets.getAndIncrement(indexOf(value));
+        sum.add(value);
+        long currentMax = max.get();
+        if (value > currentMax) {
+            max.accumulateAndGet(value, Math::max);
+        }
+    }
+
+    /**
+     * Registra o tempo desde {@code startNanos} (valor de {@link System#nanoTime()})
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * @return Tarefa que registra a própria duração ao rodar (ex: trabalho agendado com {@code world.execute})
+     */
+    public Runnable wrap(Runnable task) {
+        return () -> {
+            long start = System.nanoTime();
+            try {
+                task.run();
+            } finally {
+                recordSince(start);
+            }
+        };
+    }
+
+    static int indexOf(long value) {
+        if (value < SUB_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (exponent - SUB_BITS)) & (SUB_COUNT - 1);
+        return (exponent - SUB_BITS + 1) * SUB_COUNT + sub;
+    }
+
+    /**
+     * @return Maior valor que cai na faixa indicada
+     */
+    static long upperBoundOf(int index) {
+        if (index < SUB_COUNT) {
+            return index;
+        }
+        int exponent = index / SUB_COUNT + SUB_BITS - 1;
+        long sub = index % SUB_COUNT;
+        long lower = (SUB_COUNT + sub) << (exponent - SUB_BITS);
+        return lower + (1L << (exponent - SUB_BITS)) - 1;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return true se os valores são latências em ns (false = quantidades)
+     */
+    public boolean isLatency() {
+        return latency;
+    }
+
+    public Snapshot snapshot() {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] = buckets.get(i);
+            count += counts[i];
+        }
+        return new Snapshot(counts, count, sum.sum(), max.get());
+    }
+
+    /**
+     * Cópia dos contadores em um momento. {@link #minus} dá os valores de um intervalo.
+     */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        /**
+         * @return Valores registrados entre {@code earlier} e este snapshot (o máximo é o limite da maior faixa usada)
+         */
+        public Snapshot minus(Snapshot earlier) {
+            long[] delta = new long[counts.length];
+            long deltaMax = 0;
+            for (int i = 0; i < counts.length; i++) {
+                delta[i] = counts[i] - earlier.counts[i];
+                if (delta[i] > 0) {
+                    deltaMax = Math.min(upperBoundOf(i), max);
+                }
+            }
+            return new Snapshot(delta, count - earlier.count, sum - earlier.sum, deltaMax);
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMax() {
+            return max;
+        }
+
+        public double getMean() {
+            return count == 0 ? 0.0 : (double) sum / count;
+        }
+
+        /**
+         * @param percentile Entre 0 e 100
+         * @return Limite superior da faixa que contém o percentil (0 se vazio)
+         */
+        public long getPercentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(count * percentile / 100.0));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBoundOf(i), max);
+                }
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,318 @@
+package com.economy.storage;
+
+import ch.vorburger.mariadb4j.DB;
+import ch.vorburger.mariadb4j.DBConfigurationBuilder;
+import com.economy.config.EconomyConfig;
+import com.economy.economy.EconomyManager;
+import com.economy.economy.MoneyUnits;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Dois servidores em modo rede ({@code MySQLNetworkMode}) sobre o mesmo MariaDB embutido.
+ * <p>
+ * Cada servidor roda em um class loader próprio ({@link NodeClassLoader}): os singletons do plugin (config,
+ * pool, feed de alterações, managers) existem uma vez por servidor, e cada feed tem o seu id de servidor.
+ */
+class NetworkModeTest {
+
+  private static final String DATABASE = "theeconomy";
+  private static final long FEED_TIMEOUT_MS = 10_000;
+
+  @TempDir
+  static Path universe;
+
+  private static DB db;
+  private static String jdbcUrl;
+  private static Node nodeA;
+  private static Node nodeB;
+
+  /**
+   * O que o teste usa de um servidor; só tipos do JDK atravessam os class loaders
+   */
+  public interface Node {
+    void join(UUID uuid, String name);
+
+    long balance(UUID uuid);
+
+    boolean credit(UUID uuid, long units);
+
+    void set(UUID uuid, long units);
+
+    void simulateOutage();
+
+    boolean transfer(UUID from, UUID to, long units);
+
+    int addShopItem(String itemId, double priceSell, double priceBuy);
+
+    double shopItemPriceBuy(int uniqueId);
+
+    void updateShopItemPriceBuy(int uniqueId, double priceBuy);
+
+    int addPlayerShopItem(UUID owner, String itemId, int stock);
+
+    int playerShopStock(int uniqueId);
+
+    void decreasePlayerShopStock(int uniqueId, int amount);
+
+    void shutdown();
+  }
+
+  @BeforeAll
+  static void startServers() throws Exception {
+    DBConfigurationBuilder builder = DBConfigurationBuilder.newBuilder();
+    builder.setPort(0);
+    // O mariadbd se recusa a rodar como root sem esta opção (ex: em containers)
+    builder.addArg("--user=root");
+    db = DB.newEmbeddedDB(builder.build());
+    db.start();
+    db.createDB(DATABASE);
+    int port = db.getConfiguration().getPort();
+    jdbcUrl = String.format("jdbc:mariadb://localhost:%d/%s", port, DATABASE);
+
+    nodeA = startNode(port, universe.resolve("a"));
+    nodeB = startNode(port, universe.resolve("b"));
+  }
+
+  @AfterAll
+  static void stopServers() throws Exception {
+    if (nodeA != null) {
+      nodeA.shutdown();
+    }
+    if (nodeB != null) {
+      nodeB.shutdown();
+    }
+    if (db != null) {
+      db.stop();
+    }
+  }
+
+  @Test
+  void balanceChangeOnOneServerReachesTheOtherThroughTheFeed() {
+    UUID player = UUID.randomUUID();
+    nodeA.join(player, "FeedPlayer");
+    assertTrue(nodeA.credit(player, MoneyUnits.toUnits(100.0)));
+    // A conta já existe no banco: B a lê ao entrar e daí em diante só usa o cache
+    nodeB.join(player, "FeedPlayer");
+    assertEquals(MoneyUnits.toUnits(100.0), nodeB.balance(player));
+
+    assertTrue(nodeA.credit(player, MoneyUnits.toUnits(25.0)));
+    assertEquals(MoneyUnits.toUnits(125.0), nodeA.balance(player));
+    awaitTrue(() -> nodeB.balance(player) == MoneyUnits.toUnits(125.0),
+            "credit on server A never reached server B");
+
+    assertTrue(nodeB.credit(player, MoneyUnits.toUnits(25.0)));
+    awaitTrue(() -> nodeA.balance(player) == MoneyUnits.toUnits(150.0),
+            "credit on server B never reached server A");
+  }
+
+  @Test
+  void balanceSetOnOneServerReachesTheOtherThroughTheFeed() throws Exception {
+    UUID player = UUID.randomUUID();
+    nodeA.join(player, "SetPlayer");
+    assertTrue(nodeA.credit(player, MoneyUnits.toUnits(10.0)));
+    nodeB.join(player, "SetPlayer");
+
+    // O set não espera o banco: a gravação e o registro no feed vão juntos, na fila de IO da conta
+    nodeA.set(player, MoneyUnits.toUnits(42.0));
+    awaitTrue(() -> nodeB.balance(player) == MoneyUnits.toUnits(42.0), "set on server A never reached server B");
+    assertEquals(MoneyUnits.toUnits(42.0), storedBalance(player));
+  }
+
+  @Test
+  void creditDuringAnOutageIsSpilledAndReplayed() throws Exception {
+    UUID player = UUID.randomUUID();
+    nodeA.join(player, "SpillPlayer");
+    assertTrue(nodeA.credit(player, MoneyUnits.toUnits(10.0)));
+    nodeB.join(player, "SpillPlayer");
+
+    // Com o circuito aberto o crédito vai para o journal; a sonda fecha o circuito e o journal é reaplicado
+    nodeA.simulateOutage();
+    assertTrue(nodeA.credit(player, MoneyUnits.toUnits(5.0)));
+    awaitTrue(() -> {
+      try {
+        return storedBalance(player) == MoneyUnits.toUnits(15.0);
+      } catch (Exception e) {
+        throw new AssertionError(e);
+      }
+    }, "credit spilled during the outage never reached the database");
+    awaitTrue(() -> nodeB.balance(player) == MoneyUnits.toUnits(15.0), "replayed credit never reached server B");
+  }
+
+  @Test
+  void crossServerTransfersNeitherCreateNorDestroyMoney() throws Exception {
+    int players = 20;
+    long initial = MoneyUnits.toUnits(1000.0);
+    List<UUID> uuids = new ArrayList<>();
+    for (int i = 0; i < players; i++) {
+      UUID uuid = UUID.randomUUID();
+      uuids.add(uuid);
+      // Metade dos jogadores em cada servidor, todos pagando e recebendo dos dois lados
+      (i % 2 == 0 ? nodeA : nodeB).join(uuid, "Transfer" + i);
+      assertTrue(nodeA.credit(uuid, initial));
+    }
+    long expectedTotal = initial * players;
+    assertEquals(expectedTotal, sumBalances(uuids));
+
+    AtomicInteger applied = new AtomicInteger();
+    List<Thread> workers = new ArrayList<>();
+    for (Node node : List.of(nodeA, nodeB)) {
+      for (int t = 0; t < 4; t++) {
+        Thread worker = new Thread(() -> {
+          ThreadLocalRandom random = ThreadLocalRandom.current();
+          for (int i = 0; i < 200; i++) {
+            UUID from = uuids.get(random.nextInt(players));
+            UUID to = uuids.get(random.nextInt(players));
+            // Valores altos o bastante para alguns débitos falharem por falta de saldo
+            if (!from.equals(to) && node.transfer(from, to, MoneyUnits.toUnits(random.nextInt(1, 400)))) {
+              applied.incrementAndGet();
+            }
+          }
+        });
+        workers.add(worker);
+        worker.start();
+      }
+    }
+    for (Thread worker : workers) {
+      worker.join(TimeUnit.MINUTES.toMillis(2));
+    }
+
+    assertTrue(applied.get() > 0, "no transfer was applied");
+    assertEquals(expectedTotal, sumBalances(uuids), "transfers created or destroyed money");
+    assertEquals(0, countNegativeBalances(uuids), "a transfer left a negative balance");
+    // Os caches dos dois servidores convergem para o banco
+    for (UUID uuid : uuids) {
+      long stored = storedBalance(uuid);
+      awaitTrue(() -> nodeA.balance(uuid) == stored && nodeB.balance(uuid) == stored,
+              "server caches did not converge for " + uuid);
+    }
+  }
+
+  @Test
+  void shopEditsOnOneServerAppearOnTheOther() {
+    int itemId = nodeA.addShopItem("Network_Test_Item", 5.0, 2.5);
+    awaitTrue(() -> nodeB.shopItemPriceBuy(itemId) == 2.5, "admin shop item added on A never appeared on B");
+
+    nodeB.updateShopItemPriceBuy(itemId, 4.0);
+    awaitTrue(() -> nodeA.shopItemPriceBuy(itemId) == 4.0, "admin shop price changed on B never reached A");
+  }
+
+  @Test
+  void playerShopEditsOnOneServerAppearOnTheOther() {
+    UUID owner = UUID.randomUUID();
+    nodeA.join(owner, "ShopOwner");
+    int itemId = nodeA.addPlayerShopItem(owner, "Network_Test_Item", 64);
+    awaitTrue(() -> nodeB.playerShopStock(itemId) == 64, "player shop item added on A never appeared on B");
+
+    nodeB.decreasePlayerShopStock(itemId, 10);
+    awaitTrue(() -> nodeA.playerShopStock(itemId) == 54, "player shop stock changed on B never reached A");
+  }
+
+  private static Node startNode(int port, Path dir) throws Exception {
+    ClassLoader loader = new NodeClassLoader();
+    Class<?> type = Class.forName(NetworkTestNode.class.getName(), true, loader);
+    return (Node) type.getConstructor(String.class, int.class, String.class, String.class)
+            .newInstance("localhost", port, DATABASE, dir.toString());
+  }
+
+  private static void awaitTrue(BooleanSupplier condition, String message) {
+    long deadline = System.currentTimeMillis() + FEED_TIMEOUT_MS;
+    while (!condition.getAsBoolean()) {
+      assertTrue(System.currentTimeMillis() < deadline, message);
+      try {
+        Thread.sleep(50);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new AssertionError(message, e);
+      }
+    }
+  }
+
+  private static long sumBalances(List<UUID> uuids) throws Exception {
+    long total = 0;
+    for (UUID uuid : uuids) {
+      total += storedBalance(uuid);
+    }
+    return total;
+  }
+
+  private static int countNegativeBalances(List<UUID> uuids) throws Exception {
+    int negative = 0;
+    for (UUID uuid : uuids) {
+      if (storedBalance(uuid) < 0) {
+        negative++;
+      }
+    }
+    return negative;
+  }
+
+  private static long storedBalance(UUID uuid) throws Exception {
+    String table = new EconomyConfig().getMySQLTableName();
+    try (Connection conn = DriverManager.getConnection(jdbcUrl, "root", "");
+         Statement stmt = conn.createStatement();
+         ResultSet rs = stmt.executeQuery(String.format("SELECT Balance FROM `%s` WHERE UUID = '%s'", table, uuid))) {
+      return rs.next() ? MoneyUnits.toUnits(rs.getBigDecimal(1)) : 0L;
+    }
+  }
+
+  /**
+   * Carrega as classes do plugin (e os substitutos do servidor) de novo, sem passar pelo class loader do
+   * teste; o resto (JDK, JDBC, HikariCP, a interface {@link Node}) é compartilhado.
+   */
+  private static final class NodeClassLoader extends URLClassLoader {
+
+    NodeClassLoader() {
+      super(locations(), NetworkModeTest.class.getClassLoader());
+    }
+
+    private static URL[] locations() {
+      Set<URL> urls = new LinkedHashSet<>();
+      for (Class<?> type : List.of(EconomyManager.class, com.economy.Main.class,
+              com.hypixel.hytale.logger.HytaleLogger.class, NetworkTestNode.class)) {
+        urls.add(type.getProtectionDomain().getCodeSource().getLocation());
+      }
+      return urls.toArray(URL[]::new);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+      boolean isolated = (name.startsWith("com.economy.") || name.startsWith("com.hypixel."))
+              && !name.startsWith(NetworkModeTest.class.getName());
+      if (!isolated) {
+        return super.loadClass(name, resolve);
+      }
+      synchronized (getClassLoadingLock(name)) {
+        Class<?> type = findLoadedClass(name);
+        if (type == null) {
+          type = findClass(name);
+        }
+        if (resolve) {
+          resolveClass(type);
+        }
+        return type;
+      }
+    }
+  }
+}
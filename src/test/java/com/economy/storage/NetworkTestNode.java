@@ -0,0 +1,118 @@
+package com.economy.storage;
+
+import com.economy.Main;
+import com.economy.config.EconomyConfig;
+import com.economy.economy.CurrencyType;
+import com.economy.economy.EconomyManager;
+import com.economy.playershop.PlayerShopItem;
+import com.economy.playershop.PlayerShopManager;
+import com.economy.shop.ShopItem;
+import com.economy.shop.ShopManager;
+import com.hypixel.hytale.server.core.util.Config;
+
+import java.sql.SQLTransientConnectionException;
+import java.util.UUID;
+
+/**
+ * Um servidor do {@link NetworkModeTest}. Cada instância é carregada em um class loader próprio, então tem
+ * os seus singletons (config, pool, feed de alterações, managers), como um servidor de verdade.
+ */
+public class NetworkTestNode implements NetworkModeTest.Node {
+
+  public NetworkTestNode(String host, int port, String database, String universeDir) {
+    // Lido pelo Constants substituto na primeira vez que a pasta do plugin é usada neste class loader
+    System.setProperty("economy.bench.dir", universeDir);
+
+    EconomyConfig config = new EconomyConfig();
+    config.setEnableMySQL(true);
+    config.setMySQLHost(host);
+    config.setMySQLPort(port);
+    config.setMySQLUser("root");
+    config.setMySQLPassword("");
+    config.setMySQLDatabaseName(database);
+    config.setMySQLNetworkMode(true);
+    config.setMySQLChangeFeedPollMs(100);
+    // A conferência periódica esconderia um feed quebrado
+    config.setMySQLNetworkRefreshSeconds(3600);
+    config.setEnableLedger(false);
+    Main.CONFIG = new Config<>(config);
+
+    EconomyManager.getInstance();
+    ShopManager.getInstance();
+    PlayerShopManager.getInstance();
+  }
+
+  @Override
+  public void join(UUID uuid, String name) {
+    EconomyManager.getInstance().prefetchAccount(uuid);
+    EconomyManager.getInstance().setPlayerName(uuid, name);
+  }
+
+  @Override
+  public long balance(UUID uuid) {
+    return EconomyManager.getInstance().getBalanceUnits(uuid);
+  }
+
+  @Override
+  public boolean credit(UUID uuid, long units) {
+    return EconomyManager.getInstance().addBalanceUnits(uuid, units);
+  }
+
+  @Override
+  public void set(UUID uuid, long units) {
+    EconomyManager.getInstance().setBalanceUnits(uuid, units);
+  }
+
+  @Override
+  public void simulateOutage() {
+    MySQLCircuitBreaker.getInstance().recordFailure(new SQLTransientConnectionException("Simulated outage"));
+  }
+
+  @Override
+  public boolean transfer(UUID from, UUID to, long units) {
+    return EconomyManager.getInstance().transferUnits(from, to, units, CurrencyType.MONEY);
+  }
+
+  @Override
+  public int addShopItem(String itemId, double priceSell, double priceBuy) {
+    return ShopManager.getInstance().addItem(itemId, 1, priceSell, priceBuy).getUniqueId();
+  }
+
+  @Override
+  public double shopItemPriceBuy(int uniqueId) {
+    ShopItem item = ShopManager.getInstance().getItem(uniqueId);
+    return item != null ? item.getPriceBuy() : -1;
+  }
+
+  @Override
+  public void updateShopItemPriceBuy(int uniqueId, double priceBuy) {
+    ShopItem item = ShopManager.getInstance().getItem(uniqueId);
+    item.setPriceBuy(priceBuy);
+    ShopManager.getInstance().updateItem(item, 0);
+  }
+
+  @Override
+  public int addPlayerShopItem(UUID owner, String itemId, int stock) {
+    PlayerShopItem item = PlayerShopManager.getInstance().addItem(itemId, 1, 7.5, 3.0, owner, 0.0, stock);
+    PlayerShopManager.getInstance().setShopOpen(owner, true);
+    return item.getUniqueId();
+  }
+
+  @Override
+  public int playerShopStock(int uniqueId) {
+    PlayerShopItem item = PlayerShopManager.getInstance().getItem(uniqueId);
+    return item != null ? item.getStock() : -1;
+  }
+
+  @Override
+  public void decreasePlayerShopStock(int uniqueId, int amount) {
+    PlayerShopManager.getInstance().decreaseStock(uniqueId, amount);
+  }
+
+  @Override
+  public void shutdown() {
+    ShopManager.getInstance().shutdown();
+    PlayerShopManager.getInstance().shutdown();
+    EconomyManager.getInstance().shutdown();
+  }
+}